@@ -1,38 +1,71 @@
 package org.nullpointers.client;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.URI;
+import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.util.Map;
 import org.apache.hc.client5.http.classic.methods.HttpDelete;
 import org.apache.hc.client5.http.classic.methods.HttpGet;
 import org.apache.hc.client5.http.classic.methods.HttpPost;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
 import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
 import org.apache.hc.core5.http.io.entity.EntityUtils;
 import org.apache.hc.core5.http.io.entity.StringEntity;
 
 /**
  * HTTP client wrapper for calling the Coupon Management System API.
+ *
+ * <p>Requests and responses are JSON unless the client is created in binary mode, in
+ * which case they are CBOR and carts send their item IDs packed (see {@link PackedIds}).
+ * Results are returned as Gson elements either way.
  */
 public class ApiClient {
+  private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+  private static final ContentType CBOR = ContentType.create("application/cbor");
+
   private final String baseUrl;
   private final CloseableHttpClient httpClient;
   private final Gson gson;
+  private final CBORMapper cborMapper;
 
   /**
-   * Creates a new API client.
+   * Creates a new API client that speaks JSON.
    *
    * @param baseUrl The base URL of the service (e.g., "http://localhost:8080")
    */
   public ApiClient(String baseUrl) {
+    this(baseUrl, false);
+  }
+
+  /**
+   * Creates a new API client.
+   *
+   * @param baseUrl The base URL of the service (e.g., "http://localhost:8080")
+   * @param binary Whether to exchange CBOR instead of JSON, which is smaller and cheaper
+   *     to encode and decode
+   */
+  public ApiClient(String baseUrl, boolean binary) {
     this.baseUrl = baseUrl;
     this.httpClient = HttpClients.createDefault();
     this.gson = new Gson();
+    this.cborMapper = binary ? new CBORMapper() : null;
   }
 
   /**
@@ -140,16 +173,7 @@ public class ApiClient {
    * @throws IOException if the request fails
    */
   public JsonElement findOptimalCoupon(int[] itemIds, int storeId) throws IOException {
-    JsonObject requestBody = new JsonObject();
-    JsonArray itemIdsArray = new JsonArray();
-    for (int id : itemIds) {
-      itemIdsArray.add(id);
-    }
-    requestBody.add("itemIds", itemIdsArray);
-    requestBody.addProperty("storeId", storeId);
-
-    String response = postRaw("/cart/optimal-coupon", requestBody);
-    return gson.fromJson(response, JsonElement.class);
+    return postCart("/cart/optimal-coupon", itemIds, storeId, null);
   }
 
   /**
@@ -184,17 +208,7 @@ public class ApiClient {
    * @throws IOException if the request fails
    */
   public JsonElement suggestItems(int[] itemIds, int storeId, int couponId) throws IOException {
-    JsonObject requestBody = new JsonObject();
-    JsonArray itemIdsArray = new JsonArray();
-    for (int id : itemIds) {
-      itemIdsArray.add(id);
-    }
-    requestBody.add("itemIds", itemIdsArray);
-    requestBody.addProperty("storeId", storeId);
-    requestBody.addProperty("couponId", couponId);
-
-    String response = postRaw("/cart/suggest-items", requestBody);
-    return gson.fromJson(response, JsonElement.class);
+    return postCart("/cart/suggest-items", itemIds, storeId, couponId);
   }
 
   /**
@@ -205,7 +219,7 @@ public class ApiClient {
    * @throws IOException if the request fails
    */
   public JsonArray getItemsByStore(int storeId) throws IOException {
-    return get("/items/store/" + storeId).getAsJsonArray();
+    return getAllPages("/items/store/" + storeId);
   }
 
   /**
@@ -216,7 +230,7 @@ public class ApiClient {
    * @throws IOException if the request fails
    */
   public JsonArray getCouponsByStore(int storeId) throws IOException {
-    return get("/coupons/store/" + storeId).getAsJsonArray();
+    return getAllPages("/coupons/store/" + storeId);
   }
 
   /**
@@ -228,28 +242,71 @@ public class ApiClient {
    * @throws IOException if the request fails
    */
   private JsonObject post(String endpoint, JsonObject requestBody) throws IOException {
-    String response = postRaw(endpoint, requestBody);
-    return gson.fromJson(response, JsonObject.class);
+    return gson.fromJson(postRaw(endpoint, requestBody), JsonObject.class);
   }
 
   /**
-   * Performs a POST request and returns raw response.
+   * Performs a POST request and returns the parsed response.
    *
    * @param endpoint The API endpoint
    * @param requestBody The request body as JsonObject
-   * @return The response as String
+   * @return The response as JsonElement
    * @throws IOException if the request fails
    */
-  private String postRaw(String endpoint, JsonObject requestBody) throws IOException {
+  private JsonElement postRaw(String endpoint, JsonObject requestBody) throws IOException {
     HttpPost request = new HttpPost(URI.create(baseUrl + endpoint));
-    request.setHeader("Content-Type", "application/json");
-    request.setEntity(new StringEntity(gson.toJson(requestBody), StandardCharsets.UTF_8));
+    if (cborMapper == null) {
+      request.setHeader("Content-Type", "application/json");
+      request.setEntity(new StringEntity(gson.toJson(requestBody), StandardCharsets.UTF_8));
+    } else {
+      ByteArrayOutputStream body = new ByteArrayOutputStream();
+      try (JsonGenerator generator = cborMapper.createGenerator(body)) {
+        write(generator, requestBody);
+      }
+      request.setEntity(new ByteArrayEntity(body.toByteArray(), CBOR));
+    }
+    return execute(request).body;
+  }
 
-    try (CloseableHttpResponse response = httpClient.execute(request)) {
-      return EntityUtils.toString(response.getEntity());
-    } catch (org.apache.hc.core5.http.ParseException e) {
-      throw new IOException("Failed to parse response", e);
+  /**
+   * Performs a POST request with a cart. In binary mode the item IDs are sent packed.
+   *
+   * @param endpoint The cart endpoint
+   * @param itemIds The cart item IDs
+   * @param storeId The store ID
+   * @param couponId The coupon ID, or null if the endpoint does not take one
+   * @return The response as JsonElement
+   * @throws IOException if the request fails
+   */
+  private JsonElement postCart(String endpoint, int[] itemIds, int storeId, Integer couponId)
+      throws IOException {
+    if (cborMapper == null) {
+      JsonObject requestBody = new JsonObject();
+      JsonArray itemIdsArray = new JsonArray();
+      for (int id : itemIds) {
+        itemIdsArray.add(id);
+      }
+      requestBody.add("itemIds", itemIdsArray);
+      requestBody.addProperty("storeId", storeId);
+      if (couponId != null) {
+        requestBody.addProperty("couponId", couponId);
+      }
+      return postRaw(endpoint, requestBody);
+    }
+
+    ByteArrayOutputStream body = new ByteArrayOutputStream(32 + itemIds.length * 3);
+    try (JsonGenerator generator = cborMapper.createGenerator(body)) {
+      generator.writeStartObject();
+      generator.writeBinaryField("itemIds", PackedIds.pack(itemIds));
+      generator.writeNumberField("storeId", storeId);
+      if (couponId != null) {
+        generator.writeNumberField("couponId", couponId);
+      }
+      generator.writeEndObject();
     }
+    HttpPost request = new HttpPost(URI.create(baseUrl + endpoint));
+    request.setEntity(new ByteArrayEntity(body.toByteArray(), CBOR));
+    return execute(request).body;
   }
 
   /**
@@ -260,15 +317,130 @@ public class ApiClient {
    * @throws IOException if the request fails
    */
   private JsonElement get(String endpoint) throws IOException {
-    HttpGet request = new HttpGet(URI.create(baseUrl + endpoint));
+    return execute(new HttpGet(URI.create(baseUrl + endpoint))).body;
+  }
+
+  /**
+   * Performs GET requests on a paginated list endpoint, following the next-page cursor
+   * until the last page.
+   *
+   * @param endpoint The API endpoint, without query parameters
+   * @return The rows of every page, in order
+   * @throws IOException if a request fails
+   */
+  private JsonArray getAllPages(String endpoint) throws IOException {
+    JsonArray rows = new JsonArray();
+    String cursor = null;
+    do {
+      String url = baseUrl + endpoint
+          + (cursor == null ? "" : "?cursor=" + URLEncoder.encode(cursor, StandardCharsets.UTF_8));
+      Response response = execute(new HttpGet(URI.create(url)));
+      rows.addAll(response.body.getAsJsonArray());
+      cursor = response.nextCursor;
+    } while (cursor != null);
+    return rows;
+  }
+
+  /**
+   * Sends a request, asking for CBOR in binary mode, and parses the response body in
+   * whichever format the server answered with.
+   *
+   * @param request The request
+   * @return The parsed body and the next-page cursor, if any
+   * @throws IOException if the request fails
+   */
+  private Response execute(ClassicHttpRequest request) throws IOException {
+    if (cborMapper != null) {
+      request.setHeader("Accept", CBOR.getMimeType());
+    }
     try (CloseableHttpResponse response = httpClient.execute(request)) {
-      String responseBody = EntityUtils.toString(response.getEntity());
-      return gson.fromJson(responseBody, JsonElement.class);
+      HttpEntity entity = response.getEntity();
+      JsonElement body;
+      if (cborMapper != null && entity.getContentType() != null
+          && entity.getContentType().startsWith(CBOR.getMimeType())) {
+        body = toGson(cborMapper.readTree(EntityUtils.toByteArray(entity)));
+      } else {
+        body = gson.fromJson(EntityUtils.toString(entity), JsonElement.class);
+      }
+      Header next = response.getFirstHeader(NEXT_CURSOR_HEADER);
+      return new Response(body, next == null ? null : next.getValue());
     } catch (org.apache.hc.core5.http.ParseException e) {
       throw new IOException("Failed to parse response", e);
     }
   }
 
+  /**
+   * Writes a Gson element as CBOR, keeping integers as integers.
+   */
+  private static void write(JsonGenerator generator, JsonElement element) throws IOException {
+    if (element.isJsonObject()) {
+      generator.writeStartObject();
+      for (Map.Entry<String, JsonElement> field : element.getAsJsonObject().entrySet()) {
+        generator.writeFieldName(field.getKey());
+        write(generator, field.getValue());
+      }
+      generator.writeEndObject();
+    } else if (element.isJsonArray()) {
+      generator.writeStartArray();
+      for (JsonElement value : element.getAsJsonArray()) {
+        write(generator, value);
+      }
+      generator.writeEndArray();
+    } else if (element.isJsonNull()) {
+      generator.writeNull();
+    } else if (element.getAsJsonPrimitive().isBoolean()) {
+      generator.writeBoolean(element.getAsBoolean());
+    } else if (element.getAsJsonPrimitive().isNumber()) {
+      Number number = element.getAsNumber();
+      if (number instanceof Integer || number instanceof Long) {
+        generator.writeNumber(number.longValue());
+      } else {
+        generator.writeNumber(number.doubleValue());
+      }
+    } else {
+      generator.writeString(element.getAsString());
+    }
+  }
+
+  /**
+   * Converts a decoded CBOR document to the Gson element the same JSON would parse to.
+   * Byte strings become base64 text, as Jackson writes them in JSON.
+   */
+  private static JsonElement toGson(JsonNode node) {
+    if (node.isObject()) {
+      JsonObject object = new JsonObject();
+      node.fields().forEachRemaining(field ->
+          object.add(field.getKey(), toGson(field.getValue())));
+      return object;
+    }
+    if (node.isArray()) {
+      JsonArray array = new JsonArray(node.size());
+      node.forEach(element -> array.add(toGson(element)));
+      return array;
+    }
+    if (node.isNumber()) {
+      return new JsonPrimitive(node.numberValue());
+    }
+    if (node.isBoolean()) {
+      return new JsonPrimitive(node.booleanValue());
+    }
+    return node.isNull() || node.isMissingNode() ? JsonNull.INSTANCE
+        : new JsonPrimitive(node.asText());
+  }
+
+  /**
+   * A parsed response body and the cursor of the next page, if the server sent one.
+   */
+  private static final class Response {
+    private final JsonElement body;
+    private final String nextCursor;
+
+    private Response(JsonElement body, String nextCursor) {
+      this.body = body;
+      this.nextCursor = nextCursor;
+    }
+  }
+
   /**
    * Closes the HTTP client.
    *
@@ -0,0 +1,38 @@
+package org.nullpointers.client;
+
+import java.util.Arrays;
+
+/**
+ * Packs cart item IDs the way the service's binary format expects them: each ID as its
+ * difference from the previous one, zigzag-mapped and written as an unsigned LEB128
+ * varint, so IDs close together take one or two bytes each.
+ */
+final class PackedIds {
+  private static final int MAX_VARINT_BYTES = 5;
+
+  private PackedIds() {
+  }
+
+  /**
+   * Packs item IDs, keeping their order.
+   *
+   * @param ids The item IDs
+   * @return The packed bytes
+   */
+  static byte[] pack(int[] ids) {
+    byte[] packed = new byte[ids.length * MAX_VARINT_BYTES];
+    int length = 0;
+    int previous = 0;
+    for (int id : ids) {
+      int delta = id - previous;
+      int zigzag = (delta << 1) ^ (delta >> 31);
+      while ((zigzag & ~0x7F) != 0) {
+        packed[length++] = (byte) (zigzag & 0x7F | 0x80);
+        zigzag >>>= 7;
+      }
+      packed[length++] = (byte) zigzag;
+      previous = id;
+    }
+    return Arrays.copyOf(packed, length);
+  }
+}
@@ -2,12 +2,14 @@ package org.nullpointers.couponsystem;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Main application class for the Coupon Management System.
  * This class bootstraps the Spring Boot application.
  */
 @SpringBootApplication
+@EnableScheduling
 public class CouponSystemApplication {
 
   public static void main(String[] args) {
@@ -0,0 +1,271 @@
+package org.nullpointers.couponsystem.catalog;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.IntPredicate;
+import java.util.function.UnaryOperator;
+import java.util.stream.IntStream;
+import org.nullpointers.couponsystem.model.Coupon;
+import org.nullpointers.couponsystem.model.Item;
+import org.nullpointers.couponsystem.model.Store;
+
+/**
+ * Application event describing one committed change to a store, item, or coupon.
+ * Published by {@code DataService} and applied to the {@link CatalogReplica}.
+ */
+public final class CatalogChangeEvent {
+  /**
+   * Kind of entity that changed.
+   */
+  public enum EntityType {
+    STORE, ITEM, COUPON
+  }
+
+  private static final int NO_STORE = Integer.MIN_VALUE;
+
+  private final EntityType entityType;
+  private final int id;
+  private final Object entity;
+  private final int[] deletedIds;
+  private final boolean update;
+
+  private CatalogChangeEvent(EntityType entityType, int id, Object entity, int[] deletedIds) {
+    this(entityType, id, entity, deletedIds, false);
+  }
+
+  private CatalogChangeEvent(EntityType entityType, int id, Object entity, int[] deletedIds,
+                             boolean update) {
+    this.entityType = entityType;
+    this.id = id;
+    this.entity = entity;
+    this.deletedIds = deletedIds;
+    this.update = update;
+  }
+
+  public static CatalogChangeEvent saved(Store store) {
+    return new CatalogChangeEvent(EntityType.STORE, store.getId(), store, null);
+  }
+
+  public static CatalogChangeEvent saved(Item item) {
+    return new CatalogChangeEvent(EntityType.ITEM, item.getId(), item, null);
+  }
+
+  public static CatalogChangeEvent saved(Coupon coupon) {
+    return new CatalogChangeEvent(EntityType.COUPON, coupon.getId(), coupon, null);
+  }
+
+  /**
+   * Creates an event for many items saved together.
+   *
+   * @param items the saved items
+   * @return the event
+   */
+  public static CatalogChangeEvent savedItems(List<Item> items) {
+    return new CatalogChangeEvent(EntityType.ITEM, 0, List.copyOf(items), null);
+  }
+
+  /**
+   * Creates an event for many existing items changed together, such as by a repricing.
+   *
+   * @param items the updated items
+   * @return the event
+   */
+  public static CatalogChangeEvent updatedItems(List<Item> items) {
+    return new CatalogChangeEvent(EntityType.ITEM, 0, List.copyOf(items), null, true);
+  }
+
+  /**
+   * Creates an event for many coupons saved together.
+   *
+   * @param coupons the saved coupons
+   * @return the event
+   */
+  public static CatalogChangeEvent savedCoupons(List<Coupon> coupons) {
+    return new CatalogChangeEvent(EntityType.COUPON, 0, List.copyOf(coupons), null);
+  }
+
+  public static CatalogChangeEvent deleted(EntityType entityType, int id) {
+    return new CatalogChangeEvent(entityType, id, null, null);
+  }
+
+  /**
+   * Creates an event for many items or coupons deleted together.
+   *
+   * @param entityType {@link EntityType#ITEM} or {@link EntityType#COUPON}
+   * @param ids the deleted IDs
+   * @return the event
+   */
+  public static CatalogChangeEvent deletedAll(EntityType entityType, Collection<Integer> ids) {
+    return new CatalogChangeEvent(entityType, 0, null,
+        ids.stream().mapToInt(Integer::intValue).sorted().distinct().toArray());
+  }
+
+  public EntityType getEntityType() {
+    return entityType;
+  }
+
+  /**
+   * Returns the ID of the changed entity.
+   *
+   * @return the ID, or 0 for a batch
+   */
+  public int getId() {
+    return id;
+  }
+
+  /**
+   * Returns the saved entity.
+   *
+   * @return the entity, the list of entities for a batch, or null if this event is a
+   *     delete
+   */
+  public Object getEntity() {
+    return entity;
+  }
+
+  /**
+   * Returns the IDs removed by a batch delete.
+   *
+   * @return the IDs in ascending order, or null if this event is not a batch delete
+   */
+  public int[] getDeletedIds() {
+    return deletedIds == null ? null : deletedIds.clone();
+  }
+
+  public boolean isDelete() {
+    return entity == null;
+  }
+
+  /**
+   * Tells whether the saved entities existed before this change. Stores and coupons are
+   * only ever created or deleted.
+   *
+   * @return true for an update of existing items, false for creations and deletes
+   */
+  public boolean isUpdate() {
+    return update;
+  }
+
+  public boolean isBatch() {
+    return entity instanceof List || deletedIds != null;
+  }
+
+  /**
+   * Returns this change without the saved entities whose IDs match, such as entities that
+   * were deleted after this change was committed. Deletes are returned unchanged.
+   *
+   * @param dropped tells which IDs to leave out
+   * @return this event if nothing is left out, a new event with the remaining entities,
+   *     or null if none remain
+   */
+  public CatalogChangeEvent without(IntPredicate dropped) {
+    if (isDelete()) {
+      return this;
+    }
+    if (!isBatch()) {
+      return dropped.test(id) ? null : this;
+    }
+    List<?> saved = (List<?>) entity;
+    List<?> kept = saved.stream().filter(each -> !dropped.test(idOf(each))).toList();
+    if (kept.size() == saved.size()) {
+      return this;
+    }
+    return kept.isEmpty() ? null : new CatalogChangeEvent(entityType, 0, kept, null, update);
+  }
+
+  /**
+   * Applies this change to a snapshot.
+   *
+   * @param snapshot the snapshot to update
+   * @return the updated snapshot
+   */
+  public CatalogSnapshot applyTo(CatalogSnapshot snapshot) {
+    return prepare(snapshot).apply(snapshot);
+  }
+
+  /**
+   * Builds the patch for this change from a snapshot. The patch may be applied to a
+   * later snapshot as long as the stores in {@link #touchedStores} have not changed.
+   *
+   * @param snapshot the snapshot to build the new store views from
+   * @return the patch
+   */
+  public UnaryOperator<CatalogSnapshot> prepare(CatalogSnapshot snapshot) {
+    switch (entityType) {
+      case STORE:
+        return isDelete() ? snapshot.prepareStoreRemoval(id)
+            : snapshot.prepareStore((Store) entity);
+      case ITEM:
+        if (isBatch()) {
+          return isDelete() ? snapshot.prepareItemsRemoval(deletedIds)
+              : snapshot.prepareItems(batch());
+        }
+        return isDelete() ? snapshot.prepareItemRemoval(id) : snapshot.prepareItem((Item) entity);
+      default:
+        if (isBatch()) {
+          return isDelete() ? snapshot.prepareCouponsRemoval(deletedIds)
+              : snapshot.prepareCoupons(batch());
+        }
+        return isDelete() ? snapshot.prepareCouponRemoval(id)
+            : snapshot.prepareCoupon((Coupon) entity);
+    }
+  }
+
+  /**
+   * Returns the IDs of the stores this change would modify if applied to a snapshot:
+   * the store itself, or the store an item or coupon leaves and the one it joins.
+   *
+   * @param snapshot the snapshot the change would be applied to
+   * @return the distinct store IDs, possibly empty
+   */
+  public int[] touchedStores(CatalogSnapshot snapshot) {
+    if (entityType == EntityType.STORE) {
+      return new int[] {id};
+    }
+    if (deletedIds != null) {
+      return Arrays.stream(deletedIds).mapToObj(deleted -> entityType == EntityType.ITEM
+              ? snapshot.getItem(deleted) : snapshot.getCoupon(deleted))
+          .filter(Objects::nonNull).mapToInt(CatalogChangeEvent::storeIdOf).distinct().sorted()
+          .toArray();
+    }
+    if (isBatch()) {
+      return ((List<?>) entity).stream().flatMapToInt(saved -> {
+        Object previous = current(snapshot, idOf(saved));
+        return previous == null ? IntStream.of(storeIdOf(saved))
+            : IntStream.of(storeIdOf(previous), storeIdOf(saved));
+      }).distinct().sorted().toArray();
+    }
+    int previous = currentStoreId(snapshot);
+    int next = isDelete() ? previous : storeIdOf(entity);
+    if (previous == NO_STORE || previous == next) {
+      return next == NO_STORE ? new int[0] : new int[] {next};
+    }
+    return new int[] {previous, next};
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> List<T> batch() {
+    return (List<T>) entity;
+  }
+
+  private int currentStoreId(CatalogSnapshot snapshot) {
+    Object current = current(snapshot, id);
+    return current == null ? NO_STORE : storeIdOf(current);
+  }
+
+  private Object current(CatalogSnapshot snapshot, int entityId) {
+    return entityType == EntityType.ITEM ? snapshot.getItem(entityId)
+        : snapshot.getCoupon(entityId);
+  }
+
+  private static int idOf(Object entity) {
+    return entity instanceof Item ? ((Item) entity).getId() : ((Coupon) entity).getId();
+  }
+
+  private static int storeIdOf(Object entity) {
+    return entity instanceof Item ? ((Item) entity).getStoreId()
+        : ((Coupon) entity).getStoreId();
+  }
+}
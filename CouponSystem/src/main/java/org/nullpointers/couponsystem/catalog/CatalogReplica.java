@@ -0,0 +1,338 @@
+package org.nullpointers.couponsystem.catalog;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+import java.util.function.UnaryOperator;
+import org.nullpointers.couponsystem.model.Coupon;
+import org.nullpointers.couponsystem.model.Item;
+import org.nullpointers.couponsystem.model.Store;
+import org.nullpointers.couponsystem.repository.CouponRepository;
+import org.nullpointers.couponsystem.repository.ItemRepository;
+import org.nullpointers.couponsystem.repository.StoreRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * In-memory replica of every store, item, and coupon, used as the read path once
+ * loaded. The replica is loaded from the database in ID-ordered batches when the
+ * application starts, then kept current by {@link CatalogChangeEvent}s that
+ * {@code DataService} publishes after each committed write.
+ *
+ * <p>Readers take the current {@link CatalogSnapshot} from an atomic reference and never
+ * lock. Writers lock the stripes of the stores they change, so writes to different
+ * stores run in parallel, build the new per-store views off the read path, and then
+ * publish them with a compare-and-set that retries only the cheap by-ID map updates
+ * when another store's writer published first.
+ *
+ * <p>Changes arrive in the order their threads reach the locks, not the order they
+ * committed. An item older than the one held, by its {@link Item#getVersion() version},
+ * is therefore ignored, and the IDs of deleted entities are kept, one bit each, so a save
+ * that arrives after the delete of its entity cannot bring it back. IDs are never reused.
+ */
+@Component
+public class CatalogReplica {
+  private static final int LOCK_STRIPES = 64;
+
+  private final StoreRepository storeRepository;
+  private final ItemRepository itemRepository;
+  private final CouponRepository couponRepository;
+  private final CatalogVersions catalogVersions;
+  private final boolean enabled;
+  private final int loadBatchSize;
+  private final ReentrantLock[] stripes = new ReentrantLock[LOCK_STRIPES];
+  private final AtomicReference<CatalogSnapshot> root =
+      new AtomicReference<>(CatalogSnapshot.EMPTY);
+  /** Deleted IDs by entity type; kept across a reload, since late saves may follow it. */
+  private final BitSet[] deleted = new BitSet[CatalogChangeEvent.EntityType.values().length];
+  /**
+   * Saves are checked against the deleted IDs and applied under the read lock, and deletes
+   * recorded under the write lock, so either a save sees the delete or the delete, applied
+   * afterwards, sees the saved entity.
+   */
+  private final ReentrantReadWriteLock deletes = new ReentrantReadWriteLock();
+
+  private volatile boolean ready;
+  private volatile long loadMillis;
+
+  /**
+   * Creates the replica.
+   *
+   * @param storeRepository the store repository
+   * @param itemRepository the item repository
+   * @param couponRepository the coupon repository
+   * @param catalogVersions the store versions to raise as changes are applied
+   * @param enabled whether the replica is loaded and used for reads
+   * @param loadBatchSize how many rows to read per query while loading
+   */
+  @Autowired
+  public CatalogReplica(StoreRepository storeRepository, ItemRepository itemRepository,
+                        CouponRepository couponRepository, CatalogVersions catalogVersions,
+                        @Value("${couponsystem.catalog.replica.enabled:true}") boolean enabled,
+                        @Value("${couponsystem.catalog.replica.load-batch-size:10000}")
+                        int loadBatchSize) {
+    this.storeRepository = storeRepository;
+    this.itemRepository = itemRepository;
+    this.couponRepository = couponRepository;
+    this.catalogVersions = catalogVersions;
+    this.enabled = enabled;
+    this.loadBatchSize = loadBatchSize;
+    Arrays.setAll(stripes, i -> new ReentrantLock());
+    Arrays.setAll(deleted, i -> new BitSet());
+  }
+
+  /**
+   * Returns whether the replica has been loaded and can serve reads.
+   *
+   * @return true if reads may use {@link #snapshot()}
+   */
+  public boolean isReady() {
+    return ready;
+  }
+
+  /**
+   * Returns the current snapshot. The snapshot never changes, so a caller that
+   * makes several reads from it sees one consistent state.
+   *
+   * @return the current snapshot
+   */
+  public CatalogSnapshot snapshot() {
+    return root.get();
+  }
+
+  /**
+   * Loads the whole catalog from the database and starts serving reads.
+   * Changes committed while loading are applied afterwards, in order.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void load() {
+    if (!enabled) {
+      return;
+    }
+    lockAll();
+    try {
+      final long start = System.nanoTime();
+      CatalogSnapshot.Builder builder = new CatalogSnapshot.Builder();
+      loadInBatches(storeRepository::findByIdGreaterThanOrderByIdAsc, Store::getId,
+          builder::addStore);
+      loadInBatches(itemRepository::findByIdGreaterThanOrderByIdAsc, Item::getId,
+          builder::addItem);
+      loadInBatches(couponRepository::findByIdGreaterThanOrderByIdAsc, Coupon::getId,
+          builder::addCoupon);
+      root.set(builder.build());
+      loadMillis = (System.nanoTime() - start) / 1_000_000;
+      ready = true;
+    } finally {
+      unlockAll();
+    }
+  }
+
+  private <T> void loadInBatches(BiFunction<Integer, Limit, List<T>> query,
+                                 ToIntFunction<T> idOf, Consumer<T> sink) {
+    Limit limit = Limit.of(loadBatchSize);
+    int after = Integer.MIN_VALUE;
+    List<T> batch;
+    do {
+      batch = query.apply(after, limit);
+      batch.forEach(sink);
+      if (!batch.isEmpty()) {
+        after = idOf.applyAsInt(batch.get(batch.size() - 1));
+      }
+    } while (batch.size() == loadBatchSize);
+  }
+
+  /**
+   * Applies a committed change and then raises the versions of the stores it touched, so
+   * a version is never paired with an older state. Runs after the surrounding transaction
+   * commits, or immediately when there is none; changes from rolled-back transactions are
+   * dropped.
+   *
+   * @param event the change
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onCatalogChange(CatalogChangeEvent event) {
+    if (!enabled || !ready) {
+      catalogVersions.bumpAll();
+    }
+    if (!enabled) {
+      return;
+    }
+    if (event.isDelete()) {
+      recordDeleted(event);
+    }
+    while (true) {
+      int[] storeIds = event.touchedStores(root.get());
+      int[] locked = lock(storeIds);
+      try {
+        CatalogSnapshot base = root.get();
+        // An item or coupon may have moved stores before the locks were taken
+        if (Arrays.equals(storeIds, event.touchedStores(base))) {
+          apply(event, base);
+          catalogVersions.bump(storeIds);
+          return;
+        }
+      } finally {
+        unlock(locked);
+      }
+    }
+  }
+
+  /**
+   * Tells whether an entity was deleted since the application started.
+   *
+   * @param entityType the kind of entity
+   * @param id the entity's ID
+   * @return true if a committed delete of the entity has reached the replica
+   */
+  public boolean isDeleted(CatalogChangeEvent.EntityType entityType, int id) {
+    deletes.readLock().lock();
+    try {
+      return id >= 0 && deleted[entityType.ordinal()].get(id);
+    } finally {
+      deletes.readLock().unlock();
+    }
+  }
+
+  /**
+   * Applies a change, leaving out entities that were deleted. Must hold the stripe locks
+   * of the stores the change touches.
+   */
+  private void apply(CatalogChangeEvent event, CatalogSnapshot base) {
+    deletes.readLock().lock();
+    try {
+      BitSet ids = deleted[event.getEntityType().ordinal()];
+      CatalogChangeEvent live = event.without(id -> id >= 0 && ids.get(id));
+      if (live != null) {
+        UnaryOperator<CatalogSnapshot> patch = live.prepare(base);
+        root.updateAndGet(patch);
+      }
+    } finally {
+      deletes.readLock().unlock();
+    }
+  }
+
+  private void recordDeleted(CatalogChangeEvent event) {
+    int[] ids = event.isBatch() ? event.getDeletedIds() : new int[] {event.getId()};
+    deletes.writeLock().lock();
+    try {
+      BitSet bits = deleted[event.getEntityType().ordinal()];
+      Arrays.stream(ids).filter(id -> id >= 0).forEach(bits::set);
+    } finally {
+      deletes.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Locks the stripes of the given stores in ascending stripe order.
+   *
+   * @return the distinct locked stripe indexes, for {@link #unlock}
+   */
+  private int[] lock(int[] storeIds) {
+    int[] locked = Arrays.stream(storeIds).map(CatalogReplica::stripeOf).sorted().distinct()
+        .toArray();
+    for (int stripe : locked) {
+      stripes[stripe].lock();
+    }
+    return locked;
+  }
+
+  private void unlock(int[] locked) {
+    for (int i = locked.length - 1; i >= 0; i--) {
+      stripes[locked[i]].unlock();
+    }
+  }
+
+  private void lockAll() {
+    for (ReentrantLock stripe : stripes) {
+      stripe.lock();
+    }
+  }
+
+  private void unlockAll() {
+    for (int i = stripes.length - 1; i >= 0; i--) {
+      stripes[i].unlock();
+    }
+  }
+
+  private static int stripeOf(int storeId) {
+    return (storeId ^ (storeId >>> 16)) & (LOCK_STRIPES - 1);
+  }
+
+  /**
+   * Reports the replica's size and estimated index memory.
+   *
+   * @return the footprint of the current snapshot
+   */
+  public Footprint getFootprint() {
+    CatalogSnapshot current = root.get();
+    return new Footprint(ready, current.getStoreCount(), current.getItemCount(),
+        current.getCouponCount(), current.estimateIndexBytes(), loadMillis);
+  }
+
+  /**
+   * Inner class to represent the size and memory use of the replica.
+   */
+  public static class Footprint {
+    private final boolean ready;
+    private final int storeCount;
+    private final int itemCount;
+    private final int couponCount;
+    private final long indexBytes;
+    private final long loadMillis;
+
+    /**
+     * Creates a footprint report.
+     *
+     * @param ready whether the replica is serving reads
+     * @param storeCount the number of stores
+     * @param itemCount the number of items
+     * @param couponCount the number of coupons
+     * @param indexBytes the estimated heap used by maps and indexes, excluding entities
+     * @param loadMillis how long the initial load took
+     */
+    public Footprint(boolean ready, int storeCount, int itemCount, int couponCount,
+                     long indexBytes, long loadMillis) {
+      this.ready = ready;
+      this.storeCount = storeCount;
+      this.itemCount = itemCount;
+      this.couponCount = couponCount;
+      this.indexBytes = indexBytes;
+      this.loadMillis = loadMillis;
+    }
+
+    public boolean isReady() {
+      return ready;
+    }
+
+    public int getStoreCount() {
+      return storeCount;
+    }
+
+    public int getItemCount() {
+      return itemCount;
+    }
+
+    public int getCouponCount() {
+      return couponCount;
+    }
+
+    public long getIndexBytes() {
+      return indexBytes;
+    }
+
+    public long getLoadMillis() {
+      return loadMillis;
+    }
+  }
+}
@@ -0,0 +1,636 @@
+package org.nullpointers.couponsystem.catalog;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import org.nullpointers.couponsystem.model.Coupon;
+import org.nullpointers.couponsystem.model.Item;
+import org.nullpointers.couponsystem.model.Store;
+
+/**
+ * Immutable, self-consistent view of every store, item, and coupon in the catalog.
+ * Entities are keyed by ID in {@link PersistentIntMap}s, and each store's items,
+ * coupons, and derived indexes are kept in an immutable {@link StoreSnapshot}.
+ * Updates return a new snapshot that shares everything it did not change with this one.
+ *
+ * <p>Each update is split in two steps so that writers to different stores can work in
+ * parallel: a {@code prepare} method builds the new store views from this snapshot, and
+ * the returned patch installs them, together with the by-ID entries, into whichever
+ * snapshot is current when it is applied. The patch stays valid as long as no other
+ * writer changes the stores it touches in between.
+ */
+public final class CatalogSnapshot {
+  private static final Item[] NO_ITEMS = new Item[0];
+  private static final Coupon[] NO_COUPONS = new Coupon[0];
+
+  /** Snapshot with no data. */
+  public static final CatalogSnapshot EMPTY = new CatalogSnapshot(PersistentIntMap.empty(),
+      PersistentIntMap.empty(), PersistentIntMap.empty(), PersistentIntMap.empty());
+
+  private final PersistentIntMap<Store> stores;
+  private final PersistentIntMap<Item> items;
+  private final PersistentIntMap<Coupon> coupons;
+  private final PersistentIntMap<StoreSnapshot> storeViews;
+
+  /**
+   * Creates a snapshot from its maps.
+   *
+   * @param stores stores by ID
+   * @param items items by ID
+   * @param coupons coupons by ID
+   * @param storeViews each store's items, coupons, and indexes, by store ID
+   */
+  public CatalogSnapshot(PersistentIntMap<Store> stores, PersistentIntMap<Item> items,
+                         PersistentIntMap<Coupon> coupons,
+                         PersistentIntMap<StoreSnapshot> storeViews) {
+    this.stores = stores;
+    this.items = items;
+    this.coupons = coupons;
+    this.storeViews = storeViews;
+  }
+
+  // ===== Reads =====
+
+  public Store getStore(int id) {
+    return stores.get(id);
+  }
+
+  public Item getItem(int id) {
+    return items.get(id);
+  }
+
+  public Coupon getCoupon(int id) {
+    return coupons.get(id);
+  }
+
+  public ArrayList<Store> getAllStores() {
+    return stores.values();
+  }
+
+  public ArrayList<Item> getAllItems() {
+    return items.values();
+  }
+
+  public ArrayList<Coupon> getAllCoupons() {
+    return coupons.values();
+  }
+
+  /**
+   * Returns a store's items, coupons, and indexes.
+   *
+   * @param storeId the store ID
+   * @return the store's view, empty if it has no items or coupons
+   */
+  public StoreSnapshot getStoreView(int storeId) {
+    StoreSnapshot view = storeViews.get(storeId);
+    return view == null ? StoreSnapshot.empty(storeId) : view;
+  }
+
+  public ArrayList<Item> getItemsByStore(int storeId) {
+    return getStoreView(storeId).getItems();
+  }
+
+  public ArrayList<Coupon> getCouponsByStore(int storeId) {
+    return getStoreView(storeId).getCoupons();
+  }
+
+  /**
+   * Retrieves all items in a category, ignoring case, using each store's category index.
+   *
+   * @param category the category to search for
+   * @return items in the category, in ID order
+   */
+  public ArrayList<Item> getItemsByCategory(String category) {
+    String key = category.toLowerCase(Locale.ROOT);
+    ArrayList<Item> matches = new ArrayList<>();
+    storeViews.forEachValue(view -> view.addItemsInCategory(key, matches));
+    matches.sort(Comparator.comparingInt(Item::getId));
+    return matches;
+  }
+
+  /**
+   * Retrieves all items whose name contains the keyword, ignoring case.
+   *
+   * @param keyword the keyword to search for
+   * @return matching items, in ID order
+   */
+  public ArrayList<Item> searchItemsByKeyword(String keyword) {
+    Predicate<Item> matches = nameContains(keyword);
+    ArrayList<Item> found = new ArrayList<>();
+    items.forEachValue(item -> {
+      if (matches.test(item)) {
+        found.add(item);
+      }
+    });
+    return found;
+  }
+
+  private static Predicate<Item> nameContains(String keyword) {
+    String needle = keyword.toLowerCase(Locale.ROOT);
+    return item -> item.getName() != null
+        && item.getName().toLowerCase(Locale.ROOT).contains(needle);
+  }
+
+  // ===== Keyset pages =====
+
+  /**
+   * Returns a page of all stores, in ID order.
+   *
+   * @param afterId only stores with a greater ID are returned
+   * @param limit the maximum number of stores to return
+   * @return a new list of at most {@code limit} stores
+   */
+  public ArrayList<Store> getStoresAfter(int afterId, int limit) {
+    return stores.valuesAfter(afterId, limit, store -> true);
+  }
+
+  /**
+   * Returns a page of all items, in ID order.
+   *
+   * @param afterId only items with a greater ID are returned
+   * @param limit the maximum number of items to return
+   * @return a new list of at most {@code limit} items
+   */
+  public ArrayList<Item> getItemsAfter(int afterId, int limit) {
+    return items.valuesAfter(afterId, limit, item -> true);
+  }
+
+  /**
+   * Returns a page of all coupons, in ID order.
+   *
+   * @param afterId only coupons with a greater ID are returned
+   * @param limit the maximum number of coupons to return
+   * @return a new list of at most {@code limit} coupons
+   */
+  public ArrayList<Coupon> getCouponsAfter(int afterId, int limit) {
+    return coupons.valuesAfter(afterId, limit, coupon -> true);
+  }
+
+  /**
+   * Returns a page of the items whose name contains the keyword, ignoring case, in ID
+   * order. Items before {@code afterId} are skipped without being scanned.
+   *
+   * @param keyword the keyword to search for
+   * @param afterId only items with a greater ID are returned
+   * @param limit the maximum number of items to return
+   * @return a new list of at most {@code limit} items
+   */
+  public ArrayList<Item> searchItemsByKeywordAfter(String keyword, int afterId, int limit) {
+    return items.valuesAfter(afterId, limit, nameContains(keyword));
+  }
+
+  /**
+   * Returns a page of the items in a category, ignoring case, cheapest first and then by
+   * ID. Each store's category index is already in that order, so the page is a merge of
+   * the stores' groups from the cursor on, and its cost does not grow with the page number.
+   *
+   * @param category the category
+   * @param price the price of the last item already returned
+   * @param afterId the ID of the last item already returned
+   * @param limit the maximum number of items to return
+   * @return a new list of at most {@code limit} items
+   */
+  public ArrayList<Item> getItemsByCategoryAfter(String category, double price, int afterId,
+                                                 int limit) {
+    String key = category.toLowerCase(Locale.ROOT);
+    PriorityQueue<GroupCursor> heads = new PriorityQueue<>();
+    storeViews.forEachValue(view -> {
+      Item[] group = view.categoryGroup(key);
+      if (group != null) {
+        int start = StoreSnapshot.positionAfter(group, price, afterId);
+        if (start < group.length) {
+          heads.add(new GroupCursor(group, start));
+        }
+      }
+    });
+    ArrayList<Item> page = new ArrayList<>(Math.min(limit, 1024));
+    while (page.size() < limit && !heads.isEmpty()) {
+      GroupCursor head = heads.poll();
+      page.add(head.current());
+      if (head.advance()) {
+        heads.add(head);
+      }
+    }
+    return page;
+  }
+
+
+  public int getStoreCount() {
+    return stores.size();
+  }
+
+  public int getItemCount() {
+    return items.size();
+  }
+
+  public int getCouponCount() {
+    return coupons.size();
+  }
+
+  /**
+   * Estimates the heap used by the maps and per-store views, excluding the entities
+   * themselves, assuming compressed object pointers.
+   *
+   * @return the estimated size in bytes
+   */
+  public long estimateIndexBytes() {
+    long[] bytes = {stores.estimateStructureBytes() + items.estimateStructureBytes()
+        + coupons.estimateStructureBytes() + storeViews.estimateStructureBytes()};
+    storeViews.forEachValue(view -> bytes[0] += view.estimateBytes());
+    return bytes[0];
+  }
+
+  // ===== Updates =====
+
+  public CatalogSnapshot withStore(Store store) {
+    return prepareStore(store).apply(this);
+  }
+
+  public CatalogSnapshot withoutStore(int id) {
+    return prepareStoreRemoval(id).apply(this);
+  }
+
+  public CatalogSnapshot withItem(Item item) {
+    return prepareItem(item).apply(this);
+  }
+
+  public CatalogSnapshot withoutItem(int id) {
+    return prepareItemRemoval(id).apply(this);
+  }
+
+  public CatalogSnapshot withCoupon(Coupon coupon) {
+    return prepareCoupon(coupon).apply(this);
+  }
+
+  public CatalogSnapshot withoutCoupon(int id) {
+    return prepareCouponRemoval(id).apply(this);
+  }
+
+  /**
+   * Prepares adding or replacing a store. The store's items and coupons are unaffected.
+   *
+   * @param store the store
+   * @return the patch
+   */
+  public UnaryOperator<CatalogSnapshot> prepareStore(Store store) {
+    return current -> new CatalogSnapshot(current.stores.with(store.getId(), store),
+        current.items, current.coupons, current.storeViews);
+  }
+
+  /**
+   * Prepares removing a store. The store's items and coupons are kept; a cascading
+   * delete removes them with their own changes first.
+   *
+   * @param id the store ID
+   * @return the patch
+   */
+  public UnaryOperator<CatalogSnapshot> prepareStoreRemoval(int id) {
+    return current -> new CatalogSnapshot(current.stores.without(id), current.items,
+        current.coupons, current.storeViews);
+  }
+
+  /**
+   * Prepares adding or replacing an item, moving it between store views if its store
+   * changed. An item older than the one held is ignored.
+   *
+   * @param item the item
+   * @return the patch
+   */
+  public UnaryOperator<CatalogSnapshot> prepareItem(Item item) {
+    Item previous = items.get(item.getId());
+    if (isStale(item, previous)) {
+      return UnaryOperator.identity();
+    }
+    final StoreSnapshot source = previous == null || previous.getStoreId() == item.getStoreId()
+        ? null : getStoreView(previous.getStoreId()).withoutItem(item.getId());
+    final StoreSnapshot target = getStoreView(item.getStoreId()).withItem(item);
+    return current -> new CatalogSnapshot(current.stores, current.items.with(item.getId(), item),
+        current.coupons, install(install(current.storeViews, source), target));
+  }
+
+  /**
+   * Prepares adding or replacing many items at once. Each touched store's view is
+   * rebuilt a single time rather than once per item. Items older than the ones held are
+   * ignored.
+   *
+   * @param saved the items
+   * @return the patch
+   */
+  public UnaryOperator<CatalogSnapshot> prepareItems(List<Item> saved) {
+    final List<Item> batch = saved.stream()
+        .filter(item -> !isStale(item, items.get(item.getId()))).toList();
+    Map<Integer, StoreSnapshot> views = new HashMap<>();
+    for (Item item : batch) {
+      Item previous = items.get(item.getId());
+      if (previous != null && previous.getStoreId() != item.getStoreId()) {
+        int source = previous.getStoreId();
+        views.put(source, views.getOrDefault(source, getStoreView(source))
+            .withoutItem(item.getId()));
+      }
+    }
+    batch.stream().collect(Collectors.groupingBy(Item::getStoreId)).forEach((storeId, group) ->
+        views.put(storeId, views.getOrDefault(storeId, getStoreView(storeId))
+            .withItems(group)));
+    final List<StoreSnapshot> prepared = List.copyOf(views.values());
+    return current -> {
+      PersistentIntMap<Item> nextItems = current.items;
+      for (Item item : batch) {
+        nextItems = nextItems.with(item.getId(), item);
+      }
+      PersistentIntMap<StoreSnapshot> nextViews = current.storeViews;
+      for (StoreSnapshot view : prepared) {
+        nextViews = install(nextViews, view);
+      }
+      return new CatalogSnapshot(current.stores, nextItems, current.coupons, nextViews);
+    };
+  }
+
+  /**
+   * Tells whether an item is an older version than the one held, which happens when
+   * changes to it are applied in a different order than they were committed.
+   */
+  private static boolean isStale(Item item, Item previous) {
+    return previous != null && previous.getVersion() > item.getVersion();
+  }
+
+  /**
+   * Prepares removing an item.
+   *
+   * @param id the item ID
+   * @return the patch
+   */
+  public UnaryOperator<CatalogSnapshot> prepareItemRemoval(int id) {
+    Item previous = items.get(id);
+    if (previous == null) {
+      return UnaryOperator.identity();
+    }
+    final StoreSnapshot source = getStoreView(previous.getStoreId()).withoutItem(id);
+    return current -> new CatalogSnapshot(current.stores, current.items.without(id),
+        current.coupons, install(current.storeViews, source));
+  }
+
+  /**
+   * Prepares removing many items at once. Each touched store's view is rebuilt a single
+   * time rather than once per item.
+   *
+   * @param ids the item IDs, sorted ascending; unknown IDs are ignored
+   * @return the patch
+   */
+  public UnaryOperator<CatalogSnapshot> prepareItemsRemoval(int[] ids) {
+    final List<StoreSnapshot> prepared = prepareRemoval(ids, items, Item::getStoreId,
+        StoreSnapshot::withoutItems);
+    return current -> {
+      PersistentIntMap<Item> nextItems = current.items;
+      for (int id : ids) {
+        nextItems = nextItems.without(id);
+      }
+      return new CatalogSnapshot(current.stores, nextItems, current.coupons,
+          installAll(current.storeViews, prepared));
+    };
+  }
+
+  /**
+   * Prepares adding or replacing a coupon, moving it between store views if its store
+   * changed.
+   *
+   * @param coupon the coupon
+   * @return the patch
+   */
+  public UnaryOperator<CatalogSnapshot> prepareCoupon(Coupon coupon) {
+    Coupon previous = coupons.get(coupon.getId());
+    final StoreSnapshot source =
+        previous == null || previous.getStoreId() == coupon.getStoreId()
+            ? null : getStoreView(previous.getStoreId()).withoutCoupon(coupon.getId());
+    final StoreSnapshot target = getStoreView(coupon.getStoreId()).withCoupon(coupon);
+    return current -> new CatalogSnapshot(current.stores, current.items,
+        current.coupons.with(coupon.getId(), coupon),
+        install(install(current.storeViews, source), target));
+  }
+
+  /**
+   * Prepares adding or replacing many coupons at once. Each touched store's view is
+   * rebuilt a single time rather than once per coupon.
+   *
+   * @param batch the coupons
+   * @return the patch
+   */
+  public UnaryOperator<CatalogSnapshot> prepareCoupons(List<Coupon> batch) {
+    Map<Integer, StoreSnapshot> views = new HashMap<>();
+    for (Coupon coupon : batch) {
+      Coupon previous = coupons.get(coupon.getId());
+      if (previous != null && previous.getStoreId() != coupon.getStoreId()) {
+        int source = previous.getStoreId();
+        views.put(source, views.getOrDefault(source, getStoreView(source))
+            .withoutCoupon(coupon.getId()));
+      }
+    }
+    batch.stream().collect(Collectors.groupingBy(Coupon::getStoreId)).forEach(
+        (storeId, group) -> views.put(storeId, views.getOrDefault(storeId,
+            getStoreView(storeId)).withCoupons(group)));
+    final List<StoreSnapshot> prepared = List.copyOf(views.values());
+    return current -> {
+      PersistentIntMap<Coupon> nextCoupons = current.coupons;
+      for (Coupon coupon : batch) {
+        nextCoupons = nextCoupons.with(coupon.getId(), coupon);
+      }
+      return new CatalogSnapshot(current.stores, current.items, nextCoupons,
+          installAll(current.storeViews, prepared));
+    };
+  }
+
+  /**
+   * Prepares removing a coupon.
+   *
+   * @param id the coupon ID
+   * @return the patch
+   */
+  public UnaryOperator<CatalogSnapshot> prepareCouponRemoval(int id) {
+    Coupon previous = coupons.get(id);
+    if (previous == null) {
+      return UnaryOperator.identity();
+    }
+    final StoreSnapshot source = getStoreView(previous.getStoreId()).withoutCoupon(id);
+    return current -> new CatalogSnapshot(current.stores, current.items,
+        current.coupons.without(id), install(current.storeViews, source));
+  }
+
+  /**
+   * Prepares removing many coupons at once, rebuilding each touched store's view once.
+   *
+   * @param ids the coupon IDs, sorted ascending; unknown IDs are ignored
+   * @return the patch
+   */
+  public UnaryOperator<CatalogSnapshot> prepareCouponsRemoval(int[] ids) {
+    final List<StoreSnapshot> prepared = prepareRemoval(ids, coupons, Coupon::getStoreId,
+        StoreSnapshot::withoutCoupons);
+    return current -> {
+      PersistentIntMap<Coupon> nextCoupons = current.coupons;
+      for (int id : ids) {
+        nextCoupons = nextCoupons.without(id);
+      }
+      return new CatalogSnapshot(current.stores, current.items, nextCoupons,
+          installAll(current.storeViews, prepared));
+    };
+  }
+
+  /**
+   * Builds the views of the stores that hold any of the given entities, without them.
+   */
+  private <T> List<StoreSnapshot> prepareRemoval(int[] ids, PersistentIntMap<T> byId,
+                                                 ToIntFunction<T> storeOf,
+                                                 BiFunction<StoreSnapshot, int[],
+                                                     StoreSnapshot> remove) {
+    Map<Integer, List<Integer>> idsByStore = new HashMap<>();
+    for (int id : ids) {
+      T previous = byId.get(id);
+      if (previous != null) {
+        idsFor(idsByStore, storeOf.applyAsInt(previous)).add(id);
+      }
+    }
+    List<StoreSnapshot> prepared = new ArrayList<>(idsByStore.size());
+    idsByStore.forEach((storeId, storeIds) -> prepared.add(remove.apply(
+        getStoreView(storeId), storeIds.stream().mapToInt(Integer::intValue).toArray())));
+    return prepared;
+  }
+
+  private static List<Integer> idsFor(Map<Integer, List<Integer>> idsByStore, int storeId) {
+    return idsByStore.computeIfAbsent(storeId, k -> new ArrayList<>());
+  }
+
+  private static PersistentIntMap<StoreSnapshot> installAll(
+      PersistentIntMap<StoreSnapshot> views, List<StoreSnapshot> prepared) {
+    PersistentIntMap<StoreSnapshot> next = views;
+    for (StoreSnapshot view : prepared) {
+      next = install(next, view);
+    }
+    return next;
+  }
+
+  private static PersistentIntMap<StoreSnapshot> install(PersistentIntMap<StoreSnapshot> views,
+                                                         StoreSnapshot view) {
+    if (view == null) {
+      return views;
+    }
+    return view.isEmpty() ? views.without(view.getStoreId())
+        : views.with(view.getStoreId(), view);
+  }
+
+  /**
+   * Position in one store's category group during a merge.
+   */
+  private static final class GroupCursor implements Comparable<GroupCursor> {
+    private final Item[] group;
+    private int index;
+
+    private GroupCursor(Item[] group, int index) {
+      this.group = group;
+      this.index = index;
+    }
+
+    private Item current() {
+      return group[index];
+    }
+
+    private boolean advance() {
+      return ++index < group.length;
+    }
+
+    @Override
+    public int compareTo(GroupCursor other) {
+      return StoreSnapshot.BY_PRICE.compare(current(), other.current());
+    }
+  }
+
+  /**
+   * Mutable builder that collects entities in any order and groups them by store,
+   * for loading a whole catalog at once. The builder must not be used after
+   * {@link #build()}.
+   */
+  public static final class Builder {
+    private final PersistentIntMap.Builder<Store> stores = new PersistentIntMap.Builder<>();
+    private final PersistentIntMap.Builder<Item> items = new PersistentIntMap.Builder<>();
+    private final PersistentIntMap.Builder<Coupon> coupons = new PersistentIntMap.Builder<>();
+    private final PersistentIntMap.Builder<List<Item>> itemGroups =
+        new PersistentIntMap.Builder<>();
+    private final PersistentIntMap.Builder<List<Coupon>> couponGroups =
+        new PersistentIntMap.Builder<>();
+
+    /**
+     * Adds a store.
+     *
+     * @param store the store
+     * @return this builder
+     */
+    public Builder addStore(Store store) {
+      stores.put(store.getId(), store);
+      return this;
+    }
+
+    /**
+     * Adds an item. Items must be added in ascending ID order.
+     *
+     * @param item the item
+     * @return this builder
+     */
+    public Builder addItem(Item item) {
+      items.put(item.getId(), item);
+      groupFor(itemGroups, item.getStoreId()).add(item);
+      return this;
+    }
+
+    /**
+     * Adds a coupon. Coupons must be added in ascending ID order.
+     *
+     * @param coupon the coupon
+     * @return this builder
+     */
+    public Builder addCoupon(Coupon coupon) {
+      coupons.put(coupon.getId(), coupon);
+      groupFor(couponGroups, coupon.getStoreId()).add(coupon);
+      return this;
+    }
+
+    private static <T> List<T> groupFor(PersistentIntMap.Builder<List<T>> groups, int storeId) {
+      List<T> group = groups.get(storeId);
+      if (group == null) {
+        group = new ArrayList<>();
+        groups.put(storeId, group);
+      }
+      return group;
+    }
+
+    /**
+     * Returns the snapshot holding every entity added so far.
+     *
+     * @return the snapshot
+     */
+    public CatalogSnapshot build() {
+      PersistentIntMap<List<Item>> itemsByStore = itemGroups.build();
+      PersistentIntMap<List<Coupon>> couponsByStore = couponGroups.build();
+      PersistentIntMap.Builder<StoreSnapshot> views = new PersistentIntMap.Builder<>();
+      itemsByStore.forEach((storeId, group) ->
+          views.put(storeId, view(storeId, group, couponsByStore.get(storeId))));
+      couponsByStore.forEach((storeId, group) -> {
+        if (!itemsByStore.containsKey(storeId)) {
+          views.put(storeId, view(storeId, null, group));
+        }
+      });
+      return new CatalogSnapshot(stores.build(), items.build(), coupons.build(),
+          views.build());
+    }
+
+    private static StoreSnapshot view(int storeId, List<Item> items, List<Coupon> coupons) {
+      return StoreSnapshot.of(storeId, items == null ? NO_ITEMS : items.toArray(NO_ITEMS),
+          coupons == null ? NO_COUPONS : coupons.toArray(NO_COUPONS));
+    }
+  }
+}
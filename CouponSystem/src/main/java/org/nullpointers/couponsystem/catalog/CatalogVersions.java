@@ -0,0 +1,68 @@
+package org.nullpointers.couponsystem.catalog;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.stereotype.Component;
+
+/**
+ * A version counter per store, raised by every committed change to the store, its items,
+ * or its coupons. Versions only grow, so a store's version identifies the state of its
+ * catalog and can serve as an ETag without reading or serializing the catalog.
+ *
+ * <p>{@link CatalogReplica} raises the counters of the stores each change touches after
+ * applying it. A change whose stores cannot be told, because the replica is off or not
+ * loaded yet, raises every store's version at once.
+ */
+@Component
+public class CatalogVersions {
+  private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+  private final ConcurrentHashMap<Integer, Long> versions = new ConcurrentHashMap<>();
+  private final AtomicLong everyStore = new AtomicLong();
+  private final AtomicLong changes = new AtomicLong();
+
+  /**
+   * Returns a store's current version.
+   *
+   * @param storeId the store ID
+   * @return the version, which is larger after any later change to the store
+   */
+  public long getVersion(int storeId) {
+    return everyStore.get() + versions.getOrDefault(storeId, 0L);
+  }
+
+  /**
+   * Returns a strong ETag for a store's catalog as it is now. Tags include when this
+   * process started, so they never repeat across restarts.
+   *
+   * @param storeId the store ID
+   * @param variant a suffix telling representations of the same catalog apart, or null
+   * @return the quoted entity tag
+   */
+  public String etag(int storeId, String variant) {
+    return "\"" + epoch + "-" + storeId + "-" + getVersion(storeId)
+        + (variant == null ? "" : "-" + variant) + "\"";
+  }
+
+  /**
+   * Returns how many times any store's version has been raised. Work that reads this
+   * before and after reading the catalog, and sees the same count, read no half-applied
+   * change.
+   *
+   * @return the number of version changes since startup
+   */
+  public long getChangeCount() {
+    return changes.get();
+  }
+
+  void bump(int[] storeIds) {
+    for (int storeId : storeIds) {
+      versions.merge(storeId, 1L, Long::sum);
+    }
+    changes.incrementAndGet();
+  }
+
+  void bumpAll() {
+    everyStore.incrementAndGet();
+    changes.incrementAndGet();
+  }
+}
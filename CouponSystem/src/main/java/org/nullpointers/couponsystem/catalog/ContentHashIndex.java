@@ -0,0 +1,127 @@
+package org.nullpointers.couponsystem.catalog;
+
+/**
+ * Open-addressing hash table from an external key to the content hash last uploaded for
+ * it, holding one store's entries for catalog sync. Both are reduced to 64-bit
+ * fingerprints and kept in two parallel {@code long} arrays, so an entry costs 16 bytes
+ * at full load and a lookup touches no objects. Not thread-safe.
+ *
+ * <p>Keys that differ but share a fingerprint are treated as the same key. With 64-bit
+ * fingerprints this is vanishingly unlikely, and the effect would be that one record is
+ * reported as changed, or, if the content fingerprints also collide, as unchanged.
+ */
+public final class ContentHashIndex {
+  private static final long EMPTY = 0L;
+  private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+  private static final int MIN_CAPACITY = 16;
+
+  private long[] keys;
+  private long[] hashes;
+  private int size;
+
+  /**
+   * Creates an index sized for the given number of entries.
+   *
+   * @param expectedSize how many entries the index is expected to hold
+   */
+  public ContentHashIndex(int expectedSize) {
+    int capacity = MIN_CAPACITY;
+    while (capacity < expectedSize * 2L) {
+      capacity <<= 1;
+    }
+    keys = new long[capacity];
+    hashes = new long[capacity];
+  }
+
+  /**
+   * Returns the 64-bit fingerprint of a string: FNV-1a over its characters, followed by
+   * the MurmurHash3 finalizer so that every bit of the result depends on every input bit.
+   *
+   * @param text the string
+   * @return the fingerprint, never 0
+   */
+  public static long fingerprint(String text) {
+    long h = FNV_OFFSET;
+    for (int i = 0; i < text.length(); i++) {
+      h ^= text.charAt(i);
+      h *= FNV_PRIME;
+    }
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h == EMPTY ? 1 : h;
+  }
+
+  /**
+   * Records the content hash uploaded for a key, replacing any earlier one.
+   *
+   * @param externalKey the store system's key
+   * @param contentHash the hash of the key's current data
+   */
+  public void put(String externalKey, String contentHash) {
+    if ((size + 1) * 4L > keys.length * 3L) {
+      resize(keys.length * 2);
+    }
+    long key = fingerprint(externalKey);
+    int slot = slotOf(key);
+    if (keys[slot] == EMPTY) {
+      keys[slot] = key;
+      size++;
+    }
+    hashes[slot] = fingerprint(contentHash);
+  }
+
+  /**
+   * Returns whether a key is present with the given content hash.
+   *
+   * @param externalKey the store system's key
+   * @param contentHash the hash of the key's data on the store system
+   * @return true if the key was last uploaded with the same content hash
+   */
+  public boolean matches(String externalKey, String contentHash) {
+    int slot = slotOf(fingerprint(externalKey));
+    return keys[slot] != EMPTY && hashes[slot] == fingerprint(contentHash);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Estimates the heap used by the index's arrays.
+   *
+   * @return the estimated size in bytes
+   */
+  public long estimateBytes() {
+    return 2 * (16 + 8L * keys.length);
+  }
+
+  /**
+   * Finds the key's slot, or the empty slot where it would be inserted.
+   */
+  private int slotOf(long key) {
+    int mask = keys.length - 1;
+    int slot = (int) key & mask;
+    while (keys[slot] != EMPTY && keys[slot] != key) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private void resize(int capacity) {
+    long[] oldKeys = keys;
+    long[] oldHashes = hashes;
+    keys = new long[capacity];
+    hashes = new long[capacity];
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != EMPTY) {
+        int slot = slotOf(oldKeys[i]);
+        keys[slot] = oldKeys[i];
+        hashes[slot] = oldHashes[i];
+      }
+    }
+  }
+}
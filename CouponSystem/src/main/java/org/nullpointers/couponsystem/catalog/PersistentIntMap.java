@@ -0,0 +1,382 @@
+package org.nullpointers.couponsystem.catalog;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Immutable map from int keys to values, stored as a 32-way bitmapped radix trie.
+ * Keys are never boxed, iteration runs in ascending unsigned key order (so non-negative
+ * keys come first, in ascending order), and an
+ * update copies only the seven nodes on the path to its key, so older versions of the
+ * map stay valid and can be read without locks while a newer version is published.
+ *
+ * <p>Each node keeps a 32-bit occupancy bitmap and a dense array with one slot per set
+ * bit, so sparse key ranges cost no more than the keys they hold. Use a {@link Builder}
+ * to load many entries at once without copying paths.
+ *
+ * @param <V> the value type
+ */
+public final class PersistentIntMap<V> {
+  private static final int BITS = 5;
+  private static final int MASK = (1 << BITS) - 1;
+  private static final int TOP_SHIFT = 30;
+  private static final long NODE_BYTES = 16;
+  private static final long ARRAY_HEADER_BYTES = 16;
+  private static final long REFERENCE_BYTES = 4;
+
+  private static final PersistentIntMap<?> EMPTY = new PersistentIntMap<>(null, 0);
+
+  private final Node root;
+  private final int size;
+
+  private PersistentIntMap(Node root, int size) {
+    this.root = root;
+    this.size = size;
+  }
+
+  /**
+   * Returns the empty map.
+   *
+   * @param <V> the value type
+   * @return the empty map
+   */
+  @SuppressWarnings("unchecked")
+  public static <V> PersistentIntMap<V> empty() {
+    return (PersistentIntMap<V>) EMPTY;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Returns the value for a key.
+   *
+   * @param key the key
+   * @return the value, or null if the key is absent
+   */
+  public V get(int key) {
+    return lookup(root, key);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <V> V lookup(Node root, int key) {
+    Node node = root;
+    for (int shift = TOP_SHIFT; node != null; shift -= BITS) {
+      int bit = 1 << ((key >>> shift) & MASK);
+      if ((node.bitmap & bit) == 0) {
+        return null;
+      }
+      Object child = node.slots[Integer.bitCount(node.bitmap & (bit - 1))];
+      if (shift == 0) {
+        return (V) child;
+      }
+      node = (Node) child;
+    }
+    return null;
+  }
+
+  public boolean containsKey(int key) {
+    return get(key) != null;
+  }
+
+  /**
+   * Returns a map with the key set to the value. This map is left unchanged.
+   *
+   * @param key the key
+   * @param value the value, which must not be null
+   * @return the updated map
+   */
+  public PersistentIntMap<V> with(int key, V value) {
+    if (value == null) {
+      throw new IllegalArgumentException("Value cannot be null.");
+    }
+    boolean added = get(key) == null;
+    return new PersistentIntMap<>(put(root, TOP_SHIFT, key, value), added ? size + 1 : size);
+  }
+
+  /**
+   * Returns a map without the key. This map is left unchanged.
+   *
+   * @param key the key
+   * @return the updated map, or this map if the key is absent
+   */
+  public PersistentIntMap<V> without(int key) {
+    if (get(key) == null) {
+      return this;
+    }
+    return new PersistentIntMap<>(remove(root, TOP_SHIFT, key), size - 1);
+  }
+
+  /**
+   * Visits every entry in ascending key order.
+   *
+   * @param consumer the entry consumer
+   */
+  public void forEach(EntryConsumer<? super V> consumer) {
+    if (root != null) {
+      visit(root, TOP_SHIFT, 0, consumer);
+    }
+  }
+
+  /**
+   * Visits every value in ascending key order.
+   *
+   * @param consumer the value consumer
+   */
+  public void forEachValue(Consumer<? super V> consumer) {
+    forEach((key, value) -> consumer.accept(value));
+  }
+
+  /**
+   * Returns all values in ascending key order.
+   *
+   * @return a new list of the values
+   */
+  public ArrayList<V> values() {
+    ArrayList<V> values = new ArrayList<>(size);
+    forEachValue(values::add);
+    return values;
+  }
+
+  /**
+   * Returns the first values, in ascending key order, whose keys come after a given key
+   * and that pass a filter. Subtrees before the key are skipped without being visited,
+   * so the cost depends on the values scanned from the key on, not on the key's position.
+   *
+   * @param key only values with a greater key (in unsigned order) are returned
+   * @param limit the maximum number of values to return
+   * @param filter the values to keep
+   * @return a new list of at most {@code limit} values
+   */
+  public ArrayList<V> valuesAfter(int key, int limit, Predicate<? super V> filter) {
+    ArrayList<V> values = new ArrayList<>(Math.min(limit, size));
+    if (root != null && limit > 0) {
+      collectAfter(root, TOP_SHIFT, true, key, filter, values, limit);
+    }
+    return values;
+  }
+
+  /**
+   * Estimates the heap used by the trie itself, excluding the values, assuming
+   * compressed object pointers.
+   *
+   * @return the estimated size in bytes
+   */
+  public long estimateStructureBytes() {
+    return root == null ? 0 : structureBytes(root, TOP_SHIFT);
+  }
+
+  private static long structureBytes(Node node, int shift) {
+    long bytes = NODE_BYTES + ARRAY_HEADER_BYTES + REFERENCE_BYTES * node.slots.length;
+    if (shift > 0) {
+      for (Object child : node.slots) {
+        bytes += structureBytes((Node) child, shift - BITS);
+      }
+    }
+    return bytes;
+  }
+
+  private static Node put(Node node, int shift, int key, Object value) {
+    int bit = 1 << ((key >>> shift) & MASK);
+    int bitmap = node == null ? 0 : node.bitmap;
+    Object[] slots = node == null ? new Object[0] : node.slots;
+    int index = Integer.bitCount(bitmap & (bit - 1));
+
+    if ((bitmap & bit) != 0) {
+      Object[] copy = slots.clone();
+      copy[index] = shift == 0 ? value : put((Node) slots[index], shift - BITS, key, value);
+      return new Node(bitmap, copy);
+    }
+    Object[] copy = new Object[slots.length + 1];
+    System.arraycopy(slots, 0, copy, 0, index);
+    copy[index] = shift == 0 ? value : put(null, shift - BITS, key, value);
+    System.arraycopy(slots, index, copy, index + 1, slots.length - index);
+    return new Node(bitmap | bit, copy);
+  }
+
+  private static Node remove(Node node, int shift, int key) {
+    int bit = 1 << ((key >>> shift) & MASK);
+    int index = Integer.bitCount(node.bitmap & (bit - 1));
+    Object child = shift == 0 ? null : remove((Node) node.slots[index], shift - BITS, key);
+    if (child != null) {
+      Object[] copy = node.slots.clone();
+      copy[index] = child;
+      return new Node(node.bitmap, copy);
+    }
+    if (node.slots.length == 1) {
+      return null;
+    }
+    Object[] copy = new Object[node.slots.length - 1];
+    System.arraycopy(node.slots, 0, copy, 0, index);
+    System.arraycopy(node.slots, index + 1, copy, index, copy.length - index);
+    return new Node(node.bitmap & ~bit, copy);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <V> void visit(Node node, int shift, int prefix,
+                                EntryConsumer<? super V> consumer) {
+    int bitmap = node.bitmap;
+    int index = 0;
+    while (bitmap != 0) {
+      int digit = Integer.numberOfTrailingZeros(bitmap);
+      int key = prefix | (digit << shift);
+      if (shift == 0) {
+        consumer.accept(key, (V) node.slots[index]);
+      } else {
+        visit((Node) node.slots[index], shift - BITS, key, consumer);
+      }
+      bitmap &= bitmap - 1;
+      index++;
+    }
+  }
+
+  /**
+   * Adds matching values with keys after {@code after} to the sink. While
+   * {@code bounded}, this node lies on the path to {@code after}, so only its children
+   * from that key's digit onwards are visited.
+   *
+   * @return true once the sink holds {@code limit} values
+   */
+  @SuppressWarnings("unchecked")
+  private static <V> boolean collectAfter(Node node, int shift, boolean bounded, int after,
+                                          Predicate<? super V> filter, List<V> sink,
+                                          int limit) {
+    int start = bounded ? (after >>> shift) & MASK : 0;
+    int bitmap = node.bitmap & (-1 << start);
+    if (bounded && shift == 0) {
+      bitmap &= ~(1 << start);
+    }
+    while (bitmap != 0) {
+      int digit = Integer.numberOfTrailingZeros(bitmap);
+      Object child = node.slots[Integer.bitCount(node.bitmap & ((1 << digit) - 1))];
+      if (shift == 0) {
+        if (filter.test((V) child)) {
+          sink.add((V) child);
+          if (sink.size() == limit) {
+            return true;
+          }
+        }
+      } else if (collectAfter((Node) child, shift - BITS, bounded && digit == start, after,
+          filter, sink, limit)) {
+        return true;
+      }
+      bitmap &= bitmap - 1;
+    }
+    return false;
+  }
+
+  /**
+   * Trie node. Nodes reachable from a published map are never modified; only a
+   * {@link Builder} mutates the nodes it has created itself, before publishing them.
+   */
+  private static final class Node {
+    private int bitmap;
+    private Object[] slots;
+
+    private Node(int bitmap, Object[] slots) {
+      this.bitmap = bitmap;
+      this.slots = slots;
+    }
+  }
+
+  /**
+   * Receives map entries during iteration.
+   *
+   * @param <V> the value type
+   */
+  @FunctionalInterface
+  public interface EntryConsumer<V> {
+    /**
+     * Accepts one entry.
+     *
+     * @param key the key
+     * @param value the value
+     */
+    void accept(int key, V value);
+  }
+
+  /**
+   * Mutable builder that fills a new map in place, for bulk loading.
+   * The builder must not be used after {@link #build()}.
+   *
+   * @param <V> the value type
+   */
+  public static final class Builder<V> {
+    private Node root;
+    private int size;
+
+    /**
+     * Sets the key to the value.
+     *
+     * @param key the key
+     * @param value the value, which must not be null
+     * @return this builder
+     */
+    public Builder<V> put(int key, V value) {
+      if (value == null) {
+        throw new IllegalArgumentException("Value cannot be null.");
+      }
+      if (root == null) {
+        root = emptyNode();
+      }
+      Node node = root;
+      for (int shift = TOP_SHIFT; ; shift -= BITS) {
+        int bit = 1 << ((key >>> shift) & MASK);
+        int index = Integer.bitCount(node.bitmap & (bit - 1));
+        if ((node.bitmap & bit) == 0) {
+          insertSlot(node, bit, index, shift == 0 ? value : emptyNode());
+          if (shift == 0) {
+            size++;
+            return this;
+          }
+        } else if (shift == 0) {
+          node.slots[index] = value;
+          return this;
+        }
+        node = (Node) node.slots[index];
+      }
+    }
+
+    /**
+     * Returns the value for a key put so far.
+     *
+     * @param key the key
+     * @return the value, or null if absent
+     */
+    public V get(int key) {
+      return lookup(root, key);
+    }
+
+    private static Node emptyNode() {
+      return new Node(0, new Object[0]);
+    }
+
+    private static void insertSlot(Node node, int bit, int index, Object child) {
+      Object[] copy = new Object[node.slots.length + 1];
+      System.arraycopy(node.slots, 0, copy, 0, index);
+      copy[index] = child;
+      System.arraycopy(node.slots, index, copy, index + 1, node.slots.length - index);
+      node.slots = copy;
+      node.bitmap |= bit;
+    }
+
+    /**
+     * Returns the map holding every entry put so far.
+     *
+     * @return the map
+     */
+    public PersistentIntMap<V> build() {
+      PersistentIntMap<V> map = size == 0 ? empty() : new PersistentIntMap<>(root, size);
+      root = null;
+      size = 0;
+      return map;
+    }
+  }
+}
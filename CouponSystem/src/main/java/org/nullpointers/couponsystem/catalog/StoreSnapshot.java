@@ -0,0 +1,524 @@
+package org.nullpointers.couponsystem.catalog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+import org.nullpointers.couponsystem.model.Coupon;
+import org.nullpointers.couponsystem.model.Item;
+
+/**
+ * Immutable view of one store's items and coupons, together with the indexes derived
+ * from them. Items and coupons are kept in arrays sorted by ID, and items are also
+ * grouped by lower-cased category, cheapest first.
+ *
+ * <p>Updates return a new view and leave this one unchanged, so a reader holding a view
+ * always sees the items, coupons, and indexes of the same moment. Only the category
+ * groups an update touches are rebuilt.
+ */
+public final class StoreSnapshot {
+  private static final long OBJECT_HEADER_BYTES = 16;
+  private static final long ARRAY_HEADER_BYTES = 16;
+  private static final long REFERENCE_BYTES = 4;
+  private static final long MAP_ENTRY_BYTES = 32;
+  private static final Item[] NO_ITEMS = new Item[0];
+  private static final Coupon[] NO_COUPONS = new Coupon[0];
+  /** Category group order: cheapest first, then by ID. */
+  static final Comparator<Item> BY_PRICE =
+      Comparator.comparingDouble(Item::getPrice).thenComparingInt(Item::getId);
+
+  private final int storeId;
+  private final Item[] items;
+  private final Coupon[] coupons;
+  private final Map<String, Item[]> itemsByCategory;
+
+  private StoreSnapshot(int storeId, Item[] items, Coupon[] coupons,
+                        Map<String, Item[]> itemsByCategory) {
+    this.storeId = storeId;
+    this.items = items;
+    this.coupons = coupons;
+    this.itemsByCategory = itemsByCategory;
+  }
+
+  /**
+   * Creates a view from a store's items and coupons, building the category index.
+   *
+   * @param storeId the store ID
+   * @param items the store's items, sorted by ID; the array is not copied
+   * @param coupons the store's coupons, sorted by ID; the array is not copied
+   * @return the view
+   */
+  public static StoreSnapshot of(int storeId, Item[] items, Coupon[] coupons) {
+    Map<String, List<Item>> groups = new HashMap<>();
+    for (Item item : items) {
+      String key = categoryKey(item.getCategory());
+      if (key != null) {
+        groupFor(groups, key).add(item);
+      }
+    }
+    Map<String, Item[]> index = new HashMap<>(groups.size() * 2);
+    groups.forEach((key, group) -> index.put(key, sortedByPrice(group)));
+    return new StoreSnapshot(storeId, items, coupons, Map.copyOf(index));
+  }
+
+  /**
+   * Creates an empty view for a store.
+   *
+   * @param storeId the store ID
+   * @return a view with no items or coupons
+   */
+  public static StoreSnapshot empty(int storeId) {
+    return new StoreSnapshot(storeId, NO_ITEMS, NO_COUPONS, Map.of());
+  }
+
+  // ===== Reads =====
+
+  public int getStoreId() {
+    return storeId;
+  }
+
+  public int getItemCount() {
+    return items.length;
+  }
+
+  public int getCouponCount() {
+    return coupons.length;
+  }
+
+  public boolean isEmpty() {
+    return items.length == 0 && coupons.length == 0;
+  }
+
+  /**
+   * Returns the store's items.
+   *
+   * @return a new list of the items, in ID order
+   */
+  public ArrayList<Item> getItems() {
+    return new ArrayList<>(Arrays.asList(items));
+  }
+
+  /**
+   * Returns the store's coupons.
+   *
+   * @return a new list of the coupons, in ID order
+   */
+  public ArrayList<Coupon> getCoupons() {
+    return new ArrayList<>(Arrays.asList(coupons));
+  }
+
+  /**
+   * Returns a page of the store's items, in ID order.
+   *
+   * @param afterId only items with a greater ID are returned
+   * @param limit the maximum number of items to return
+   * @return a new list of at most {@code limit} items
+   */
+  public ArrayList<Item> getItemsAfter(int afterId, int limit) {
+    return slice(items, afterId, limit, Item::getId);
+  }
+
+  /**
+   * Returns a page of the store's coupons, in ID order.
+   *
+   * @param afterId only coupons with a greater ID are returned
+   * @param limit the maximum number of coupons to return
+   * @return a new list of at most {@code limit} coupons
+   */
+  public ArrayList<Coupon> getCouponsAfter(int afterId, int limit) {
+    return slice(coupons, afterId, limit, Coupon::getId);
+  }
+
+  private static <T> ArrayList<T> slice(T[] array, int afterId, int limit,
+                                        ToIntFunction<T> idOf) {
+    int index = indexOf(array, afterId, idOf);
+    int from = index >= 0 ? index + 1 : -index - 1;
+    int to = (int) Math.min(array.length, (long) from + limit);
+    return new ArrayList<>(Arrays.asList(array).subList(from, to));
+  }
+
+  /**
+   * Returns the store's items in a category, ignoring case.
+   *
+   * @param category the category
+   * @return a new list of the matching items, cheapest first
+   */
+  public ArrayList<Item> getItemsInCategory(String category) {
+    Item[] group = group(category);
+    return new ArrayList<>(Arrays.asList(group == null ? NO_ITEMS : group));
+  }
+
+  /**
+   * Returns the store's cheapest item in a category, ignoring case.
+   *
+   * @param category the category
+   * @return the cheapest item, or null if the store has none in the category
+   */
+  public Item getCheapestInCategory(String category) {
+    Item[] group = group(category);
+    return group == null ? null : group[0];
+  }
+
+  private Item[] group(String category) {
+    String key = categoryKey(category);
+    return key == null ? null : itemsByCategory.get(key);
+  }
+
+  /**
+   * Appends the store's items in a category to a list, in price order.
+   *
+   * @param category the category, already lower-cased with {@link Locale#ROOT}
+   * @param sink the list to append to
+   */
+  void addItemsInCategory(String category, List<Item> sink) {
+    Item[] group = itemsByCategory.get(category);
+    if (group != null) {
+      sink.addAll(Arrays.asList(group));
+    }
+  }
+
+  /**
+   * Returns the store's items in a category, in {@link #BY_PRICE} order. The array is
+   * shared with this view and must not be modified.
+   *
+   * @param category the category, already lower-cased with {@link Locale#ROOT}
+   * @return the items, or null if the store has none in the category
+   */
+  Item[] categoryGroup(String category) {
+    return itemsByCategory.get(category);
+  }
+
+  /**
+   * Finds where items priced after {@code price}, or priced the same with a greater ID
+   * than {@code afterId}, start in a category group.
+   *
+   * @param group a category group, in {@link #BY_PRICE} order
+   * @param price the price of the last item already returned
+   * @param afterId the ID of the last item already returned
+   * @return the index of the first later item, or the group's length if there is none
+   */
+  static int positionAfter(Item[] group, double price, int afterId) {
+    int low = 0;
+    int high = group.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      int order = Double.compare(group[mid].getPrice(), price);
+      if (order < 0 || order == 0 && group[mid].getId() <= afterId) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Estimates the heap used by this view's arrays and index, excluding the entities.
+   *
+   * @return the estimated size in bytes
+   */
+  public long estimateBytes() {
+    long bytes = OBJECT_HEADER_BYTES + arrayBytes(items.length) + arrayBytes(coupons.length)
+        + arrayBytes(itemsByCategory.size() * 2);
+    for (Item[] group : itemsByCategory.values()) {
+      bytes += MAP_ENTRY_BYTES + arrayBytes(group.length);
+    }
+    return bytes;
+  }
+
+  private static long arrayBytes(int length) {
+    return ARRAY_HEADER_BYTES + REFERENCE_BYTES * length;
+  }
+
+  // ===== Updates =====
+
+  /**
+   * Returns a view with the item added or replaced.
+   *
+   * @param item the item, which must belong to this store
+   * @return the updated view
+   */
+  public StoreSnapshot withItem(Item item) {
+    int index = indexOf(items, item.getId(), Item::getId);
+    Item previous = index >= 0 ? items[index] : null;
+    return new StoreSnapshot(storeId, upsert(items, index, item, Item[]::new), coupons,
+        regroup(previous, item));
+  }
+
+  /**
+   * Returns a view with many items added or replaced at once, rebuilding the arrays a
+   * single time. Only the category groups the items leave or join are rebuilt, by
+   * merging rather than re-sorting them; the other groups are shared with this view.
+   *
+   * @param added the items, which must all belong to this store
+   * @return the updated view
+   */
+  public StoreSnapshot withItems(List<Item> added) {
+    Item[] incoming = added.toArray(NO_ITEMS);
+    Arrays.sort(incoming, Comparator.comparingInt(Item::getId));
+    Item[] merged = new Item[items.length + incoming.length];
+    int[] replacedIds = new int[incoming.length];
+    Set<String> leftKeys = new HashSet<>();
+    int size = 0;
+    int replaced = 0;
+    int i = 0;
+    int j = 0;
+    while (i < items.length || j < incoming.length) {
+      if (j == incoming.length
+          || i < items.length && items[i].getId() < incoming[j].getId()) {
+        merged[size++] = items[i++];
+      } else {
+        if (i < items.length && items[i].getId() == incoming[j].getId()) {
+          replacedIds[replaced++] = items[i].getId();
+          leftKeys.add(categoryKey(items[i].getCategory()));
+          i++;
+        }
+        merged[size++] = incoming[j++];
+      }
+    }
+    merged = Arrays.copyOf(merged, size);
+    final int[] removedIds = Arrays.copyOf(replacedIds, replaced);
+
+    Map<String, Item[]> index = new HashMap<>(itemsByCategory);
+    // Replaced items leave their old groups first; IDs are ascending from the merge
+    for (String key : leftKeys) {
+      Item[] group = key == null ? null : index.get(key);
+      if (group != null) {
+        index.put(key, without(group, removedIds, Item::getId));
+      }
+    }
+    Map<String, List<Item>> groups = new HashMap<>();
+    for (Item item : incoming) {
+      String key = categoryKey(item.getCategory());
+      if (key != null) {
+        groupFor(groups, key).add(item);
+      }
+    }
+    groups.forEach((key, group) ->
+        index.put(key, mergeByPrice(index.get(key), sortedByPrice(group))));
+    index.values().removeIf(group -> group.length == 0);
+    return new StoreSnapshot(storeId, merged, coupons, Map.copyOf(index));
+  }
+
+  private static Item[] mergeByPrice(Item[] existing, Item[] added) {
+    if (existing == null || existing.length == 0) {
+      return added;
+    }
+    Item[] merged = new Item[existing.length + added.length];
+    int i = 0;
+    int j = 0;
+    for (int k = 0; k < merged.length; k++) {
+      merged[k] = j == added.length
+          || i < existing.length && BY_PRICE.compare(existing[i], added[j]) < 0
+          ? existing[i++] : added[j++];
+    }
+    return merged;
+  }
+
+  /**
+   * Returns a view without the item.
+   *
+   * @param id the item ID
+   * @return the updated view, or this view if the store does not have the item
+   */
+  public StoreSnapshot withoutItem(int id) {
+    int index = indexOf(items, id, Item::getId);
+    if (index < 0) {
+      return this;
+    }
+    return new StoreSnapshot(storeId, remove(items, index), coupons,
+        regroup(items[index], null));
+  }
+
+  /**
+   * Returns a view without many items at once, rebuilding the arrays and the category
+   * index a single time.
+   *
+   * @param ids the item IDs, sorted ascending; IDs the store does not have are ignored
+   * @return the updated view
+   */
+  public StoreSnapshot withoutItems(int[] ids) {
+    Item[] kept = without(items, ids, Item::getId);
+    if (kept == items) {
+      return this;
+    }
+    Map<String, Item[]> index = new HashMap<>(itemsByCategory.size() * 2);
+    itemsByCategory.forEach((key, group) -> {
+      Item[] keptGroup = without(group, ids, Item::getId);
+      if (keptGroup.length > 0) {
+        index.put(key, keptGroup);
+      }
+    });
+    return new StoreSnapshot(storeId, kept, coupons, Map.copyOf(index));
+  }
+
+  /**
+   * Returns a view with the coupon added or replaced.
+   *
+   * @param coupon the coupon, which must belong to this store
+   * @return the updated view
+   */
+  public StoreSnapshot withCoupon(Coupon coupon) {
+    int index = indexOf(coupons, coupon.getId(), Coupon::getId);
+    return new StoreSnapshot(storeId, items, upsert(coupons, index, coupon, Coupon[]::new),
+        itemsByCategory);
+  }
+
+  /**
+   * Returns a view with many coupons added or replaced at once, rebuilding the coupon
+   * array a single time.
+   *
+   * @param added the coupons, which must all belong to this store
+   * @return the updated view
+   */
+  public StoreSnapshot withCoupons(List<Coupon> added) {
+    Coupon[] incoming = added.toArray(NO_COUPONS);
+    Arrays.sort(incoming, Comparator.comparingInt(Coupon::getId));
+    Coupon[] merged = new Coupon[coupons.length + incoming.length];
+    int size = 0;
+    int i = 0;
+    int j = 0;
+    while (i < coupons.length || j < incoming.length) {
+      if (j == incoming.length
+          || i < coupons.length && coupons[i].getId() < incoming[j].getId()) {
+        merged[size++] = coupons[i++];
+      } else {
+        if (i < coupons.length && coupons[i].getId() == incoming[j].getId()) {
+          i++;
+        }
+        merged[size++] = incoming[j++];
+      }
+    }
+    return new StoreSnapshot(storeId, items, Arrays.copyOf(merged, size), itemsByCategory);
+  }
+
+  /**
+   * Returns a view without the coupon.
+   *
+   * @param id the coupon ID
+   * @return the updated view, or this view if the store does not have the coupon
+   */
+  public StoreSnapshot withoutCoupon(int id) {
+    int index = indexOf(coupons, id, Coupon::getId);
+    if (index < 0) {
+      return this;
+    }
+    return new StoreSnapshot(storeId, items, remove(coupons, index), itemsByCategory);
+  }
+
+  /**
+   * Returns a view without many coupons at once.
+   *
+   * @param ids the coupon IDs, sorted ascending; IDs the store does not have are ignored
+   * @return the updated view
+   */
+  public StoreSnapshot withoutCoupons(int[] ids) {
+    Coupon[] kept = without(coupons, ids, Coupon::getId);
+    return kept == coupons ? this : new StoreSnapshot(storeId, items, kept, itemsByCategory);
+  }
+
+  /**
+   * Rebuilds the category groups of a replaced, added, or removed item.
+   */
+  private Map<String, Item[]> regroup(Item removed, Item added) {
+    String removedKey = removed == null ? null : categoryKey(removed.getCategory());
+    String addedKey = added == null ? null : categoryKey(added.getCategory());
+    Map<String, Item[]> index = new HashMap<>(itemsByCategory);
+    if (removedKey != null) {
+      Item[] group = index.get(removedKey);
+      int position = 0;
+      while (group[position].getId() != removed.getId()) {
+        position++;
+      }
+      if (group.length == 1) {
+        index.remove(removedKey);
+      } else {
+        index.put(removedKey, remove(group, position));
+      }
+    }
+    if (addedKey != null) {
+      Item[] group = index.get(addedKey);
+      int position = group == null ? -1 : Arrays.binarySearch(group, added, BY_PRICE);
+      index.put(addedKey, upsert(group == null ? NO_ITEMS : group, position, added,
+          Item[]::new));
+    }
+    return Map.copyOf(index);
+  }
+
+  private static List<Item> groupFor(Map<String, List<Item>> groups, String key) {
+    return groups.computeIfAbsent(key, k -> new ArrayList<>());
+  }
+
+  private static String categoryKey(String category) {
+    return category == null ? null : category.toLowerCase(Locale.ROOT);
+  }
+
+  private static Item[] sortedByPrice(List<Item> group) {
+    Item[] sorted = group.toArray(NO_ITEMS);
+    Arrays.sort(sorted, BY_PRICE);
+    return sorted;
+  }
+
+  /**
+   * Replaces the element at {@code index}, or inserts at {@code -index - 1} if negative.
+   */
+  private static <T> T[] upsert(T[] array, int index, T value, IntFunction<T[]> factory) {
+    if (index >= 0) {
+      T[] copy = array.clone();
+      copy[index] = value;
+      return copy;
+    }
+    int insertAt = -index - 1;
+    T[] copy = factory.apply(array.length + 1);
+    System.arraycopy(array, 0, copy, 0, insertAt);
+    copy[insertAt] = value;
+    System.arraycopy(array, insertAt, copy, insertAt + 1, array.length - insertAt);
+    return copy;
+  }
+
+  private static <T> T[] remove(T[] array, int index) {
+    T[] copy = Arrays.copyOf(array, array.length - 1);
+    System.arraycopy(array, index + 1, copy, index, array.length - index - 1);
+    return copy;
+  }
+
+  /**
+   * Copies the array without the elements whose IDs are in {@code ids}, keeping order.
+   *
+   * @return the copy, or the array itself if nothing was removed
+   */
+  private static <T> T[] without(T[] array, int[] ids, ToIntFunction<T> idOf) {
+    T[] kept = array.clone();
+    int size = 0;
+    for (T element : array) {
+      if (Arrays.binarySearch(ids, idOf.applyAsInt(element)) < 0) {
+        kept[size++] = element;
+      }
+    }
+    return size == array.length ? array : Arrays.copyOf(kept, size);
+  }
+
+  private static <T> int indexOf(T[] array, int id, ToIntFunction<T> idOf) {
+    int low = 0;
+    int high = array.length - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int midId = idOf.applyAsInt(array[mid]);
+      if (midId < id) {
+        low = mid + 1;
+      } else if (midId > id) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -(low + 1);
+  }
+}
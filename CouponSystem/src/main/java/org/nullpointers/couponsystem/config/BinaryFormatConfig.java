@@ -0,0 +1,94 @@
+package org.nullpointers.couponsystem.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import java.io.IOException;
+import java.util.List;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Offers CBOR ({@code application/cbor}) next to JSON on every endpoint. Clients opt in
+ * by sending {@code Accept: application/cbor} and, for request bodies,
+ * {@code Content-Type: application/cbor}; JSON stays the default whenever a client does
+ * not ask for CBOR, because the CBOR converter is consulted after the JSON one.
+ *
+ * <p>CBOR documents are written with the same mapper settings as JSON, so they carry the
+ * same fields. Plain-text messages, such as errors, are encoded as CBOR text strings
+ * when CBOR is requested, so a response body is always in the negotiated format.
+ */
+@Configuration
+public class BinaryFormatConfig implements WebMvcConfigurer {
+  /**
+   * Creates the CBOR converter from the application's Jackson settings. It takes the
+   * place of the default CBOR converter, after the JSON one.
+   *
+   * @param builder the builder Spring Boot configures for JSON
+   * @return the converter
+   */
+  @Bean
+  public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(
+      Jackson2ObjectMapperBuilder builder) {
+    return new MappingJackson2CborHttpMessageConverter(
+        builder.factory(new CBORFactory()).build());
+  }
+
+  @Override
+  public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+    converters.replaceAll(converter -> converter instanceof StringHttpMessageConverter
+        ? new TextOnlyStringConverter((StringHttpMessageConverter) converter)
+        : converter);
+  }
+
+  /**
+   * Wraps the string converter so it declines to write CBOR, which it would otherwise
+   * do by copying the text unencoded, leaving the CBOR converter to encode it.
+   */
+  private static final class TextOnlyStringConverter implements HttpMessageConverter<String> {
+    private final StringHttpMessageConverter delegate;
+
+    private TextOnlyStringConverter(StringHttpMessageConverter delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+      return delegate.canRead(clazz, mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+      return !MediaType.APPLICATION_CBOR.equalsTypeAndSubtype(mediaType)
+          && delegate.canWrite(clazz, mediaType);
+    }
+
+    @Override
+    public List<MediaType> getSupportedMediaTypes() {
+      return delegate.getSupportedMediaTypes();
+    }
+
+    @Override
+    public List<MediaType> getSupportedMediaTypes(Class<?> clazz) {
+      return delegate.getSupportedMediaTypes(clazz);
+    }
+
+    @Override
+    public String read(Class<? extends String> clazz, HttpInputMessage inputMessage)
+        throws IOException {
+      return delegate.read(clazz, inputMessage);
+    }
+
+    @Override
+    public void write(String text, MediaType contentType, HttpOutputMessage outputMessage)
+        throws IOException {
+      delegate.write(text, contentType, outputMessage);
+    }
+  }
+}
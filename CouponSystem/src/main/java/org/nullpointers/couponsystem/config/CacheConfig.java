@@ -0,0 +1,96 @@
+package org.nullpointers.couponsystem.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configures the Hibernate second-level cache for stores, items, and coupons.
+ * Cache regions live in a Caffeine-backed JCache manager whose size limits and
+ * expiration are set through the {@code couponsystem.cache.*} properties.
+ */
+@Configuration
+public class CacheConfig {
+  /** Cache region for Store entities. */
+  public static final String STORE_REGION = "store";
+
+  /** Cache region for Item entities. */
+  public static final String ITEM_REGION = "item";
+
+  /** Cache region for Coupon entities of every type. */
+  public static final String COUPON_REGION = "coupon";
+
+  /** Hibernate's default region for cached query results. */
+  public static final String QUERY_RESULTS_REGION = "default-query-results-region";
+
+  /** Hibernate's default region for table update timestamps used by the query cache. */
+  public static final String UPDATE_TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+  /**
+   * Creates the JCache manager holding every second-level cache region.
+   *
+   * @param entityMaxSize maximum number of cached entries per entity region
+   * @param entityExpireAfterWrite how long an entity stays cached after it is written
+   * @param queryMaxSize maximum number of cached query results
+   * @param queryExpireAfterWrite how long a query result stays cached after it is written
+   * @return the cache manager
+   */
+  @Bean(destroyMethod = "close")
+  public CacheManager hibernateCacheManager(
+      @Value("${couponsystem.cache.entity.max-size:10000}") long entityMaxSize,
+      @Value("${couponsystem.cache.entity.expire-after-write:PT10M}")
+      Duration entityExpireAfterWrite,
+      @Value("${couponsystem.cache.query.max-size:1000}") long queryMaxSize,
+      @Value("${couponsystem.cache.query.expire-after-write:PT5M}")
+      Duration queryExpireAfterWrite) {
+    // A unique URI keeps each application context's regions separate
+    CacheManager cacheManager = Caching
+        .getCachingProvider(CaffeineCachingProvider.class.getName())
+        .getCacheManager(URI.create("couponsystem-" + UUID.randomUUID()),
+            getClass().getClassLoader());
+
+    for (String region : new String[] {STORE_REGION, ITEM_REGION, COUPON_REGION}) {
+      cacheManager.createCache(region, regionConfig(entityMaxSize, entityExpireAfterWrite));
+    }
+    cacheManager.createCache(QUERY_RESULTS_REGION,
+        regionConfig(queryMaxSize, queryExpireAfterWrite));
+    // Timestamps must outlive every cached query, so this region is never bounded
+    cacheManager.createCache(UPDATE_TIMESTAMPS_REGION, new CaffeineConfiguration<>());
+    return cacheManager;
+  }
+
+  private static CaffeineConfiguration<Object, Object> regionConfig(long maxSize,
+                                                                    Duration expireAfterWrite) {
+    CaffeineConfiguration<Object, Object> config = new CaffeineConfiguration<>();
+    config.setMaximumSize(OptionalLong.of(maxSize));
+    config.setExpireAfterWrite(OptionalLong.of(expireAfterWrite.toNanos()));
+    config.setStatisticsEnabled(true);
+    return config;
+  }
+
+  /**
+   * Points Hibernate's JCache region factory at the cache manager above.
+   *
+   * @param hibernateCacheManager the cache manager holding the regions
+   * @return the customizer
+   */
+  @Bean
+  public HibernatePropertiesCustomizer hibernateCacheCustomizer(
+      CacheManager hibernateCacheManager) {
+    return properties -> {
+      properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+      properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    };
+  }
+}
@@ -0,0 +1,41 @@
+package org.nullpointers.couponsystem.config;
+
+import javax.sql.DataSource;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Fills in the normalized category column for items stored before it existed.
+ *
+ * <p>Category lookups compare {@code items.category_key}, a lower-cased copy of the
+ * category that new and updated items carry, so they can use an index instead of
+ * applying {@code lower()} to every row. Schema updates add the column empty to existing
+ * tables; at startup it is filled in for every item that lacks it.
+ */
+@Configuration
+public class CategoryKeyConfig {
+  /**
+   * Backfills the column once the schema is in place and before the application starts
+   * serving requests.
+   *
+   * @param dataSource the data source
+   * @return the initializer
+   */
+  @Bean
+  public SmartInitializingSingleton categoryKeyBackfill(DataSource dataSource) {
+    return () -> backfill(new JdbcTemplate(dataSource));
+  }
+
+  /**
+   * Sets the normalized category of every item that has a category but no key.
+   *
+   * @param jdbcTemplate template for running the statement
+   * @return the number of items updated
+   */
+  public static int backfill(JdbcTemplate jdbcTemplate) {
+    return jdbcTemplate.update("update items set category_key = lower(category)"
+        + " where category_key is null and category is not null");
+  }
+}
@@ -0,0 +1,132 @@
+package org.nullpointers.couponsystem.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.util.Map;
+import java.util.regex.Pattern;
+import org.nullpointers.couponsystem.catalog.CatalogVersions;
+import org.nullpointers.couponsystem.controller.JsonBodyCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Answers polls of a store's items and coupons with {@code 304 Not Modified} while the
+ * store has not changed. Responses to {@code GET /items/store/{storeId}} and
+ * {@code GET /coupons/store/{storeId}} carry a strong ETag built from the store's
+ * {@link CatalogVersions version}, and {@code Cache-Control: no-cache} so clients
+ * revalidate on every poll. A request whose {@code If-None-Match} holds the current tag
+ * is answered before the controller runs, without reading the catalog or writing JSON.
+ *
+ * <p>Tags are checked before the catalog is read, so a change committed in between is
+ * sent under the older tag and the next poll fetches the catalog again, never the
+ * reverse. JSON and CBOR responses get different tags.
+ *
+ * <p>{@code GET /store/{id}} and {@code GET /coupon/{id}} are sent with
+ * {@code Cache-Control: no-cache} and an ETag hashed from the body, since the entities
+ * are never updated but can be deleted. A client revalidating one that still exists gets
+ * {@code 304 Not Modified}; one that was deleted gets {@code 404}. Longer paths under
+ * {@code /store/} and {@code /coupon/}, such as imports, syncs, and budget baskets, are
+ * not buffered or tagged.
+ *
+ * <p>Reads that pass the tag check, and reads of single entities, are then offered to
+ * the {@link JsonBodyCache}.
+ */
+@Configuration
+public class ConditionalGetConfig implements WebMvcConfigurer {
+  /**
+   * URL patterns the body ETag filter is registered for. Being prefix patterns they also
+   * match longer paths, which the filter skips.
+   */
+  public static final String[] ENTITY_PATHS = {"/store/*", "/coupon/*"};
+
+  /** Paths of stores and coupons by ID, whose responses get body ETags. */
+  private static final Pattern ENTITY_PATH = Pattern.compile("/(store|coupon)/[^/]+");
+
+  private final CatalogVersions catalogVersions;
+  private final JsonBodyCache jsonBodyCache;
+
+  @Autowired
+  public ConditionalGetConfig(CatalogVersions catalogVersions, JsonBodyCache jsonBodyCache) {
+    this.catalogVersions = catalogVersions;
+    this.jsonBodyCache = jsonBodyCache;
+  }
+
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    registry.addInterceptor(new StoreVersionInterceptor(catalogVersions))
+        .addPathPatterns("/items/store/*", "/coupons/store/*");
+    // After the tag check, so a 304 is answered without touching the body cache
+    registry.addInterceptor(jsonBodyCache).addPathPatterns(JsonBodyCache.PATHS).order(1);
+  }
+
+  /**
+   * Tags responses for stores and coupons by ID with a hash of their body, and answers
+   * {@code If-None-Match} requests whose tag still matches with 304.
+   *
+   * @return the filter registration
+   */
+  @Bean
+  public FilterRegistrationBean<ShallowEtagHeaderFilter> entityEtagFilter() {
+    FilterRegistrationBean<ShallowEtagHeaderFilter> registration =
+        new FilterRegistrationBean<>(new EntityEtagFilter());
+    registration.addUrlPatterns(ENTITY_PATHS);
+    return registration;
+  }
+
+  /**
+   * Body ETag filter that only handles a single store or coupon by ID.
+   */
+  static final class EntityEtagFilter extends ShallowEtagHeaderFilter {
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+      String path = request.getRequestURI().substring(request.getContextPath().length());
+      return !ENTITY_PATH.matcher(path).matches();
+    }
+  }
+
+  /**
+   * Sets the store's ETag on catalog reads and ends those the client already has.
+   */
+  private static final class StoreVersionInterceptor implements HandlerInterceptor {
+    private final CatalogVersions catalogVersions;
+
+    private StoreVersionInterceptor(CatalogVersions catalogVersions) {
+      this.catalogVersions = catalogVersions;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response,
+                             Object handler) {
+      if (!"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod())) {
+        return true;
+      }
+      Object variables = request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+      if (!(variables instanceof Map)) {
+        return true;
+      }
+      int storeId;
+      try {
+        storeId = Integer.parseInt(String.valueOf(((Map<?, ?>) variables).get("storeId")));
+      } catch (NumberFormatException e) {
+        return true;
+      }
+      String accept = request.getHeader(HttpHeaders.ACCEPT);
+      boolean cbor = accept != null && accept.contains(MediaType.APPLICATION_CBOR_VALUE);
+      String etag = catalogVersions.etag(storeId, cbor ? "cbor" : null);
+      response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+      response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+      // Sets the ETag header, and status 304 when the client's tag matches
+      return !new ServletWebRequest(request, response).checkNotModified(etag);
+    }
+  }
+}
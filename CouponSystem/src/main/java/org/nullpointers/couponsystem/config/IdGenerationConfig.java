@@ -0,0 +1,79 @@
+package org.nullpointers.couponsystem.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Configures sequence-based ID generation for stores, items, and coupons.
+ * Each entity draws IDs from its own database sequence through Hibernate's pooled
+ * optimizer, which reserves {@link #ALLOCATION_SIZE} IDs per sequence call, so inserts
+ * no longer need a round trip each to read back a generated key and can be batched.
+ *
+ * <p>Databases created before the switch already hold rows with identity-generated IDs.
+ * At startup each sequence is moved past the largest existing ID so new IDs never clash
+ * with them.
+ */
+@Configuration
+public class IdGenerationConfig {
+  /** Number of IDs reserved per sequence call; sequences increment by this much. */
+  public static final int ALLOCATION_SIZE = 50;
+
+  /** Sequence for Store IDs. */
+  public static final String STORE_SEQUENCE = "stores_seq";
+
+  /** Sequence for Item IDs. */
+  public static final String ITEM_SEQUENCE = "items_seq";
+
+  /** Sequence for Coupon IDs of every type. */
+  public static final String COUPON_SEQUENCE = "coupons_seq";
+
+  /** Sequence numbering the entries of the catalog change log. */
+  public static final String CHANGE_SEQUENCE = "catalog_changes_seq";
+
+  private static final String[][] TABLE_SEQUENCES = {
+      {"stores", STORE_SEQUENCE}, {"items", ITEM_SEQUENCE}, {"coupons", COUPON_SEQUENCE}};
+
+  /**
+   * Aligns the ID sequences with existing rows once the schema is in place and before
+   * the application starts serving requests.
+   *
+   * @param entityManagerFactory the entity manager factory, used to find the dialect
+   * @param dataSource the data source
+   * @return the initializer
+   */
+  @Bean
+  public SmartInitializingSingleton idSequenceAligner(EntityManagerFactory entityManagerFactory,
+                                                      DataSource dataSource) {
+    return () -> alignSequences(entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+        .getJdbcServices().getDialect(), new JdbcTemplate(dataSource));
+  }
+
+  /**
+   * Restarts every sequence whose next block of IDs could overlap an existing row.
+   *
+   * @param dialect the database dialect
+   * @param jdbcTemplate template for running the statements
+   */
+  public static void alignSequences(Dialect dialect, JdbcTemplate jdbcTemplate) {
+    for (String[] tableSequence : TABLE_SEQUENCES) {
+      Long maxId = jdbcTemplate.queryForObject(
+          "select max(id) from " + tableSequence[0], Long.class);
+      if (maxId == null) {
+        continue;
+      }
+      Long next = jdbcTemplate.queryForObject(
+          dialect.getSequenceSupport().getSequenceNextValString(tableSequence[1]), Long.class);
+      // The pooled optimizer hands out the block of IDs ending at the sequence value
+      if (next == null || next - ALLOCATION_SIZE < maxId) {
+        jdbcTemplate.execute("alter sequence " + tableSequence[1] + " restart with "
+            + (maxId + ALLOCATION_SIZE));
+      }
+    }
+  }
+}
@@ -0,0 +1,57 @@
+package org.nullpointers.couponsystem.controller;
+
+import org.nullpointers.couponsystem.catalog.CatalogReplica;
+import org.nullpointers.couponsystem.service.CacheStatisticsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Controller for operational endpoints such as cache and replica statistics.
+ */
+@RestController
+public class AdminController {
+  private final CacheStatisticsService cacheStatisticsService;
+  private final CatalogReplica catalogReplica;
+
+  @Autowired
+  public AdminController(CacheStatisticsService cacheStatisticsService,
+                         CatalogReplica catalogReplica) {
+    this.cacheStatisticsService = cacheStatisticsService;
+    this.catalogReplica = catalogReplica;
+  }
+
+  /**
+   * Retrieves hit and miss counts for the second-level and query caches.
+   *
+   * @return ResponseEntity with the cache report and HTTP 200
+   */
+  @GetMapping("/admin/cache/stats")
+  public ResponseEntity<?> getCacheStatistics() {
+    return new ResponseEntity<>(cacheStatisticsService.getReport(), HttpStatus.OK);
+  }
+
+  /**
+   * Resets the cache hit and miss counts.
+   *
+   * @return ResponseEntity with success message and HTTP 200
+   */
+  @DeleteMapping("/admin/cache/stats")
+  public ResponseEntity<?> resetCacheStatistics() {
+    cacheStatisticsService.resetStatistics();
+    return new ResponseEntity<>("Cache statistics reset.", HttpStatus.OK);
+  }
+
+  /**
+   * Retrieves the size and estimated index memory of the in-memory catalog replica.
+   *
+   * @return ResponseEntity with the replica footprint and HTTP 200
+   */
+  @GetMapping("/admin/catalog/stats")
+  public ResponseEntity<?> getCatalogStatistics() {
+    return new ResponseEntity<>(catalogReplica.getFootprint(), HttpStatus.OK);
+  }
+}
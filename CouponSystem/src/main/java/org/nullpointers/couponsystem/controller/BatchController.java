@@ -0,0 +1,391 @@
+package org.nullpointers.couponsystem.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.nullpointers.couponsystem.catalog.CatalogReplica;
+import org.nullpointers.couponsystem.dto.BatchRequest;
+import org.nullpointers.couponsystem.dto.BatchResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Controller for {@code POST /batch}, which runs a list of REST operations in one request
+ * and answers each with the status and body its own call would have had.
+ *
+ * <p>Writes run in request order, and every operation after a write sees it. Consecutive
+ * writes share one transaction, so they hold one pooled connection and commit together;
+ * if that commit fails, each of them is reported as rolled back. Reads between two writes
+ * do not depend on one another unless one refers to another's result, so they run
+ * concurrently on the in-memory catalog replica, which needs no connection. Until the
+ * replica is ready they run one after another in one read-only transaction instead.
+ */
+@RestController
+public class BatchController {
+  private static final Pattern REFERENCE = Pattern.compile("\\$\\{([^.}]+)((?:\\.[^.}]+)*)}");
+
+  private final BatchRoutes routes;
+  private final ObjectMapper objectMapper;
+  private final CatalogReplica catalogReplica;
+  private final TransactionTemplate writeTransaction;
+  private final TransactionTemplate readTransaction;
+  private final ExecutorService readers;
+  private final int maxOperations;
+
+  /**
+   * Creates the controller.
+   *
+   * @param routeController the controller whose operations a batch may contain
+   * @param objectMapper the mapper for request and response bodies
+   * @param catalogReplica the replica concurrent reads are served from
+   * @param transactionManager the transaction manager
+   * @param readThreads the number of threads running reads concurrently
+   * @param maxOperations the most operations one batch may hold
+   */
+  @Autowired
+  public BatchController(RouteController routeController, ObjectMapper objectMapper,
+                         CatalogReplica catalogReplica,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${couponsystem.batch.read-threads:4}") int readThreads,
+                         @Value("${couponsystem.batch.max-operations:100}") int maxOperations) {
+    this.routes = new BatchRoutes(routeController, objectMapper);
+    this.objectMapper = objectMapper;
+    this.catalogReplica = catalogReplica;
+    this.writeTransaction = new TransactionTemplate(transactionManager);
+    this.readTransaction = new TransactionTemplate(transactionManager);
+    this.readTransaction.setReadOnly(true);
+    this.readers = Executors.newFixedThreadPool(readThreads);
+    this.maxOperations = maxOperations;
+  }
+
+  /**
+   * Stops the threads running reads.
+   */
+  @PreDestroy
+  public void shutdown() {
+    readers.shutdown();
+  }
+
+  /**
+   * Runs a batch of operations.
+   *
+   * @param request the operations, in order
+   * @return ResponseEntity with one result per operation, in order, and HTTP 200, or error
+   *     with HTTP 400 if the batch itself is invalid
+   */
+  @PostMapping("/batch")
+  public ResponseEntity<?> runBatch(@RequestBody BatchRequest request) {
+    List<BatchRequest.Operation> operations = request.operations();
+    if (operations == null || operations.isEmpty()) {
+      return new ResponseEntity<>("operations must be a non-empty array.",
+          HttpStatus.BAD_REQUEST);
+    }
+    if (operations.size() > maxOperations) {
+      return new ResponseEntity<>("A batch may hold at most " + maxOperations
+          + " operations.", HttpStatus.BAD_REQUEST);
+    }
+    Batch batch;
+    try {
+      batch = plan(operations);
+    } catch (IllegalArgumentException e) {
+      return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+    for (Stage stage : batch.stages) {
+      if (stage.write) {
+        runWrites(batch, stage.operations);
+      } else if (catalogReplica.isReady()) {
+        runConcurrently(batch, stage.operations);
+      } else {
+        readTransaction.executeWithoutResult(status ->
+            stage.operations.forEach(index -> batch.results[index] = run(batch, index)));
+      }
+    }
+    return new ResponseEntity<>(Arrays.asList(batch.results), HttpStatus.OK);
+  }
+
+  /**
+   * Checks the operations and orders them into stages. A write joins the write stage
+   * before it, if that is the last stage, and otherwise starts a new one. A read goes
+   * into the first stage after the last write that comes after every operation it
+   * refers to.
+   */
+  private Batch plan(List<BatchRequest.Operation> operations) {
+    Batch batch = new Batch(operations);
+    Map<String, Integer> labels = batch.labels;
+    int[] stageOf = new int[operations.size()];
+    int firstRead = 0;
+    for (int i = 0; i < operations.size(); i++) {
+      BatchRequest.Operation operation = operations.get(i);
+      if (operation == null || operation.method() == null || operation.path() == null) {
+        throw new IllegalArgumentException("operations[" + i + "] needs a method and a path.");
+      }
+      int after = firstRead;
+      for (String label : references(operation)) {
+        Integer target = labels.get(label);
+        if (target == null) {
+          throw new IllegalArgumentException("operations[" + i + "] refers to '" + label
+              + "', which is not an earlier operation.");
+        }
+        after = Math.max(after, stageOf[target] + 1);
+      }
+      if (operation.id() != null && labels.putIfAbsent(operation.id(), i) != null) {
+        throw new IllegalArgumentException("operations[" + i + "] reuses the id '"
+            + operation.id() + "'.");
+      }
+      BatchRoutes.Call call = routes.bind(method(operation), operation.path());
+      if (call != null && call.isWrite()) {
+        Stage last = batch.stages.isEmpty() ? null : batch.stages.get(batch.stages.size() - 1);
+        if (last == null || !last.write) {
+          batch.addStage(true);
+        }
+        stageOf[i] = batch.stages.size() - 1;
+        firstRead = batch.stages.size();
+      } else {
+        while (batch.stages.size() <= after) {
+          batch.addStage(false);
+        }
+        stageOf[i] = after;
+      }
+      batch.stages.get(stageOf[i]).operations.add(i);
+    }
+    return batch;
+  }
+
+  private List<String> references(BatchRequest.Operation operation) {
+    List<String> labels = new ArrayList<>();
+    collectReferences(operation.path(), labels);
+    if (operation.body() != null) {
+      collectText(operation.body(), labels);
+    }
+    return labels;
+  }
+
+  private static void collectText(JsonNode node, List<String> labels) {
+    if (node.isTextual()) {
+      collectReferences(node.textValue(), labels);
+    }
+    node.forEach(child -> collectText(child, labels));
+    if (node.isObject()) {
+      node.fieldNames().forEachRemaining(name -> collectReferences(name, labels));
+    }
+  }
+
+  private static void collectReferences(String text, List<String> labels) {
+    Matcher matcher = REFERENCE.matcher(text);
+    while (matcher.find()) {
+      labels.add(matcher.group(1));
+    }
+  }
+
+  /**
+   * Runs consecutive writes in one transaction. If it does not commit, nothing they did
+   * was kept, so their successful results are replaced with an error.
+   */
+  private void runWrites(Batch batch, List<Integer> operations) {
+    try {
+      writeTransaction.executeWithoutResult(status ->
+          operations.forEach(index -> batch.results[index] = run(batch, index)));
+    } catch (RuntimeException e) {
+      for (int index : operations) {
+        BatchResult result = batch.results[index];
+        if (result == null || result.status() < HttpStatus.BAD_REQUEST.value()) {
+          batch.results[index] = result(batch, index, HttpStatus.INTERNAL_SERVER_ERROR,
+              "Rolled back with the batch transaction: " + e.getMessage());
+        }
+      }
+    }
+  }
+
+  private void runConcurrently(Batch batch, List<Integer> operations) {
+    if (operations.size() == 1) {
+      batch.results[operations.get(0)] = run(batch, operations.get(0));
+      return;
+    }
+    List<CompletableFuture<BatchResult>> futures = new ArrayList<>(operations.size());
+    for (int index : operations) {
+      futures.add(CompletableFuture.supplyAsync(() -> run(batch, index), readers));
+    }
+    for (int i = 0; i < operations.size(); i++) {
+      batch.results[operations.get(i)] = futures.get(i).join();
+    }
+  }
+
+  /**
+   * Runs one operation after filling in its references.
+   */
+  private BatchResult run(Batch batch, int index) {
+    BatchRequest.Operation operation = batch.operations.get(index);
+    String path;
+    JsonNode body;
+    try {
+      path = substitute(batch, operation.path());
+      body = operation.body() == null ? null : substitute(batch, operation.body());
+    } catch (FailedReference e) {
+      return result(batch, index, e.status, e.getMessage());
+    }
+    BatchRoutes.Call call = routes.bind(method(operation), path);
+    if (call == null) {
+      return result(batch, index, HttpStatus.NOT_FOUND,
+          "Unsupported operation: " + method(operation) + " " + path);
+    }
+    ResponseEntity<?> response;
+    try {
+      response = call.run(body);
+    } catch (IllegalArgumentException e) {
+      return result(batch, index, HttpStatus.BAD_REQUEST, e.getMessage());
+    } catch (Exception e) {
+      return result(batch, index, HttpStatus.INTERNAL_SERVER_ERROR,
+          "Error running operation: " + e.getMessage());
+    }
+    Map<String, String> headers = new LinkedHashMap<>();
+    response.getHeaders().forEach((name, values) -> headers.put(name, values.get(0)));
+    return new BatchResult(operation.id(), response.getStatusCode().value(),
+        objectMapper.valueToTree(response.getBody()), headers);
+  }
+
+  private BatchResult result(Batch batch, int index, HttpStatus status, String message) {
+    return new BatchResult(batch.operations.get(index).id(), status.value(),
+        TextNode.valueOf(message), Map.of());
+  }
+
+  private static String method(BatchRequest.Operation operation) {
+    return operation.method().toUpperCase(Locale.ROOT);
+  }
+
+  /**
+   * Replaces every reference in a path or string value with the text of its value.
+   */
+  private String substitute(Batch batch, String text) {
+    Matcher matcher = REFERENCE.matcher(text);
+    if (!matcher.find()) {
+      return text;
+    }
+    StringBuilder substituted = new StringBuilder(text.length());
+    do {
+      matcher.appendReplacement(substituted,
+          Matcher.quoteReplacement(resolve(batch, matcher).asText()));
+    } while (matcher.find());
+    return matcher.appendTail(substituted).toString();
+  }
+
+  /**
+   * Copies a body with its references filled in. A string that is a single reference is
+   * replaced with the referenced value itself, so {@code "${store.id}"} becomes a number.
+   */
+  private JsonNode substitute(Batch batch, JsonNode node) {
+    if (node.isTextual()) {
+      Matcher matcher = REFERENCE.matcher(node.textValue());
+      if (matcher.matches()) {
+        return resolve(batch, matcher);
+      }
+      return TextNode.valueOf(substitute(batch, node.textValue()));
+    }
+    if (node.isArray()) {
+      ArrayNode copy = objectMapper.createArrayNode();
+      node.forEach(element -> copy.add(substitute(batch, element)));
+      return copy;
+    }
+    if (node.isObject()) {
+      ObjectNode copy = objectMapper.createObjectNode();
+      node.fields().forEachRemaining(field ->
+          copy.set(substitute(batch, field.getKey()), substitute(batch, field.getValue())));
+      return copy;
+    }
+    return node;
+  }
+
+  /**
+   * Looks up the value a reference points to in the earlier operation's response.
+   */
+  private JsonNode resolve(Batch batch, Matcher reference) {
+    int target = batch.labels.get(reference.group(1));
+    BatchResult result = batch.results[target];
+    if (result == null || result.status() >= HttpStatus.BAD_REQUEST.value()) {
+      throw new FailedReference(HttpStatus.FAILED_DEPENDENCY, "Operation '"
+          + reference.group(1) + "' failed"
+          + (result == null ? "." : " with status " + result.status() + "."));
+    }
+    JsonNode value = result.body();
+    String path = reference.group(2);
+    for (String step : path.isEmpty() ? new String[0] : path.substring(1).split("\\.")) {
+      if (value == null) {
+        break;
+      }
+      boolean index = value.isArray() && step.chars().allMatch(Character::isDigit);
+      value = index ? value.get(Integer.parseInt(step)) : value.get(step);
+    }
+    if (value == null || value.isMissingNode()) {
+      throw new FailedReference(HttpStatus.BAD_REQUEST,
+          "Reference " + reference.group() + " does not resolve.");
+    }
+    return value;
+  }
+
+  /**
+   * A batch being run: its operations, their results so far, and the stages they run in.
+   */
+  private static final class Batch {
+    private final List<BatchRequest.Operation> operations;
+    private final BatchResult[] results;
+    private final Map<String, Integer> labels = new HashMap<>();
+    private final List<Stage> stages = new ArrayList<>();
+
+    private Batch(List<BatchRequest.Operation> operations) {
+      this.operations = operations;
+      this.results = new BatchResult[operations.size()];
+    }
+
+    private void addStage(boolean write) {
+      stages.add(new Stage(write));
+    }
+  }
+
+  /**
+   * Operations that run together: writes in order in one transaction, or independent
+   * reads.
+   */
+  private static final class Stage {
+    private final boolean write;
+    private final List<Integer> operations = new ArrayList<>();
+
+    private Stage(boolean write) {
+      this.write = write;
+    }
+  }
+
+  /**
+   * Thrown when a reference cannot be filled in, with the status to answer the operation.
+   */
+  private static final class FailedReference extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final transient HttpStatus status;
+
+    private FailedReference(HttpStatus status, String message) {
+      super(message);
+      this.status = status;
+    }
+  }
+}
@@ -0,0 +1,240 @@
+package org.nullpointers.couponsystem.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.nullpointers.couponsystem.dto.BulkCouponRequest;
+import org.nullpointers.couponsystem.dto.CartRequest;
+import org.nullpointers.couponsystem.dto.CouponRequest;
+import org.nullpointers.couponsystem.model.Item;
+import org.nullpointers.couponsystem.model.Store;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.PathContainer;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+/**
+ * The {@link RouteController} operations a {@code POST /batch} request may contain, each
+ * matched by method and path as the REST API matches it and marked as a read or a write.
+ */
+final class BatchRoutes {
+  private static final TypeReference<Map<String, Object>> MAP = new TypeReference<>() {
+  };
+
+  private final List<Route> routes = new ArrayList<>();
+  private final ObjectMapper objectMapper;
+
+  BatchRoutes(RouteController api, ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper;
+    write(HttpMethod.POST, "/store", call -> api.createStore(call.body(Store.class)));
+    read(HttpMethod.GET, "/store/{id}", call -> api.getStore(call.intVariable("id")));
+    read(HttpMethod.GET, "/stores", call -> api.getAllStores());
+    write(HttpMethod.DELETE, "/store/{id}", call -> api.deleteStore(call.intVariable("id")));
+
+    write(HttpMethod.POST, "/item", call -> api.createItem(call.body(Item.class)));
+    read(HttpMethod.GET, "/item/{id}", call -> api.getItem(call.intVariable("id"),
+        call.param("fields")));
+    read(HttpMethod.GET, "/items", call -> api.getAllItems(call.intParam("limit"),
+        call.param("cursor"), call.param("fields")));
+    read(HttpMethod.GET, "/items/store/{storeId}", call -> api.getItemsByStore(
+        call.intVariable("storeId"), call.intParam("limit"), call.param("cursor"),
+        call.param("fields")));
+    read(HttpMethod.GET, "/items/search", call -> api.searchItems(
+        call.requiredParam("keyword"), call.intParam("limit"), call.param("cursor"),
+        call.param("fields")));
+    read(HttpMethod.GET, "/items/category/{category}", call -> api.getItemsByCategory(
+        call.variable("category"), call.intParam("limit"), call.param("cursor"),
+        call.param("fields")));
+    write(HttpMethod.DELETE, "/item/{id}", call -> api.deleteItem(call.intVariable("id")));
+    write(HttpMethod.POST, "/items/delete", call -> api.deleteItems(call.mapBody()));
+    write(HttpMethod.DELETE, "/items/store/{storeId}", call -> api.deleteItemsByStore(
+        call.intVariable("storeId")));
+    write(HttpMethod.POST, "/items/prices", call -> api.updateItemPrices(call.mapBody()));
+
+    write(HttpMethod.POST, "/coupon", call -> api.createCoupon(
+        call.body(CouponRequest.class)));
+    write(HttpMethod.POST, "/coupons/bulk", call -> api.createCoupons(
+        call.body(BulkCouponRequest.class)));
+    read(HttpMethod.GET, "/coupon/{id}", call -> api.getCoupon(call.intVariable("id")));
+    read(HttpMethod.GET, "/coupons", call -> api.getAllCoupons(call.intParam("limit"),
+        call.param("cursor")));
+    read(HttpMethod.GET, "/coupons/store/{storeId}", call -> api.getCouponsByStore(
+        call.intVariable("storeId"), call.intParam("limit"), call.param("cursor")));
+    write(HttpMethod.DELETE, "/coupon/{id}", call -> api.deleteCoupon(
+        call.intVariable("id")));
+    write(HttpMethod.POST, "/coupons/delete", call -> api.deleteCoupons(call.mapBody()));
+    write(HttpMethod.DELETE, "/coupons/store/{storeId}", call -> api.deleteCouponsByStore(
+        call.intVariable("storeId")));
+
+    read(HttpMethod.POST, "/cart/optimal-coupon", call -> api.findOptimalCoupon(
+        call.body(CartRequest.class)));
+  }
+
+  private void read(HttpMethod method, String pattern, Handler handler) {
+    routes.add(new Route(method, PathPatternParser.defaultInstance.parse(pattern), false,
+        handler));
+  }
+
+  private void write(HttpMethod method, String pattern, Handler handler) {
+    routes.add(new Route(method, PathPatternParser.defaultInstance.parse(pattern), true,
+        handler));
+  }
+
+  /**
+   * Finds the operation a method and path stand for.
+   *
+   * @param method the HTTP method
+   * @param path the request path, with any query string
+   * @return the operation, bound to the path's variables and query parameters, or null if
+   *     no operation matches
+   */
+  Call bind(String method, String path) {
+    UriComponents uri = UriComponentsBuilder.fromUriString(path).build();
+    if (uri.getPath() == null) {
+      return null;
+    }
+    PathContainer container = PathContainer.parsePath(uri.getPath());
+    for (Route route : routes) {
+      if (!route.method.matches(method)) {
+        continue;
+      }
+      PathPattern.PathMatchInfo match = route.pattern.matchAndExtract(container);
+      if (match != null) {
+        return new Call(route, match.getUriVariables(), uri.getQueryParams());
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Runs an operation with a request.
+   */
+  private interface Handler {
+    ResponseEntity<?> handle(Call call) throws Exception;
+  }
+
+  /**
+   * An operation the batch endpoint accepts.
+   */
+  private static final class Route {
+    private final HttpMethod method;
+    private final PathPattern pattern;
+    private final boolean write;
+    private final Handler handler;
+
+    private Route(HttpMethod method, PathPattern pattern, boolean write, Handler handler) {
+      this.method = method;
+      this.pattern = pattern;
+      this.write = write;
+      this.handler = handler;
+    }
+  }
+
+  /**
+   * An operation bound to a path, ready to run with a body.
+   */
+  final class Call {
+    private final Route route;
+    private final Map<String, String> variables;
+    private final MultiValueMap<String, String> params;
+    private JsonNode body;
+
+    private Call(Route route, Map<String, String> variables,
+                 MultiValueMap<String, String> params) {
+      this.route = route;
+      this.variables = variables;
+      this.params = params;
+    }
+
+    /**
+     * Returns whether the operation changes the catalog.
+     *
+     * @return true for creates, updates, and deletes
+     */
+    boolean isWrite() {
+      return route.write;
+    }
+
+    /**
+     * Runs the operation.
+     *
+     * @param body the request body, or null
+     * @return the endpoint's response
+     * @throws IllegalArgumentException if a path variable, parameter, or the body cannot
+     *     be read
+     * @throws Exception if the endpoint fails
+     */
+    ResponseEntity<?> run(JsonNode body) throws Exception {
+      this.body = body;
+      return route.handler.handle(this);
+    }
+
+    private String variable(String name) {
+      return variables.get(name);
+    }
+
+    private int intVariable(String name) {
+      try {
+        return Integer.parseInt(variables.get(name));
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException(name + " must be an integer.", e);
+      }
+    }
+
+    private String param(String name) {
+      String value = params.getFirst(name);
+      return value == null ? null : UriUtils.decode(value, StandardCharsets.UTF_8);
+    }
+
+    private String requiredParam(String name) {
+      String value = param(name);
+      if (value == null) {
+        throw new IllegalArgumentException(name + " is required.");
+      }
+      return value;
+    }
+
+    private Integer intParam(String name) {
+      String value = param(name);
+      try {
+        return value == null ? null : Integer.valueOf(value);
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException(name + " must be an integer.", e);
+      }
+    }
+
+    private <T> T body(Class<T> type) {
+      try {
+        return objectMapper.treeToValue(requireBody(), type);
+      } catch (JsonProcessingException e) {
+        throw new IllegalArgumentException(
+            "Malformed request body: " + RouteController.describe(e), e);
+      }
+    }
+
+    private Map<String, Object> mapBody() {
+      JsonNode node = requireBody();
+      if (!node.isObject()) {
+        throw new IllegalArgumentException("Malformed request body: expected an object.");
+      }
+      return objectMapper.convertValue(node, MAP);
+    }
+
+    private JsonNode requireBody() {
+      if (body == null || body.isNull()) {
+        throw new IllegalArgumentException("Request body is required.");
+      }
+      return body;
+    }
+  }
+}
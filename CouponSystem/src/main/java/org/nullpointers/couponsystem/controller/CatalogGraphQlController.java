@@ -0,0 +1,260 @@
+package org.nullpointers.couponsystem.controller;
+
+import graphql.GraphQLError;
+import graphql.schema.DataFetchingEnvironment;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+import org.dataloader.DataLoader;
+import org.nullpointers.couponsystem.model.Coupon;
+import org.nullpointers.couponsystem.model.Item;
+import org.nullpointers.couponsystem.model.Store;
+import org.nullpointers.couponsystem.service.DataService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.BatchMapping;
+import org.springframework.graphql.data.method.annotation.GraphQlExceptionHandler;
+import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.graphql.data.method.annotation.SchemaMapping;
+import org.springframework.graphql.execution.BatchLoaderRegistry;
+import org.springframework.graphql.execution.ErrorType;
+import org.springframework.stereotype.Controller;
+import reactor.core.publisher.Mono;
+
+/**
+ * GraphQL controller for reading stores with their items and coupons in one request.
+ *
+ * <p>Nested fields are loaded through per-request data loaders, which gather every
+ * store, item, or coupon that a level of the query needs and fetch them with one
+ * {@link DataService} call per entity type, however many stores the query covers.
+ *
+ * <p>Every list is bounded: a query returns or lists by ID at most the configured number
+ * of stores, and each store's items and coupons are paged by ID, at most a page each.
+ * Pages are cut where the rows are read, so a store is never read past its page.
+ */
+@Controller
+public class CatalogGraphQlController {
+  private static final String STORE_ITEMS = "storeItems";
+  private static final String STORE_COUPONS = "storeCoupons";
+
+  private final DataService dataService;
+  private final int maxStores;
+  private final int maxPageSize;
+
+  /**
+   * Creates the controller and registers the loaders of each store's items and coupons.
+   *
+   * @param dataService the data service resolvers read from
+   * @param batchLoaderRegistry the registry of per-request data loaders
+   * @param maxStores the most stores one stores query returns or lists by ID
+   * @param maxPageSize the most items or coupons returned per store, and the default
+   */
+  @Autowired
+  public CatalogGraphQlController(DataService dataService,
+                                  BatchLoaderRegistry batchLoaderRegistry,
+                                  @Value("${couponsystem.graphql.max-stores:100}")
+                                  int maxStores,
+                                  @Value("${couponsystem.pagination.max-page-size:1000}")
+                                  int maxPageSize) {
+    this.dataService = dataService;
+    this.maxStores = maxStores;
+    this.maxPageSize = maxPageSize;
+    batchLoaderRegistry.<StorePage, List<Item>>forName(STORE_ITEMS)
+        .registerMappedBatchLoader((pages, environment) -> Mono.fromSupplier(() ->
+            load(pages, dataService::getItemsByStoresAfter, Item::getStoreId)));
+    batchLoaderRegistry.<StorePage, List<Coupon>>forName(STORE_COUPONS)
+        .registerMappedBatchLoader((pages, environment) -> Mono.fromSupplier(() ->
+            load(pages, dataService::getCouponsByStoresAfter, Coupon::getStoreId)));
+  }
+
+  @QueryMapping
+  public Store store(@Argument int id) {
+    return dataService.getStore(id);
+  }
+
+  /**
+   * Returns the given stores, or a page of every store.
+   *
+   * @param ids the store IDs, or null for a page of every store
+   * @param after with no {@code ids}, only stores with a greater ID are returned
+   * @param limit with no {@code ids}, the most stores to return
+   * @return the stores, in the order of {@code ids} or else in ID order; unknown IDs are
+   *     skipped
+   * @throws IllegalArgumentException if too many IDs are listed or the limit is invalid
+   */
+  @QueryMapping
+  public List<Store> stores(@Argument List<Integer> ids, @Argument Integer after,
+                            @Argument Integer limit) {
+    if (ids == null) {
+      return dataService.getStoresAfter(after == null ? 0 : after, capped(limit, maxStores));
+    }
+    if (ids.size() > maxStores) {
+      throw new IllegalArgumentException(
+          "A query cannot list more than " + maxStores + " store IDs.");
+    }
+    Map<Integer, Store> found = byId(dataService.getStoresByIds(ids));
+    List<Store> stores = new ArrayList<>(ids.size());
+    for (int id : ids) {
+      Store store = found.get(id);
+      if (store != null) {
+        stores.add(store);
+      }
+    }
+    return stores;
+  }
+
+  @QueryMapping
+  public Item item(@Argument int id) {
+    return dataService.getItem(id);
+  }
+
+  @QueryMapping
+  public Coupon coupon(@Argument int id) {
+    return dataService.getCoupon(id);
+  }
+
+  /**
+   * Returns a page of a store's items, loaded together with those of every other store
+   * in the query.
+   *
+   * @param store the store
+   * @param after only items with a greater ID are returned
+   * @param limit the most items to return
+   * @param environment the field's environment, which holds the request's data loaders
+   * @return the items, in ID order
+   */
+  @SchemaMapping(typeName = "Store")
+  public CompletableFuture<List<Item>> items(Store store, @Argument Integer after,
+                                             @Argument Integer limit,
+                                             DataFetchingEnvironment environment) {
+    DataLoader<StorePage, List<Item>> loader = environment.getDataLoader(STORE_ITEMS);
+    return loader.load(pageOf(store, after, limit));
+  }
+
+  /**
+   * Returns a page of a store's coupons, loaded together with those of every other store
+   * in the query.
+   *
+   * @param store the store
+   * @param after only coupons with a greater ID are returned
+   * @param limit the most coupons to return
+   * @param environment the field's environment, which holds the request's data loaders
+   * @return the coupons, in ID order
+   */
+  @SchemaMapping(typeName = "Store")
+  public CompletableFuture<List<Coupon>> coupons(Store store, @Argument Integer after,
+                                                 @Argument Integer limit,
+                                                 DataFetchingEnvironment environment) {
+    DataLoader<StorePage, List<Coupon>> loader = environment.getDataLoader(STORE_COUPONS);
+    return loader.load(pageOf(store, after, limit));
+  }
+
+  /**
+   * Loads the store of every item in the query at once.
+   *
+   * @param items the items whose store is requested
+   * @return each item's store, in the order of {@code items}
+   */
+  @BatchMapping(typeName = "Item", field = "store")
+  public List<Store> itemStores(List<Item> items) {
+    return storesOf(items, Item::getStoreId);
+  }
+
+  /**
+   * Loads the store of every coupon in the query at once.
+   *
+   * @param coupons the coupons whose store is requested
+   * @return each coupon's store, in the order of {@code coupons}
+   */
+  @BatchMapping(typeName = "Coupon", field = "store")
+  public List<Store> couponStores(List<Coupon> coupons) {
+    return storesOf(coupons, Coupon::getStoreId);
+  }
+
+  private <T> List<Store> storesOf(List<T> rows, ToIntFunction<T> storeId) {
+    List<Integer> ids = new ArrayList<>(rows.size());
+    rows.forEach(row -> ids.add(storeId.applyAsInt(row)));
+    Map<Integer, Store> found = byId(dataService.getStoresByIds(ids));
+    List<Store> stores = new ArrayList<>(rows.size());
+    for (int id : ids) {
+      stores.add(found.get(id));
+    }
+    return stores;
+  }
+
+  /**
+   * Reports invalid arguments, such as too many store IDs, as request errors.
+   *
+   * @param e the exception
+   * @return the error with the exception's message
+   */
+  @GraphQlExceptionHandler
+  public GraphQLError invalidArgument(IllegalArgumentException e) {
+    return GraphQLError.newError().errorType(ErrorType.BAD_REQUEST).message(e.getMessage())
+        .build();
+  }
+
+  private StorePage pageOf(Store store, Integer after, Integer limit) {
+    return new StorePage(store.getId(), after == null ? 0 : after, capped(limit, maxPageSize));
+  }
+
+  private static int capped(Integer limit, int max) {
+    if (limit == null) {
+      return max;
+    }
+    if (limit < 1) {
+      throw new IllegalArgumentException("Limit must be at least 1.");
+    }
+    return Math.min(limit, max);
+  }
+
+  private static Map<Integer, Store> byId(List<Store> stores) {
+    Map<Integer, Store> byId = new HashMap<>();
+    stores.forEach(store -> byId.put(store.getId(), store));
+    return byId;
+  }
+
+  /**
+   * Reads the requested pages, with one read for all the stores that ask for the same
+   * window, which is every store when the query passes the same arguments throughout.
+   */
+  private static <T> Map<StorePage, List<T>> load(Set<StorePage> pages, PageReader<T> reader,
+                                                  ToIntFunction<T> storeId) {
+    Map<StorePage, List<T>> loaded = new HashMap<>();
+    pages.stream().collect(Collectors.groupingBy(StorePage::window)).forEach((window, group) -> {
+      Map<Integer, List<T>> byStore = reader.read(
+              group.stream().map(StorePage::storeId).toList(), window.afterId(), window.limit())
+          .stream().collect(Collectors.groupingBy(storeId::applyAsInt));
+      group.forEach(page -> loaded.put(page, byStore.getOrDefault(page.storeId(), List.of())));
+    });
+    return loaded;
+  }
+
+  /**
+   * Reads a page of each store's items or coupons.
+   */
+  private interface PageReader<T> {
+    List<T> read(List<Integer> storeIds, int afterId, int limit);
+  }
+
+  /**
+   * The page of a store's items or coupons that one field of the query asks for.
+   */
+  private record StorePage(int storeId, int afterId, int limit) {
+    Window window() {
+      return new Window(afterId, limit);
+    }
+  }
+
+  /**
+   * Where a page starts and how long it is, shared by the stores read together.
+   */
+  private record Window(int afterId, int limit) {
+  }
+}
@@ -0,0 +1,54 @@
+package org.nullpointers.couponsystem.controller;
+
+import org.nullpointers.couponsystem.service.ChangeLogService;
+import org.nullpointers.couponsystem.service.ChangePage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Controller for the catalog change log, which lets clients that mirror the catalog
+ * catch up on what changed since their last read instead of downloading it again.
+ */
+@RestController
+public class ChangeController {
+  private final ChangeLogService changeLogService;
+
+  @Autowired
+  public ChangeController(ChangeLogService changeLogService) {
+    this.changeLogService = changeLogService;
+  }
+
+  /**
+   * Retrieves the creates, updates, and deletes of stores, items, and coupons after a
+   * sequence number, in the order they were numbered.
+   *
+   * @param since the {@code next} value of the previous read, or 0 for the start
+   * @param limit the most changes to return, capped at the server maximum, which is also
+   *     the default
+   * @return ResponseEntity with the changes and HTTP 200, error with HTTP 400, or HTTP 410
+   *     if changes after {@code since} were compacted away
+   */
+  @GetMapping("/changes")
+  public ResponseEntity<?> getChanges(@RequestParam(defaultValue = "0") long since,
+                                      @RequestParam(required = false) Integer limit) {
+    if (since < 0) {
+      return new ResponseEntity<>("since cannot be negative.", HttpStatus.BAD_REQUEST);
+    }
+    ChangePage page;
+    try {
+      page = changeLogService.getChanges(since, limit);
+    } catch (IllegalArgumentException e) {
+      return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+    if (page == null) {
+      long floor = changeLogService.getFloor();
+      return new ResponseEntity<>("Changes up to " + floor + " were compacted. Reload the "
+          + "catalog, then read changes since " + floor + ".", HttpStatus.GONE);
+    }
+    return new ResponseEntity<>(page, HttpStatus.OK);
+  }
+}
@@ -0,0 +1,57 @@
+package org.nullpointers.couponsystem.controller;
+
+import org.nullpointers.couponsystem.service.CatalogExportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Controller for streaming whole-catalog exports as newline-delimited JSON. The response
+ * is written on an async thread while rows are read, so it is never held in memory.
+ */
+@RestController
+public class ExportController {
+  private final CatalogExportService catalogExportService;
+
+  @Autowired
+  public ExportController(CatalogExportService catalogExportService) {
+    this.catalogExportService = catalogExportService;
+  }
+
+  /**
+   * Streams every store, one JSON object per line.
+   *
+   * @return ResponseEntity with the NDJSON body and HTTP 200
+   */
+  @GetMapping("/stores/export")
+  public ResponseEntity<StreamingResponseBody> exportStores() {
+    return ndjson(catalogExportService::exportStores);
+  }
+
+  /**
+   * Streams every item, one JSON object per line.
+   *
+   * @return ResponseEntity with the NDJSON body and HTTP 200
+   */
+  @GetMapping("/items/export")
+  public ResponseEntity<StreamingResponseBody> exportItems() {
+    return ndjson(catalogExportService::exportItems);
+  }
+
+  /**
+   * Streams every coupon, one JSON object per line.
+   *
+   * @return ResponseEntity with the NDJSON body and HTTP 200
+   */
+  @GetMapping("/coupons/export")
+  public ResponseEntity<StreamingResponseBody> exportCoupons() {
+    return ndjson(catalogExportService::exportCoupons);
+  }
+
+  private static ResponseEntity<StreamingResponseBody> ndjson(StreamingResponseBody body) {
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+  }
+}
@@ -0,0 +1,315 @@
+package org.nullpointers.couponsystem.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+import org.nullpointers.couponsystem.catalog.CatalogVersions;
+import org.nullpointers.couponsystem.model.Coupon;
+import org.nullpointers.couponsystem.model.Item;
+import org.nullpointers.couponsystem.model.Store;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Keeps the JSON of stores, items, coupons, and store-scoped lists as UTF-8 bytes, so a
+ * repeated {@code GET} is answered with a map lookup and a buffer copy instead of reading
+ * the catalog and running Jackson. Bodies of {@code /store/{id}}, {@code /item/{id}},
+ * {@code /coupon/{id}}, {@code /items/store/{storeId}}, and
+ * {@code /coupons/store/{storeId}} are cached by path and query string, together with
+ * their {@code Cache-Control} and {@value RouteController#NEXT_CURSOR_HEADER} headers.
+ * Bodies of at least {@code couponsystem.json-cache.gzip-min-bytes} are also kept
+ * gzipped, and sent that way to clients that accept it.
+ *
+ * <p>Each entry records the {@link CatalogVersions version} of the store its body belongs
+ * to, and is only served while that version is current, so any write to the store
+ * retires it. A store list is cached only if its store's version did not change while it
+ * was read and written, so an entry never pairs older data with a newer version. An entity
+ * looked up by ID, whose store is not known until it is read, is cached only if no store's
+ * version changed meanwhile. Only JSON is cached; CBOR requests take the usual path.
+ */
+@ControllerAdvice(assignableTypes = RouteController.class)
+public class JsonBodyCache implements HandlerInterceptor, ResponseBodyAdvice<Object> {
+  /** Request paths whose bodies are cached. */
+  public static final String[] PATHS = {
+      "/store/*", "/item/*", "/coupon/*", "/items/store/*", "/coupons/store/*"};
+  private static final String PENDING = JsonBodyCache.class.getName() + ".PENDING";
+
+  private final CatalogVersions catalogVersions;
+  private final ObjectMapper objectMapper;
+  private final int gzipMinBytes;
+  private final boolean enabled;
+  private final Cache<String, Entry> entries;
+
+  /**
+   * Creates the cache.
+   *
+   * @param catalogVersions the per-store versions entries are checked against
+   * @param objectMapper the mapper the JSON converter writes with
+   * @param maxBytes the most body bytes, plain and gzipped, to keep; 0 turns caching off
+   * @param gzipMinBytes the smallest body that is also kept gzipped
+   */
+  @Autowired
+  public JsonBodyCache(CatalogVersions catalogVersions, ObjectMapper objectMapper,
+                       @Value("${couponsystem.json-cache.max-bytes:33554432}") long maxBytes,
+                       @Value("${couponsystem.json-cache.gzip-min-bytes:1024}")
+                       int gzipMinBytes) {
+    this.catalogVersions = catalogVersions;
+    this.objectMapper = objectMapper;
+    this.gzipMinBytes = gzipMinBytes;
+    this.enabled = maxBytes > 0;
+    this.entries = Caffeine.newBuilder()
+        .maximumWeight(maxBytes)
+        .weigher((String key, Entry entry) -> entry.weight() + key.length())
+        .recordStats()
+        .build();
+  }
+
+  /**
+   * Returns hit, miss, and eviction counts.
+   *
+   * @return the statistics since startup
+   */
+  public CacheStats getStatistics() {
+    return entries.stats();
+  }
+
+  /**
+   * Drops every cached body.
+   */
+  public void clear() {
+    entries.invalidateAll();
+  }
+
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response,
+                           Object handler) throws IOException {
+    if (!enabled || !"GET".equals(request.getMethod()) || !acceptsJson(request)) {
+      return true;
+    }
+    String key = request.getQueryString() == null ? request.getRequestURI()
+        : request.getRequestURI() + "?" + request.getQueryString();
+    Entry entry = entries.getIfPresent(key);
+    if (entry != null && entry.version == catalogVersions.getVersion(entry.storeId)) {
+      entry.writeTo(request, response);
+      return false;
+    }
+    // Read before the catalog is, so a change made meanwhile keeps the body out
+    int storeId = storeIdOf(request);
+    request.setAttribute(PENDING, new Pending(key, storeId, storeId < 0
+        ? catalogVersions.getChangeCount() : catalogVersions.getVersion(storeId)));
+    return true;
+  }
+
+  @Override
+  public boolean supports(MethodParameter returnType,
+                          Class<? extends HttpMessageConverter<?>> converterType) {
+    return MappingJackson2HttpMessageConverter.class.isAssignableFrom(converterType);
+  }
+
+  @Override
+  public Object beforeBodyWrite(Object body, MethodParameter returnType,
+                                MediaType selectedContentType,
+                                Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                ServerHttpRequest request, ServerHttpResponse response) {
+    if (!(request instanceof ServletServerHttpRequest)) {
+      return body;
+    }
+    HttpServletRequest servletRequest = ((ServletServerHttpRequest) request).getServletRequest();
+    Object pending = servletRequest.getAttribute(PENDING);
+    servletRequest.removeAttribute(PENDING);
+    int storeId = pending == null ? -1 : storeIdOf(body, ((Pending) pending).storeId);
+    if (storeId < 0 || !MediaType.APPLICATION_JSON.isCompatibleWith(selectedContentType)) {
+      return body;
+    }
+    long version = catalogVersions.getVersion(storeId);
+    byte[] json;
+    try {
+      json = objectMapper.writeValueAsBytes(body);
+    } catch (IOException e) {
+      // Left to the converter, which reports serialization failures its own way
+      return body;
+    }
+    HttpHeaders headers = response.getHeaders();
+    Entry entry = new Entry(storeId, version, json,
+        json.length >= gzipMinBytes ? gzip(json) : null,
+        headers.getCacheControl(), headers.getFirst(RouteController.NEXT_CURSOR_HEADER));
+    if (((Pending) pending).unchanged(catalogVersions)) {
+      entries.put(((Pending) pending).key, entry);
+    }
+    byte[] content = entry.select(servletRequest);
+    headers.setContentType(selectedContentType);
+    if (entry.gzipped != null) {
+      headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    }
+    if (content != json) {
+      headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+    }
+    headers.setContentLength(content.length);
+    try {
+      response.getBody().write(content);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    // Already written, so the converter has nothing left to do
+    return null;
+  }
+
+  /**
+   * Returns the store a cacheable body belongs to, or -1 for bodies that are not cached,
+   * such as error messages and item field selections.
+   */
+  private static int storeIdOf(Object body, int pathStoreId) {
+    if (body instanceof Store) {
+      return ((Store) body).getId();
+    } else if (body instanceof Item) {
+      return ((Item) body).getStoreId();
+    } else if (body instanceof Coupon) {
+      return ((Coupon) body).getStoreId();
+    }
+    return body instanceof List ? pathStoreId : -1;
+  }
+
+  private static int storeIdOf(HttpServletRequest request) {
+    Object variables = request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+    if (variables instanceof Map) {
+      try {
+        return Integer.parseInt(String.valueOf(((Map<?, ?>) variables).get("storeId")));
+      } catch (NumberFormatException e) {
+        return -1;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns true unless the client asked for something other than JSON, such as CBOR.
+   */
+  private static boolean acceptsJson(HttpServletRequest request) {
+    String accept = request.getHeader(HttpHeaders.ACCEPT);
+    return accept == null || accept.isBlank()
+        || !accept.contains("cbor") && (accept.contains(MediaType.APPLICATION_JSON_VALUE)
+            || accept.contains("*/*") || accept.contains("application/*"));
+  }
+
+  private static byte[] gzip(byte[] json) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(json.length / 4 + 64);
+    try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+      out.write(json);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Returns true if the Accept-Encoding header gives gzip, or {@code *} when gzip is not
+   * listed, a quality above 0.
+   */
+  static boolean acceptsGzip(String encodings) {
+    if (encodings == null) {
+      return false;
+    }
+    double gzip = -1;
+    double any = -1;
+    for (String encoding : encodings.split(",")) {
+      String[] parameters = encoding.split(";");
+      String coding = parameters[0].trim().toLowerCase(Locale.ROOT);
+      double quality = 1;
+      for (int i = 1; i < parameters.length; i++) {
+        String parameter = parameters[i].trim().toLowerCase(Locale.ROOT);
+        if (parameter.startsWith("q=")) {
+          quality = quality(parameter.substring(2));
+        }
+      }
+      if ("gzip".equals(coding) || "x-gzip".equals(coding)) {
+        gzip = quality;
+      } else if ("*".equals(coding)) {
+        any = quality;
+      }
+    }
+    return (gzip >= 0 ? gzip : any) > 0;
+  }
+
+  /**
+   * Parses a quality value, treating a malformed one as 0.
+   */
+  private static double quality(String value) {
+    try {
+      return Double.parseDouble(value.trim());
+    } catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+
+  /**
+   * The cache key and what the body's freshness is checked against, recorded before the
+   * controller ran: the store's version for a store list, or the change count of every
+   * store for an entity looked up by ID.
+   */
+  private record Pending(String key, int storeId, long before) {
+    boolean unchanged(CatalogVersions catalogVersions) {
+      return before == (storeId < 0 ? catalogVersions.getChangeCount()
+          : catalogVersions.getVersion(storeId));
+    }
+  }
+
+  /**
+   * A body as written for one version of its store.
+   */
+  private record Entry(int storeId, long version, byte[] json, byte[] gzipped,
+                       String cacheControl, String nextCursor) {
+    int weight() {
+      return json.length + (gzipped == null ? 0 : gzipped.length);
+    }
+
+    /**
+     * Returns the gzipped body if there is one and the client accepts it, else the JSON.
+     */
+    byte[] select(HttpServletRequest request) {
+      return gzipped != null && acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))
+          ? gzipped : json;
+    }
+
+    void writeTo(HttpServletRequest request, HttpServletResponse response)
+        throws IOException {
+      final byte[] body = select(request);
+      response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+      if (cacheControl != null) {
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+      }
+      if (nextCursor != null) {
+        response.setHeader(RouteController.NEXT_CURSOR_HEADER, nextCursor);
+      }
+      if (gzipped != null) {
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+      }
+      if (body != json) {
+        response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+      }
+      response.setContentLength(body.length);
+      response.getOutputStream().write(body);
+    }
+  }
+}
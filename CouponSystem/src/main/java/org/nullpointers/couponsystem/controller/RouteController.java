@@ -1,24 +1,44 @@
 package org.nullpointers.couponsystem.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import java.io.InputStream;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import org.nullpointers.couponsystem.model.CategoryCoupon;
+import java.util.function.Supplier;
+import org.nullpointers.couponsystem.dto.BulkCouponRequest;
+import org.nullpointers.couponsystem.dto.CartRequest;
+import org.nullpointers.couponsystem.dto.CouponRequest;
 import org.nullpointers.couponsystem.model.Coupon;
 import org.nullpointers.couponsystem.model.Item;
 import org.nullpointers.couponsystem.model.ItemCoupon;
 import org.nullpointers.couponsystem.model.Store;
-import org.nullpointers.couponsystem.model.TotalPriceCoupon;
+import org.nullpointers.couponsystem.repository.ItemScope;
+import org.nullpointers.couponsystem.service.CatalogImportService;
+import org.nullpointers.couponsystem.service.CouponBulkService;
 import org.nullpointers.couponsystem.service.CouponService;
 import org.nullpointers.couponsystem.service.DataService;
+import org.nullpointers.couponsystem.service.DeleteReport;
+import org.nullpointers.couponsystem.service.ItemFields;
+import org.nullpointers.couponsystem.service.KeysetPage;
+import org.nullpointers.couponsystem.service.SplitBasketOptimizer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -27,13 +47,76 @@ import org.springframework.web.bind.annotation.RestController;
  */
 @RestController
 public class RouteController {
+  /** Response header carrying the cursor for the next page of a paginated list. */
+  public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+  /**
+   * Stores and coupons are never updated but can be deleted, so clients revalidate them
+   * against the ETag of their body on every use.
+   */
+  private static final CacheControl REVALIDATED_ENTITY = CacheControl.noCache();
+  /** Items may be repriced, so clients keep them only briefly. */
+  private static final CacheControl ITEM = CacheControl.maxAge(Duration.ofMinutes(1));
+  private static final long DEFAULT_SEARCH_BUDGET_MS = 200;
+  private static final long MAX_SEARCH_BUDGET_MS = 2000;
   private final DataService dataService;
   private final CouponService couponService;
+  private final CatalogImportService catalogImportService;
+  private final CouponBulkService couponBulkService;
 
+  /**
+   * Creates the controller.
+   *
+   * @param dataService the data service
+   * @param couponService the coupon service
+   * @param catalogImportService the service for bulk item imports
+   * @param couponBulkService the service for bulk coupon creation
+   */
   @Autowired
-  public RouteController(DataService dataService, CouponService couponService) {
+  public RouteController(DataService dataService, CouponService couponService,
+                         CatalogImportService catalogImportService,
+                         CouponBulkService couponBulkService) {
     this.dataService = dataService;
     this.couponService = couponService;
+    this.catalogImportService = catalogImportService;
+    this.couponBulkService = couponBulkService;
+  }
+
+  /**
+   * Answers a body that cannot be read into the endpoint's request type, such as a
+   * string where a number is expected, with HTTP 400.
+   *
+   * @param e the parse failure
+   * @return ResponseEntity with the error and HTTP 400
+   */
+  @ExceptionHandler(HttpMessageNotReadableException.class)
+  public ResponseEntity<?> handleUnreadableBody(HttpMessageNotReadableException e) {
+    Throwable cause = e.getMostSpecificCause();
+    String detail = cause instanceof JsonProcessingException
+        ? describe((JsonProcessingException) cause) : cause.getMessage();
+    return new ResponseEntity<>("Malformed request body: " + detail, HttpStatus.BAD_REQUEST);
+  }
+
+  /**
+   * Describes a parse failure, followed by where in the body it happened, such as
+   * {@code coupons[3].storeId}, when that is known.
+   *
+   * @param e the parse failure
+   * @return the description
+   */
+  static String describe(JsonProcessingException e) {
+    if (!(e instanceof JsonMappingException)
+        || ((JsonMappingException) e).getPath().isEmpty()) {
+      return e.getOriginalMessage();
+    }
+    StringBuilder path = new StringBuilder();
+    for (JsonMappingException.Reference reference : ((JsonMappingException) e).getPath()) {
+      if (reference.getIndex() >= 0) {
+        path.append('[').append(reference.getIndex()).append(']');
+      } else {
+        path.append(path.length() == 0 ? "" : ".").append(reference.getFieldName());
+      }
+    }
+    return e.getOriginalMessage() + " (at " + path + ")";
   }
 
   @GetMapping({"/", "/index"})
@@ -78,7 +161,7 @@ public class RouteController {
     if (store == null) {
       return new ResponseEntity<>("Store not found.", HttpStatus.NOT_FOUND);
     }
-    return new ResponseEntity<>(store, HttpStatus.OK);
+    return ResponseEntity.ok().cacheControl(REVALIDATED_ENTITY).body(store);
   }
 
   /**
@@ -92,18 +175,55 @@ public class RouteController {
   }
 
   /**
-   * Deletes a store by ID.
+   * Deletes a store together with its items and coupons, and the item coupons of other
+   * stores that target its items. Rows are removed in batches without being loaded.
    *
    * @param id the store ID
-   * @return ResponseEntity with success message and HTTP 200, or error with HTTP 404
+   * @return ResponseEntity with the rows deleted and HTTP 200, or error with HTTP 404
    */
   @DeleteMapping("/store/{id}")
   public ResponseEntity<?> deleteStore(@PathVariable int id) {
-    boolean deleted = dataService.deleteStore(id);
-    if (!deleted) {
+    DeleteReport report = dataService.deleteStoreWithContents(id);
+    if (report == null) {
       return new ResponseEntity<>("Store not found.", HttpStatus.NOT_FOUND);
     }
-    return new ResponseEntity<>("Store deleted successfully.", HttpStatus.OK);
+    return new ResponseEntity<>(report, HttpStatus.OK);
+  }
+
+  /**
+   * Imports items into a store from an NDJSON or CSV upload, optionally gzip-compressed.
+   * The upload is streamed and written in batches, so it may be arbitrarily large.
+   *
+   * @param id the store ID
+   * @param contentType the request content type, selecting the format
+   * @param body the raw request body
+   * @return ResponseEntity with the import report and HTTP 200, or error with HTTP 400,
+   *     404, or 415
+   */
+  @PostMapping("/store/{id}/import")
+  public ResponseEntity<?> importItems(
+      @PathVariable int id,
+      @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+      InputStream body) {
+    try {
+      CatalogImportService.Format format =
+          CatalogImportService.Format.fromContentType(contentType);
+      if (format == null) {
+        return new ResponseEntity<>(
+            "Unsupported import format. Use application/x-ndjson or text/csv.",
+            HttpStatus.UNSUPPORTED_MEDIA_TYPE);
+      }
+      if (dataService.getStore(id) == null) {
+        return new ResponseEntity<>("Store not found.", HttpStatus.NOT_FOUND);
+      }
+      return new ResponseEntity<>(catalogImportService.importItems(id, body, format),
+          HttpStatus.OK);
+    } catch (IllegalArgumentException e) {
+      return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    } catch (Exception e) {
+      return new ResponseEntity<>("Error importing items: " + e.getMessage(),
+          HttpStatus.BAD_REQUEST);
+    }
   }
 
   // ===== Item Endpoints =====
@@ -143,58 +263,101 @@ public class RouteController {
    * Retrieves an item by ID.
    *
    * @param id the item ID
-   * @return ResponseEntity with item and HTTP 200, or error with HTTP 404
+   * @param fields comma-separated item properties to return, or null for all of them
+   * @return ResponseEntity with item and HTTP 200, or error with HTTP 400 or 404
    */
   @GetMapping("/item/{id}")
-  public ResponseEntity<?> getItem(@PathVariable int id) {
-    Item item = dataService.getItem(id);
+  public ResponseEntity<?> getItem(@PathVariable int id,
+                                   @RequestParam(required = false) String fields) {
+    Object item;
+    try {
+      item = fields == null ? dataService.getItem(id)
+          : dataService.getItemFields(id, ItemFields.parse(fields));
+    } catch (IllegalArgumentException e) {
+      return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
     if (item == null) {
       return new ResponseEntity<>("Item not found.", HttpStatus.NOT_FOUND);
     }
-    return new ResponseEntity<>(item, HttpStatus.OK);
+    return ResponseEntity.ok().cacheControl(ITEM).body(item);
   }
 
   /**
-   * Retrieves all items.
+   * Retrieves a page of all items, in ID order.
    *
-   * @return ResponseEntity with list of items and HTTP 200
+   * @param limit the page size, capped at the server maximum, which is also the default
+   * @param cursor the {@value #NEXT_CURSOR_HEADER} value of the previous page, if any
+   * @param fields comma-separated item properties to return, or null for all of them
+   * @return ResponseEntity with list of items and HTTP 200, or error with HTTP 400
    */
   @GetMapping("/items")
-  public ResponseEntity<?> getAllItems() {
-    return new ResponseEntity<>(dataService.getAllItems(), HttpStatus.OK);
+  public ResponseEntity<?> getAllItems(@RequestParam(required = false) Integer limit,
+                                       @RequestParam(required = false) String cursor,
+                                       @RequestParam(required = false) String fields) {
+    return page(() -> fields == null
+        ? dataService.getItemsPage(cursor, limit)
+        : dataService.getItemFieldsPage(ItemScope.all(), ItemFields.parse(fields), cursor,
+            limit));
   }
 
   /**
-   * Retrieves all items from a specific store.
+   * Retrieves a page of items from a specific store, in ID order.
    *
    * @param storeId the store ID
-   * @return ResponseEntity with list of items and HTTP 200
+   * @param limit the page size, capped at the server maximum, which is also the default
+   * @param cursor the {@value #NEXT_CURSOR_HEADER} value of the previous page, if any
+   * @param fields comma-separated item properties to return, or null for all of them
+   * @return ResponseEntity with list of items and HTTP 200, or error with HTTP 400
    */
   @GetMapping("/items/store/{storeId}")
-  public ResponseEntity<?> getItemsByStore(@PathVariable int storeId) {
-    return new ResponseEntity<>(dataService.getItemsByStore(storeId), HttpStatus.OK);
+  public ResponseEntity<?> getItemsByStore(@PathVariable int storeId,
+                                           @RequestParam(required = false) Integer limit,
+                                           @RequestParam(required = false) String cursor,
+                                           @RequestParam(required = false) String fields) {
+    return page(() -> fields == null
+        ? dataService.getItemsByStorePage(storeId, cursor, limit)
+        : dataService.getItemFieldsPage(ItemScope.store(storeId), ItemFields.parse(fields),
+            cursor, limit));
   }
 
   /**
-   * Searches for items by keyword.
+   * Searches for items by keyword, returning a page of matches in ID order.
    *
    * @param keyword the search keyword
-   * @return ResponseEntity with list of matching items and HTTP 200
+   * @param limit the page size, capped at the server maximum, which is also the default
+   * @param cursor the {@value #NEXT_CURSOR_HEADER} value of the previous page, if any
+   * @param fields comma-separated item properties to return, or null for all of them
+   * @return ResponseEntity with list of matching items and HTTP 200, or error with HTTP 400
    */
   @GetMapping("/items/search")
-  public ResponseEntity<?> searchItems(@RequestParam String keyword) {
-    return new ResponseEntity<>(dataService.searchItemsByKeyword(keyword), HttpStatus.OK);
+  public ResponseEntity<?> searchItems(@RequestParam String keyword,
+                                       @RequestParam(required = false) Integer limit,
+                                       @RequestParam(required = false) String cursor,
+                                       @RequestParam(required = false) String fields) {
+    return page(() -> fields == null
+        ? dataService.searchItemsPage(keyword, cursor, limit)
+        : dataService.getItemFieldsPage(ItemScope.keyword(keyword), ItemFields.parse(fields),
+            cursor, limit));
   }
 
   /**
-   * Retrieves items by category.
+   * Retrieves a page of items in a category, cheapest first and then by ID.
    *
    * @param category the category name
-   * @return ResponseEntity with list of items and HTTP 200
+   * @param limit the page size, capped at the server maximum, which is also the default
+   * @param cursor the {@value #NEXT_CURSOR_HEADER} value of the previous page, if any
+   * @param fields comma-separated item properties to return, or null for all of them
+   * @return ResponseEntity with list of items and HTTP 200, or error with HTTP 400
    */
   @GetMapping("/items/category/{category}")
-  public ResponseEntity<?> getItemsByCategory(@PathVariable String category) {
-    return new ResponseEntity<>(dataService.getItemsByCategory(category), HttpStatus.OK);
+  public ResponseEntity<?> getItemsByCategory(@PathVariable String category,
+                                              @RequestParam(required = false) Integer limit,
+                                              @RequestParam(required = false) String cursor,
+                                              @RequestParam(required = false) String fields) {
+    return page(() -> fields == null
+        ? dataService.getItemsByCategoryPage(category, cursor, limit)
+        : dataService.getItemFieldsPage(ItemScope.category(category),
+            ItemFields.parse(fields), cursor, limit));
   }
 
   /**
@@ -212,71 +375,142 @@ public class RouteController {
     return new ResponseEntity<>("Item deleted successfully.", HttpStatus.OK);
   }
 
-  // ===== Coupon Endpoints =====
+  /**
+   * Deletes items by ID, together with the item coupons that target them. Unknown IDs
+   * are ignored.
+   *
+   * @param requestBody map containing itemIds (array)
+   * @return ResponseEntity with the rows deleted and HTTP 200, or error with HTTP 400
+   */
+  @PostMapping("/items/delete")
+  public ResponseEntity<?> deleteItems(@RequestBody Map<String, Object> requestBody) {
+    try {
+      List<Integer> itemIds = idList(requestBody.get("itemIds"), "itemIds");
+      return new ResponseEntity<>(dataService.deleteItems(itemIds), HttpStatus.OK);
+    } catch (IllegalArgumentException e) {
+      return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    } catch (Exception e) {
+      return new ResponseEntity<>("Error deleting items: " + e.getMessage(),
+          HttpStatus.BAD_REQUEST);
+    }
+  }
 
   /**
-   * Creates a new coupon. Accepts different coupon types via a request body.
+   * Deletes every item of a store, together with the item coupons that target them.
+   * The store and its other coupons are kept.
    *
-   * @param requestBody map containing coupon details and type
-   * @return ResponseEntity with created coupon and HTTP 201, or error with HTTP 400
+   * @param storeId the store ID
+   * @return ResponseEntity with the rows deleted and HTTP 200
    */
-  @PostMapping("/coupon")
-  public ResponseEntity<?> createCoupon(@RequestBody Map<String, Object> requestBody) {
+  @DeleteMapping("/items/store/{storeId}")
+  public ResponseEntity<?> deleteItemsByStore(@PathVariable int storeId) {
+    return new ResponseEntity<>(dataService.deleteItemsByStore(storeId), HttpStatus.OK);
+  }
+
+  /**
+   * Sets the prices of items by ID. Unknown IDs are ignored.
+   *
+   * @param requestBody map containing prices (object mapping item IDs to new prices)
+   * @return ResponseEntity with the rows updated and HTTP 200, or error with HTTP 400
+   */
+  @PostMapping("/items/prices")
+  public ResponseEntity<?> updateItemPrices(@RequestBody Map<String, Object> requestBody) {
     try {
-      final String type = (String) requestBody.get("type");
-      int storeId = ((Number) requestBody.get("storeId")).intValue();
-      double discountValue = ((Number) requestBody.get("discountValue")).doubleValue();
-      boolean isPercentage = (Boolean) requestBody.get("isPercentage");
-
-      // Validate discount value is not negative
-      if (discountValue < 0) {
-        return new ResponseEntity<>("Discount value cannot be negative.",
+      Map<Integer, Double> prices = priceMap(requestBody.get("prices"));
+      return new ResponseEntity<>(dataService.updatePrices(prices), HttpStatus.OK);
+    } catch (IllegalArgumentException e) {
+      return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    } catch (Exception e) {
+      return new ResponseEntity<>("Error updating prices: " + e.getMessage(),
+          HttpStatus.BAD_REQUEST);
+    }
+  }
+
+  /**
+   * Scales the prices of a store's items in a category by a percentage, rounded to cents.
+   *
+   * @param storeId the store ID
+   * @param requestBody map containing category (string) and percent (number, at least -100)
+   * @return ResponseEntity with the rows updated and HTTP 200, or error with HTTP 400/404
+   */
+  @PostMapping("/items/store/{storeId}/reprice")
+  public ResponseEntity<?> repriceCategory(@PathVariable int storeId,
+                                           @RequestBody Map<String, Object> requestBody) {
+    try {
+      Object category = requestBody.get("category");
+      if (!(category instanceof String) || ((String) category).isBlank()) {
+        return new ResponseEntity<>("Category is required.", HttpStatus.BAD_REQUEST);
+      }
+      Object percent = requestBody.get("percent");
+      if (!(percent instanceof Number)) {
+        return new ResponseEntity<>("Percent must be a number.", HttpStatus.BAD_REQUEST);
+      }
+      double change = ((Number) percent).doubleValue();
+      if (!Double.isFinite(change) || change < -100) {
+        return new ResponseEntity<>("Percent cannot be less than -100.",
             HttpStatus.BAD_REQUEST);
       }
+      if (dataService.getStore(storeId) == null) {
+        return new ResponseEntity<>("Store not found.", HttpStatus.NOT_FOUND);
+      }
+      return new ResponseEntity<>(
+          dataService.scaleCategoryPrices(storeId, (String) category, change), HttpStatus.OK);
+    } catch (Exception e) {
+      return new ResponseEntity<>("Error repricing items: " + e.getMessage(),
+          HttpStatus.BAD_REQUEST);
+    }
+  }
 
-      // Validate percentage discount is not > 100
-      if (isPercentage && discountValue > 100) {
-        return new ResponseEntity<>("Percentage discount cannot exceed 100%.",
-            HttpStatus.BAD_REQUEST);
+  /**
+   * Reads a non-empty JSON object mapping item IDs to non-negative prices.
+   */
+  private static Map<Integer, Double> priceMap(Object value) {
+    if (!(value instanceof Map) || ((Map<?, ?>) value).isEmpty()) {
+      throw new IllegalArgumentException("prices must be a non-empty object.");
+    }
+    Map<?, ?> values = (Map<?, ?>) value;
+    Map<Integer, Double> prices = new LinkedHashMap<>();
+    for (Map.Entry<?, ?> entry : values.entrySet()) {
+      int id;
+      try {
+        id = Integer.parseInt(String.valueOf(entry.getKey()));
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("prices must be keyed by integer item IDs.");
+      }
+      if (!(entry.getValue() instanceof Number)) {
+        throw new IllegalArgumentException("Price for item " + id + " must be a number.");
+      }
+      double price = ((Number) entry.getValue()).doubleValue();
+      if (!Double.isFinite(price) || price < 0) {
+        throw new IllegalArgumentException("Item price cannot be negative.");
       }
+      prices.put(id, price);
+    }
+    return prices;
+  }
 
-      // Validate store exists
-      if (dataService.getStore(storeId) == null) {
+  // ===== Coupon Endpoints =====
+
+  /**
+   * Creates a new coupon. Accepts different coupon types via a request body.
+   *
+   * @param request the coupon definition
+   * @return ResponseEntity with created coupon and HTTP 201, or error with HTTP 400
+   */
+  @PostMapping("/coupon")
+  public ResponseEntity<?> createCoupon(@RequestBody CouponRequest request) {
+    try {
+      String error = request.validate();
+      if (error != null) {
+        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+      }
+      Coupon coupon = request.toCoupon();
+      if (dataService.getStore(coupon.getStoreId()) == null) {
         return new ResponseEntity<>("Store does not exist.", HttpStatus.BAD_REQUEST);
       }
-
-      Coupon coupon;
-
-      switch (type.toLowerCase()) {
-        case "totalprice":
-          double minPurchase = ((Number) requestBody.get("minimumPurchase")).doubleValue();
-          // Validate minimum purchase is not negative
-          if (minPurchase < 0) {
-            return new ResponseEntity<>("Minimum purchase cannot be negative.",
-                HttpStatus.BAD_REQUEST);
-          }
-          coupon = new TotalPriceCoupon(0, storeId, discountValue, isPercentage, minPurchase);
-          break;
-        case "category":
-          String category = (String) requestBody.get("category");
-          // Validate category is not null or empty
-          if (category == null || category.isBlank()) {
-            return new ResponseEntity<>("Category cannot be empty.",
-                HttpStatus.BAD_REQUEST);
-          }
-          coupon = new CategoryCoupon(0, storeId, discountValue, isPercentage, category);
-          break;
-        case "item":
-          int targetItemId = ((Number) requestBody.get("targetItemId")).intValue();
-          // Validate target item exists
-          if (dataService.getItem(targetItemId) == null) {
-            return new ResponseEntity<>("Target item does not exist.",
-                HttpStatus.BAD_REQUEST);
-          }
-          coupon = new ItemCoupon(0, storeId, discountValue, isPercentage, targetItemId);
-          break;
-        default:
-          return new ResponseEntity<>("Invalid coupon type.", HttpStatus.BAD_REQUEST);
+      if (coupon instanceof ItemCoupon
+          && dataService.getItem(((ItemCoupon) coupon).getTargetItemId()) == null) {
+        return new ResponseEntity<>("Target item does not exist.", HttpStatus.BAD_REQUEST);
       }
 
       Coupon created = dataService.addCoupon(coupon);
@@ -287,6 +521,29 @@ public class RouteController {
     }
   }
 
+  /**
+   * Creates many coupons from typed definitions, checked as {@code POST /coupon} checks
+   * one. Definitions that fail a check are reported by position and the rest are still
+   * created. A field of the wrong JSON type fails the whole request, naming the
+   * definition it is in.
+   *
+   * @param request the coupon definitions
+   * @return ResponseEntity with the creation report and HTTP 200, or error with HTTP 400
+   */
+  @PostMapping("/coupons/bulk")
+  public ResponseEntity<?> createCoupons(@RequestBody BulkCouponRequest request) {
+    try {
+      if (request.coupons() == null) {
+        return new ResponseEntity<>("coupons must be an array.", HttpStatus.BAD_REQUEST);
+      }
+      return new ResponseEntity<>(couponBulkService.createCoupons(request.coupons()),
+          HttpStatus.OK);
+    } catch (Exception e) {
+      return new ResponseEntity<>("Error creating coupons: " + e.getMessage(),
+          HttpStatus.BAD_REQUEST);
+    }
+  }
+
   /**
    * Retrieves a coupon by ID.
    *
@@ -299,28 +556,52 @@ public class RouteController {
     if (coupon == null) {
       return new ResponseEntity<>("Coupon not found.", HttpStatus.NOT_FOUND);
     }
-    return new ResponseEntity<>(coupon, HttpStatus.OK);
+    return ResponseEntity.ok().cacheControl(REVALIDATED_ENTITY).body(coupon);
   }
 
   /**
-   * Retrieves all coupons.
+   * Retrieves a page of all coupons, in ID order.
    *
-   * @return ResponseEntity with list of coupons and HTTP 200
+   * @param limit the page size, capped at the server maximum, which is also the default
+   * @param cursor the {@value #NEXT_CURSOR_HEADER} value of the previous page, if any
+   * @return ResponseEntity with list of coupons and HTTP 200, or error with HTTP 400
    */
   @GetMapping("/coupons")
-  public ResponseEntity<?> getAllCoupons() {
-    return new ResponseEntity<>(dataService.getAllCoupons(), HttpStatus.OK);
+  public ResponseEntity<?> getAllCoupons(@RequestParam(required = false) Integer limit,
+                                         @RequestParam(required = false) String cursor) {
+    return page(() -> dataService.getCouponsPage(cursor, limit));
   }
 
   /**
-   * Retrieves all coupons from a specific store.
+   * Retrieves a page of coupons from a specific store, in ID order.
    *
    * @param storeId the store ID
-   * @return ResponseEntity with list of coupons and HTTP 200
+   * @param limit the page size, capped at the server maximum, which is also the default
+   * @param cursor the {@value #NEXT_CURSOR_HEADER} value of the previous page, if any
+   * @return ResponseEntity with list of coupons and HTTP 200, or error with HTTP 400
    */
   @GetMapping("/coupons/store/{storeId}")
-  public ResponseEntity<?> getCouponsByStore(@PathVariable int storeId) {
-    return new ResponseEntity<>(dataService.getCouponsByStore(storeId), HttpStatus.OK);
+  public ResponseEntity<?> getCouponsByStore(@PathVariable int storeId,
+                                             @RequestParam(required = false) Integer limit,
+                                             @RequestParam(required = false) String cursor) {
+    return page(() -> dataService.getCouponsByStorePage(storeId, cursor, limit));
+  }
+
+  /**
+   * Returns a page's rows as the body, with the next page's cursor in the
+   * {@value #NEXT_CURSOR_HEADER} header when there is one.
+   */
+  private static ResponseEntity<?> page(Supplier<KeysetPage<?>> query) {
+    try {
+      KeysetPage<?> page = query.get();
+      HttpHeaders headers = new HttpHeaders();
+      if (page.hasNext()) {
+        headers.set(NEXT_CURSOR_HEADER, page.getNext());
+      }
+      return new ResponseEntity<>(page.getItems(), headers, HttpStatus.OK);
+    } catch (IllegalArgumentException e) {
+      return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
   }
 
   /**
@@ -338,53 +619,84 @@ public class RouteController {
     return new ResponseEntity<>("Coupon deleted successfully.", HttpStatus.OK);
   }
 
+  /**
+   * Deletes coupons by ID. Unknown IDs are ignored.
+   *
+   * @param requestBody map containing couponIds (array)
+   * @return ResponseEntity with the rows deleted and HTTP 200, or error with HTTP 400
+   */
+  @PostMapping("/coupons/delete")
+  public ResponseEntity<?> deleteCoupons(@RequestBody Map<String, Object> requestBody) {
+    try {
+      List<Integer> couponIds = idList(requestBody.get("couponIds"), "couponIds");
+      return new ResponseEntity<>(dataService.deleteCoupons(couponIds), HttpStatus.OK);
+    } catch (IllegalArgumentException e) {
+      return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    } catch (Exception e) {
+      return new ResponseEntity<>("Error deleting coupons: " + e.getMessage(),
+          HttpStatus.BAD_REQUEST);
+    }
+  }
+
+  /**
+   * Deletes every coupon of a store. The store and its items are kept.
+   *
+   * @param storeId the store ID
+   * @return ResponseEntity with the rows deleted and HTTP 200
+   */
+  @DeleteMapping("/coupons/store/{storeId}")
+  public ResponseEntity<?> deleteCouponsByStore(@PathVariable int storeId) {
+    return new ResponseEntity<>(dataService.deleteCouponsByStore(storeId), HttpStatus.OK);
+  }
+
+  /**
+   * Reads a non-empty JSON array of integer IDs from a request body field.
+   */
+  private static List<Integer> idList(Object value, String field) {
+    if (!(value instanceof List) || ((List<?>) value).isEmpty()) {
+      throw new IllegalArgumentException(field + " must be a non-empty array.");
+    }
+    List<?> values = (List<?>) value;
+    List<Integer> ids = new ArrayList<>(values.size());
+    for (Object id : values) {
+      if (!(id instanceof Integer)) {
+        throw new IllegalArgumentException(field + " must contain only integer IDs.");
+      }
+      ids.add((Integer) id);
+    }
+    return ids;
+  }
+
   // ===== Core Functionality Endpoints =====
 
   /**
    * Finds the optimal coupon for a cart of items from a specific store.
    *
-   * @param requestBody map containing itemIds (array) and storeId
+   * @param request the cart: itemIds and storeId
    * @return ResponseEntity with optimal coupon and discount info, or message if none found
    */
   @PostMapping("/cart/optimal-coupon")
-  public ResponseEntity<?> findOptimalCoupon(@RequestBody Map<String, Object> requestBody) {
+  public ResponseEntity<?> findOptimalCoupon(@RequestBody CartRequest request) {
     try {
-      @SuppressWarnings("unchecked")
-      ArrayList<Integer> itemIdsList = (ArrayList<Integer>) requestBody.get("itemIds");
-      int storeId = ((Number) requestBody.get("storeId")).intValue();
-
-      // Validate cart is not empty
-      if (itemIdsList == null || itemIdsList.isEmpty()) {
-        return new ResponseEntity<>("Cart cannot be empty.",
-            HttpStatus.BAD_REQUEST);
+      String error = request.validate();
+      if (error != null) {
+        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
       }
-
-      int[] itemIds = itemIdsList.stream().mapToInt(Integer::intValue).toArray();
-
-      // Validate all items exist
-      for (int itemId : itemIds) {
-        if (dataService.getItem(itemId) == null) {
-          return new ResponseEntity<>("Item with ID " + itemId + " does not exist.",
-              HttpStatus.BAD_REQUEST);
-        }
+      // Each item is resolved once, both to check it exists and for the discount
+      CouponService.CartEvaluation evaluation = couponService.evaluateCart(request.itemIds(),
+          request.storeId());
+      if (evaluation.getMissingItemId() != null) {
+        return new ResponseEntity<>("Item with ID " + evaluation.getMissingItemId()
+            + " does not exist.", HttpStatus.BAD_REQUEST);
       }
 
-      Coupon optimalCoupon = couponService.findOptimalCoupon(itemIds, storeId);
-
-      if (optimalCoupon == null) {
+      if (evaluation.getCoupon() == null) {
         return new ResponseEntity<>("No applicable coupon found.", HttpStatus.OK);
       }
 
-      // Calculate discount amount
-      Item[] items = new Item[itemIds.length];
-      for (int i = 0; i < itemIds.length; i++) {
-        items[i] = dataService.getItem(itemIds[i]);
-      }
-      double discount = optimalCoupon.calculateDiscount(items);
-
       Map<String, Object> response = new HashMap<>();
-      response.put("coupon", optimalCoupon);
-      response.put("discount", discount);
+      response.put("coupon", evaluation.getCoupon());
+      response.put("discount", evaluation.getDiscount());
 
       return new ResponseEntity<>(response, HttpStatus.OK);
     } catch (Exception e) {
@@ -425,26 +737,152 @@ public class RouteController {
   }
 
   /**
-   * Suggests items to add to cart to meet a TotalPriceCoupon threshold.
+   * Finds the single store with the lowest total for a whole shopping list,
+   * after applying that store's best coupon.
    *
-   * @param requestBody map containing itemIds (array), storeId, and couponId
-   * @return ResponseEntity with suggested items to add
+   * @param requestBody map containing keywords (array) and/or categories (array)
+   * @return ResponseEntity with the cheapest store, its cart, coupon, and totals
    */
-  @PostMapping("/cart/suggest-items")
-  public ResponseEntity<?> suggestItemsForCoupon(@RequestBody Map<String, Object> requestBody) {
+  @PostMapping("/stores/optimal-list")
+  public ResponseEntity<?> findOptimalStoreForList(@RequestBody Map<String, Object> requestBody) {
+    try {
+      @SuppressWarnings("unchecked")
+      List<String> keywords = (List<String>) requestBody.get("keywords");
+      @SuppressWarnings("unchecked")
+      List<String> categories = (List<String>) requestBody.get("categories");
+
+      // Validate shopping list is not empty
+      if ((keywords == null || keywords.isEmpty())
+          && (categories == null || categories.isEmpty())) {
+        return new ResponseEntity<>("Shopping list cannot be empty.",
+            HttpStatus.BAD_REQUEST);
+      }
+
+      CouponService.ShoppingListRecommendation recommendation =
+          couponService.findCheapestStoreForList(keywords, categories);
+
+      if (recommendation == null) {
+        return new ResponseEntity<>("No single store carries every item on the list.",
+            HttpStatus.OK);
+      }
+
+      return new ResponseEntity<>(recommendation, HttpStatus.OK);
+    } catch (Exception e) {
+      return new ResponseEntity<>("Error finding optimal store for list: " + e.getMessage(),
+          HttpStatus.BAD_REQUEST);
+    }
+  }
+
+  /**
+   * Splits a shopping list across up to maxStores stores to minimize the total price
+   * after each store's best coupon.
+   *
+   * @param requestBody map containing keywords (array) and/or categories (array),
+   *     maxStores, and an optional timeBudgetMs
+   * @return ResponseEntity with the per-store carts and the total price
+   */
+  @PostMapping("/cart/split-basket")
+  public ResponseEntity<?> planSplitBasket(@RequestBody Map<String, Object> requestBody) {
     try {
       @SuppressWarnings("unchecked")
-      ArrayList<Integer> itemIdsList = (ArrayList<Integer>) requestBody.get("itemIds");
-      int storeId = ((Number) requestBody.get("storeId")).intValue();
-      int couponId = ((Number) requestBody.get("couponId")).intValue();
+      List<String> keywords = (List<String>) requestBody.get("keywords");
+      @SuppressWarnings("unchecked")
+      List<String> categories = (List<String>) requestBody.get("categories");
+      int maxStores = ((Number) requestBody.get("maxStores")).intValue();
+      Number timeBudget = (Number) requestBody.get("timeBudgetMs");
+      final long timeBudgetMs = timeBudget == null ? DEFAULT_SEARCH_BUDGET_MS
+          : timeBudget.longValue();
+
+      int entries = (keywords == null ? 0 : keywords.size())
+          + (categories == null ? 0 : categories.size());
+
+      // Validate shopping list is not empty and fits the optimizer
+      if (entries == 0) {
+        return new ResponseEntity<>("Shopping list cannot be empty.",
+            HttpStatus.BAD_REQUEST);
+      }
+      if (entries > SplitBasketOptimizer.MAX_ENTRIES) {
+        return new ResponseEntity<>("Shopping list cannot exceed "
+            + SplitBasketOptimizer.MAX_ENTRIES + " entries.", HttpStatus.BAD_REQUEST);
+      }
 
-      // Validate cart is not empty
-      if (itemIdsList == null || itemIdsList.isEmpty()) {
-        return new ResponseEntity<>("Cart cannot be empty.",
+      // Validate store limit and time budget
+      if (maxStores < 1) {
+        return new ResponseEntity<>("Maximum number of stores must be at least 1.",
             HttpStatus.BAD_REQUEST);
       }
+      if (timeBudgetMs < 1 || timeBudgetMs > MAX_SEARCH_BUDGET_MS) {
+        return new ResponseEntity<>("Time budget must be between 1 and "
+            + MAX_SEARCH_BUDGET_MS + " ms.", HttpStatus.BAD_REQUEST);
+      }
+
+      CouponService.SplitBasketPlan plan =
+          couponService.planSplitBasket(keywords, categories, maxStores, timeBudgetMs);
+
+      if (plan == null) {
+        return new ResponseEntity<>("No combination of " + maxStores
+            + " store(s) carrying every item on the list was found.", HttpStatus.OK);
+      }
+
+      return new ResponseEntity<>(plan, HttpStatus.OK);
+    } catch (Exception e) {
+      return new ResponseEntity<>("Error planning split basket: " + e.getMessage(),
+          HttpStatus.BAD_REQUEST);
+    }
+  }
 
-      int[] itemIds = itemIdsList.stream().mapToInt(Integer::intValue).toArray();
+  /**
+   * Finds the most valuable cart a shopper can buy from a store within a budget,
+   * taking the store's coupons into account.
+   *
+   * @param storeId the store ID
+   * @param budget the most the shopper is willing to pay, in dollars
+   * @param timeBudgetMs optional time budget for the search in milliseconds
+   * @return ResponseEntity with the chosen cart and HTTP 200, or error with HTTP 400/404
+   */
+  @GetMapping("/store/{storeId}/budget-basket")
+  public ResponseEntity<?> findBudgetBasket(
+      @PathVariable int storeId,
+      @RequestParam double budget,
+      @RequestParam(required = false) Long timeBudgetMs) {
+    try {
+      // Validate budget and time budget
+      if (!(budget > 0)) {
+        return new ResponseEntity<>("Budget must be greater than 0.", HttpStatus.BAD_REQUEST);
+      }
+      long searchBudgetMs = timeBudgetMs == null ? DEFAULT_SEARCH_BUDGET_MS : timeBudgetMs;
+      if (searchBudgetMs < 1 || searchBudgetMs > MAX_SEARCH_BUDGET_MS) {
+        return new ResponseEntity<>("Time budget must be between 1 and "
+            + MAX_SEARCH_BUDGET_MS + " ms.", HttpStatus.BAD_REQUEST);
+      }
+
+      // Validate store exists
+      if (dataService.getStore(storeId) == null) {
+        return new ResponseEntity<>("Store not found.", HttpStatus.NOT_FOUND);
+      }
+
+      return new ResponseEntity<>(
+          couponService.findBudgetBasket(storeId, budget, searchBudgetMs), HttpStatus.OK);
+    } catch (Exception e) {
+      return new ResponseEntity<>("Error finding budget basket: " + e.getMessage(),
+          HttpStatus.BAD_REQUEST);
+    }
+  }
+
+  /**
+   * Suggests items to add to cart to meet a TotalPriceCoupon threshold.
+   *
+   * @param request the cart: itemIds, storeId, and couponId
+   * @return ResponseEntity with suggested items to add
+   */
+  @PostMapping("/cart/suggest-items")
+  public ResponseEntity<?> suggestItemsForCoupon(@RequestBody CartRequest request) {
+    try {
+      String error = request.validateWithCoupon();
+      if (error != null) {
+        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+      }
+      int[] itemIds = request.itemIds();
 
       // Validate all items exist
       for (int itemId : itemIds) {
@@ -457,7 +895,8 @@ public class RouteController {
       // Note: Coupon validation is handled by service layer
       // Non-existent coupons will result in empty suggestions (not an error)
       ArrayList<Item> suggestions =
-          couponService.findItemsToMeetCouponThreshold(itemIds, storeId, couponId);
+          couponService.findItemsToMeetCouponThreshold(itemIds, request.storeId(),
+              request.couponId());
 
       if (suggestions.isEmpty()) {
         return new ResponseEntity<>(
@@ -0,0 +1,48 @@
+package org.nullpointers.couponsystem.controller;
+
+import org.nullpointers.couponsystem.service.DataService;
+import org.nullpointers.couponsystem.service.StoreStreamService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Controller for server-sent event streams of a store's item and coupon changes, for
+ * displays that would otherwise poll the store's coupon list. The handler returns as
+ * soon as the stream is registered, so an open stream holds no request thread.
+ */
+@RestController
+public class StreamController {
+  private final DataService dataService;
+  private final StoreStreamService storeStreamService;
+
+  @Autowired
+  public StreamController(DataService dataService, StoreStreamService storeStreamService) {
+    this.dataService = dataService;
+    this.storeStreamService = storeStreamService;
+  }
+
+  /**
+   * Streams the item and coupon changes of a store as they are committed.
+   *
+   * @param storeId the store ID
+   * @return ResponseEntity with the event stream and HTTP 200, HTTP 404 if the store does
+   *     not exist, or HTTP 503 if too many streams are open
+   */
+  @GetMapping(value = "/stream/store/{storeId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public ResponseEntity<SseEmitter> streamStore(@PathVariable int storeId) {
+    if (dataService.getStore(storeId) == null) {
+      return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    }
+    SseEmitter emitter = storeStreamService.subscribe(storeId);
+    if (emitter == null) {
+      return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+    }
+    return new ResponseEntity<>(emitter, HttpStatus.OK);
+  }
+}
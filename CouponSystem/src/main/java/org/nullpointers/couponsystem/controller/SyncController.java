@@ -0,0 +1,92 @@
+package org.nullpointers.couponsystem.controller;
+
+import java.util.List;
+import java.util.Map;
+import org.nullpointers.couponsystem.service.CatalogSyncService;
+import org.nullpointers.couponsystem.service.DataService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Controller for delta catalog sync: a store's system sends a content hash per record,
+ * learns which records changed, and uploads only those.
+ */
+@RestController
+public class SyncController {
+  private final DataService dataService;
+  private final CatalogSyncService catalogSyncService;
+
+  /**
+   * Creates the controller.
+   *
+   * @param dataService the data service, used to check that stores exist
+   * @param catalogSyncService the sync service
+   */
+  @Autowired
+  public SyncController(DataService dataService, CatalogSyncService catalogSyncService) {
+    this.dataService = dataService;
+    this.catalogSyncService = catalogSyncService;
+  }
+
+  /**
+   * Returns the keys whose content hash differs from the one last uploaded to the store.
+   *
+   * @param id the store ID
+   * @param requestBody map containing items (array of externalKey/contentHash objects)
+   * @return ResponseEntity with the changed keys and HTTP 200, or error with HTTP 400/404
+   */
+  @PostMapping("/store/{id}/sync")
+  public ResponseEntity<?> diff(@PathVariable int id,
+                                @RequestBody Map<String, Object> requestBody) {
+    try {
+      List<?> items = items(requestBody);
+      if (dataService.getStore(id) == null) {
+        return new ResponseEntity<>("Store not found.", HttpStatus.NOT_FOUND);
+      }
+      return new ResponseEntity<>(catalogSyncService.diff(id, items), HttpStatus.OK);
+    } catch (IllegalArgumentException e) {
+      return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    } catch (Exception e) {
+      return new ResponseEntity<>("Error comparing catalog: " + e.getMessage(),
+          HttpStatus.BAD_REQUEST);
+    }
+  }
+
+  /**
+   * Inserts or updates the store's items from changed records, matched by external key.
+   *
+   * @param id the store ID
+   * @param requestBody map containing items (array of records with externalKey,
+   *     contentHash, name, price, and optionally category)
+   * @return ResponseEntity with the upsert report and HTTP 200, or error with HTTP 400/404
+   */
+  @PostMapping("/store/{id}/sync/items")
+  public ResponseEntity<?> upsert(@PathVariable int id,
+                                  @RequestBody Map<String, Object> requestBody) {
+    try {
+      List<?> items = items(requestBody);
+      if (dataService.getStore(id) == null) {
+        return new ResponseEntity<>("Store not found.", HttpStatus.NOT_FOUND);
+      }
+      return new ResponseEntity<>(catalogSyncService.upsert(id, items), HttpStatus.OK);
+    } catch (IllegalArgumentException e) {
+      return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    } catch (Exception e) {
+      return new ResponseEntity<>("Error syncing items: " + e.getMessage(),
+          HttpStatus.BAD_REQUEST);
+    }
+  }
+
+  private static List<?> items(Map<String, Object> requestBody) {
+    Object items = requestBody.get("items");
+    if (!(items instanceof List)) {
+      throw new IllegalArgumentException("items must be an array.");
+    }
+    return (List<?>) items;
+  }
+}
@@ -0,0 +1,26 @@
+package org.nullpointers.couponsystem.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.util.List;
+
+/**
+ * Request body of {@code POST /batch}: the operations to run, in order.
+ *
+ * @param operations the operations
+ */
+public record BatchRequest(List<Operation> operations) {
+
+  /**
+   * One operation of a batch, written as the REST call it stands for. Its path and body
+   * may contain references of the form {@code ${label.field}}, which are replaced with a
+   * value from the response of the earlier operation with that label; a path such as
+   * {@code ${items.0.id}} indexes into arrays.
+   *
+   * @param id the label later operations refer to this one by, or null
+   * @param method the HTTP method, such as {@code POST}
+   * @param path the request path, with any query string
+   * @param body the request body, or null
+   */
+  public record Operation(String id, String method, String path, JsonNode body) {
+  }
+}
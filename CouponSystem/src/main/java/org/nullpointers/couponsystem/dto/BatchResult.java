@@ -0,0 +1,18 @@
+package org.nullpointers.couponsystem.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.util.Map;
+
+/**
+ * The outcome of one operation of a {@code POST /batch} request: what the REST call it
+ * stands for would have answered.
+ *
+ * @param id the operation's label, or null if it has none
+ * @param status the HTTP status code
+ * @param body the response body, or null
+ * @param headers the response headers the endpoint sets, such as {@code X-Next-Cursor}
+ */
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public record BatchResult(String id, int status, JsonNode body, Map<String, String> headers) {
+}
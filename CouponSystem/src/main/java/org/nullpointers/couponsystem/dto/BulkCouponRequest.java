@@ -0,0 +1,11 @@
+package org.nullpointers.couponsystem.dto;
+
+import java.util.List;
+
+/**
+ * Request body of {@code POST /coupons/bulk}.
+ *
+ * @param coupons the coupon definitions, each in the {@code POST /coupon} format
+ */
+public record BulkCouponRequest(List<CouponRequest> coupons) {
+}
@@ -0,0 +1,45 @@
+package org.nullpointers.couponsystem.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
+/**
+ * Request body of the cart endpoints: the items in a cart, the store they are bought
+ * from, and, for {@code POST /cart/suggest-items}, the coupon to reach.
+ *
+ * @param itemIds the IDs of the items in the cart, read by {@link ItemIdsDeserializer}
+ * @param storeId the store ID
+ * @param couponId the coupon ID, or null if the endpoint does not use one
+ */
+public record CartRequest(
+    @JsonDeserialize(using = ItemIdsDeserializer.class) int[] itemIds,
+    Integer storeId,
+    Integer couponId) {
+
+  /**
+   * Checks that the cart has items and a store.
+   *
+   * @return why the request is invalid, or null if it is valid
+   */
+  public String validate() {
+    if (itemIds == null || itemIds.length == 0) {
+      return "Cart cannot be empty.";
+    }
+    if (storeId == null) {
+      return "storeId is required.";
+    }
+    return null;
+  }
+
+  /**
+   * Checks that the cart has items, a store, and a coupon.
+   *
+   * @return why the request is invalid, or null if it is valid
+   */
+  public String validateWithCoupon() {
+    String error = validate();
+    if (error == null && couponId == null) {
+      return "couponId is required.";
+    }
+    return error;
+  }
+}
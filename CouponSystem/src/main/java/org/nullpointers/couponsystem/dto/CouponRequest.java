@@ -0,0 +1,94 @@
+package org.nullpointers.couponsystem.dto;
+
+import java.util.Locale;
+import org.nullpointers.couponsystem.model.CategoryCoupon;
+import org.nullpointers.couponsystem.model.Coupon;
+import org.nullpointers.couponsystem.model.ItemCoupon;
+import org.nullpointers.couponsystem.model.TotalPriceCoupon;
+
+/**
+ * Definition of a coupon to create, as sent to {@code POST /coupon} and, one per
+ * element, to {@code POST /coupons/bulk}. Which of the last three fields is used depends
+ * on the type.
+ *
+ * @param type {@code totalprice}, {@code category}, or {@code item}, in any case
+ * @param storeId the store the coupon belongs to
+ * @param discountValue the discount, a percentage or a fixed amount
+ * @param isPercentage whether the discount is a percentage
+ * @param minimumPurchase the cart total required, for total price coupons
+ * @param category the discounted category, for category coupons
+ * @param targetItemId the discounted item, for item coupons
+ */
+public record CouponRequest(
+    String type,
+    Integer storeId,
+    Double discountValue,
+    Boolean isPercentage,
+    Double minimumPurchase,
+    String category,
+    Integer targetItemId) {
+
+  /**
+   * Checks the definition. Whether the store and target item exist is left to the caller.
+   *
+   * @return why the definition is invalid, or null if it is valid
+   */
+  public String validate() {
+    if (storeId == null) {
+      return "storeId is required.";
+    }
+    if (discountValue == null) {
+      return "discountValue is required.";
+    }
+    if (isPercentage == null) {
+      return "isPercentage is required.";
+    }
+    if (discountValue < 0 || !Double.isFinite(discountValue)) {
+      return "Discount value cannot be negative.";
+    }
+    if (isPercentage && discountValue > 100) {
+      return "Percentage discount cannot exceed 100%.";
+    }
+    switch (normalizedType()) {
+      case "totalprice":
+        if (minimumPurchase == null) {
+          return "minimumPurchase is required.";
+        }
+        if (minimumPurchase < 0 || !Double.isFinite(minimumPurchase)) {
+          return "Minimum purchase cannot be negative.";
+        }
+        return null;
+      case "category":
+        return category == null || category.isBlank() ? "Category cannot be empty." : null;
+      case "item":
+        return targetItemId == null ? "targetItemId is required." : null;
+      default:
+        return "Invalid coupon type.";
+    }
+  }
+
+  /**
+   * Builds the coupon the definition describes.
+   *
+   * @return the coupon, with ID 0
+   * @throws IllegalArgumentException if {@link #validate()} reports the definition invalid
+   */
+  public Coupon toCoupon() {
+    String error = validate();
+    if (error != null) {
+      throw new IllegalArgumentException(error);
+    }
+    switch (normalizedType()) {
+      case "totalprice":
+        return new TotalPriceCoupon(0, storeId, discountValue, isPercentage, minimumPurchase);
+      case "category":
+        return new CategoryCoupon(0, storeId, discountValue, isPercentage, category);
+      default:
+        return new ItemCoupon(0, storeId, discountValue, isPercentage, targetItemId);
+    }
+  }
+
+  private String normalizedType() {
+    return type == null ? "" : type.toLowerCase(Locale.ROOT);
+  }
+}
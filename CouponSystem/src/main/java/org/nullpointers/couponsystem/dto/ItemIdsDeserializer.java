@@ -0,0 +1,67 @@
+package org.nullpointers.couponsystem.dto;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Reads a JSON array of item IDs straight from the token stream into an {@code int[]}.
+ * No {@code Integer} is boxed and no intermediate list is built: IDs are collected in a
+ * per-thread scratch array and copied once into an array of the exact length, so a cart
+ * costs one allocation however many items it holds.
+ *
+ * <p>IDs may also arrive packed by {@link PackedIds}: as a byte string in CBOR, or as a
+ * base64 string in JSON. Anything else is reported as a mismatched input.
+ */
+public class ItemIdsDeserializer extends StdDeserializer<int[]> {
+  private static final long serialVersionUID = 1L;
+  private static final int INITIAL_CAPACITY = 64;
+  // Scratch arrays grown past this are not kept, so one huge cart does not pin memory
+  private static final int MAX_RETAINED_CAPACITY = 4096;
+  private static final ThreadLocal<int[]> SCRATCH =
+      ThreadLocal.withInitial(() -> new int[INITIAL_CAPACITY]);
+
+  /**
+   * Creates the deserializer.
+   */
+  public ItemIdsDeserializer() {
+    super(int[].class);
+  }
+
+  @Override
+  public int[] deserialize(JsonParser parser, DeserializationContext context)
+      throws IOException {
+    if (parser.hasToken(JsonToken.VALUE_EMBEDDED_OBJECT)
+        || parser.hasToken(JsonToken.VALUE_STRING)) {
+      try {
+        return PackedIds.unpack(parser.getBinaryValue());
+      } catch (IllegalArgumentException e) {
+        throw JsonMappingException.from(parser, "Invalid packed item IDs: " + e.getMessage());
+      }
+    }
+    if (!parser.isExpectedStartArrayToken()) {
+      return (int[]) context.handleUnexpectedToken(int[].class, parser);
+    }
+    int[] ids = SCRATCH.get();
+    int size = 0;
+    JsonToken token = parser.nextToken();
+    while (token != JsonToken.END_ARRAY) {
+      if (token != JsonToken.VALUE_NUMBER_INT) {
+        return (int[]) context.handleUnexpectedToken(int[].class, parser);
+      }
+      if (size == ids.length) {
+        ids = Arrays.copyOf(ids, size * 2);
+        if (ids.length <= MAX_RETAINED_CAPACITY) {
+          SCRATCH.set(ids);
+        }
+      }
+      ids[size++] = parser.getIntValue();
+      token = parser.nextToken();
+    }
+    return Arrays.copyOf(ids, size);
+  }
+}
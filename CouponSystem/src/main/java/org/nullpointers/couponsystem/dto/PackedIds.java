@@ -0,0 +1,75 @@
+package org.nullpointers.couponsystem.dto;
+
+import java.util.Arrays;
+
+/**
+ * The packed form of an item ID array that binary clients may send instead of a list of
+ * numbers. Each ID is stored as its difference from the previous one (the first from
+ * zero), zigzag-mapped so small negative steps stay small, then written as an unsigned
+ * LEB128 varint. IDs from the same catalog tend to be close together, so most take one
+ * or two bytes instead of a full number each.
+ */
+public final class PackedIds {
+  private static final int MAX_VARINT_BYTES = 5;
+
+  private PackedIds() {
+  }
+
+  /**
+   * Packs item IDs, keeping their order.
+   *
+   * @param ids the item IDs
+   * @return the packed bytes
+   */
+  public static byte[] pack(int[] ids) {
+    byte[] packed = new byte[ids.length * MAX_VARINT_BYTES];
+    int length = 0;
+    int previous = 0;
+    for (int id : ids) {
+      int delta = id - previous;
+      int zigzag = (delta << 1) ^ (delta >> 31);
+      while ((zigzag & ~0x7F) != 0) {
+        packed[length++] = (byte) (zigzag & 0x7F | 0x80);
+        zigzag >>>= 7;
+      }
+      packed[length++] = (byte) zigzag;
+      previous = id;
+    }
+    return Arrays.copyOf(packed, length);
+  }
+
+  /**
+   * Unpacks item IDs packed by {@link #pack(int[])}.
+   *
+   * @param packed the packed bytes
+   * @return the item IDs, in their original order
+   * @throws IllegalArgumentException if the bytes end inside a varint or a varint is
+   *     longer than an int allows
+   */
+  public static int[] unpack(byte[] packed) {
+    // Every ID takes at least one byte
+    int[] ids = new int[packed.length];
+    int count = 0;
+    int previous = 0;
+    int position = 0;
+    while (position < packed.length) {
+      int zigzag = 0;
+      int shift = 0;
+      byte b;
+      do {
+        if (position == packed.length) {
+          throw new IllegalArgumentException("Packed IDs end inside a varint.");
+        }
+        if (shift == 7 * MAX_VARINT_BYTES) {
+          throw new IllegalArgumentException("Packed ID varint is too long.");
+        }
+        b = packed[position++];
+        zigzag |= (b & 0x7F) << shift;
+        shift += 7;
+      } while (b < 0);
+      previous += (zigzag >>> 1) ^ -(zigzag & 1);
+      ids[count++] = previous;
+    }
+    return Arrays.copyOf(ids, count);
+  }
+}
@@ -0,0 +1,130 @@
+package org.nullpointers.couponsystem.grpc;
+
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.nullpointers.couponsystem.model.CategoryCoupon;
+import org.nullpointers.couponsystem.model.Coupon;
+import org.nullpointers.couponsystem.model.ItemCoupon;
+import org.nullpointers.couponsystem.model.TotalPriceCoupon;
+import org.nullpointers.couponsystem.service.CouponService;
+import org.nullpointers.couponsystem.service.CouponService.CartEvaluation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * gRPC implementation of {@code CartService}, answering with the same coupons and
+ * discounts as {@code POST /cart/optimal-coupon}.
+ *
+ * <p>{@code EvaluateCarts} reads carts one at a time, asking for the next only while the
+ * response stream can take more, so a caller that pipelines faster than results are read
+ * is slowed down by HTTP/2 flow control instead of filling the server's buffers.
+ */
+@Component
+public class CartGrpcService extends CartServiceGrpc.CartServiceImplBase {
+  private final CouponService couponService;
+
+  /**
+   * Creates the service.
+   *
+   * @param couponService the service carts are evaluated with
+   */
+  @Autowired
+  public CartGrpcService(CouponService couponService) {
+    this.couponService = couponService;
+  }
+
+  @Override
+  public void findOptimalCoupon(Cart cart, StreamObserver<CartResult> responseObserver) {
+    CartResult result = evaluate(cart);
+    if (result.getError().isEmpty()) {
+      responseObserver.onNext(result);
+      responseObserver.onCompleted();
+    } else {
+      responseObserver.onError(Status.INVALID_ARGUMENT.withDescription(result.getError())
+          .asRuntimeException());
+    }
+  }
+
+  @Override
+  public StreamObserver<Cart> evaluateCarts(StreamObserver<CartResult> responseObserver) {
+    ServerCallStreamObserver<CartResult> results =
+        (ServerCallStreamObserver<CartResult>) responseObserver;
+    results.disableAutoRequest();
+    // Whether a cart was requested when the stream last became ready; reset when a
+    // result leaves the stream unable to take more
+    AtomicBoolean requested = new AtomicBoolean();
+    results.setOnReadyHandler(() -> {
+      if (results.isReady() && requested.compareAndSet(false, true)) {
+        results.request(1);
+      }
+    });
+    return new StreamObserver<>() {
+      @Override
+      public void onNext(Cart cart) {
+        results.onNext(evaluate(cart));
+        if (results.isReady()) {
+          results.request(1);
+        } else {
+          requested.set(false);
+        }
+      }
+
+      @Override
+      public void onError(Throwable t) {
+        // The caller cancelled or the connection failed; there is nobody to answer
+      }
+
+      @Override
+      public void onCompleted() {
+        results.onCompleted();
+      }
+    };
+  }
+
+  /**
+   * Evaluates one cart, reporting invalid carts with the messages the REST endpoint uses.
+   */
+  private CartResult evaluate(Cart cart) {
+    CartResult.Builder result = CartResult.newBuilder().setRequestId(cart.getRequestId());
+    if (cart.getItemIdsCount() == 0) {
+      return result.setError("Cart cannot be empty.").build();
+    }
+    int[] itemIds = new int[cart.getItemIdsCount()];
+    for (int i = 0; i < itemIds.length; i++) {
+      itemIds[i] = cart.getItemIds(i);
+    }
+    try {
+      CartEvaluation evaluation = couponService.evaluateCart(itemIds, cart.getStoreId());
+      if (evaluation.getMissingItemId() != null) {
+        return result.setError("Item with ID " + evaluation.getMissingItemId()
+            + " does not exist.").build();
+      }
+      if (evaluation.getCoupon() != null) {
+        result.setCoupon(toDetails(evaluation.getCoupon()))
+            .setDiscount(evaluation.getDiscount());
+      }
+      return result.build();
+    } catch (RuntimeException e) {
+      return result.setError("Error finding optimal coupon: " + e.getMessage()).build();
+    }
+  }
+
+  private static CouponDetails toDetails(Coupon coupon) {
+    CouponDetails.Builder details = CouponDetails.newBuilder()
+        .setId(coupon.getId())
+        .setStoreId(coupon.getStoreId())
+        .setType(coupon.getType())
+        .setDiscountValue(coupon.getDiscountValue())
+        .setIsPercentage(coupon.isPercentage());
+    if (coupon instanceof TotalPriceCoupon) {
+      details.setMinimumPurchase(((TotalPriceCoupon) coupon).getMinimumPurchase());
+    } else if (coupon instanceof CategoryCoupon) {
+      details.setCategory(((CategoryCoupon) coupon).getCategory());
+    } else if (coupon instanceof ItemCoupon) {
+      details.setTargetItemId(((ItemCoupon) coupon).getTargetItemId());
+    }
+    return details.build();
+  }
+}
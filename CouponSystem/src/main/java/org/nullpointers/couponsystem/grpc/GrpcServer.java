@@ -0,0 +1,84 @@
+package org.nullpointers.couponsystem.grpc;
+
+import io.grpc.Server;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs the gRPC server next to the web server, starting and stopping with the
+ * application. It listens on {@code couponsystem.grpc.port}; {@code 0} picks a free port
+ * and a negative port leaves the server off.
+ */
+@Component
+public class GrpcServer implements SmartLifecycle {
+  private static final long SHUTDOWN_GRACE_SECONDS = 5;
+
+  private final CartGrpcService cartGrpcService;
+  private final int port;
+  private Server server;
+
+  /**
+   * Creates the server.
+   *
+   * @param cartGrpcService the cart service to expose
+   * @param port the port to listen on
+   */
+  @Autowired
+  public GrpcServer(CartGrpcService cartGrpcService,
+                    @Value("${couponsystem.grpc.port:9090}") int port) {
+    this.cartGrpcService = cartGrpcService;
+    this.port = port;
+  }
+
+  @Override
+  public synchronized void start() {
+    if (port < 0) {
+      return;
+    }
+    try {
+      server = NettyServerBuilder.forPort(port).addService(cartGrpcService).build().start();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not start the gRPC server on port " + port, e);
+    }
+  }
+
+  /**
+   * Stops accepting calls and gives calls in progress a few seconds to finish.
+   */
+  @Override
+  public synchronized void stop() {
+    if (server == null) {
+      return;
+    }
+    server.shutdown();
+    try {
+      if (!server.awaitTermination(SHUTDOWN_GRACE_SECONDS, TimeUnit.SECONDS)) {
+        server.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      server.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+    server = null;
+  }
+
+  @Override
+  public synchronized boolean isRunning() {
+    return server != null;
+  }
+
+  /**
+   * Returns the port the server listens on.
+   *
+   * @return the port, or -1 if the server is not running
+   */
+  public synchronized int getPort() {
+    return server == null ? -1 : server.getPort();
+  }
+}
@@ -0,0 +1,102 @@
+package org.nullpointers.couponsystem.model;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import java.time.Instant;
+import org.nullpointers.couponsystem.config.IdGenerationConfig;
+
+/**
+ * One entry of the catalog change log: a store, item, or coupon that was created,
+ * updated, or deleted. Entries are written in the same transaction as the change and
+ * numbered by a sequence, so a client can ask for everything after the last number it
+ * has seen. Creates and updates carry the entity's JSON as it was after the change.
+ */
+@Entity
+@Table(name = "catalog_changes", indexes = {
+    @Index(name = "idx_catalog_changes_entity", columnList = "entity_type, entity_id, seq")
+})
+public class CatalogChange {
+  /**
+   * What happened to the entity.
+   */
+  public enum Operation {
+    CREATE, UPDATE, DELETE
+  }
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "catalog_change_seq")
+  @SequenceGenerator(name = "catalog_change_seq",
+      sequenceName = IdGenerationConfig.CHANGE_SEQUENCE,
+      allocationSize = IdGenerationConfig.ALLOCATION_SIZE)
+  private long seq;
+  @Column(length = 16, nullable = false)
+  private String entityType;
+  private int entityId;
+  @Enumerated(EnumType.STRING)
+  @Column(length = 16, nullable = false)
+  private Operation operation;
+  private Instant changedAt;
+  @Column(length = 4000)
+  private String entity;
+
+  /**
+   * Constructs a change log entry. The sequence number is assigned when it is saved.
+   *
+   * @param entityType the kind of entity, such as {@code ITEM}
+   * @param entityId the entity's ID
+   * @param operation what happened to the entity
+   * @param changedAt when the change was made
+   * @param entity the entity's JSON after the change, or null for a delete
+   */
+  public CatalogChange(String entityType, int entityId, Operation operation,
+                       Instant changedAt, String entity) {
+    this.entityType = entityType;
+    this.entityId = entityId;
+    this.operation = operation;
+    this.changedAt = changedAt;
+    this.entity = entity;
+  }
+
+  public CatalogChange() {
+  }
+
+  public long getSeq() {
+    return seq;
+  }
+
+  public String getEntityType() {
+    return entityType;
+  }
+
+  public int getEntityId() {
+    return entityId;
+  }
+
+  public Operation getOperation() {
+    return operation;
+  }
+
+  public Instant getChangedAt() {
+    return changedAt;
+  }
+
+  /**
+   * Returns the entity as it was after the change, written into responses as a JSON
+   * object rather than a string.
+   *
+   * @return the entity's JSON, or null for a delete
+   */
+  @JsonRawValue
+  public String getEntity() {
+    return entity;
+  }
+}
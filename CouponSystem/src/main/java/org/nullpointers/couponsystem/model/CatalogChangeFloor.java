@@ -0,0 +1,41 @@
+package org.nullpointers.couponsystem.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * The highest change log sequence number whose entries compaction may have removed
+ * without a later entry for the same entity taking their place. Clients that last read
+ * the log below it cannot catch up from the log and must reload the catalog. Stored as a
+ * single row so it survives restarts.
+ */
+@Entity
+@Table(name = "catalog_change_floor")
+public class CatalogChangeFloor {
+  /** ID of the only row. */
+  public static final int ID = 1;
+
+  @Id
+  private int id = ID;
+  private long seq;
+
+  public CatalogChangeFloor(long seq) {
+    this.seq = seq;
+  }
+
+  public CatalogChangeFloor() {
+  }
+
+  public int getId() {
+    return id;
+  }
+
+  public long getSeq() {
+    return seq;
+  }
+
+  public void setSeq(long seq) {
+    this.seq = seq;
+  }
+}
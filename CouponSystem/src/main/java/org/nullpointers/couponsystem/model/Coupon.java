@@ -1,25 +1,43 @@
 package org.nullpointers.couponsystem.model;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.DiscriminatorColumn;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Inheritance;
 import jakarta.persistence.InheritanceType;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.nullpointers.couponsystem.config.CacheConfig;
+import org.nullpointers.couponsystem.config.IdGenerationConfig;
 
 /**
  * Abstract base class for all coupon types in the system.
  * Provides common functionality for calculating discounts and checking applicability.
+ *
+ * <p>All coupon types share one table. It is indexed by store, in ID order for keyset
+ * pages, and by the item an item coupon targets, so deleting items finds their coupons
+ * without a scan.
  */
 @Entity
-@Table(name = "coupons")
+@Table(name = "coupons", indexes = {
+    @Index(name = "idx_coupons_store_id", columnList = "store_id, id"),
+    @Index(name = "idx_coupons_target_item_id", columnList = "target_item_id")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheConfig.COUPON_REGION)
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE)
 @DiscriminatorColumn(name = "coupon_type")
 public abstract class Coupon {
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "coupon_id")
+  @SequenceGenerator(name = "coupon_id", sequenceName = IdGenerationConfig.COUPON_SEQUENCE,
+      allocationSize = IdGenerationConfig.ALLOCATION_SIZE)
   private int id;
   private int storeId;
   private double discountValue;
@@ -63,6 +81,18 @@ public abstract class Coupon {
     }
   }
 
+  /**
+   * Returns an upper bound on the discount this coupon can give a cart of this
+   * coupon's store, without inspecting the cart's items. Every coupon type discounts
+   * some part of the store subtotal, so the bound is the discount on the full subtotal.
+   *
+   * @param storeSubtotal total price of the cart items from this coupon's store
+   * @return the largest discount this coupon could give
+   */
+  public double maxDiscountFor(double storeSubtotal) {
+    return getDiscountAmount(storeSubtotal);
+  }
+
   public int getId() {
     return id;
   }
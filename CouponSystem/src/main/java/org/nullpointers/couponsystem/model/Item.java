@@ -1,25 +1,60 @@
 package org.nullpointers.couponsystem.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.Cacheable;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+import java.util.Locale;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.nullpointers.couponsystem.config.CacheConfig;
+import org.nullpointers.couponsystem.config.IdGenerationConfig;
 
 /**
  * Represents an item in the coupon management system.
  * Each item belongs to a store and has a category for coupon matching.
+ *
+ * <p>The category is also stored lower-cased, so case-insensitive category lookups
+ * compare a plain indexed column instead of applying {@code lower()} to every row. The
+ * store indexes serve a store's items in ID order (keyset pages) and by price.
+ *
+ * <p>The version is raised by every update of the row, so of two copies of an item the
+ * one with the higher version was committed later. The catalog replica uses it to ignore
+ * changes that reach it out of order. It is not part of the JSON.
  */
 @Entity
-@Table(name = "items")
+@Table(name = "items", indexes = {
+    @Index(name = "idx_items_store_id", columnList = "store_id, id"),
+    @Index(name = "idx_items_store_price", columnList = "store_id, price"),
+    @Index(name = "idx_items_category_key", columnList = "category_key, price, id")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheConfig.ITEM_REGION)
 public class Item {
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "item_id")
+  @SequenceGenerator(name = "item_id", sequenceName = IdGenerationConfig.ITEM_SEQUENCE,
+      allocationSize = IdGenerationConfig.ALLOCATION_SIZE)
   private int id;
   private String name;
   private double price;
   private int storeId;
   private String category;
+  @Column(name = "category_key")
+  private String categoryKey;
+  @Version
+  @Column(nullable = false)
+  @ColumnDefault("0")
+  @JsonIgnore
+  private long version;
 
   /**
    * Constructs an item with the specified parameters.
@@ -36,6 +71,7 @@ public class Item {
     this.price = price;
     this.storeId = storeId;
     this.category = category;
+    this.categoryKey = normalizeCategory(category);
   }
 
   /**
@@ -47,6 +83,17 @@ public class Item {
     this.price = 0.0;
     this.storeId = 0;
     this.category = "";
+    this.categoryKey = "";
+  }
+
+  /**
+   * Returns the form categories are stored and compared in by indexed lookups.
+   *
+   * @param category a category, in any case
+   * @return the lower-cased category, or null if it is null
+   */
+  public static String normalizeCategory(String category) {
+    return category == null ? null : category.toLowerCase(Locale.ROOT);
   }
 
   public int getId() {
@@ -87,6 +134,15 @@ public class Item {
 
   public void setCategory(String category) {
     this.category = category;
+    this.categoryKey = normalizeCategory(category);
+  }
+
+  public long getVersion() {
+    return version;
+  }
+
+  public void setVersion(long version) {
+    this.version = version;
   }
 
   @Override
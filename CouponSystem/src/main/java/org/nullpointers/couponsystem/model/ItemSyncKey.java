@@ -0,0 +1,63 @@
+package org.nullpointers.couponsystem.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+/**
+ * Links an item to the key a store's own system uses for it, together with the content
+ * hash that system sent with the item's current data. Used by catalog sync to tell which
+ * records changed since they were last uploaded.
+ */
+@Entity
+@Table(name = "item_sync_keys",
+    uniqueConstraints = @UniqueConstraint(columnNames = {"external_key", "store_id"}))
+public class ItemSyncKey {
+  @Id
+  private int itemId;
+  private int storeId;
+  @Column(length = 255)
+  private String externalKey;
+  @Column(length = 128)
+  private String contentHash;
+
+  /**
+   * Constructs a sync key.
+   *
+   * @param itemId the item the key belongs to
+   * @param storeId the store of the item
+   * @param externalKey the store system's key for the item
+   * @param contentHash the hash the store system sent with the item's current data
+   */
+  public ItemSyncKey(int itemId, int storeId, String externalKey, String contentHash) {
+    this.itemId = itemId;
+    this.storeId = storeId;
+    this.externalKey = externalKey;
+    this.contentHash = contentHash;
+  }
+
+  public ItemSyncKey() {
+  }
+
+  public int getItemId() {
+    return itemId;
+  }
+
+  public int getStoreId() {
+    return storeId;
+  }
+
+  public String getExternalKey() {
+    return externalKey;
+  }
+
+  public String getContentHash() {
+    return contentHash;
+  }
+
+  public void setContentHash(String contentHash) {
+    this.contentHash = contentHash;
+  }
+}
@@ -1,10 +1,16 @@
 package org.nullpointers.couponsystem.model;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.nullpointers.couponsystem.config.CacheConfig;
+import org.nullpointers.couponsystem.config.IdGenerationConfig;
 
 /**
  * Represents a store in the coupon management system.
@@ -12,9 +18,13 @@ import jakarta.persistence.Table;
  */
 @Entity
 @Table(name = "stores")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheConfig.STORE_REGION)
 public class Store {
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "store_id")
+  @SequenceGenerator(name = "store_id", sequenceName = IdGenerationConfig.STORE_SEQUENCE,
+      allocationSize = IdGenerationConfig.ALLOCATION_SIZE)
   private int id;
   private String name;
 
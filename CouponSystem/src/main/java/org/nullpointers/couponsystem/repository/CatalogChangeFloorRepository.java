@@ -0,0 +1,12 @@
+package org.nullpointers.couponsystem.repository;
+
+import org.nullpointers.couponsystem.model.CatalogChangeFloor;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for the change log's compaction floor.
+ */
+@Repository
+public interface CatalogChangeFloorRepository extends JpaRepository<CatalogChangeFloor, Integer> {
+}
@@ -0,0 +1,88 @@
+package org.nullpointers.couponsystem.repository;
+
+import java.time.Instant;
+import java.util.List;
+import org.nullpointers.couponsystem.model.CatalogChange;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for the catalog change log.
+ */
+@Repository
+public interface CatalogChangeRepository extends JpaRepository<CatalogChange, Long> {
+  /**
+   * Finds the entries after one sequence number and up to another, in order. Reads a
+   * range of the primary key, so the cost grows with the entries returned, not with the
+   * size of the log.
+   *
+   * @param since the last sequence number the caller has seen
+   * @param upTo the highest sequence number to return
+   * @param limit the most entries to return
+   * @return the entries, in sequence order
+   */
+  List<CatalogChange> findBySeqGreaterThanAndSeqLessThanEqualOrderBySeqAsc(long since,
+                                                                           long upTo,
+                                                                           Limit limit);
+
+  /**
+   * Returns the highest sequence number in the log.
+   *
+   * @return the sequence number, or null if the log is empty
+   */
+  @Query("select max(c.seq) from CatalogChange c")
+  Long findMaxSeq();
+
+  /**
+   * Finds the sequence numbers after a given one, in order, for splitting compaction
+   * into batches.
+   *
+   * @param after the sequence number to start after
+   * @param limit the most numbers to return
+   * @return the sequence numbers, in ascending order
+   */
+  @Query("select c.seq from CatalogChange c where c.seq > :after order by c.seq")
+  List<Long> findSeqsAfter(@Param("after") long after, Limit limit);
+
+  /**
+   * Deletes the entries in a sequence range that a later entry for the same entity
+   * supersedes, without loading them. A client reading past them still sees the entity's
+   * latest state.
+   *
+   * @param after the sequence number the range starts after
+   * @param upTo the last sequence number in the range
+   * @return the number of rows deleted
+   */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("delete from CatalogChange c where c.seq > :after and c.seq <= :upTo and exists ("
+      + "select n.seq from CatalogChange n where n.entityType = c.entityType"
+      + " and n.entityId = c.entityId and n.seq > c.seq)")
+  int deleteSupersededBetween(@Param("after") long after, @Param("upTo") long upTo);
+
+  /**
+   * Returns the highest sequence number of a delete made before a point in time.
+   *
+   * @param cutoff the point in time
+   * @return the sequence number, or null if there is no such delete
+   */
+  @Query("select max(c.seq) from CatalogChange c where c.operation = "
+      + "org.nullpointers.couponsystem.model.CatalogChange.Operation.DELETE"
+      + " and c.changedAt < :cutoff")
+  Long findLastDeleteBefore(@Param("cutoff") Instant cutoff);
+
+  /**
+   * Deletes the delete entries up to a sequence number, without loading them.
+   *
+   * @param upTo the last sequence number to remove
+   * @return the number of rows deleted
+   */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("delete from CatalogChange c where c.operation = "
+      + "org.nullpointers.couponsystem.model.CatalogChange.Operation.DELETE"
+      + " and c.seq <= :upTo")
+  int deleteDeletesUpTo(@Param("upTo") long upTo);
+}
@@ -1,8 +1,19 @@
 package org.nullpointers.couponsystem.repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+import org.hibernate.jpa.AvailableHints;
 import org.nullpointers.couponsystem.model.Coupon;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -11,12 +22,115 @@ import org.springframework.stereotype.Repository;
  */
 @Repository
 public interface CouponRepository extends JpaRepository<Coupon, Integer> {
+  /** Rows fetched per round trip when streaming an export. */
+  String EXPORT_FETCH_SIZE = "1000";
+
   /**
-   * Finds all coupons associated with a specific store.
+   * Finds all coupons associated with a specific store. Results are kept in the query cache.
    *
    * @param storeId the ID of the store
    * @return a list of coupons for the specified store
    */
+  @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
   List<Coupon> findByStoreId(int storeId);
-}
 
+  /**
+   * Finds all coupons belonging to any of the given stores in a single query.
+   *
+   * @param storeIds the IDs of the stores
+   * @return a list of coupons for the specified stores
+   */
+  List<Coupon> findByStoreIdIn(Collection<Integer> storeIds);
+
+  /**
+   * Finds a page of each store's coupons in a single query: the first coupons after the
+   * given ID, in ID order, at most {@code limit} per store.
+   *
+   * @param storeIds the IDs of the stores
+   * @param afterId only coupons with a greater ID are returned
+   * @param limit the most coupons returned per store
+   * @return the pages, ordered by store and then ID
+   */
+  @Query("select c from Coupon c where c.id in (select paged.id from (select p.id as id,"
+      + " row_number() over (partition by p.storeId order by p.id) as position from Coupon p"
+      + " where p.storeId in :storeIds and p.id > :afterId) paged"
+      + " where paged.position <= :limit) order by c.storeId, c.id")
+  List<Coupon> findPagesByStoreIdIn(@Param("storeIds") Collection<Integer> storeIds,
+                                    @Param("afterId") int afterId, @Param("limit") int limit);
+
+  /**
+   * Finds the next batch of coupons in ID order, for loading the catalog replica.
+   * Bypasses the second-level cache so a full load does not flush it.
+   *
+   * @param id only coupons with a greater ID are returned
+   * @param limit the maximum number of coupons to return
+   * @return the batch, in ascending ID order
+   */
+  @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHE_MODE, value = "IGNORE"))
+  List<Coupon> findByIdGreaterThanOrderByIdAsc(int id, Limit limit);
+
+  /**
+   * Finds the next page of a store's coupons in ID order.
+   *
+   * @param storeId the ID of the store
+   * @param id only coupons with a greater ID are returned
+   * @param limit the maximum number of coupons to return
+   * @return the page, in ascending ID order
+   */
+  List<Coupon> findByStoreIdAndIdGreaterThanOrderByIdAsc(int storeId, int id, Limit limit);
+
+  /**
+   * Streams every coupon in ID order, for exporting the catalog. Must be called inside a
+   * transaction and closed after use. Rows are fetched from the database cursor
+   * {@value #EXPORT_FETCH_SIZE} at a time, bypass the second-level cache, and are loaded
+   * read-only so Hibernate keeps no snapshot of them.
+   *
+   * @return a forward-only stream of coupons
+   */
+  @QueryHints({
+      @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+      @QueryHint(name = AvailableHints.HINT_CACHE_MODE, value = "IGNORE"),
+      @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+  })
+  Stream<Coupon> streamAllByOrderByIdAsc();
+
+  /**
+   * Finds the IDs of a store's first coupons in ID order, without loading the coupons.
+   *
+   * @param storeId the ID of the store
+   * @param limit the maximum number of IDs to return
+   * @return the IDs, in ascending order
+   */
+  @Query("select c.id from Coupon c where c.storeId = :storeId order by c.id")
+  List<Integer> findIdsByStoreId(@Param("storeId") int storeId, Limit limit);
+
+  /**
+   * Finds the IDs of the item coupons that target any of the given items.
+   *
+   * @param itemIds the IDs of the target items
+   * @return the coupon IDs
+   */
+  @Query("select c.id from ItemCoupon c where c.targetItemId in :itemIds")
+  List<Integer> findIdsByTargetItemIdIn(@Param("itemIds") Collection<Integer> itemIds);
+
+  /**
+   * Finds which of the given coupons exist and locks their rows, so concurrent deletes of
+   * the same coupons report each row once.
+   *
+   * @param ids the coupon IDs
+   * @return the IDs of the coupons that exist
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select c.id from Coupon c where c.id in :ids")
+  List<Integer> findIdsForUpdateByIdIn(@Param("ids") Collection<Integer> ids);
+
+  /**
+   * Deletes coupons with a single statement, without loading them.
+   *
+   * @param ids the coupon IDs
+   * @return the number of rows deleted
+   */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("delete from Coupon c where c.id in :ids")
+  int deleteRowsByIdIn(@Param("ids") Collection<Integer> ids);
+}
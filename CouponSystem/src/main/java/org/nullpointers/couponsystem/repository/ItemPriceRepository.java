@@ -0,0 +1,17 @@
+package org.nullpointers.couponsystem.repository;
+
+import java.util.Map;
+
+/**
+ * Set-based price updates on the items table.
+ */
+public interface ItemPriceRepository {
+  /**
+   * Sets each item's price with a single {@code UPDATE} statement, without loading the
+   * items. Unknown IDs are ignored. Must be called inside a transaction.
+   *
+   * @param prices the new price of each item, by item ID
+   * @return the number of rows updated
+   */
+  int updatePrices(Map<Integer, Double> prices);
+}
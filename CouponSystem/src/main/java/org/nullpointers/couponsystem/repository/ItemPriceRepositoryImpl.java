@@ -0,0 +1,43 @@
+package org.nullpointers.couponsystem.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import java.util.Map;
+
+/**
+ * HQL implementation of {@link ItemPriceRepository}. The prices are set with one
+ * {@code case} expression over the item ID, so a batch is one statement, and batches of
+ * the same size reuse the same query plan. Being a bulk HQL statement, it invalidates the
+ * item cache region and the cached item queries. Each row's version is raised, as an
+ * entity update would.
+ */
+public class ItemPriceRepositoryImpl implements ItemPriceRepository {
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  @Override
+  public int updatePrices(Map<Integer, Double> prices) {
+    if (prices.isEmpty()) {
+      return 0;
+    }
+    StringBuilder hql = new StringBuilder(80 + prices.size() * 32)
+        .append("update Item i set i.version = i.version + 1, i.price = case i.id");
+    for (int i = 0; i < prices.size(); i++) {
+      hql.append(" when :id").append(i).append(" then :price").append(i);
+    }
+    hql.append(" else i.price end where i.id in :ids");
+
+    entityManager.flush();
+    Query query = entityManager.createQuery(hql.toString());
+    int i = 0;
+    for (Map.Entry<Integer, Double> entry : prices.entrySet()) {
+      query.setParameter("id" + i, entry.getKey());
+      query.setParameter("price" + i, entry.getValue());
+      i++;
+    }
+    int updated = query.setParameter("ids", prices.keySet()).executeUpdate();
+    entityManager.clear();
+    return updated;
+  }
+}
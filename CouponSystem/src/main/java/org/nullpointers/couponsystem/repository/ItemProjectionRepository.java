@@ -0,0 +1,34 @@
+package org.nullpointers.couponsystem.repository;
+
+import jakarta.persistence.Tuple;
+import java.util.List;
+
+/**
+ * Queries that read only some columns of the items table. Each result row is a
+ * {@link Tuple} whose elements are aliased by property name; no {@code Item} entity is
+ * instantiated or added to the persistence context, so Hibernate keeps no snapshot of it.
+ */
+public interface ItemProjectionRepository {
+  /**
+   * Finds one item's columns.
+   *
+   * @param id the item ID
+   * @param columns the item properties to select
+   * @return the row, or null if there is no such item
+   */
+  Tuple findColumnsById(int id, List<String> columns);
+
+  /**
+   * Finds the next page of an item list's columns. Category lists continue after the
+   * given price and ID; the others after the given ID.
+   *
+   * @param scope which items to list
+   * @param columns the item properties to select
+   * @param afterPrice the price of the last row already returned, for category lists
+   * @param afterId the ID of the last row already returned
+   * @param limit the maximum number of rows to return
+   * @return the rows, in the scope's order
+   */
+  List<Tuple> findColumnsAfter(ItemScope scope, List<String> columns, double afterPrice,
+                               int afterId, int limit);
+}
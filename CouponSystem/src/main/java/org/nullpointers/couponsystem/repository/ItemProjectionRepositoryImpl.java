@@ -0,0 +1,100 @@
+package org.nullpointers.couponsystem.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import java.util.List;
+import java.util.Locale;
+import org.hibernate.jpa.AvailableHints;
+import org.nullpointers.couponsystem.model.Item;
+
+/**
+ * Criteria-query implementation of {@link ItemProjectionRepository}. Column names must
+ * be {@code Item} property names; callers validate them before they reach a query.
+ */
+public class ItemProjectionRepositoryImpl implements ItemProjectionRepository {
+  private static final char LIKE_ESCAPE = '\\';
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  @Override
+  public Tuple findColumnsById(int id, List<String> columns) {
+    CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+    CriteriaQuery<Tuple> query = cb.createTupleQuery();
+    Root<Item> item = query.from(Item.class);
+    query.multiselect(select(item, columns)).where(cb.equal(item.get("id"), id));
+    List<Tuple> rows = entityManager.createQuery(query).getResultList();
+    return rows.isEmpty() ? null : rows.get(0);
+  }
+
+  @Override
+  public List<Tuple> findColumnsAfter(ItemScope scope, List<String> columns, double afterPrice,
+                                      int afterId, int limit) {
+    CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+    CriteriaQuery<Tuple> query = cb.createTupleQuery();
+    Root<Item> item = query.from(Item.class);
+    Path<Integer> id = item.get("id");
+    Path<Double> price = item.get("price");
+    Predicate filter = filter(cb, item, scope);
+    Predicate after;
+    if (!scope.isOrderedByPrice()) {
+      after = cb.greaterThan(id, afterId);
+    } else if (afterPrice == Double.NEGATIVE_INFINITY) {
+      // The first page of a category: nothing to skip
+      after = cb.conjunction();
+    } else {
+      after = cb.or(cb.greaterThan(price, afterPrice),
+          cb.and(cb.equal(price, afterPrice), cb.greaterThan(id, afterId)));
+    }
+    query.multiselect(select(item, columns))
+        .where(filter == null ? after : cb.and(filter, after))
+        .orderBy(scope.isOrderedByPrice()
+            ? List.of(cb.asc(price), cb.asc(id))
+            : List.of(cb.asc(id)));
+    return entityManager.createQuery(query)
+        .setHint(AvailableHints.HINT_CACHE_MODE, "IGNORE")
+        .setMaxResults(limit)
+        .getResultList();
+  }
+
+  private static List<Selection<?>> select(Root<Item> item, List<String> columns) {
+    return columns.stream().<Selection<?>>map(column -> item.get(column).alias(column))
+        .toList();
+  }
+
+  /**
+   * Builds the scope's filter, or returns null when the scope covers every item.
+   */
+  private static Predicate filter(CriteriaBuilder cb, Root<Item> item, ItemScope scope) {
+    switch (scope.getKind()) {
+      case STORE:
+        return cb.equal(item.get("storeId"), scope.getStoreId());
+      case KEYWORD:
+        return cb.like(cb.lower(item.get("name")),
+            "%" + escapeLike(scope.getText().toLowerCase(Locale.ROOT)) + "%", LIKE_ESCAPE);
+      case CATEGORY:
+        return cb.equal(item.get("categoryKey"), Item.normalizeCategory(scope.getText()));
+      default:
+        return null;
+    }
+  }
+
+  private static String escapeLike(String text) {
+    StringBuilder escaped = new StringBuilder(text.length());
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+        escaped.append(LIKE_ESCAPE);
+      }
+      escaped.append(c);
+    }
+    return escaped.toString();
+  }
+}
@@ -1,31 +1,66 @@
 package org.nullpointers.couponsystem.repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+import org.hibernate.jpa.AvailableHints;
 import org.nullpointers.couponsystem.model.Item;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
  * Repository interface for managing Item entities.
- * Extends JpaRepository to provide standard CRUD operations.
+ * Extends JpaRepository to provide standard CRUD operations,
+ * {@link ItemProjectionRepository} to read only some of an item's columns, and
+ * {@link ItemPriceRepository} to reprice items in bulk.
  */
 @Repository
-public interface ItemRepository extends JpaRepository<Item, Integer> {
+public interface ItemRepository extends JpaRepository<Item, Integer>, ItemProjectionRepository,
+    ItemPriceRepository {
+  /** Rows fetched per round trip when streaming an export. */
+  String EXPORT_FETCH_SIZE = "1000";
+
   /**
-   * Finds all items associated with a specific store.
+   * Finds all items associated with a specific store. Results are kept in the query cache.
    *
    * @param storeId the ID of the store
    * @return a list of items for the specified store
    */
+  @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
   List<Item> findByStoreId(int storeId);
 
   /**
-   * Finds all items matching the given category, ignoring case.
+   * Finds a page of each store's items in a single query: the first items after the
+   * given ID, in ID order, at most {@code limit} per store. Each store's rows are numbered
+   * with a window function, so no store returns more than its page.
+   *
+   * @param storeIds the IDs of the stores
+   * @param afterId only items with a greater ID are returned
+   * @param limit the most items returned per store
+   * @return the pages, ordered by store and then ID
+   */
+  @Query("select i from Item i where i.id in (select paged.id from (select p.id as id,"
+      + " row_number() over (partition by p.storeId order by p.id) as position from Item p"
+      + " where p.storeId in :storeIds and p.id > :afterId) paged"
+      + " where paged.position <= :limit) order by i.storeId, i.id")
+  List<Item> findPagesByStoreIdIn(@Param("storeIds") Collection<Integer> storeIds,
+                                  @Param("afterId") int afterId, @Param("limit") int limit);
+
+  /**
+   * Finds all items in a category.
    *
-   * @param category the category to filter by
+   * @param categoryKey the category, normalized with {@link Item#normalizeCategory}
    * @return a list of items in the specified category
    */
-  List<Item> findByCategoryIgnoreCase(String category);
+  List<Item> findByCategoryKey(String categoryKey);
 
   /**
    * Finds all items whose name contains the given keyword, ignoring case.
@@ -34,4 +69,172 @@ public interface ItemRepository extends JpaRepository<Item, Integer> {
    * @return a list of items matching the keyword
    */
   List<Item> findByNameContainingIgnoreCase(String keyword);
+
+  /**
+   * Finds the next batch of items in ID order, for loading the catalog replica.
+   * Bypasses the second-level cache so a full load does not flush it.
+   *
+   * @param id only items with a greater ID are returned
+   * @param limit the maximum number of items to return
+   * @return the batch, in ascending ID order
+   */
+  @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHE_MODE, value = "IGNORE"))
+  List<Item> findByIdGreaterThanOrderByIdAsc(int id, Limit limit);
+
+  /**
+   * Finds the next page of a store's items in ID order.
+   *
+   * @param storeId the ID of the store
+   * @param id only items with a greater ID are returned
+   * @param limit the maximum number of items to return
+   * @return the page, in ascending ID order
+   */
+  List<Item> findByStoreIdAndIdGreaterThanOrderByIdAsc(int storeId, int id, Limit limit);
+
+  /**
+   * Finds the next page of items whose name contains the keyword, ignoring case, in ID
+   * order.
+   *
+   * @param keyword the keyword to search for in item names
+   * @param id only items with a greater ID are returned
+   * @param limit the maximum number of items to return
+   * @return the page, in ascending ID order
+   */
+  List<Item> findByNameContainingIgnoreCaseAndIdGreaterThanOrderByIdAsc(String keyword, int id,
+                                                                        Limit limit);
+
+  /**
+   * Finds the first page of items in a category, cheapest first.
+   *
+   * @param categoryKey the category, normalized with {@link Item#normalizeCategory}
+   * @param limit the maximum number of items to return
+   * @return the page, ordered by price and then ID
+   */
+  List<Item> findByCategoryKeyOrderByPriceAscIdAsc(String categoryKey, Limit limit);
+
+  /**
+   * Finds the page of items in a category that follows the item with the given price
+   * and ID.
+   *
+   * @param categoryKey the category, normalized with {@link Item#normalizeCategory}
+   * @param price the price of the last item already returned
+   * @param id the ID of the last item already returned
+   * @param limit the maximum number of items to return
+   * @return the page, ordered by price and then ID
+   */
+  @Query("select i from Item i where i.categoryKey = :categoryKey"
+      + " and (i.price > :price or (i.price = :price and i.id > :id))"
+      + " order by i.price, i.id")
+  List<Item> findByCategoryAfter(@Param("categoryKey") String categoryKey,
+                                 @Param("price") double price, @Param("id") int id,
+                                 Limit limit);
+
+  /**
+   * Streams every item in ID order, for exporting the catalog. Must be called inside a
+   * transaction and closed after use. Rows are fetched from the database cursor
+   * {@value #EXPORT_FETCH_SIZE} at a time, bypass the second-level cache, and are loaded
+   * read-only so Hibernate keeps no snapshot of them.
+   *
+   * @return a forward-only stream of items
+   */
+  @QueryHints({
+      @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+      @QueryHint(name = AvailableHints.HINT_CACHE_MODE, value = "IGNORE"),
+      @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+  })
+  Stream<Item> streamAllByOrderByIdAsc();
+
+  /**
+   * Finds the IDs of a store's first items in ID order, without loading the items.
+   *
+   * @param storeId the ID of the store
+   * @param limit the maximum number of IDs to return
+   * @return the IDs, in ascending order
+   */
+  @Query("select i.id from Item i where i.storeId = :storeId order by i.id")
+  List<Integer> findIdsByStoreId(@Param("storeId") int storeId, Limit limit);
+
+  /**
+   * Finds which of the given items exist and locks their rows, so concurrent deletes of
+   * the same items report each row once.
+   *
+   * @param ids the item IDs
+   * @return the IDs of the items that exist
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select i.id from Item i where i.id in :ids")
+  List<Integer> findIdsForUpdateByIdIn(@Param("ids") Collection<Integer> ids);
+
+  /**
+   * Deletes items with a single statement, without loading them.
+   *
+   * @param ids the item IDs
+   * @return the number of rows deleted
+   */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("delete from Item i where i.id in :ids")
+  int deleteRowsByIdIn(@Param("ids") Collection<Integer> ids);
+
+  /**
+   * Finds the IDs of a store's items in a category that follow the given ID, without
+   * loading the items.
+   *
+   * @param storeId the ID of the store
+   * @param categoryKey the category, normalized with {@link Item#normalizeCategory}
+   * @param id only items with a greater ID are returned
+   * @param limit the maximum number of IDs to return
+   * @return the IDs, in ascending order
+   */
+  @Query("select i.id from Item i where i.storeId = :storeId"
+      + " and i.categoryKey = :categoryKey and i.id > :id order by i.id")
+  List<Integer> findIdsByStoreIdAndCategoryAfter(@Param("storeId") int storeId,
+                                                 @Param("categoryKey") String categoryKey,
+                                                 @Param("id") int id, Limit limit);
+
+  /**
+   * Reads back items after a bulk update, bypassing the second-level cache and loading
+   * them read-only so Hibernate keeps no snapshot of them.
+   *
+   * @param ids the item IDs
+   * @return the items, in no particular order; unknown IDs are skipped
+   */
+  @QueryHints({
+      @QueryHint(name = AvailableHints.HINT_CACHE_MODE, value = "IGNORE"),
+      @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+  })
+  List<Item> findByIdIn(Collection<Integer> ids);
+
+  /**
+   * Loads items that are about to be replaced and locks their rows until the transaction
+   * ends, so a concurrent writer of the same items waits and then reads the version this
+   * one commits.
+   *
+   * @param ids the item IDs
+   * @return the items, in no particular order; unknown IDs are skipped
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select i from Item i where i.id in :ids")
+  List<Item> findForUpdateByIdIn(@Param("ids") Collection<Integer> ids);
+
+  /**
+   * Finds which of the given item IDs exist, with a single query.
+   *
+   * @param ids the item IDs to check
+   * @return the IDs that belong to an item, in no particular order
+   */
+  @Query("select i.id from Item i where i.id in :ids")
+  List<Integer> findExistingIds(@Param("ids") Collection<Integer> ids);
+
+  /**
+   * Multiplies the prices of items by a factor, rounded to cents, with a single statement
+   * and without loading the items.
+   *
+   * @param ids the item IDs
+   * @param factor the factor to multiply each price by
+   * @return the number of rows updated
+   */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("update Item i set i.price = round(i.price * :factor, 2), i.version = i.version + 1"
+      + " where i.id in :ids")
+  int scalePricesByIdIn(@Param("ids") Collection<Integer> ids, @Param("factor") double factor);
 }
@@ -0,0 +1,64 @@
+package org.nullpointers.couponsystem.repository;
+
+/**
+ * Which items an item list covers, independent of paging: every item, one store's items,
+ * a name search, or a category. Category lists are ordered by price and then ID; the
+ * others by ID.
+ */
+public final class ItemScope {
+  /**
+   * The kinds of item list.
+   */
+  public enum Kind {
+    ALL, STORE, KEYWORD, CATEGORY
+  }
+
+  private static final ItemScope ALL = new ItemScope(Kind.ALL, 0, null);
+
+  private final Kind kind;
+  private final int storeId;
+  private final String text;
+
+  private ItemScope(Kind kind, int storeId, String text) {
+    this.kind = kind;
+    this.storeId = storeId;
+    this.text = text;
+  }
+
+  public static ItemScope all() {
+    return ALL;
+  }
+
+  public static ItemScope store(int storeId) {
+    return new ItemScope(Kind.STORE, storeId, null);
+  }
+
+  public static ItemScope keyword(String keyword) {
+    return new ItemScope(Kind.KEYWORD, 0, keyword);
+  }
+
+  public static ItemScope category(String category) {
+    return new ItemScope(Kind.CATEGORY, 0, category);
+  }
+
+  public Kind getKind() {
+    return kind;
+  }
+
+  public int getStoreId() {
+    return storeId;
+  }
+
+  /**
+   * Returns the search keyword or category name.
+   *
+   * @return the text the scope filters on, or null for the other kinds
+   */
+  public String getText() {
+    return text;
+  }
+
+  public boolean isOrderedByPrice() {
+    return kind == Kind.CATEGORY;
+  }
+}
@@ -0,0 +1,63 @@
+package org.nullpointers.couponsystem.repository;
+
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+import org.hibernate.jpa.AvailableHints;
+import org.nullpointers.couponsystem.model.ItemSyncKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for managing the external keys and content hashes that catalog
+ * sync keeps per item.
+ */
+@Repository
+public interface ItemSyncKeyRepository extends JpaRepository<ItemSyncKey, Integer> {
+  /**
+   * Finds a store's sync keys among the given external keys.
+   *
+   * @param storeId the ID of the store
+   * @param externalKeys the store system's keys
+   * @return the sync keys that exist, in no particular order
+   */
+  List<ItemSyncKey> findByStoreIdAndExternalKeyIn(int storeId,
+                                                  Collection<String> externalKeys);
+
+  /**
+   * Streams a store's sync keys, for building its content hash index. Must be called
+   * inside a transaction and closed after use. Rows are loaded read-only.
+   *
+   * @param storeId the ID of the store
+   * @return a forward-only stream of sync keys
+   */
+  @QueryHints({
+      @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "1000"),
+      @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+  })
+  Stream<ItemSyncKey> streamByStoreId(int storeId);
+
+  /**
+   * Finds the stores that hold sync keys for any of the given items.
+   *
+   * @param itemIds the item IDs
+   * @return the distinct store IDs, in no particular order
+   */
+  @Query("select distinct k.storeId from ItemSyncKey k where k.itemId in :itemIds")
+  List<Integer> findStoreIdsByItemIdIn(@Param("itemIds") Collection<Integer> itemIds);
+
+  /**
+   * Deletes the sync keys of items with a single statement, without loading them.
+   *
+   * @param itemIds the item IDs
+   * @return the number of rows deleted
+   */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("delete from ItemSyncKey k where k.itemId in :itemIds")
+  int deleteRowsByItemIdIn(@Param("itemIds") Collection<Integer> itemIds);
+}
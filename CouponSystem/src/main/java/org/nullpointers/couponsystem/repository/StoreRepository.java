@@ -1,7 +1,19 @@
 package org.nullpointers.couponsystem.repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+import org.hibernate.jpa.AvailableHints;
 import org.nullpointers.couponsystem.model.Store;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -10,5 +22,73 @@ import org.springframework.stereotype.Repository;
  */
 @Repository
 public interface StoreRepository extends JpaRepository<Store, Integer> {
-}
+  /** Rows fetched per round trip when streaming an export. */
+  String EXPORT_FETCH_SIZE = "1000";
+
+  /**
+   * Finds the next batch of stores in ID order, for loading the catalog replica.
+   * Bypasses the second-level cache so a full load does not flush it.
+   *
+   * @param id only stores with a greater ID are returned
+   * @param limit the maximum number of stores to return
+   * @return the batch, in ascending ID order
+   */
+  @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHE_MODE, value = "IGNORE"))
+  List<Store> findByIdGreaterThanOrderByIdAsc(int id, Limit limit);
+
+  /**
+   * Streams every store in ID order, for exporting the catalog. Must be called inside a
+   * transaction and closed after use. Rows are fetched from the database cursor
+   * {@value #EXPORT_FETCH_SIZE} at a time, bypass the second-level cache, and are loaded
+   * read-only so Hibernate keeps no snapshot of them.
+   *
+   * @return a forward-only stream of stores
+   */
+  @QueryHints({
+      @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+      @QueryHint(name = AvailableHints.HINT_CACHE_MODE, value = "IGNORE"),
+      @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+  })
+  Stream<Store> streamAllByOrderByIdAsc();
+
+  /**
+   * Finds which of the given store IDs exist, with a single query.
+   *
+   * @param ids the store IDs to check
+   * @return the IDs that belong to a store, in no particular order
+   */
+  @Query("select s.id from Store s where s.id in :ids")
+  List<Integer> findExistingIds(@Param("ids") Collection<Integer> ids);
 
+  /**
+   * Finds which of the given stores exist and holds a shared lock on their rows until the
+   * transaction ends, so none of them can be deleted while items or coupons are added.
+   *
+   * @param ids the store IDs
+   * @return the IDs of the stores that exist
+   */
+  @Lock(LockModeType.PESSIMISTIC_READ)
+  @Query("select s.id from Store s where s.id in :ids")
+  List<Integer> findIdsForShareByIdIn(@Param("ids") Collection<Integer> ids);
+
+  /**
+   * Locks a store's row for the rest of the transaction, waiting for transactions that
+   * are adding items or coupons to it to finish.
+   *
+   * @param id the store ID
+   * @return the ID if the store exists, else nothing
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select s.id from Store s where s.id = :id")
+  List<Integer> findIdForUpdateById(@Param("id") int id);
+
+  /**
+   * Deletes a store with a single statement, without loading it.
+   *
+   * @param id the store ID
+   * @return the number of rows deleted, 0 or 1
+   */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("delete from Store s where s.id = :id")
+  int deleteRowById(@Param("id") int id);
+}
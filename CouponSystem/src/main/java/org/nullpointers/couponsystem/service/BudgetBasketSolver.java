@@ -0,0 +1,430 @@
+package org.nullpointers.couponsystem.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+import org.nullpointers.couponsystem.model.CategoryCoupon;
+import org.nullpointers.couponsystem.model.Coupon;
+import org.nullpointers.couponsystem.model.Item;
+import org.nullpointers.couponsystem.model.ItemCoupon;
+import org.nullpointers.couponsystem.model.TotalPriceCoupon;
+
+/**
+ * Knapsack solver that picks the most valuable set of a store's items (by list price)
+ * whose price after the store's best coupon fits within a budget.
+ *
+ * <p>Coupons make the cost of a cart non-linear, so the problem is split into one
+ * relaxation per coupon plus one without any coupon. Under a single coupon the items
+ * fall into an eligible group (the whole cart, a category, or one target item) and the
+ * rest. A percentage coupon scales the cost of eligible items; a fixed-amount coupon
+ * makes the first {@code D} dollars of eligible items free, which is the same as
+ * allowing eligible items to use {@code D} extra dollars of budget. A TotalPriceCoupon
+ * relaxation only counts when its best cart reaches the coupon's minimum purchase.
+ *
+ * <p>Each relaxation is solved exactly with a DP over prices in cents when the table is
+ * small and the budget is at most {@link #MAX_DP_CAPACITY} cents, and with depth-first
+ * branch-and-bound (fractional knapsack bound) otherwise. Relaxations whose bound cannot
+ * beat the best cart so far are skipped, and the search stops at the deadline, returning
+ * the best cart found. Every cart a relaxation accepts
+ * is affordable, since the store's actual best coupon saves at least as much.
+ */
+public class BudgetBasketSolver {
+  /** Largest DP table, in cells, before switching to branch-and-bound. */
+  public static final long MAX_DP_CELLS = 20_000_000L;
+
+  /**
+   * Largest capacity, in cents, for the DP. Each table keeps a row of longs this long, so
+   * a few items with a large budget would otherwise fit within {@link #MAX_DP_CELLS} and
+   * still allocate a row of 160 MB.
+   */
+  public static final long MAX_DP_CAPACITY = 1_000_000L;
+
+  /** Method label for carts found by the DP. */
+  public static final String DP = "dp";
+
+  /** Method label for carts found by branch-and-bound. */
+  public static final String BRANCH_AND_BOUND = "branch-and-bound";
+
+  private static final int DEADLINE_CHECK_INTERVAL = 1024;
+
+  private final List<Item> items;
+  private final List<Coupon> coupons;
+  private final long[] priceCents;
+
+  private long deadline;
+  private boolean complete;
+  private long bestValue;
+  private int[] bestCart;
+  private String bestMethod;
+
+  /**
+   * Creates a solver for one store.
+   *
+   * @param items the store's items
+   * @param coupons the store's coupons
+   */
+  public BudgetBasketSolver(List<Item> items, List<Coupon> coupons) {
+    this.items = items;
+    this.coupons = coupons;
+    this.priceCents = items.stream().mapToLong(item -> toCents(item.getPrice())).toArray();
+  }
+
+  /**
+   * Finds the most valuable cart whose price after coupons is within the budget.
+   *
+   * @param budget the budget in dollars
+   * @param timeBudgetNanos the time budget for the search in nanoseconds
+   * @return the best cart found
+   */
+  public Result solve(double budget, long timeBudgetNanos) {
+    final long start = System.nanoTime();
+    deadline = start + timeBudgetNanos;
+    complete = true;
+    bestValue = 0;
+    bestCart = new int[0];
+    bestMethod = DP;
+
+    long budgetCents = (long) Math.floor(budget * 100 + 1e-6);
+    if (items.isEmpty() || budgetCents <= 0) {
+      return new Result(new Item[0], bestMethod, true, (System.nanoTime() - start) / 1000);
+    }
+    ArrayList<Relaxation> relaxations = new ArrayList<>();
+    relaxations.add(noCouponRelaxation());
+    for (Coupon coupon : coupons) {
+      Relaxation relaxation = relaxationFor(coupon);
+      if (relaxation != null) {
+        relaxations.add(relaxation);
+      }
+    }
+
+    for (Relaxation relaxation : relaxations) {
+      if (System.nanoTime() > deadline) {
+        complete = false;
+        break;
+      }
+      if (relaxation.upperBound(budgetCents) > Math.max(bestValue, relaxation.minValue - 1)) {
+        solveRelaxation(relaxation, budgetCents);
+      }
+    }
+
+    Item[] cart = new Item[bestCart.length];
+    for (int i = 0; i < bestCart.length; i++) {
+      cart[i] = items.get(bestCart[i]);
+    }
+    return new Result(cart, bestMethod, complete, (System.nanoTime() - start) / 1000);
+  }
+
+  private void solveRelaxation(Relaxation relaxation, long budgetCents) {
+    long capacity = budgetCents + relaxation.shift;
+    if (capacity <= MAX_DP_CAPACITY && items.size() * (capacity + 1) <= MAX_DP_CELLS) {
+      solveWithDp(relaxation, budgetCents);
+    } else {
+      solveWithBranchAndBound(relaxation, budgetCents);
+    }
+  }
+
+  // ===== Relaxations =====
+
+  private Relaxation noCouponRelaxation() {
+    return new Relaxation(new boolean[items.size()], 0, 0, priceCents);
+  }
+
+  private Relaxation relaxationFor(Coupon coupon) {
+    IntPredicate isEligible;
+    long minValue = 0;
+    if (coupon instanceof TotalPriceCoupon totalPriceCoupon) {
+      isEligible = i -> true;
+      minValue = (long) Math.ceil(totalPriceCoupon.getMinimumPurchase() * 100 - 1e-6);
+    } else if (coupon instanceof CategoryCoupon categoryCoupon) {
+      isEligible = i -> items.get(i).getCategory() != null
+          && items.get(i).getCategory().equalsIgnoreCase(categoryCoupon.getCategory());
+    } else if (coupon instanceof ItemCoupon itemCoupon) {
+      isEligible = i -> items.get(i).getId() == itemCoupon.getTargetItemId();
+    } else {
+      return null;
+    }
+    boolean[] eligible = new boolean[items.size()];
+    for (int i = 0; i < items.size(); i++) {
+      eligible[i] = isEligible.test(i);
+    }
+
+    if (coupon.isPercentage()) {
+      double rate = Math.min(1.0, Math.max(0.0, coupon.getDiscountValue() / 100.0));
+      long[] weights = new long[items.size()];
+      for (int i = 0; i < items.size(); i++) {
+        // Round discounted costs up so an accepted cart never exceeds the budget
+        weights[i] = eligible[i]
+            ? (long) Math.ceil(priceCents[i] * (1.0 - rate) - 1e-6) : priceCents[i];
+      }
+      return new Relaxation(eligible, 0, minValue, weights);
+    }
+    long shift = (long) Math.floor(Math.max(0.0, coupon.getDiscountValue()) * 100 + 1e-6);
+    return new Relaxation(eligible, shift, minValue, priceCents);
+  }
+
+  /**
+   * One coupon's view of the problem: pick items maximizing list value subject to
+   * {@code other <= budget} and {@code other + eligible <= budget + shift}, where
+   * {@code other} and {@code eligible} are the summed weights of each group.
+   */
+  private final class Relaxation {
+    private final boolean[] eligible;
+    private final long shift;
+    private final long minValue;
+    private final long[] weights;
+
+    private Relaxation(boolean[] eligible, long shift, long minValue, long[] weights) {
+      this.eligible = eligible;
+      this.shift = shift;
+      this.minValue = minValue;
+      this.weights = weights;
+    }
+
+    private long upperBound(long budgetCents) {
+      int[] order = ratioOrder(IntStream.range(0, items.size()).toArray(), weights);
+      return fractionalBound(order, 0, 0, budgetCents + shift, weights);
+    }
+  }
+
+  // ===== DP over prices in cents =====
+
+  private void solveWithDp(Relaxation relaxation, long budgetCents) {
+    int[] others = IntStream.range(0, items.size())
+        .filter(i -> !relaxation.eligible[i]).toArray();
+    int[] eligible = IntStream.range(0, items.size())
+        .filter(i -> relaxation.eligible[i]).toArray();
+    int otherCapacity = (int) budgetCents;
+    int totalCapacity = (int) (budgetCents + relaxation.shift);
+
+    KnapsackTable otherTable = KnapsackTable.fill(others, relaxation.weights, priceCents,
+        otherCapacity, deadline);
+    KnapsackTable eligibleTable = otherTable == null ? null
+        : KnapsackTable.fill(eligible, relaxation.weights, priceCents, totalCapacity, deadline);
+    if (eligibleTable == null) {
+      complete = false;
+      return;
+    }
+
+    long value = -1;
+    int split = 0;
+    for (int c = 0; c <= otherCapacity; c++) {
+      long candidate = otherTable.best[c] + eligibleTable.best[totalCapacity - c];
+      if (candidate > value) {
+        value = candidate;
+        split = c;
+      }
+    }
+    if (value >= relaxation.minValue && value > bestValue) {
+      int[] chosenOthers = otherTable.reconstruct(split);
+      int[] chosenEligible = eligibleTable.reconstruct(totalCapacity - split);
+      int[] cart = Arrays.copyOf(chosenOthers, chosenOthers.length + chosenEligible.length);
+      System.arraycopy(chosenEligible, 0, cart, chosenOthers.length, chosenEligible.length);
+      record(value, cart, DP);
+    }
+  }
+
+  /**
+   * 0/1 knapsack table over one group of items, where {@code best[c]} is the most value
+   * reachable with total weight at most {@code c}.
+   */
+  private static final class KnapsackTable {
+    private final int[] members;
+    private final long[] weights;
+    private final long[] best;
+    private final long[] taken;
+    private final int width;
+
+    private KnapsackTable(int[] members, long[] weights, int capacity) {
+      this.members = members;
+      this.weights = weights;
+      this.best = new long[capacity + 1];
+      this.width = capacity + 1;
+      this.taken = new long[(int) (((long) members.length * width + 63) / 64)];
+    }
+
+    private static KnapsackTable fill(int[] members, long[] weights, long[] values,
+                                      int capacity, long deadline) {
+      KnapsackTable table = new KnapsackTable(members, weights, capacity);
+      for (int m = 0; m < members.length; m++) {
+        if (System.nanoTime() > deadline) {
+          return null;
+        }
+        int item = members[m];
+        long weight = weights[item];
+        long base = (long) m * table.width;
+        for (int c = capacity; c >= weight; c--) {
+          long candidate = table.best[(int) (c - weight)] + values[item];
+          if (candidate > table.best[c]) {
+            table.best[c] = candidate;
+            long bit = base + c;
+            table.taken[(int) (bit >>> 6)] |= 1L << bit;
+          }
+        }
+      }
+      return table;
+    }
+
+    private int[] reconstruct(int capacity) {
+      IntStream.Builder chosen = IntStream.builder();
+      long c = capacity;
+      for (int m = members.length - 1; m >= 0; m--) {
+        long bit = (long) m * width + c;
+        if ((taken[(int) (bit >>> 6)] & (1L << bit)) != 0) {
+          chosen.add(members[m]);
+          c -= weights[members[m]];
+        }
+      }
+      return chosen.build().toArray();
+    }
+  }
+
+  // ===== Branch-and-bound =====
+
+  private void solveWithBranchAndBound(Relaxation relaxation, long budgetCents) {
+    final long[] weights = relaxation.weights;
+    final int[] order = ratioOrder(IntStream.range(0, items.size()).toArray(), weights);
+    final long totalCapacity = budgetCents + relaxation.shift;
+    final int n = order.length;
+    final boolean[] take = new boolean[n];
+    long floor = Math.max(bestValue, relaxation.minValue - 1);
+
+    long otherWeight = 0;
+    long totalWeight = 0;
+    long value = 0;
+    long nodes = 0;
+    int depth = 0;
+    boolean backtrack = false;
+    while (true) {
+      if (++nodes % DEADLINE_CHECK_INTERVAL == 0 && System.nanoTime() > deadline) {
+        complete = false;
+        return;
+      }
+      if (!backtrack) {
+        if (depth == n) {
+          if (value > floor) {
+            floor = value;
+            record(value, chosenFrom(order, take), BRANCH_AND_BOUND);
+          }
+          backtrack = true;
+        } else if (fractionalBound(order, depth, value, totalCapacity - totalWeight, weights)
+            <= floor) {
+          backtrack = true;
+        } else {
+          int item = order[depth];
+          boolean isOther = !relaxation.eligible[item];
+          take[depth] = totalWeight + weights[item] <= totalCapacity
+              && (!isOther || otherWeight + weights[item] <= budgetCents);
+          if (take[depth]) {
+            totalWeight += weights[item];
+            otherWeight += isOther ? weights[item] : 0;
+            value += priceCents[item];
+          }
+          depth++;
+          continue;
+        }
+      }
+
+      // Undo decisions back to the deepest included item, then try excluding it
+      depth--;
+      while (depth >= 0 && !take[depth]) {
+        depth--;
+      }
+      if (depth < 0) {
+        return;
+      }
+      int item = order[depth];
+      take[depth] = false;
+      totalWeight -= weights[item];
+      otherWeight -= relaxation.eligible[item] ? 0 : weights[item];
+      value -= priceCents[item];
+      depth++;
+      backtrack = false;
+    }
+  }
+
+  private static int[] chosenFrom(int[] order, boolean[] take) {
+    return IntStream.range(0, order.length).filter(d -> take[d]).map(d -> order[d]).toArray();
+  }
+
+  private int[] ratioOrder(int[] members, long[] weights) {
+    return Arrays.stream(members).boxed()
+        .sorted((a, b) -> Double.compare(ratio(b, weights), ratio(a, weights)))
+        .mapToInt(Integer::intValue)
+        .toArray();
+  }
+
+  private double ratio(int item, long[] weights) {
+    return weights[item] == 0 ? Double.POSITIVE_INFINITY
+        : (double) priceCents[item] / weights[item];
+  }
+
+  private long fractionalBound(int[] order, int from, long value, long capacity,
+                               long[] weights) {
+    double bound = value;
+    long remaining = capacity;
+    for (int d = from; d < order.length && remaining > 0; d++) {
+      int item = order[d];
+      if (weights[item] <= remaining) {
+        remaining -= weights[item];
+        bound += priceCents[item];
+      } else {
+        bound += (double) priceCents[item] * remaining / weights[item];
+        remaining = 0;
+      }
+    }
+    return (long) Math.floor(bound + 1e-9);
+  }
+
+  private void record(long value, int[] cart, String method) {
+    bestValue = value;
+    bestCart = cart;
+    bestMethod = method;
+  }
+
+  private static long toCents(double dollars) {
+    return Math.round(dollars * 100);
+  }
+
+  /**
+   * The cart chosen by the solver.
+   */
+  public static class Result {
+    private final Item[] cart;
+    private final String method;
+    private final boolean optimal;
+    private final long elapsedMicros;
+
+    /**
+     * Creates a solver result.
+     *
+     * @param cart the chosen items
+     * @param method the method that found the cart
+     * @param optimal true if every relaxation was solved to optimality before the deadline
+     * @param elapsedMicros the time spent searching in microseconds
+     */
+    public Result(Item[] cart, String method, boolean optimal, long elapsedMicros) {
+      this.cart = cart;
+      this.method = method;
+      this.optimal = optimal;
+      this.elapsedMicros = elapsedMicros;
+    }
+
+    public Item[] getCart() {
+      return cart;
+    }
+
+    public String getMethod() {
+      return method;
+    }
+
+    public boolean isOptimal() {
+      return optimal;
+    }
+
+    public long getElapsedMicros() {
+      return elapsedMicros;
+    }
+  }
+}
@@ -0,0 +1,153 @@
+package org.nullpointers.couponsystem.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.nullpointers.couponsystem.config.CacheConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service class that reports hit and miss counts for the Hibernate second-level cache
+ * and query cache.
+ */
+@Service
+public class CacheStatisticsService {
+  private static final String[] ENTITY_REGIONS = {
+      CacheConfig.STORE_REGION, CacheConfig.ITEM_REGION, CacheConfig.COUPON_REGION};
+
+  private final Statistics statistics;
+
+  /**
+   * Initializes the service with Hibernate's statistics.
+   *
+   * @param entityManagerFactory the JPA entity manager factory
+   */
+  @Autowired
+  public CacheStatisticsService(EntityManagerFactory entityManagerFactory) {
+    this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+  }
+
+  /**
+   * Returns the current counts for every entity region and the query cache.
+   *
+   * @return the cache report
+   */
+  public CacheReport getReport() {
+    ArrayList<RegionStatistics> regions = new ArrayList<>();
+    for (String region : ENTITY_REGIONS) {
+      CacheRegionStatistics stats = statistics.getDomainDataRegionStatistics(region);
+      regions.add(new RegionStatistics(region, stats.getHitCount(), stats.getMissCount(),
+          stats.getPutCount(), Math.max(-1, stats.getElementCountInMemory())));
+    }
+    RegionStatistics queryCache = new RegionStatistics(CacheConfig.QUERY_RESULTS_REGION,
+        statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount(),
+        statistics.getQueryCachePutCount(), -1);
+    return new CacheReport(statistics.isStatisticsEnabled(), regions, queryCache);
+  }
+
+  /**
+   * Resets all counts to zero. Cached entries are kept.
+   */
+  public void resetStatistics() {
+    statistics.clear();
+  }
+
+  /**
+   * Inner class to represent the statistics of all cache regions.
+   */
+  public static class CacheReport {
+    private final boolean statisticsEnabled;
+    private final List<RegionStatistics> entityRegions;
+    private final RegionStatistics queryCache;
+
+    /**
+     * Creates a cache report.
+     *
+     * @param statisticsEnabled true if Hibernate is collecting statistics
+     * @param entityRegions the statistics of each entity region
+     * @param queryCache the statistics of the query cache
+     */
+    public CacheReport(boolean statisticsEnabled, List<RegionStatistics> entityRegions,
+                       RegionStatistics queryCache) {
+      this.statisticsEnabled = statisticsEnabled;
+      this.entityRegions = entityRegions;
+      this.queryCache = queryCache;
+    }
+
+    public boolean isStatisticsEnabled() {
+      return statisticsEnabled;
+    }
+
+    public List<RegionStatistics> getEntityRegions() {
+      return entityRegions;
+    }
+
+    public RegionStatistics getQueryCache() {
+      return queryCache;
+    }
+  }
+
+  /**
+   * Inner class to represent the hit and miss counts of one cache region.
+   */
+  public static class RegionStatistics {
+    private final String region;
+    private final long hitCount;
+    private final long missCount;
+    private final long putCount;
+    private final long elementCount;
+
+    /**
+     * Creates region statistics.
+     *
+     * @param region the region name
+     * @param hitCount the number of lookups served from the cache
+     * @param missCount the number of lookups that went to the database
+     * @param putCount the number of entries written to the cache
+     * @param elementCount the number of entries in the cache, or -1 if the cache does not
+     *     report it
+     */
+    public RegionStatistics(String region, long hitCount, long missCount, long putCount,
+                            long elementCount) {
+      this.region = region;
+      this.hitCount = hitCount;
+      this.missCount = missCount;
+      this.putCount = putCount;
+      this.elementCount = elementCount;
+    }
+
+    public String getRegion() {
+      return region;
+    }
+
+    public long getHitCount() {
+      return hitCount;
+    }
+
+    public long getMissCount() {
+      return missCount;
+    }
+
+    public long getPutCount() {
+      return putCount;
+    }
+
+    public long getElementCount() {
+      return elementCount;
+    }
+
+    /**
+     * Returns the share of lookups served from the cache.
+     *
+     * @return the hit ratio between 0 and 1, or 0 if there were no lookups
+     */
+    public double getHitRatio() {
+      long lookups = hitCount + missCount;
+      return lookups == 0 ? 0.0 : (double) hitCount / lookups;
+    }
+  }
+}
@@ -0,0 +1,121 @@
+package org.nullpointers.couponsystem.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import org.nullpointers.couponsystem.repository.CouponRepository;
+import org.nullpointers.couponsystem.repository.ItemRepository;
+import org.nullpointers.couponsystem.repository.StoreRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service that writes the whole catalog as newline-delimited JSON, one entity per line.
+ *
+ * <p>Rows are read through a forward-only database cursor and written as they arrive,
+ * so an export starts sending bytes after the first row and its memory use does not
+ * depend on the table size. Each row is detached from the persistence context once
+ * written, so the session does not grow with the export either. Exports read the
+ * database directly rather than the catalog replica, and bypass the second-level cache.
+ */
+@Service
+public class CatalogExportService {
+  private final StoreRepository storeRepository;
+  private final ItemRepository itemRepository;
+  private final CouponRepository couponRepository;
+  private final EntityManager entityManager;
+  private final ObjectWriter writer;
+
+  /**
+   * Creates the export service.
+   *
+   * @param storeRepository the store repository
+   * @param itemRepository the item repository
+   * @param couponRepository the coupon repository
+   * @param entityManager the entity manager used to detach exported rows
+   * @param objectMapper the JSON mapper used to write each row
+   */
+  @Autowired
+  public CatalogExportService(StoreRepository storeRepository, ItemRepository itemRepository,
+                              CouponRepository couponRepository, EntityManager entityManager,
+                              ObjectMapper objectMapper) {
+    this.storeRepository = storeRepository;
+    this.itemRepository = itemRepository;
+    this.couponRepository = couponRepository;
+    this.entityManager = entityManager;
+    // Flushing after every row would send one network chunk per row
+    this.writer = objectMapper.writer()
+        .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+        .withRootValueSeparator("\n");
+  }
+
+  /**
+   * Writes every store, in ID order.
+   *
+   * @param out the stream to write to; it is flushed but not closed
+   * @return the number of stores written
+   * @throws IOException if writing fails
+   */
+  @Transactional(readOnly = true)
+  public long exportStores(OutputStream out) throws IOException {
+    try (Stream<?> rows = storeRepository.streamAllByOrderByIdAsc()) {
+      return write(rows, out);
+    }
+  }
+
+  /**
+   * Writes every item, in ID order.
+   *
+   * @param out the stream to write to; it is flushed but not closed
+   * @return the number of items written
+   * @throws IOException if writing fails
+   */
+  @Transactional(readOnly = true)
+  public long exportItems(OutputStream out) throws IOException {
+    try (Stream<?> rows = itemRepository.streamAllByOrderByIdAsc()) {
+      return write(rows, out);
+    }
+  }
+
+  /**
+   * Writes every coupon, in ID order. Each line carries the fields of its coupon type.
+   *
+   * @param out the stream to write to; it is flushed but not closed
+   * @return the number of coupons written
+   * @throws IOException if writing fails
+   */
+  @Transactional(readOnly = true)
+  public long exportCoupons(OutputStream out) throws IOException {
+    try (Stream<?> rows = couponRepository.streamAllByOrderByIdAsc()) {
+      return write(rows, out);
+    }
+  }
+
+  private long write(Stream<?> rows, OutputStream out) throws IOException {
+    long count = 0;
+    try (JsonGenerator generator = writer.createGenerator(out)) {
+      generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+      Iterator<?> iterator = rows.iterator();
+      while (iterator.hasNext()) {
+        Object row = iterator.next();
+        writer.writeValue(generator, row);
+        entityManager.detach(row);
+        if (++count == 1) {
+          // Send the first row at once so the client sees the export has started
+          generator.flush();
+        }
+      }
+      if (count > 0) {
+        generator.writeRaw('\n');
+      }
+    }
+    return count;
+  }
+}
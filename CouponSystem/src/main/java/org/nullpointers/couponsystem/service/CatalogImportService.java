@@ -0,0 +1,430 @@
+package org.nullpointers.couponsystem.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import org.nullpointers.couponsystem.model.Item;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service that imports a store's items from an NDJSON or CSV upload.
+ *
+ * <p>The upload is read one line at a time, so memory use does not depend on its size:
+ * at most one line and one batch of items are held at once. Valid rows are written in
+ * batches through {@link DataService#addItems}, one transaction per batch, and the next
+ * line is only read after the previous batch has committed, so a client sending faster
+ * than the database can write is slowed down by the connection itself. Uploads may be
+ * gzip-compressed; this is detected from the data, not from headers.
+ */
+@Service
+public class CatalogImportService {
+  /** Longest line accepted, in characters; longer lines are rejected and skipped. */
+  public static final int MAX_LINE_LENGTH = 64 * 1024;
+
+  /** Number of rejected rows described in a report; later ones are only counted. */
+  public static final int MAX_REJECTED_DETAILS = 100;
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final int GZIP_MAGIC = 0x8b1f;
+
+  private final DataService dataService;
+  private final ObjectMapper objectMapper;
+  private final int batchSize;
+
+  /**
+   * Creates the import service.
+   *
+   * @param dataService the data service used to insert items
+   * @param objectMapper the JSON mapper used to parse NDJSON lines
+   * @param batchSize how many valid rows are inserted per transaction
+   */
+  @Autowired
+  public CatalogImportService(DataService dataService, ObjectMapper objectMapper,
+                              @Value("${couponsystem.import.batch-size:1000}") int batchSize) {
+    this.dataService = dataService;
+    this.objectMapper = objectMapper;
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Supported upload formats.
+   */
+  public enum Format {
+    NDJSON, CSV;
+
+    /**
+     * Picks the format for a request content type.
+     *
+     * @param contentType the content type, possibly with parameters
+     * @return the format, or null if the content type is not supported
+     */
+    public static Format fromContentType(String contentType) {
+      if (contentType == null) {
+        return null;
+      }
+      String mediaType = contentType.split(";", 2)[0].trim().toLowerCase(Locale.ROOT);
+      switch (mediaType) {
+        case "application/x-ndjson":
+        case "application/jsonl":
+          return NDJSON;
+        case "text/csv":
+          return CSV;
+        default:
+          return null;
+      }
+    }
+  }
+
+  /**
+   * Imports items into a store. The store is assumed to exist. Batches committed before
+   * an I/O or database error are kept.
+   *
+   * <p>NDJSON lines are objects with {@code name}, {@code price}, and optionally
+   * {@code category}. CSV starts with a header row naming the {@code name},
+   * {@code price}, and optionally {@code category} columns in any order; fields may be
+   * quoted, but a record cannot span lines. Blank lines are skipped.
+   *
+   * @param storeId the store to add the items to
+   * @param body the upload, optionally gzip-compressed
+   * @param format the upload format
+   * @return the import report
+   * @throws IOException if the upload cannot be read
+   * @throws IllegalArgumentException if a CSV header lacks a required column
+   */
+  public ImportReport importItems(int storeId, InputStream body, Format format)
+      throws IOException {
+    final long start = System.nanoTime();
+    ImportReport report = new ImportReport(storeId, format);
+    Reader reader = new BufferedReader(
+        new InputStreamReader(decompress(body), StandardCharsets.UTF_8), BUFFER_SIZE);
+    StringBuilder line = new StringBuilder();
+    // CSV rows are parsed once the header has been read
+    RowParser parser = format == Format.CSV ? null : this::parseJson;
+    List<Item> batch = new ArrayList<>(batchSize);
+    long lineNumber = 0;
+    int length;
+    while ((length = readLine(reader, line)) >= 0) {
+      lineNumber++;
+      String text = line.toString();
+      if (length <= MAX_LINE_LENGTH && text.isBlank()) {
+        continue;
+      }
+      if (parser == null && length <= MAX_LINE_LENGTH) {
+        parser = csvParser(text);
+        continue;
+      }
+      report.rowsRead++;
+      if (length > MAX_LINE_LENGTH) {
+        report.reject(lineNumber, "Line exceeds " + MAX_LINE_LENGTH + " characters.");
+        continue;
+      }
+      ParsedRow parsed = parser.parse(text, storeId);
+      if (parsed.item() != null) {
+        batch.add(parsed.item());
+      } else {
+        report.reject(lineNumber, parsed.rejection());
+      }
+      if (batch.size() == batchSize) {
+        batch = flush(batch, report);
+      }
+    }
+    flush(batch, report);
+    report.finish(System.nanoTime() - start);
+    return report;
+  }
+
+  private List<Item> flush(List<Item> batch, ImportReport report) {
+    if (!batch.isEmpty()) {
+      dataService.addItems(batch);
+      report.rowsImported += batch.size();
+      report.batches++;
+    }
+    return new ArrayList<>(batchSize);
+  }
+
+  /**
+   * Wraps the upload in a gzip decoder if it starts with the gzip magic number.
+   */
+  private static InputStream decompress(InputStream body) throws IOException {
+    BufferedInputStream buffered = new BufferedInputStream(body, BUFFER_SIZE);
+    buffered.mark(2);
+    int magic = buffered.read() | (buffered.read() << 8);
+    buffered.reset();
+    return magic == GZIP_MAGIC ? new GZIPInputStream(buffered, BUFFER_SIZE) : buffered;
+  }
+
+  /**
+   * Reads one line into the buffer, keeping at most {@link #MAX_LINE_LENGTH} characters.
+   *
+   * @return the full length of the line, or -1 at the end of input
+   */
+  private static int readLine(Reader reader, StringBuilder line) throws IOException {
+    line.setLength(0);
+    int length = 0;
+    int c = reader.read();
+    if (c < 0) {
+      return -1;
+    }
+    while (c >= 0 && c != '\n') {
+      if (c != '\r' && length++ < MAX_LINE_LENGTH) {
+        line.append((char) c);
+      }
+      c = reader.read();
+    }
+    return length;
+  }
+
+  private ParsedRow parseJson(String line, int storeId) {
+    JsonNode node;
+    try {
+      node = objectMapper.readTree(line);
+    } catch (JsonProcessingException e) {
+      return ParsedRow.rejected("Malformed JSON.");
+    }
+    if (node == null || !node.isObject()) {
+      return ParsedRow.rejected("Expected a JSON object.");
+    }
+    JsonNode price = node.get("price");
+    if (price == null || !price.isNumber()) {
+      return ParsedRow.rejected("Item price is missing or not a number.");
+    }
+    return toItem(text(node.get("name")), price.asDouble(), text(node.get("category")),
+        storeId);
+  }
+
+  private static String text(JsonNode node) {
+    return node == null || node.isNull() ? null : node.asText();
+  }
+
+  private static RowParser csvParser(String headerLine) {
+    List<String> header = splitCsv(headerLine);
+    if (header == null) {
+      throw new IllegalArgumentException("CSV header is malformed.");
+    }
+    final int nameColumn = columnIndex(header, "name");
+    final int priceColumn = columnIndex(header, "price");
+    final int categoryColumn = columnIndex(header, "category");
+    if (nameColumn < 0 || priceColumn < 0) {
+      throw new IllegalArgumentException("CSV header must include name and price columns.");
+    }
+    final int columns = header.size();
+    return (line, storeId) -> {
+      List<String> fields = splitCsv(line);
+      if (fields == null) {
+        return ParsedRow.rejected("Malformed CSV row.");
+      }
+      if (fields.size() != columns) {
+        return ParsedRow.rejected(
+            "Expected " + columns + " columns but found " + fields.size() + ".");
+      }
+      double price;
+      try {
+        price = Double.parseDouble(fields.get(priceColumn).trim());
+      } catch (NumberFormatException e) {
+        return ParsedRow.rejected("Item price is missing or not a number.");
+      }
+      String category = categoryColumn < 0 ? null : fields.get(categoryColumn);
+      return toItem(fields.get(nameColumn), price, category, storeId);
+    };
+  }
+
+  private static int columnIndex(List<String> header, String column) {
+    for (int i = 0; i < header.size(); i++) {
+      if (header.get(i).trim().equalsIgnoreCase(column)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Splits one CSV record. Fields may be quoted, with {@code ""} for a literal quote.
+   *
+   * @return the fields, or null if a quoted field is not closed
+   */
+  static List<String> splitCsv(String line) {
+    List<String> fields = new ArrayList<>();
+    StringBuilder field = new StringBuilder();
+    boolean quoted = false;
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+      if (quoted) {
+        if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+          field.append('"');
+          i++;
+        } else if (c == '"') {
+          quoted = false;
+        } else {
+          field.append(c);
+        }
+      } else if (c == '"') {
+        quoted = true;
+      } else if (c == ',') {
+        fields.add(field.toString());
+        field.setLength(0);
+      } else {
+        field.append(c);
+      }
+    }
+    if (quoted) {
+      return null;
+    }
+    fields.add(field.toString());
+    return fields;
+  }
+
+  /**
+   * Applies the same checks as {@code POST /item}.
+   *
+   * @return the item, or the reason it was rejected
+   */
+  private static ParsedRow toItem(String name, double price, String category,
+                                  int storeId) {
+    if (name == null || name.isBlank()) {
+      return ParsedRow.rejected("Item name cannot be empty.");
+    }
+    if (price < 0 || !Double.isFinite(price)) {
+      return ParsedRow.rejected("Item price cannot be negative.");
+    }
+    String trimmedCategory = category == null || category.isBlank() ? null : category.trim();
+    return ParsedRow.of(new Item(0, name.trim(), price, storeId, trimmedCategory));
+  }
+
+  /**
+   * Parses one data line into an {@link Item} or a rejection reason.
+   */
+  @FunctionalInterface
+  private interface RowParser {
+    ParsedRow parse(String line, int storeId);
+  }
+
+  /**
+   * One parsed data line: the item, or, if the line was rejected, the reason.
+   */
+  private record ParsedRow(Item item, String rejection) {
+    static ParsedRow of(Item item) {
+      return new ParsedRow(item, null);
+    }
+
+    static ParsedRow rejected(String reason) {
+      return new ParsedRow(null, reason);
+    }
+  }
+
+  /**
+   * Inner class to represent the outcome of an import.
+   */
+  public static class ImportReport {
+    private final int storeId;
+    private final Format format;
+    private final List<RejectedRow> rejectedRows = new ArrayList<>();
+    private long rowsRead;
+    private long rowsImported;
+    private long rowsRejected;
+    private int batches;
+    private long elapsedMillis;
+    private double rowsPerSecond;
+
+    ImportReport(int storeId, Format format) {
+      this.storeId = storeId;
+      this.format = format;
+    }
+
+    private void reject(long line, String reason) {
+      rowsRejected++;
+      if (rejectedRows.size() < MAX_REJECTED_DETAILS) {
+        rejectedRows.add(new RejectedRow(line, reason));
+      }
+    }
+
+    private void finish(long elapsedNanos) {
+      elapsedMillis = elapsedNanos / 1_000_000;
+      rowsPerSecond = elapsedNanos == 0 ? 0.0 : rowsRead * 1e9 / elapsedNanos;
+    }
+
+    public int getStoreId() {
+      return storeId;
+    }
+
+    public Format getFormat() {
+      return format;
+    }
+
+    public long getRowsRead() {
+      return rowsRead;
+    }
+
+    public long getRowsImported() {
+      return rowsImported;
+    }
+
+    public long getRowsRejected() {
+      return rowsRejected;
+    }
+
+    public int getBatches() {
+      return batches;
+    }
+
+    public long getElapsedMillis() {
+      return elapsedMillis;
+    }
+
+    public double getRowsPerSecond() {
+      return rowsPerSecond;
+    }
+
+    /**
+     * Returns the first {@link #MAX_REJECTED_DETAILS} rejected rows.
+     *
+     * @return the rejected rows, in line order
+     */
+    public List<RejectedRow> getRejectedRows() {
+      return rejectedRows;
+    }
+
+    public boolean isRejectedRowsTruncated() {
+      return rowsRejected > rejectedRows.size();
+    }
+  }
+
+  /**
+   * Inner class to represent one rejected line of an upload.
+   */
+  public static class RejectedRow {
+    private final long line;
+    private final String reason;
+
+    /**
+     * Creates a rejected row.
+     *
+     * @param line the 1-based line number in the upload
+     * @param reason why the row was rejected
+     */
+    public RejectedRow(long line, String reason) {
+      this.line = line;
+      this.reason = reason;
+    }
+
+    public long getLine() {
+      return line;
+    }
+
+    public String getReason() {
+      return reason;
+    }
+  }
+}
@@ -0,0 +1,509 @@
+package org.nullpointers.couponsystem.service;
+
+import jakarta.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import org.nullpointers.couponsystem.catalog.CatalogChangeEvent;
+import org.nullpointers.couponsystem.catalog.ContentHashIndex;
+import org.nullpointers.couponsystem.model.Item;
+import org.nullpointers.couponsystem.model.ItemSyncKey;
+import org.nullpointers.couponsystem.repository.ItemSyncKeyRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service that keeps a store's items in step with the store's own system by sending
+ * only what changed.
+ *
+ * <p>Each synced item carries the store system's key for it and a content hash the
+ * store system computes over the item's data. A sync first sends every (key, hash) pair;
+ * {@link #diff} answers with the keys whose hash differs from the one last uploaded, or
+ * that were never uploaded. The store system then sends just those records to
+ * {@link #upsert}, which inserts or updates the items in batches.
+ *
+ * <p>The hashes last uploaded for a store are held in a {@link ContentHashIndex}, loaded
+ * from the database the first time the store is diffed and kept current by later
+ * upserts, so a diff is one pass over the request with no database reads. Deleting a
+ * store, or synced items of a store, drops that store's loaded index, which is rebuilt on
+ * the next diff.
+ */
+@Service
+public class CatalogSyncService {
+  /** Longest external key accepted, in characters. */
+  public static final int MAX_KEY_LENGTH = 255;
+
+  /** Longest content hash accepted, in characters. */
+  public static final int MAX_HASH_LENGTH = 128;
+
+  private final DataService dataService;
+  private final ItemSyncKeyRepository itemSyncKeyRepository;
+  private final EntityManager entityManager;
+  private final TransactionTemplate transactionTemplate;
+  private final int batchSize;
+  private final Map<Integer, ContentHashIndex> indexes = new ConcurrentHashMap<>();
+  // Bumped whenever loaded indexes may be stale, so a load that overlapped it is not kept
+  private final AtomicLong generation = new AtomicLong();
+
+  /**
+   * Creates the sync service.
+   *
+   * @param dataService the data service used to save items
+   * @param itemSyncKeyRepository the repository of external keys and content hashes
+   * @param entityManager the entity manager used to save sync keys
+   * @param transactionTemplate runs each upsert batch in its own transaction
+   * @param batchSize how many records are upserted per transaction
+   */
+  @Autowired
+  public CatalogSyncService(DataService dataService,
+                            ItemSyncKeyRepository itemSyncKeyRepository,
+                            EntityManager entityManager, TransactionTemplate transactionTemplate,
+                            @Value("${couponsystem.sync.batch-size:1000}") int batchSize) {
+    this.dataService = dataService;
+    this.itemSyncKeyRepository = itemSyncKeyRepository;
+    this.entityManager = entityManager;
+    this.transactionTemplate = transactionTemplate;
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Compares a store system's (key, hash) pairs with the hashes last uploaded. The store
+   * is assumed to exist.
+   *
+   * @param storeId the store
+   * @param pairs objects with {@code externalKey} and {@code contentHash}
+   * @return the keys that need uploading
+   * @throws IllegalArgumentException if a pair is malformed
+   */
+  public SyncDiff diff(int storeId, List<?> pairs) {
+    final long start = System.nanoTime();
+    ContentHashIndex index = index(storeId);
+    List<String> changed = new ArrayList<>();
+    int indexed;
+    synchronized (index) {
+      for (int i = 0; i < pairs.size(); i++) {
+        Object pair = pairs.get(i);
+        String key = text(pair, "externalKey", MAX_KEY_LENGTH);
+        String hash = text(pair, "contentHash", MAX_HASH_LENGTH);
+        if (key == null || hash == null) {
+          throw new IllegalArgumentException("Entry " + i + " must have an externalKey of at"
+              + " most " + MAX_KEY_LENGTH + " characters and a contentHash of at most "
+              + MAX_HASH_LENGTH + " characters.");
+        }
+        if (!index.matches(key, hash)) {
+          changed.add(key);
+        }
+      }
+      indexed = index.size();
+    }
+    return new SyncDiff(storeId, pairs.size(), changed, indexed, System.nanoTime() - start);
+  }
+
+  /**
+   * Inserts or updates a store's items from changed records. Records are matched to
+   * items by external key; unknown keys become new items. Each batch commits on its own,
+   * and invalid records are reported without stopping the others. The store is assumed
+   * to exist.
+   *
+   * <p>Records are objects with {@code externalKey}, {@code contentHash}, {@code name},
+   * {@code price}, and optionally {@code category}, checked as {@code POST /item} checks
+   * items. If a key appears more than once, the last record wins.
+   *
+   * @param storeId the store
+   * @param records the changed records
+   * @return the upsert report
+   */
+  public SyncReport upsert(int storeId, List<?> records) {
+    final long start = System.nanoTime();
+    SyncReport report = new SyncReport(storeId);
+    Map<String, SyncRecord> batch = new LinkedHashMap<>();
+    for (int i = 0; i < records.size(); i++) {
+      String error = validate(records.get(i));
+      if (error == null) {
+        SyncRecord record = toRecord((Map<?, ?>) records.get(i));
+        batch.put(record.externalKey, record);
+      } else {
+        report.reject(i, error);
+      }
+      if (batch.size() == batchSize) {
+        batch = flush(storeId, batch, report);
+      }
+    }
+    flush(storeId, batch, report);
+    report.rowsReceived = records.size();
+    report.finish(System.nanoTime() - start);
+    return report;
+  }
+
+  /**
+   * Drops the loaded index of a deleted store.
+   *
+   * @param event the committed change
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onCatalogChange(CatalogChangeEvent event) {
+    if (event.isDelete() && event.getEntityType() == CatalogChangeEvent.EntityType.STORE) {
+      generation.incrementAndGet();
+      indexes.remove(event.getId());
+    }
+  }
+
+  /**
+   * Drops the loaded indexes of the stores whose sync keys were deleted with their items.
+   *
+   * @param event the committed delete
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onSyncKeysDeleted(SyncKeysDeleted event) {
+    generation.incrementAndGet();
+    event.storeIds().forEach(indexes::remove);
+  }
+
+  /**
+   * Returns whether a store's index is loaded.
+   */
+  boolean isIndexLoaded(int storeId) {
+    return indexes.containsKey(storeId);
+  }
+
+  /**
+   * Returns the store's loaded index, loading it if needed.
+   */
+  private ContentHashIndex index(int storeId) {
+    ContentHashIndex cached = indexes.get(storeId);
+    if (cached != null) {
+      return cached;
+    }
+    long seen = generation.get();
+    ContentHashIndex loaded = transactionTemplate.execute(status -> load(storeId));
+    if (generation.get() != seen) {
+      return loaded;
+    }
+    ContentHashIndex raced = indexes.putIfAbsent(storeId, loaded);
+    return raced == null ? loaded : raced;
+  }
+
+  private ContentHashIndex load(int storeId) {
+    ContentHashIndex index = new ContentHashIndex(0);
+    try (Stream<ItemSyncKey> keys = itemSyncKeyRepository.streamByStoreId(storeId)) {
+      keys.forEach(key -> {
+        index.put(key.getExternalKey(), key.getContentHash());
+        entityManager.detach(key);
+      });
+    }
+    return index;
+  }
+
+  private Map<String, SyncRecord> flush(int storeId, Map<String, SyncRecord> batch,
+                                        SyncReport report) {
+    if (!batch.isEmpty()) {
+      transactionTemplate.executeWithoutResult(status -> save(storeId, batch, report));
+      report.batches++;
+      remember(storeId, batch);
+    }
+    return new LinkedHashMap<>();
+  }
+
+  /**
+   * Saves one batch of records and their sync keys. Must run in a transaction.
+   */
+  private void save(int storeId, Map<String, SyncRecord> batch, SyncReport report) {
+    Map<String, ItemSyncKey> existing = new HashMap<>();
+    for (ItemSyncKey key
+        : itemSyncKeyRepository.findByStoreIdAndExternalKeyIn(storeId, batch.keySet())) {
+      existing.put(key.getExternalKey(), key);
+    }
+    List<SyncRecord> records = new ArrayList<>(batch.values());
+    List<Item> items = new ArrayList<>(records.size());
+    for (SyncRecord record : records) {
+      ItemSyncKey key = existing.get(record.externalKey);
+      if (key != null) {
+        // Still managed, so the new hash is flushed with the items
+        key.setContentHash(record.contentHash);
+      }
+      items.add(record.toItem(key == null ? 0 : key.getItemId(), storeId));
+    }
+    List<Item> saved = dataService.saveItems(items);
+    for (int i = 0; i < records.size(); i++) {
+      SyncRecord record = records.get(i);
+      if (existing.containsKey(record.externalKey)) {
+        report.rowsUpdated++;
+      } else {
+        entityManager.persist(record.toKey(saved.get(i).getId(), storeId));
+        report.rowsInserted++;
+      }
+    }
+  }
+
+  /**
+   * Records a committed batch in the store's index, if it is loaded.
+   */
+  private void remember(int storeId, Map<String, SyncRecord> batch) {
+    ContentHashIndex index = indexes.get(storeId);
+    if (index == null) {
+      generation.incrementAndGet();
+      return;
+    }
+    synchronized (index) {
+      batch.values().forEach(record -> index.put(record.externalKey, record.contentHash));
+    }
+  }
+
+  /**
+   * Returns a string field of a JSON object, or null if it is missing, blank, or longer
+   * than the limit.
+   */
+  private static String text(Object row, String field, int maxLength) {
+    if (!(row instanceof Map)) {
+      return null;
+    }
+    Object value = ((Map<?, ?>) row).get(field);
+    if (!(value instanceof String) || ((String) value).isBlank()
+        || ((String) value).length() > maxLength) {
+      return null;
+    }
+    return (String) value;
+  }
+
+  /**
+   * Applies the same checks as {@code POST /item}.
+   *
+   * @return why the record is invalid, or null if it is valid
+   */
+  private static String validate(Object row) {
+    if (!(row instanceof Map)) {
+      return "Expected a JSON object.";
+    }
+    if (text(row, "externalKey", MAX_KEY_LENGTH) == null) {
+      return "externalKey must be a non-empty string of at most " + MAX_KEY_LENGTH
+          + " characters.";
+    }
+    if (text(row, "contentHash", MAX_HASH_LENGTH) == null) {
+      return "contentHash must be a non-empty string of at most " + MAX_HASH_LENGTH
+          + " characters.";
+    }
+    if (text(row, "name", Integer.MAX_VALUE) == null) {
+      return "Item name cannot be empty.";
+    }
+    Object price = ((Map<?, ?>) row).get("price");
+    if (!(price instanceof Number)) {
+      return "Item price is missing or not a number.";
+    }
+    double value = ((Number) price).doubleValue();
+    if (value < 0 || !Double.isFinite(value)) {
+      return "Item price cannot be negative.";
+    }
+    return null;
+  }
+
+  /**
+   * Builds the record from a row that {@link #validate} accepted.
+   */
+  private static SyncRecord toRecord(Map<?, ?> row) {
+    Object category = row.get("category");
+    String trimmedCategory = category instanceof String && !((String) category).isBlank()
+        ? ((String) category).trim() : null;
+    return new SyncRecord(text(row, "externalKey", MAX_KEY_LENGTH),
+        text(row, "contentHash", MAX_HASH_LENGTH), text(row, "name", Integer.MAX_VALUE).trim(),
+        ((Number) row.get("price")).doubleValue(), trimmedCategory);
+  }
+
+  /**
+   * One valid uploaded record.
+   */
+  private static final class SyncRecord {
+    private final String externalKey;
+    private final String contentHash;
+    private final String name;
+    private final double price;
+    private final String category;
+
+    private SyncRecord(String externalKey, String contentHash, String name, double price,
+                       String category) {
+      this.externalKey = externalKey;
+      this.contentHash = contentHash;
+      this.name = name;
+      this.price = price;
+      this.category = category;
+    }
+
+    private Item toItem(int id, int storeId) {
+      return new Item(id, name, price, storeId, category);
+    }
+
+    private ItemSyncKey toKey(int itemId, int storeId) {
+      return new ItemSyncKey(itemId, storeId, externalKey, contentHash);
+    }
+  }
+
+  /**
+   * Published when items are deleted together with their sync keys.
+   *
+   * @param storeIds the stores the deleted sync keys belonged to
+   */
+  public record SyncKeysDeleted(List<Integer> storeIds) {
+  }
+
+  /**
+   * Inner class to represent the keys a store system needs to upload.
+   */
+  public static class SyncDiff {
+    private final int storeId;
+    private final int keysReceived;
+    private final List<String> changedKeys;
+    private final int keysIndexed;
+    private final long elapsedMillis;
+
+    SyncDiff(int storeId, int keysReceived, List<String> changedKeys, int keysIndexed,
+             long elapsedNanos) {
+      this.storeId = storeId;
+      this.keysReceived = keysReceived;
+      this.changedKeys = changedKeys;
+      this.keysIndexed = keysIndexed;
+      this.elapsedMillis = elapsedNanos / 1_000_000;
+    }
+
+    public int getStoreId() {
+      return storeId;
+    }
+
+    public int getKeysReceived() {
+      return keysReceived;
+    }
+
+    /**
+     * Returns the keys whose content hash differs from the one last uploaded, or that
+     * were never uploaded.
+     *
+     * @return the keys, in request order
+     */
+    public List<String> getChangedKeys() {
+      return changedKeys;
+    }
+
+    public int getUnchangedCount() {
+      return keysReceived - changedKeys.size();
+    }
+
+    /**
+     * Returns how many keys the store has on the server.
+     *
+     * @return the number of synced items in the store
+     */
+    public int getKeysIndexed() {
+      return keysIndexed;
+    }
+
+    public long getElapsedMillis() {
+      return elapsedMillis;
+    }
+  }
+
+  /**
+   * Inner class to represent the outcome of an upsert.
+   */
+  public static class SyncReport {
+    private final int storeId;
+    private final List<RejectedRecord> rejectedRecords = new ArrayList<>();
+    private long rowsReceived;
+    private long rowsInserted;
+    private long rowsUpdated;
+    private long rowsRejected;
+    private int batches;
+    private long elapsedMillis;
+    private double rowsPerSecond;
+
+    SyncReport(int storeId) {
+      this.storeId = storeId;
+    }
+
+    private void reject(int index, String reason) {
+      rowsRejected++;
+      if (rejectedRecords.size() < CatalogImportService.MAX_REJECTED_DETAILS) {
+        rejectedRecords.add(new RejectedRecord(index, reason));
+      }
+    }
+
+    private void finish(long elapsedNanos) {
+      elapsedMillis = elapsedNanos / 1_000_000;
+      rowsPerSecond = elapsedNanos == 0 ? 0.0 : rowsReceived * 1e9 / elapsedNanos;
+    }
+
+    public int getStoreId() {
+      return storeId;
+    }
+
+    public long getRowsReceived() {
+      return rowsReceived;
+    }
+
+    public long getRowsInserted() {
+      return rowsInserted;
+    }
+
+    public long getRowsUpdated() {
+      return rowsUpdated;
+    }
+
+    public long getRowsRejected() {
+      return rowsRejected;
+    }
+
+    public int getBatches() {
+      return batches;
+    }
+
+    public long getElapsedMillis() {
+      return elapsedMillis;
+    }
+
+    public double getRowsPerSecond() {
+      return rowsPerSecond;
+    }
+
+    /**
+     * Returns the first {@link CatalogImportService#MAX_REJECTED_DETAILS} rejected
+     * records.
+     *
+     * @return the rejected records, in request order
+     */
+    public List<RejectedRecord> getRejectedRecords() {
+      return rejectedRecords;
+    }
+  }
+
+  /**
+   * Inner class to represent one rejected record of an upsert.
+   */
+  public static class RejectedRecord {
+    private final int index;
+    private final String reason;
+
+    /**
+     * Creates a rejected record.
+     *
+     * @param index the 0-based position of the record in the request
+     * @param reason why the record was rejected
+     */
+    public RejectedRecord(int index, String reason) {
+      this.index = index;
+      this.reason = reason;
+    }
+
+    public int getIndex() {
+      return index;
+    }
+
+    public String getReason() {
+      return reason;
+    }
+  }
+}
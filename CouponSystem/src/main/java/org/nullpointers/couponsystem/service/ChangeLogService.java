@@ -0,0 +1,261 @@
+package org.nullpointers.couponsystem.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.nullpointers.couponsystem.catalog.CatalogChangeEvent;
+import org.nullpointers.couponsystem.model.CatalogChange;
+import org.nullpointers.couponsystem.model.CatalogChangeFloor;
+import org.nullpointers.couponsystem.model.Coupon;
+import org.nullpointers.couponsystem.model.Item;
+import org.nullpointers.couponsystem.model.Store;
+import org.nullpointers.couponsystem.repository.CatalogChangeFloorRepository;
+import org.nullpointers.couponsystem.repository.CatalogChangeRepository;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service class that keeps the catalog change log, an outbox of every create, update,
+ * and delete of a store, item, or coupon. Entries are written by a synchronous listener
+ * of the {@link CatalogChangeEvent}s {@code DataService} publishes, so they join the
+ * transaction of the change and commit or roll back with it.
+ *
+ * <p>Sequence numbers are handed out when entries are saved, which is not the order in
+ * which their transactions commit. Reads therefore stop below the lowest number an open
+ * transaction may still commit, so a client that moves past a number never misses an
+ * entry below it. This bookkeeping is per process, so every write must go through the
+ * one instance serving the log.
+ *
+ * <p>Compaction removes entries that a later entry for the same entity supersedes, and
+ * deletes older than the retention period. Removing those deletes raises the floor: a
+ * client whose last read is below it must reload the catalog.
+ */
+@Service
+public class ChangeLogService implements SmartInitializingSingleton {
+  private final CatalogChangeRepository changeRepository;
+  private final CatalogChangeFloorRepository floorRepository;
+  private final ObjectMapper objectMapper;
+  private final TransactionTemplate transactionTemplate;
+  private final int maxPageSize;
+  private final Duration retention;
+  private final int compactBatchSize;
+  /** Lowest sequence number each open writing transaction may commit, with a count. */
+  private final ConcurrentSkipListMap<Long, Integer> inFlight = new ConcurrentSkipListMap<>();
+  private final AtomicLong highestSaved = new AtomicLong();
+  private final AtomicLong floor = new AtomicLong();
+
+  /**
+   * Initializes the service.
+   *
+   * @param changeRepository repository for the change log
+   * @param floorRepository repository for the compaction floor
+   * @param objectMapper mapper for the entities' JSON
+   * @param transactionTemplate template for the compaction transactions
+   * @param maxPageSize the most entries one read returns, and the default
+   * @param retention how long deletes are kept before compaction may remove them
+   * @param compactBatchSize entries examined per compaction transaction
+   */
+  @Autowired
+  public ChangeLogService(CatalogChangeRepository changeRepository,
+                          CatalogChangeFloorRepository floorRepository,
+                          ObjectMapper objectMapper, TransactionTemplate transactionTemplate,
+                          @Value("${couponsystem.pagination.max-page-size:1000}")
+                          int maxPageSize,
+                          @Value("${couponsystem.changes.retention:P7D}") Duration retention,
+                          @Value("${couponsystem.changes.compact-batch-size:10000}")
+                          int compactBatchSize) {
+    this.changeRepository = changeRepository;
+    this.floorRepository = floorRepository;
+    this.objectMapper = objectMapper;
+    this.transactionTemplate = transactionTemplate;
+    this.maxPageSize = maxPageSize;
+    this.retention = retention;
+    this.compactBatchSize = compactBatchSize;
+  }
+
+  @Override
+  public void afterSingletonsInstantiated() {
+    Long highest = changeRepository.findMaxSeq();
+    highestSaved.set(highest == null ? 0 : highest);
+    floor.set(floorRepository.findById(CatalogChangeFloor.ID)
+        .map(CatalogChangeFloor::getSeq).orElse(0L));
+  }
+
+  /**
+   * Records a change in the log, in the transaction that made it.
+   *
+   * @param event the change, before it commits
+   */
+  @EventListener
+  public void onCatalogChange(CatalogChangeEvent event) {
+    List<CatalogChange> entries = entriesOf(event);
+    if (entries.isEmpty()) {
+      return;
+    }
+    // No number saved from here on is below this one
+    final long lowest = highestSaved.get() + 1;
+    inFlight.merge(lowest, 1, Integer::sum);
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      try {
+        save(entries);
+      } finally {
+        release(lowest);
+      }
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCompletion(int status) {
+        release(lowest);
+      }
+    });
+    save(entries);
+  }
+
+  /**
+   * Reads the entries after a sequence number, in order. Only entries that can no longer
+   * be joined by a lower-numbered one are returned.
+   *
+   * @param since the last sequence number the caller has applied, or 0 for the start
+   * @param limit the most entries to return, capped at the maximum page size, which is
+   *     also the default
+   * @return the page, or null if compaction removed entries after {@code since}
+   * @throws IllegalArgumentException if the limit is below 1
+   */
+  public ChangePage getChanges(long since, Integer limit) {
+    if (limit != null && limit < 1) {
+      throw new IllegalArgumentException("Limit must be at least 1.");
+    }
+    final int pageSize = limit == null ? maxPageSize : Math.min(limit, maxPageSize);
+    // Saved numbers first, then open transactions: one that saved a number below
+    // upTo had registered before it did
+    long upTo = highestSaved.get();
+    Map.Entry<Long, Integer> open = inFlight.firstEntry();
+    if (open != null) {
+      upTo = Math.min(upTo, open.getKey() - 1);
+    }
+    List<CatalogChange> rows = changeRepository
+        .findBySeqGreaterThanAndSeqLessThanEqualOrderBySeqAsc(since, upTo,
+            Limit.of(pageSize + 1));
+    // Checked after reading, since compaction raises the floor before removing entries
+    if (since < floor.get()) {
+      return null;
+    }
+    if (rows.size() > pageSize) {
+      List<CatalogChange> page = new ArrayList<>(rows.subList(0, pageSize));
+      return new ChangePage(page, page.get(pageSize - 1).getSeq(), true);
+    }
+    return new ChangePage(rows, Math.max(since, upTo), false);
+  }
+
+  /**
+   * Returns the compaction floor.
+   *
+   * @return the lowest {@code since} the log can still serve
+   */
+  public long getFloor() {
+    return floor.get();
+  }
+
+  /**
+   * Compacts the log on the configured interval.
+   */
+  @Scheduled(initialDelayString = "${couponsystem.changes.compact-interval:PT1H}",
+      fixedDelayString = "${couponsystem.changes.compact-interval:PT1H}")
+  public void compactOnSchedule() {
+    compact(Instant.now());
+  }
+
+  /**
+   * Removes superseded entries in batches that each commit on their own, then the
+   * deletes made before the retention period, raising the floor past them.
+   *
+   * @param now the current time
+   * @return the number of entries removed
+   */
+  public long compact(Instant now) {
+    long removed = 0;
+    long after = 0;
+    List<Long> batch;
+    do {
+      batch = changeRepository.findSeqsAfter(after, Limit.of(compactBatchSize));
+      if (!batch.isEmpty()) {
+        final long from = after;
+        final long upTo = batch.get(batch.size() - 1);
+        Integer deleted = transactionTemplate.execute(
+            status -> changeRepository.deleteSupersededBetween(from, upTo));
+        removed += deleted == null ? 0 : deleted;
+        after = upTo;
+      }
+    } while (batch.size() == compactBatchSize);
+
+    Long lastExpired = changeRepository.findLastDeleteBefore(now.minus(retention));
+    if (lastExpired != null && lastExpired > floor.get()) {
+      floor.accumulateAndGet(lastExpired, Math::max);
+      Integer deleted = transactionTemplate.execute(status -> {
+        floorRepository.save(new CatalogChangeFloor(lastExpired));
+        return changeRepository.deleteDeletesUpTo(lastExpired);
+      });
+      removed += deleted == null ? 0 : deleted;
+    }
+    return removed;
+  }
+
+  private void save(List<CatalogChange> entries) {
+    List<CatalogChange> saved = changeRepository.saveAll(entries);
+    highestSaved.accumulateAndGet(saved.get(saved.size() - 1).getSeq(), Math::max);
+  }
+
+  private void release(long lowest) {
+    inFlight.computeIfPresent(lowest, (key, count) -> count == 1 ? null : count - 1);
+  }
+
+  private List<CatalogChange> entriesOf(CatalogChangeEvent event) {
+    String type = event.getEntityType().name();
+    Instant now = Instant.now();
+    if (event.isDelete()) {
+      int[] ids = event.isBatch() ? event.getDeletedIds() : new int[] {event.getId()};
+      return Arrays.stream(ids)
+          .mapToObj(id -> new CatalogChange(type, id, CatalogChange.Operation.DELETE, now,
+              null))
+          .toList();
+    }
+    CatalogChange.Operation operation = event.isUpdate()
+        ? CatalogChange.Operation.UPDATE : CatalogChange.Operation.CREATE;
+    List<?> saved = event.isBatch() ? (List<?>) event.getEntity()
+        : List.of(event.getEntity());
+    return saved.stream()
+        .map(entity -> new CatalogChange(type, idOf(entity), operation, now, json(entity)))
+        .toList();
+  }
+
+  private String json(Object entity) {
+    try {
+      return objectMapper.writeValueAsString(entity);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Cannot record change: " + e.getOriginalMessage(), e);
+    }
+  }
+
+  private static int idOf(Object entity) {
+    if (entity instanceof Store) {
+      return ((Store) entity).getId();
+    }
+    return entity instanceof Item ? ((Item) entity).getId() : ((Coupon) entity).getId();
+  }
+}
@@ -0,0 +1,39 @@
+package org.nullpointers.couponsystem.service;
+
+import java.util.List;
+import org.nullpointers.couponsystem.model.CatalogChange;
+
+/**
+ * One read of the catalog change log: the entries after the caller's sequence number,
+ * and the number to ask from next time.
+ */
+public class ChangePage {
+  private final List<CatalogChange> changes;
+  private final long next;
+  private final boolean more;
+
+  /**
+   * Creates a page.
+   *
+   * @param changes the entries, in sequence order
+   * @param next the sequence number to pass as {@code since} on the next read
+   * @param more true if entries after {@code next} could already be read
+   */
+  public ChangePage(List<CatalogChange> changes, long next, boolean more) {
+    this.changes = changes;
+    this.next = next;
+    this.more = more;
+  }
+
+  public List<CatalogChange> getChanges() {
+    return changes;
+  }
+
+  public long getNext() {
+    return next;
+  }
+
+  public boolean isMore() {
+    return more;
+  }
+}
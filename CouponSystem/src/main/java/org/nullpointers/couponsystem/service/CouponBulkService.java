@@ -0,0 +1,240 @@
+package org.nullpointers.couponsystem.service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.nullpointers.couponsystem.dto.CouponRequest;
+import org.nullpointers.couponsystem.model.Coupon;
+import org.nullpointers.couponsystem.model.ItemCoupon;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+
+/**
+ * Service that creates many coupons from one request.
+ *
+ * <p>Every definition is checked as {@code POST /coupon} checks a coupon, but the stores
+ * and target items they refer to are looked up together, with one set-based query per
+ * chunk of IDs rather than one lookup per coupon. Valid coupons are then inserted in
+ * batches, each in its own transaction with rows sent as JDBC batches. Invalid
+ * definitions, and the rows of a batch that fails to insert, are reported without
+ * stopping the rest.
+ */
+@Service
+public class CouponBulkService {
+  private final DataService dataService;
+  private final int batchSize;
+
+  /**
+   * Creates the bulk coupon service.
+   *
+   * @param dataService the data service used to check references and insert coupons
+   * @param batchSize how many coupons are inserted per transaction
+   */
+  @Autowired
+  public CouponBulkService(DataService dataService,
+                           @Value("${couponsystem.bulk-coupons.batch-size:1000}")
+                           int batchSize) {
+    this.dataService = dataService;
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Creates coupons from their definitions.
+   *
+   * @param definitions the coupon definitions; null elements are rejected
+   * @return the creation report
+   */
+  public BulkCouponReport createCoupons(List<CouponRequest> definitions) {
+    final long start = System.nanoTime();
+    BulkCouponReport report = new BulkCouponReport(definitions.size());
+    Coupon[] parsed = new Coupon[definitions.size()];
+    Set<Integer> storeIds = new HashSet<>();
+    Set<Integer> itemIds = new HashSet<>();
+    for (int i = 0; i < parsed.length; i++) {
+      CouponRequest definition = definitions.get(i);
+      String error = definition == null ? "Expected a JSON object." : definition.validate();
+      if (error != null) {
+        report.reject(i, error);
+        continue;
+      }
+      parsed[i] = definition.toCoupon();
+      storeIds.add(parsed[i].getStoreId());
+      if (parsed[i] instanceof ItemCoupon) {
+        itemIds.add(((ItemCoupon) parsed[i]).getTargetItemId());
+      }
+    }
+    Set<Integer> stores = storeIds.isEmpty() ? storeIds
+        : dataService.findExistingStoreIds(storeIds);
+    Set<Integer> items = itemIds.isEmpty() ? itemIds
+        : dataService.findExistingItemIds(itemIds);
+    final long validated = System.nanoTime();
+    report.validationMillis = (validated - start) / 1_000_000;
+
+    List<Coupon> batch = new ArrayList<>(Math.min(batchSize, parsed.length));
+    List<Integer> indexes = new ArrayList<>(Math.min(batchSize, parsed.length));
+    for (int i = 0; i < parsed.length; i++) {
+      Coupon coupon = parsed[i];
+      if (coupon == null) {
+        continue;
+      }
+      if (!stores.contains(coupon.getStoreId())) {
+        report.reject(i, "Store does not exist.");
+      } else if (coupon instanceof ItemCoupon
+          && !items.contains(((ItemCoupon) coupon).getTargetItemId())) {
+        report.reject(i, "Target item does not exist.");
+      } else {
+        batch.add(coupon);
+        indexes.add(i);
+        if (batch.size() == batchSize) {
+          insert(batch, indexes, report);
+        }
+      }
+    }
+    insert(batch, indexes, report);
+    long end = System.nanoTime();
+    report.insertMillis = (end - validated) / 1_000_000;
+    report.finish(end - start);
+    return report;
+  }
+
+  /**
+   * Inserts one batch and empties it. If the batch fails, its rows are rejected and the
+   * following batches still run.
+   */
+  private void insert(List<Coupon> batch, List<Integer> indexes, BulkCouponReport report) {
+    if (batch.isEmpty()) {
+      return;
+    }
+    try {
+      for (Coupon created : dataService.addCoupons(batch)) {
+        report.createdIds.add(created.getId());
+      }
+      report.rowsCreated += batch.size();
+    } catch (DataAccessException | TransactionException e) {
+      String reason = "Insert failed: " + e.getMostSpecificCause().getMessage();
+      indexes.forEach(index -> report.reject(index, reason));
+    }
+    report.batches++;
+    batch.clear();
+    indexes.clear();
+  }
+
+  /**
+   * Inner class to represent the outcome of a bulk creation.
+   */
+  public static class BulkCouponReport {
+    private final int rowsReceived;
+    private final List<Integer> createdIds = new ArrayList<>();
+    private final List<RejectedCoupon> rejectedCoupons = new ArrayList<>();
+    private int rowsCreated;
+    private int rowsRejected;
+    private int batches;
+    private long validationMillis;
+    private long insertMillis;
+    private long elapsedMillis;
+    private double rowsPerSecond;
+
+    BulkCouponReport(int rowsReceived) {
+      this.rowsReceived = rowsReceived;
+    }
+
+    private void reject(int index, String reason) {
+      rowsRejected++;
+      if (rejectedCoupons.size() < CatalogImportService.MAX_REJECTED_DETAILS) {
+        rejectedCoupons.add(new RejectedCoupon(index, reason));
+      }
+    }
+
+    private void finish(long elapsedNanos) {
+      elapsedMillis = elapsedNanos / 1_000_000;
+      rowsPerSecond = elapsedNanos == 0 ? 0.0 : rowsReceived * 1e9 / elapsedNanos;
+    }
+
+    public int getRowsReceived() {
+      return rowsReceived;
+    }
+
+    public int getRowsCreated() {
+      return rowsCreated;
+    }
+
+    public int getRowsRejected() {
+      return rowsRejected;
+    }
+
+    /**
+     * Returns the IDs of the created coupons.
+     *
+     * @return the IDs, in request order
+     */
+    public List<Integer> getCreatedIds() {
+      return createdIds;
+    }
+
+    public int getBatches() {
+      return batches;
+    }
+
+    /**
+     * Returns how long checking the definitions and their references took.
+     *
+     * @return the validation time in milliseconds
+     */
+    public long getValidationMillis() {
+      return validationMillis;
+    }
+
+    public long getInsertMillis() {
+      return insertMillis;
+    }
+
+    public long getElapsedMillis() {
+      return elapsedMillis;
+    }
+
+    public double getRowsPerSecond() {
+      return rowsPerSecond;
+    }
+
+    /**
+     * Returns the first {@link CatalogImportService#MAX_REJECTED_DETAILS} rejected
+     * definitions.
+     *
+     * @return the rejected definitions, in request order
+     */
+    public List<RejectedCoupon> getRejectedCoupons() {
+      return rejectedCoupons;
+    }
+  }
+
+  /**
+   * Inner class to represent one rejected coupon definition.
+   */
+  public static class RejectedCoupon {
+    private final int index;
+    private final String reason;
+
+    /**
+     * Creates a rejected definition.
+     *
+     * @param index the 0-based position of the definition in the request
+     * @param reason why the definition was rejected
+     */
+    public RejectedCoupon(int index, String reason) {
+      this.index = index;
+      this.reason = reason;
+    }
+
+    public int getIndex() {
+      return index;
+    }
+
+    public String getReason() {
+      return reason;
+    }
+  }
+}
@@ -2,6 +2,11 @@ package org.nullpointers.couponsystem.service;
 
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
 import org.nullpointers.couponsystem.model.Coupon;
 import org.nullpointers.couponsystem.model.Item;
 import org.nullpointers.couponsystem.model.Store;
@@ -14,6 +19,7 @@ import org.springframework.stereotype.Service;
  */
 @Service
 public class CouponService {
+  private static final long SEARCH_SEED = 42L;
   private final DataService dataService;
 
   public CouponService(DataService dataService) {
@@ -34,11 +40,42 @@ public class CouponService {
       return null;
     }
 
-    ArrayList<Coupon> storeCoupons = dataService.getCouponsByStore(storeId);
+    return bestCouponFor(items, dataService.getCouponsByStore(storeId));
+  }
+
+  /**
+   * Finds the optimal coupon for a cart and the discount it gives, resolving each item
+   * once for both.
+   *
+   * @param itemIds array of item IDs in the cart
+   * @param storeId the store ID
+   * @return the evaluation, naming the first item that does not exist if any
+   */
+  public CartEvaluation evaluateCart(int[] itemIds, int storeId) {
+    Item[] items = new Item[itemIds.length];
+    for (int i = 0; i < itemIds.length; i++) {
+      items[i] = dataService.getItem(itemIds[i]);
+      if (items[i] == null) {
+        return new CartEvaluation(null, 0.0, itemIds[i]);
+      }
+    }
+    Coupon coupon = bestCouponFor(items, dataService.getCouponsByStore(storeId));
+    return new CartEvaluation(coupon, coupon == null ? 0.0 : coupon.calculateDiscount(items),
+        null);
+  }
+
+  /**
+   * Picks the coupon giving the largest discount on an already resolved cart.
+   *
+   * @param items the items in the cart
+   * @param coupons the candidate coupons
+   * @return the coupon with the largest positive discount, or null if none applies
+   */
+  static Coupon bestCouponFor(Item[] items, List<Coupon> coupons) {
     Coupon bestCoupon = null;
     double maxDiscount = 0.0;
 
-    for (Coupon coupon : storeCoupons) {
+    for (Coupon coupon : coupons) {
       if (coupon.isApplicable(items)) {
         double discount = coupon.calculateDiscount(items);
         if (discount > maxDiscount) {
@@ -114,6 +151,120 @@ public class CouponService {
     return recommendations;
   }
 
+  /**
+   * Finds the single store with the lowest total for a whole shopping list.
+   * Every entry is resolved once into a per-store index of cheapest matches, and each
+   * store carrying every entry is priced as a virtual cart with its best coupon applied.
+   * Stores are evaluated in parallel, ordered by the lowest total their coupons could
+   * possibly reach, and a store is dropped without evaluating its coupons once that
+   * bound can no longer beat the running best total.
+   *
+   * @param keywords keywords to match against item names (can be null)
+   * @param categories categories to match (can be null)
+   * @return the cheapest store for the list, or null if no store carries every entry
+   */
+  public ShoppingListRecommendation findCheapestStoreForList(
+      List<String> keywords, List<String> categories) {
+    ShoppingListIndex index = ShoppingListIndex.build(dataService, keywords, categories);
+    Map<Integer, Item[]> carts = index.getCompleteCarts();
+    if (index.getEntryCount() == 0 || carts.isEmpty()) {
+      return null;
+    }
+
+    Map<Integer, List<Coupon>> couponsByStore = dataService.getCouponsByStores(carts.keySet())
+        .stream().collect(Collectors.groupingBy(Coupon::getStoreId));
+
+    ArrayList<ListCandidate> candidates = new ArrayList<>(carts.size());
+    for (Map.Entry<Integer, Item[]> cart : carts.entrySet()) {
+      candidates.add(new ListCandidate(cart.getKey(), cart.getValue(),
+          couponsByStore.getOrDefault(cart.getKey(), List.of())));
+    }
+    candidates.sort(Comparator.comparingDouble(ListCandidate::lowerBound)
+        .thenComparingInt(ListCandidate::storeId));
+
+    AtomicReference<ListCandidate> best = new AtomicReference<>();
+    candidates.parallelStream().forEach(candidate -> {
+      ListCandidate current = best.get();
+      if (current != null && candidate.lowerBound() > current.finalPrice) {
+        return;
+      }
+      candidate.evaluate();
+      best.accumulateAndGet(candidate, ListCandidate::cheaper);
+    });
+
+    ListCandidate winner = best.get();
+    return new ShoppingListRecommendation(dataService.getStore(winner.storeId()),
+        List.of(winner.cart), winner.coupon, winner.subtotal,
+        winner.subtotal - winner.finalPrice, winner.finalPrice);
+  }
+
+  /**
+   * Splits a shopping list across up to {@code maxStores} stores so that the total
+   * price after each store's best coupon is as low as possible. Uses the local search
+   * in {@link SplitBasketOptimizer}, which stops when the time budget runs out and
+   * returns the best plan found so far.
+   *
+   * @param keywords keywords to match against item names (can be null)
+   * @param categories categories to match (can be null)
+   * @param maxStores the maximum number of stores to visit
+   * @param timeBudgetMillis the time budget for the search in milliseconds
+   * @return the best plan found, or null if the list cannot be covered by
+   *     {@code maxStores} stores
+   */
+  public SplitBasketPlan planSplitBasket(List<String> keywords, List<String> categories,
+                                         int maxStores, long timeBudgetMillis) {
+    ShoppingListIndex index = ShoppingListIndex.build(dataService, keywords, categories);
+    Map<Integer, List<Coupon>> couponsByStore =
+        dataService.getCouponsByStores(index.getCheapestByStore().keySet())
+            .stream().collect(Collectors.groupingBy(Coupon::getStoreId));
+
+    SplitBasketOptimizer.Result result = new SplitBasketOptimizer(index, couponsByStore)
+        .optimize(maxStores, TimeUnit.MILLISECONDS.toNanos(timeBudgetMillis), SEARCH_SEED);
+    if (result == null) {
+      return null;
+    }
+
+    ArrayList<ShoppingListRecommendation> stores = new ArrayList<>();
+    for (Map.Entry<Integer, Item[]> cart : result.getStoreCarts().entrySet()) {
+      stores.add(priceCart(dataService.getStore(cart.getKey()), cart.getValue(),
+          couponsByStore.getOrDefault(cart.getKey(), List.of())));
+    }
+    return new SplitBasketPlan(stores, result.getTotalPrice(), result.getIterations(),
+        result.getElapsedMicros(), result.getImprovements());
+  }
+
+  private static ShoppingListRecommendation priceCart(Store store, Item[] cart,
+                                                      List<Coupon> coupons) {
+    double subtotal = 0.0;
+    for (Item item : cart) {
+      subtotal += item.getPrice();
+    }
+    Coupon coupon = bestCouponFor(cart, coupons);
+    double discount = coupon == null ? 0.0 : coupon.calculateDiscount(cart);
+    return new ShoppingListRecommendation(store, List.of(cart), coupon, subtotal,
+        discount, subtotal - discount);
+  }
+
+  /**
+   * Finds the most valuable cart (by list price) a shopper can buy from a store when the
+   * price after the store's best coupon must stay within a budget. Uses the knapsack
+   * search in {@link BudgetBasketSolver}, which stops when the time budget runs out and
+   * returns the best cart found so far.
+   *
+   * @param storeId the store ID
+   * @param budget the most the shopper is willing to pay, in dollars
+   * @param timeBudgetMillis the time budget for the search in milliseconds
+   * @return the chosen cart with its coupon and totals
+   */
+  public BudgetBasket findBudgetBasket(int storeId, double budget, long timeBudgetMillis) {
+    ArrayList<Coupon> coupons = dataService.getCouponsByStore(storeId);
+    BudgetBasketSolver.Result result =
+        new BudgetBasketSolver(dataService.getItemsByStore(storeId), coupons)
+            .solve(budget, TimeUnit.MILLISECONDS.toNanos(timeBudgetMillis));
+    return new BudgetBasket(priceCart(dataService.getStore(storeId), result.getCart(), coupons),
+        budget, result.getMethod(), result.isOptimal(), result.getElapsedMicros());
+  }
+
   /**
    * Finds the cheapest items from a store that could help satisfy a TotalPriceCoupon.
    * Returns items that would bring the cart total to meet the minimum purchase requirement.
@@ -198,6 +349,248 @@ public class CouponService {
     return items;
   }
 
+  /**
+   * A store's virtual cart for a shopping list, with its pricing bound and result.
+   */
+  private static final class ListCandidate {
+    private final int storeId;
+    private final Item[] cart;
+    private final List<Coupon> coupons;
+    private final double subtotal;
+    private final double lowerBound;
+    private Coupon coupon;
+    private double finalPrice;
+
+    ListCandidate(int storeId, Item[] cart, List<Coupon> coupons) {
+      this.storeId = storeId;
+      this.cart = cart;
+      this.coupons = coupons;
+      double total = 0.0;
+      for (Item item : cart) {
+        total += item.getPrice();
+      }
+      this.subtotal = total;
+      double maxDiscount = 0.0;
+      for (Coupon candidate : coupons) {
+        maxDiscount = Math.max(maxDiscount, candidate.maxDiscountFor(total));
+      }
+      this.lowerBound = total - maxDiscount;
+      this.finalPrice = total;
+    }
+
+    int storeId() {
+      return storeId;
+    }
+
+    double lowerBound() {
+      return lowerBound;
+    }
+
+    void evaluate() {
+      coupon = bestCouponFor(cart, coupons);
+      if (coupon != null) {
+        finalPrice = subtotal - coupon.calculateDiscount(cart);
+      }
+    }
+
+    static ListCandidate cheaper(ListCandidate current, ListCandidate candidate) {
+      if (current == null || candidate.finalPrice < current.finalPrice
+          || candidate.finalPrice == current.finalPrice && candidate.storeId < current.storeId) {
+        return candidate;
+      }
+      return current;
+    }
+  }
+
+  /**
+   * Inner class to represent the outcome of evaluating one cart.
+   */
+  public static class CartEvaluation {
+    private final Coupon coupon;
+    private final double discount;
+    private final Integer missingItemId;
+
+    /**
+     * Creates a cart evaluation.
+     *
+     * @param coupon the optimal coupon (can be null)
+     * @param discount the discount the coupon gives
+     * @param missingItemId the first cart item that does not exist, or null
+     */
+    public CartEvaluation(Coupon coupon, double discount, Integer missingItemId) {
+      this.coupon = coupon;
+      this.discount = discount;
+      this.missingItemId = missingItemId;
+    }
+
+    public Coupon getCoupon() {
+      return coupon;
+    }
+
+    public double getDiscount() {
+      return discount;
+    }
+
+    public Integer getMissingItemId() {
+      return missingItemId;
+    }
+  }
+
+  /**
+   * Inner class to represent the cheapest single store for a whole shopping list.
+   */
+  public static class ShoppingListRecommendation {
+    private final Store store;
+    private final List<Item> items;
+    private final Coupon coupon;
+    private final double subtotal;
+    private final double discount;
+    private final double finalPrice;
+
+    /**
+     * Creates a shopping list recommendation.
+     *
+     * @param store the store
+     * @param items the store's cheapest match for each list entry, in list order
+     * @param coupon the best applicable coupon (can be null)
+     * @param subtotal the cart total before discount
+     * @param discount the discount amount
+     * @param finalPrice the final price after discount
+     */
+    public ShoppingListRecommendation(Store store, List<Item> items, Coupon coupon,
+                                      double subtotal, double discount, double finalPrice) {
+      this.store = store;
+      this.items = items;
+      this.coupon = coupon;
+      this.subtotal = subtotal;
+      this.discount = discount;
+      this.finalPrice = finalPrice;
+    }
+
+    public Store getStore() {
+      return store;
+    }
+
+    public List<Item> getItems() {
+      return items;
+    }
+
+    public Coupon getCoupon() {
+      return coupon;
+    }
+
+    public double getSubtotal() {
+      return subtotal;
+    }
+
+    public double getDiscount() {
+      return discount;
+    }
+
+    public double getFinalPrice() {
+      return finalPrice;
+    }
+  }
+
+  /**
+   * Inner class to represent a shopping list split across several stores.
+   */
+  public static class SplitBasketPlan {
+    private final List<ShoppingListRecommendation> stores;
+    private final double totalPrice;
+    private final long iterations;
+    private final long elapsedMicros;
+    private final List<SplitBasketOptimizer.Improvement> improvements;
+
+    /**
+     * Creates a split basket plan.
+     *
+     * @param stores the cart, coupon, and totals for each store in the plan
+     * @param totalPrice the total price of the plan after coupons
+     * @param iterations the number of local search rounds performed
+     * @param elapsedMicros the time spent searching in microseconds
+     * @param improvements the best total over time during the search
+     */
+    public SplitBasketPlan(List<ShoppingListRecommendation> stores, double totalPrice,
+                           long iterations, long elapsedMicros,
+                           List<SplitBasketOptimizer.Improvement> improvements) {
+      this.stores = stores;
+      this.totalPrice = totalPrice;
+      this.iterations = iterations;
+      this.elapsedMicros = elapsedMicros;
+      this.improvements = improvements;
+    }
+
+    public List<ShoppingListRecommendation> getStores() {
+      return stores;
+    }
+
+    public double getTotalPrice() {
+      return totalPrice;
+    }
+
+    public long getIterations() {
+      return iterations;
+    }
+
+    public long getElapsedMicros() {
+      return elapsedMicros;
+    }
+
+    public List<SplitBasketOptimizer.Improvement> getImprovements() {
+      return improvements;
+    }
+  }
+
+  /**
+   * Inner class to represent the most valuable cart that fits a budget at one store.
+   */
+  public static class BudgetBasket {
+    private final ShoppingListRecommendation basket;
+    private final double budget;
+    private final String method;
+    private final boolean optimal;
+    private final long elapsedMicros;
+
+    /**
+     * Creates a budget basket.
+     *
+     * @param basket the chosen cart with its coupon and totals
+     * @param budget the budget the cart was chosen for
+     * @param method the search method that found the cart
+     * @param optimal true if the search finished before its deadline
+     * @param elapsedMicros the time spent searching in microseconds
+     */
+    public BudgetBasket(ShoppingListRecommendation basket, double budget, String method,
+                        boolean optimal, long elapsedMicros) {
+      this.basket = basket;
+      this.budget = budget;
+      this.method = method;
+      this.optimal = optimal;
+      this.elapsedMicros = elapsedMicros;
+    }
+
+    public ShoppingListRecommendation getBasket() {
+      return basket;
+    }
+
+    public double getBudget() {
+      return budget;
+    }
+
+    public String getMethod() {
+      return method;
+    }
+
+    public boolean isOptimal() {
+      return optimal;
+    }
+
+    public long getElapsedMicros() {
+      return elapsedMicros;
+    }
+  }
+
   /**
    * Inner class to represent a store recommendation with pricing details.
    */
@@ -1,39 +1,114 @@
 package org.nullpointers.couponsystem.service;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.nullpointers.couponsystem.catalog.CatalogChangeEvent;
+import org.nullpointers.couponsystem.catalog.CatalogReplica;
+import org.nullpointers.couponsystem.catalog.CatalogSnapshot;
 import org.nullpointers.couponsystem.model.Coupon;
 import org.nullpointers.couponsystem.model.Item;
 import org.nullpointers.couponsystem.model.Store;
 import org.nullpointers.couponsystem.repository.CouponRepository;
 import org.nullpointers.couponsystem.repository.ItemRepository;
+import org.nullpointers.couponsystem.repository.ItemScope;
+import org.nullpointers.couponsystem.repository.ItemSyncKeyRepository;
 import org.nullpointers.couponsystem.repository.StoreRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * Service class responsible for managing all data in the coupon system.
  * Acts as an interface to the database for items, stores, and coupons.
+ *
+ * <p>Reads are served from the in-memory {@link CatalogReplica} once it is loaded, except
+ * inside a transaction, where they go to the database so the transaction sees its own
+ * uncommitted writes. Every write publishes a {@link CatalogChangeEvent} from within its
+ * transaction, which records it in the {@link ChangeLogService change log} and updates the
+ * replica once the write commits.
  */
 @Service
 public class DataService {
   private final StoreRepository storeRepository;
   private final ItemRepository itemRepository;
   private final CouponRepository couponRepository;
+  private final ItemSyncKeyRepository itemSyncKeyRepository;
+  private final CatalogReplica catalogReplica;
+  private final ApplicationEventPublisher eventPublisher;
+  private final EntityManager entityManager;
+  private final TransactionTemplate transactionTemplate;
+  private final int bulkChunkSize;
+  private final int maxPageSize;
+  private final int deleteBatchSize;
+  private final int updateBatchSize;
 
   /**
-   * Initializes the data service with repositories.
+   * Initializes the data service with repositories and the catalog replica.
    *
    * @param storeRepository the store repository
    * @param itemRepository the item repository
    * @param couponRepository the coupon repository
+   * @param itemSyncKeyRepository the catalog sync keys, removed with their items
+   * @param catalogReplica the in-memory replica used for reads
+   * @param eventPublisher publisher for catalog change events
+   * @param entityManager the shared entity manager, flushed and cleared during bulk inserts
+   * @param transactionTemplate runs each batch of a bulk delete or update in its own
+   *     transaction
+   * @param bulkChunkSize how many rows a bulk insert writes before flushing
+   * @param maxPageSize the largest page a paginated list returns, and the default size
+   * @param deleteBatchSize how many rows each batch of a bulk delete removes
+   * @param updateBatchSize how many rows each batch of a bulk price update changes
    */
   @Autowired
   public DataService(StoreRepository storeRepository, ItemRepository itemRepository,
-                     CouponRepository couponRepository) {
+                     CouponRepository couponRepository,
+                     ItemSyncKeyRepository itemSyncKeyRepository, CatalogReplica catalogReplica,
+                     ApplicationEventPublisher eventPublisher, EntityManager entityManager,
+                     TransactionTemplate transactionTemplate,
+                     @Value("${couponsystem.bulk-insert.chunk-size:1000}") int bulkChunkSize,
+                     @Value("${couponsystem.pagination.max-page-size:1000}") int maxPageSize,
+                     @Value("${couponsystem.bulk-delete.batch-size:1000}")
+                     int deleteBatchSize,
+                     @Value("${couponsystem.bulk-update.batch-size:1000}")
+                     int updateBatchSize) {
     this.storeRepository = storeRepository;
     this.itemRepository = itemRepository;
     this.couponRepository = couponRepository;
+    this.itemSyncKeyRepository = itemSyncKeyRepository;
+    this.catalogReplica = catalogReplica;
+    this.eventPublisher = eventPublisher;
+    this.entityManager = entityManager;
+    this.transactionTemplate = transactionTemplate;
+    this.bulkChunkSize = bulkChunkSize;
+    this.maxPageSize = maxPageSize;
+    this.deleteBatchSize = deleteBatchSize;
+    this.updateBatchSize = updateBatchSize;
+  }
+
+  /**
+   * Returns the replica snapshot to read from, or null if reads must go to the database.
+   */
+  private CatalogSnapshot replica() {
+    if (catalogReplica.isReady()
+        && !TransactionSynchronizationManager.isActualTransactionActive()) {
+      return catalogReplica.snapshot();
+    }
+    return null;
   }
 
   /**
@@ -41,9 +116,17 @@ public class DataService {
    *
    * @param item the item to add
    * @return the added item with assigned ID
+   * @throws IllegalArgumentException if the item's store does not exist
    */
+  @Transactional
   public Item addItem(Item item) {
-    return itemRepository.save(item);
+    lockStores(List.of(item.getStoreId()));
+    if (item.getId() != 0) {
+      adoptVersions(List.of(item));
+    }
+    Item saved = itemRepository.save(item);
+    eventPublisher.publishEvent(CatalogChangeEvent.saved(saved));
+    return saved;
   }
 
   /**
@@ -52,8 +135,11 @@ public class DataService {
    * @param store the store to add
    * @return the added store with assigned ID
    */
+  @Transactional
   public Store addStore(Store store) {
-    return storeRepository.save(store);
+    Store saved = storeRepository.save(store);
+    eventPublisher.publishEvent(CatalogChangeEvent.saved(saved));
+    return saved;
   }
 
   /**
@@ -61,35 +147,281 @@ public class DataService {
    *
    * @param coupon the coupon to add
    * @return the added coupon with assigned ID
+   * @throws IllegalArgumentException if the coupon's store does not exist
    */
+  @Transactional
   public Coupon addCoupon(Coupon coupon) {
-    return couponRepository.save(coupon);
+    lockStores(List.of(coupon.getStoreId()));
+    Coupon saved = couponRepository.save(coupon);
+    eventPublisher.publishEvent(CatalogChangeEvent.saved(saved));
+    return saved;
+  }
+
+  /**
+   * Adds many items in one transaction. Rows are sent in JDBC batches and the
+   * persistence context is flushed and cleared every chunk, so memory stays bounded
+   * however many items are added. The replica is updated once, after commit.
+   *
+   * @param items the items to add
+   * @return the added items with assigned IDs, in the same order
+   * @throws IllegalArgumentException if a store of the items does not exist
+   */
+  @Transactional
+  public List<Item> addItems(List<Item> items) {
+    return saveItems(items);
+  }
+
+  /**
+   * Adds or replaces many items in one transaction. Items with ID 0 are inserted; the
+   * others replace the existing item with that ID. Existing items are loaded and locked
+   * with one query per chunk, so replacing them costs no per-row select and concurrent
+   * replacements of an item take turns, and both inserts and updates are sent in JDBC
+   * batches. The replica is updated after commit.
+   *
+   * @param items the items to save
+   * @return the saved items with assigned IDs, in the same order
+   * @throws IllegalArgumentException if a store of the items does not exist
+   */
+  @Transactional
+  public List<Item> saveItems(List<Item> items) {
+    lockStores(items.stream().map(Item::getStoreId).toList());
+    ArrayList<Item> saved = new ArrayList<>(items.size());
+    // Saving assigns IDs to new items, so tell them apart first
+    boolean[] updates = new boolean[items.size()];
+    for (int i = 0; i < items.size(); i++) {
+      updates[i] = items.get(i).getId() != 0;
+    }
+    for (int from = 0; from < items.size(); from += bulkChunkSize) {
+      List<Item> chunk = items.subList(from, Math.min(items.size(), from + bulkChunkSize));
+      adoptVersions(chunk);
+      saved.addAll(itemRepository.saveAll(chunk));
+      entityManager.flush();
+      entityManager.clear();
+    }
+    List<Item> created = new ArrayList<>();
+    List<Item> updated = new ArrayList<>();
+    for (int i = 0; i < saved.size(); i++) {
+      (updates[i] ? updated : created).add(saved.get(i));
+    }
+    if (!created.isEmpty() || updated.isEmpty()) {
+      eventPublisher.publishEvent(CatalogChangeEvent.savedItems(created));
+    }
+    if (!updated.isEmpty()) {
+      eventPublisher.publishEvent(CatalogChangeEvent.updatedItems(updated));
+    }
+    return saved;
+  }
+
+  /**
+   * Holds a shared lock on the rows of the given stores until the transaction ends, so
+   * {@link #deleteStoreWithContents} waits for the items and coupons being added to them
+   * and deletes those too. Must run in a transaction.
+   *
+   * @throws IllegalArgumentException if a store does not exist
+   */
+  private void lockStores(Collection<Integer> storeIds) {
+    Set<Integer> missing = new HashSet<>(storeIds);
+    if (missing.isEmpty()) {
+      return;
+    }
+    inChunks(missing, storeRepository::findIdsForShareByIdIn).forEach(missing::remove);
+    if (!missing.isEmpty()) {
+      throw new IllegalArgumentException(
+          "Store " + missing.iterator().next() + " does not exist.");
+    }
+  }
+
+  /**
+   * Loads and locks the existing items among those about to be saved, and gives each
+   * replacement the version of the row it replaces, so the save overwrites it rather than
+   * failing the version check. Loading them first also spares a select per row when they
+   * are merged. Must run in a transaction.
+   */
+  private void adoptVersions(List<Item> items) {
+    List<Integer> ids = items.stream().map(Item::getId).filter(id -> id != 0).toList();
+    if (ids.isEmpty()) {
+      return;
+    }
+    Map<Integer, Long> versions = itemRepository.findForUpdateByIdIn(ids).stream()
+        .collect(Collectors.toMap(Item::getId, Item::getVersion));
+    for (Item item : items) {
+      Long version = versions.get(item.getId());
+      if (version != null) {
+        item.setVersion(version);
+      }
+    }
   }
 
+  /**
+   * Adds many coupons in one transaction. Rows are sent in JDBC batches and the
+   * persistence context is flushed and cleared every chunk. The replica is updated once,
+   * after commit.
+   *
+   * @param coupons the coupons to add
+   * @return the added coupons with assigned IDs, in the same order
+   * @throws IllegalArgumentException if a store of the coupons does not exist
+   */
+  @Transactional
+  public List<Coupon> addCoupons(List<Coupon> coupons) {
+    lockStores(coupons.stream().map(Coupon::getStoreId).toList());
+    ArrayList<Coupon> saved = new ArrayList<>(coupons.size());
+    for (int from = 0; from < coupons.size(); from += bulkChunkSize) {
+      saved.addAll(couponRepository.saveAll(
+          coupons.subList(from, Math.min(coupons.size(), from + bulkChunkSize))));
+      entityManager.flush();
+      entityManager.clear();
+    }
+    eventPublisher.publishEvent(CatalogChangeEvent.savedCoupons(saved));
+    return saved;
+  }
+
+  /**
+   * Finds which of the given store IDs exist. Reads the replica when it is loaded;
+   * otherwise the database is asked with one {@code in} query per chunk of IDs.
+   *
+   * @param ids the store IDs to check
+   * @return the IDs that belong to a store
+   */
+  public Set<Integer> findExistingStoreIds(Collection<Integer> ids) {
+    CatalogSnapshot replica = replica();
+    if (replica != null) {
+      return ids.stream().filter(id -> replica.getStore(id) != null)
+          .collect(Collectors.toSet());
+    }
+    return existingIds(ids, storeRepository::findExistingIds);
+  }
+
+  /**
+   * Finds which of the given item IDs exist. Reads the replica when it is loaded;
+   * otherwise the database is asked with one {@code in} query per chunk of IDs.
+   *
+   * @param ids the item IDs to check
+   * @return the IDs that belong to an item
+   */
+  public Set<Integer> findExistingItemIds(Collection<Integer> ids) {
+    CatalogSnapshot replica = replica();
+    if (replica != null) {
+      return ids.stream().filter(id -> replica.getItem(id) != null)
+          .collect(Collectors.toSet());
+    }
+    return existingIds(ids, itemRepository::findExistingIds);
+  }
+
+  private Set<Integer> existingIds(Collection<Integer> ids,
+                                   Function<List<Integer>, List<Integer>> query) {
+    return new HashSet<>(inChunks(ids, query));
+  }
+
+  /**
+   * Runs an {@code in} query once per chunk of the distinct IDs and collects the rows.
+   */
+  private <T> ArrayList<T> inChunks(Collection<Integer> ids,
+                                    Function<List<Integer>, List<T>> query) {
+    List<Integer> distinct = List.copyOf(new HashSet<>(ids));
+    ArrayList<T> rows = new ArrayList<>();
+    for (int from = 0; from < distinct.size(); from += bulkChunkSize) {
+      rows.addAll(query.apply(
+          distinct.subList(from, Math.min(distinct.size(), from + bulkChunkSize))));
+    }
+    return rows;
+  }
+
+  /**
+   * Retrieves an item by ID.
+   *
+   * @param id the item ID
+   * @return the item, or null if not found
+   */
   public Item getItem(int id) {
+    CatalogSnapshot replica = replica();
+    if (replica != null) {
+      return replica.getItem(id);
+    }
     Optional<Item> item = itemRepository.findById(id);
     return item.orElse(null);
   }
 
+  /**
+   * Retrieves a store by ID.
+   *
+   * @param id the store ID
+   * @return the store, or null if not found
+   */
   public Store getStore(int id) {
+    CatalogSnapshot replica = replica();
+    if (replica != null) {
+      return replica.getStore(id);
+    }
     Optional<Store> store = storeRepository.findById(id);
     return store.orElse(null);
   }
 
+  /**
+   * Retrieves a coupon by ID.
+   *
+   * @param id the coupon ID
+   * @return the coupon, or null if not found
+   */
   public Coupon getCoupon(int id) {
+    CatalogSnapshot replica = replica();
+    if (replica != null) {
+      return replica.getCoupon(id);
+    }
     Optional<Coupon> coupon = couponRepository.findById(id);
     return coupon.orElse(null);
   }
 
+  /**
+   * Retrieves all items.
+   *
+   * @return list of all items
+   */
   public ArrayList<Item> getAllItems() {
+    CatalogSnapshot replica = replica();
+    if (replica != null) {
+      return replica.getAllItems();
+    }
     return new ArrayList<>(itemRepository.findAll());
   }
 
+  /**
+   * Retrieves all stores.
+   *
+   * @return list of all stores
+   */
   public ArrayList<Store> getAllStores() {
+    CatalogSnapshot replica = replica();
+    if (replica != null) {
+      return replica.getAllStores();
+    }
     return new ArrayList<>(storeRepository.findAll());
   }
 
+  /**
+   * Retrieves a page of stores, in ID order.
+   *
+   * @param afterId only stores with a greater ID are returned
+   * @param limit the maximum number of stores to return
+   * @return the stores
+   */
+  public List<Store> getStoresAfter(int afterId, int limit) {
+    CatalogSnapshot replica = replica();
+    if (replica != null) {
+      return replica.getStoresAfter(afterId, limit);
+    }
+    return storeRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(limit));
+  }
+
+  /**
+   * Retrieves all coupons.
+   *
+   * @return list of all coupons
+   */
   public ArrayList<Coupon> getAllCoupons() {
+    CatalogSnapshot replica = replica();
+    if (replica != null) {
+      return replica.getAllCoupons();
+    }
     return new ArrayList<>(couponRepository.findAll());
   }
 
@@ -100,6 +432,10 @@ public class DataService {
    * @return list of items from the specified store
    */
   public ArrayList<Item> getItemsByStore(int storeId) {
+    CatalogSnapshot replica = replica();
+    if (replica != null) {
+      return replica.getItemsByStore(storeId);
+    }
     return new ArrayList<>(itemRepository.findByStoreId(storeId));
   }
 
@@ -110,9 +446,104 @@ public class DataService {
    * @return list of coupons from the specified store
    */
   public ArrayList<Coupon> getCouponsByStore(int storeId) {
+    CatalogSnapshot replica = replica();
+    if (replica != null) {
+      return replica.getCouponsByStore(storeId);
+    }
     return new ArrayList<>(couponRepository.findByStoreId(storeId));
   }
 
+  /**
+   * Retrieves several stores by ID. Reads the replica when it is loaded; otherwise the
+   * database is asked with one {@code in} query per chunk of IDs.
+   *
+   * @param ids the store IDs
+   * @return the stores found, in no particular order; unknown IDs are skipped
+   */
+  public ArrayList<Store> getStoresByIds(Collection<Integer> ids) {
+    CatalogSnapshot replica = replica();
+    if (replica != null) {
+      ArrayList<Store> stores = new ArrayList<>(ids.size());
+      for (int id : new HashSet<>(ids)) {
+        Store store = replica.getStore(id);
+        if (store != null) {
+          stores.add(store);
+        }
+      }
+      return stores;
+    }
+    return inChunks(ids, storeRepository::findAllById);
+  }
+
+  /**
+   * Retrieves a page of each of several stores' items: at most {@code limit} items per
+   * store, in ID order after {@code afterId}. Reads each store's ID-ordered view in the
+   * replica when it is loaded; otherwise the database is asked with one windowed query
+   * per chunk of store IDs. Either way no more than a page per store is read.
+   *
+   * @param storeIds the IDs of the stores
+   * @param afterId only items with a greater ID are returned
+   * @param limit the most items returned per store
+   * @return the pages, in no particular store order and in ID order within each store
+   */
+  public ArrayList<Item> getItemsByStoresAfter(Collection<Integer> storeIds, int afterId,
+                                               int limit) {
+    CatalogSnapshot replica = replica();
+    if (replica != null) {
+      ArrayList<Item> items = new ArrayList<>();
+      for (int storeId : new HashSet<>(storeIds)) {
+        items.addAll(replica.getStoreView(storeId).getItemsAfter(afterId, limit));
+      }
+      return items;
+    }
+    return inChunks(storeIds,
+        chunk -> itemRepository.findPagesByStoreIdIn(chunk, afterId, limit));
+  }
+
+  /**
+   * Retrieves a page of each of several stores' coupons, read as
+   * {@link #getItemsByStoresAfter} reads items.
+   *
+   * @param storeIds the IDs of the stores
+   * @param afterId only coupons with a greater ID are returned
+   * @param limit the most coupons returned per store
+   * @return the pages, in no particular store order and in ID order within each store
+   */
+  public ArrayList<Coupon> getCouponsByStoresAfter(Collection<Integer> storeIds, int afterId,
+                                                   int limit) {
+    CatalogSnapshot replica = replica();
+    if (replica != null) {
+      ArrayList<Coupon> coupons = new ArrayList<>();
+      for (int storeId : new HashSet<>(storeIds)) {
+        coupons.addAll(replica.getStoreView(storeId).getCouponsAfter(afterId, limit));
+      }
+      return coupons;
+    }
+    return inChunks(storeIds,
+        chunk -> couponRepository.findPagesByStoreIdIn(chunk, afterId, limit));
+  }
+
+  /**
+   * Retrieves the coupons of several stores with a single query.
+   *
+   * @param storeIds the IDs of the stores
+   * @return list of coupons from the specified stores
+   */
+  public ArrayList<Coupon> getCouponsByStores(Collection<Integer> storeIds) {
+    if (storeIds.isEmpty()) {
+      return new ArrayList<>();
+    }
+    CatalogSnapshot replica = replica();
+    if (replica != null) {
+      ArrayList<Coupon> coupons = new ArrayList<>();
+      for (int storeId : storeIds) {
+        coupons.addAll(replica.getCouponsByStore(storeId));
+      }
+      return coupons;
+    }
+    return new ArrayList<>(couponRepository.findByStoreIdIn(storeIds));
+  }
+
   /**
    * Retrieves all items matching a specific category.
    *
@@ -120,7 +551,12 @@ public class DataService {
    * @return list of items in the specified category
    */
   public ArrayList<Item> getItemsByCategory(String category) {
-    return new ArrayList<>(itemRepository.findByCategoryIgnoreCase(category));
+    CatalogSnapshot replica = replica();
+    if (replica != null) {
+      return replica.getItemsByCategory(category);
+    }
+    return new ArrayList<>(itemRepository.findByCategoryKey(
+        Item.normalizeCategory(category)));
   }
 
   /**
@@ -130,35 +566,340 @@ public class DataService {
    * @return list of items containing the keyword
    */
   public ArrayList<Item> searchItemsByKeyword(String keyword) {
+    CatalogSnapshot replica = replica();
+    if (replica != null) {
+      return replica.searchItemsByKeyword(keyword);
+    }
     return new ArrayList<>(itemRepository.findByNameContainingIgnoreCase(keyword));
   }
 
+  // ===== Keyset pages =====
+
+  /**
+   * Retrieves a page of all items, in ID order.
+   *
+   * @param cursor the cursor token from the previous page, or null for the first page
+   * @param limit the page size, or null for the largest allowed
+   * @return the page
+   * @throws IllegalArgumentException if the cursor or limit is invalid
+   */
+  public KeysetPage<Item> getItemsPage(String cursor, Integer limit) {
+    final int afterId = PageCursor.decode(cursor).getId();
+    final int size = pageSize(limit);
+    CatalogSnapshot replica = replica();
+    List<Item> rows = replica != null
+        ? replica.getItemsAfter(afterId, size + 1)
+        : itemRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(size + 1));
+    return KeysetPage.of(rows, size, DataService::itemIdCursor);
+  }
+
+  /**
+   * Retrieves a page of a store's items, in ID order.
+   *
+   * @param storeId the ID of the store
+   * @param cursor the cursor token from the previous page, or null for the first page
+   * @param limit the page size, or null for the largest allowed
+   * @return the page
+   * @throws IllegalArgumentException if the cursor or limit is invalid
+   */
+  public KeysetPage<Item> getItemsByStorePage(int storeId, String cursor, Integer limit) {
+    final int afterId = PageCursor.decode(cursor).getId();
+    final int size = pageSize(limit);
+    CatalogSnapshot replica = replica();
+    List<Item> rows = replica != null
+        ? replica.getStoreView(storeId).getItemsAfter(afterId, size + 1)
+        : itemRepository.findByStoreIdAndIdGreaterThanOrderByIdAsc(storeId, afterId,
+            Limit.of(size + 1));
+    return KeysetPage.of(rows, size, DataService::itemIdCursor);
+  }
+
   /**
-   * Deletes an item from the system.
+   * Retrieves a page of the items whose name contains a keyword, in ID order.
+   *
+   * @param keyword the keyword to search for
+   * @param cursor the cursor token from the previous page, or null for the first page
+   * @param limit the page size, or null for the largest allowed
+   * @return the page
+   * @throws IllegalArgumentException if the cursor or limit is invalid
+   */
+  public KeysetPage<Item> searchItemsPage(String keyword, String cursor, Integer limit) {
+    final int afterId = PageCursor.decode(cursor).getId();
+    final int size = pageSize(limit);
+    CatalogSnapshot replica = replica();
+    List<Item> rows = replica != null
+        ? replica.searchItemsByKeywordAfter(keyword, afterId, size + 1)
+        : itemRepository.findByNameContainingIgnoreCaseAndIdGreaterThanOrderByIdAsc(keyword,
+            afterId, Limit.of(size + 1));
+    return KeysetPage.of(rows, size, DataService::itemIdCursor);
+  }
+
+  /**
+   * Retrieves a page of the items in a category, ignoring case, cheapest first and then
+   * by ID.
+   *
+   * @param category the category
+   * @param cursor the cursor token from the previous page, or null for the first page
+   * @param limit the page size, or null for the largest allowed
+   * @return the page
+   * @throws IllegalArgumentException if the cursor or limit is invalid
+   */
+  public KeysetPage<Item> getItemsByCategoryPage(String category, String cursor,
+                                                 Integer limit) {
+    final PageCursor after = PageCursor.decode(cursor);
+    final int size = pageSize(limit);
+    CatalogSnapshot replica = replica();
+    List<Item> rows;
+    if (replica != null) {
+      rows = replica.getItemsByCategoryAfter(category, after.getPrice(), after.getId(),
+          size + 1);
+    } else if (after.isStart()) {
+      rows = itemRepository.findByCategoryKeyOrderByPriceAscIdAsc(
+          Item.normalizeCategory(category), Limit.of(size + 1));
+    } else {
+      rows = itemRepository.findByCategoryAfter(Item.normalizeCategory(category),
+          after.getPrice(), after.getId(), Limit.of(size + 1));
+    }
+    return KeysetPage.of(rows, size,
+        item -> PageCursor.after(item.getPrice(), item.getId()));
+  }
+
+  /**
+   * Retrieves a page of all coupons, in ID order.
+   *
+   * @param cursor the cursor token from the previous page, or null for the first page
+   * @param limit the page size, or null for the largest allowed
+   * @return the page
+   * @throws IllegalArgumentException if the cursor or limit is invalid
+   */
+  public KeysetPage<Coupon> getCouponsPage(String cursor, Integer limit) {
+    final int afterId = PageCursor.decode(cursor).getId();
+    final int size = pageSize(limit);
+    CatalogSnapshot replica = replica();
+    List<Coupon> rows = replica != null
+        ? replica.getCouponsAfter(afterId, size + 1)
+        : couponRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(size + 1));
+    return KeysetPage.of(rows, size, DataService::couponIdCursor);
+  }
+
+  /**
+   * Retrieves a page of a store's coupons, in ID order.
+   *
+   * @param storeId the ID of the store
+   * @param cursor the cursor token from the previous page, or null for the first page
+   * @param limit the page size, or null for the largest allowed
+   * @return the page
+   * @throws IllegalArgumentException if the cursor or limit is invalid
+   */
+  public KeysetPage<Coupon> getCouponsByStorePage(int storeId, String cursor, Integer limit) {
+    final int afterId = PageCursor.decode(cursor).getId();
+    final int size = pageSize(limit);
+    CatalogSnapshot replica = replica();
+    List<Coupon> rows = replica != null
+        ? replica.getStoreView(storeId).getCouponsAfter(afterId, size + 1)
+        : couponRepository.findByStoreIdAndIdGreaterThanOrderByIdAsc(storeId, afterId,
+            Limit.of(size + 1));
+    return KeysetPage.of(rows, size, DataService::couponIdCursor);
+  }
+
+  // ===== Sparse fieldsets =====
+
+  /**
+   * Retrieves only the requested properties of an item. Replica reads project the
+   * in-memory item; database reads select just the requested columns.
+   *
+   * @param id the item ID
+   * @param fields the properties to return
+   * @return the item's selected properties, or null if not found
+   */
+  public ItemRow getItemFields(int id, ItemFields fields) {
+    CatalogSnapshot replica = replica();
+    if (replica != null) {
+      Item item = replica.getItem(id);
+      return item == null ? null : fields.project(item);
+    }
+    Tuple row = itemRepository.findColumnsById(id, fields.getNames());
+    return row == null ? null : fields.project(row);
+  }
+
+  /**
+   * Retrieves a page of an item list with only the requested properties of each item,
+   * in the same order and with the same cursors as the full item pages. Replica reads
+   * project the in-memory items; database reads select just the requested columns plus
+   * the keys the list is ordered by, without loading {@link Item} entities.
+   *
+   * @param scope which items to list
+   * @param fields the properties to return
+   * @param cursor the cursor token from the previous page, or null for the first page
+   * @param limit the page size, or null for the largest allowed
+   * @return the page
+   * @throws IllegalArgumentException if the cursor or limit is invalid
+   */
+  public KeysetPage<ItemRow> getItemFieldsPage(ItemScope scope, ItemFields fields,
+                                               String cursor, Integer limit) {
+    final PageCursor after = PageCursor.decode(cursor);
+    final int size = pageSize(limit);
+    CatalogSnapshot replica = replica();
+    if (replica != null) {
+      List<Item> rows = replicaItemsAfter(replica, scope, after, size + 1);
+      return KeysetPage.of(rows, size, scope.isOrderedByPrice()
+          ? item -> PageCursor.after(item.getPrice(), item.getId())
+          : DataService::itemIdCursor, fields::project);
+    }
+    List<String> columns = scope.isOrderedByPrice()
+        ? fields.columnsWith("id", "price")
+        : fields.columnsWith("id");
+    List<Tuple> rows = itemRepository.findColumnsAfter(scope, columns, after.getPrice(),
+        after.getId(), size + 1);
+    return KeysetPage.of(rows, size, scope.isOrderedByPrice()
+        ? row -> PageCursor.after(row.get("price", Double.class), row.get("id", Integer.class))
+        : row -> PageCursor.afterId(row.get("id", Integer.class)), fields::project);
+  }
+
+  private static List<Item> replicaItemsAfter(CatalogSnapshot replica, ItemScope scope,
+                                              PageCursor after, int limit) {
+    switch (scope.getKind()) {
+      case STORE:
+        return replica.getStoreView(scope.getStoreId()).getItemsAfter(after.getId(), limit);
+      case KEYWORD:
+        return replica.searchItemsByKeywordAfter(scope.getText(), after.getId(), limit);
+      case CATEGORY:
+        return replica.getItemsByCategoryAfter(scope.getText(), after.getPrice(),
+            after.getId(), limit);
+      default:
+        return replica.getItemsAfter(after.getId(), limit);
+    }
+  }
+
+  /**
+   * Returns the page size for a requested limit, capped at the maximum page size.
+   */
+  private int pageSize(Integer limit) {
+    if (limit == null) {
+      return maxPageSize;
+    }
+    if (limit < 1) {
+      throw new IllegalArgumentException("Limit must be at least 1.");
+    }
+    return Math.min(limit, maxPageSize);
+  }
+
+  private static PageCursor itemIdCursor(Item item) {
+    return PageCursor.afterId(item.getId());
+  }
+
+  private static PageCursor couponIdCursor(Coupon coupon) {
+    return PageCursor.afterId(coupon.getId());
+  }
+
+  // ===== Price updates =====
+
+  /**
+   * Sets the prices of items by ID. Each batch of the configured size is one set-based
+   * {@code UPDATE} that commits on its own, after which only the stores owning the batch's
+   * items are rebuilt in the catalog replica. Unknown IDs are ignored.
+   *
+   * @param prices the new price of each item, by item ID
+   * @return the rows updated and the stores they belong to
+   */
+  public PriceUpdateReport updatePrices(Map<Integer, Double> prices) {
+    final long start = System.nanoTime();
+    PriceUpdateReport report = new PriceUpdateReport();
+    List<Map.Entry<Integer, Double>> entries = new ArrayList<>(prices.entrySet());
+    for (int from = 0; from < entries.size(); from += updateBatchSize) {
+      Map<Integer, Double> batch = mapOf(
+          entries.subList(from, Math.min(entries.size(), from + updateBatchSize)));
+      transactionTemplate.executeWithoutResult(status -> {
+        report.addItems(itemRepository.updatePrices(batch));
+        publishRepriced(batch.keySet(), report);
+      });
+    }
+    report.finish(System.nanoTime() - start);
+    return report;
+  }
+
+  /**
+   * Scales the prices of a store's items in a category, ignoring case, by a percentage.
+   * New prices are rounded to cents. The items are updated in batches of the configured
+   * size with set-based {@code UPDATE} statements that each commit on their own, and only
+   * the store's view in the catalog replica is rebuilt.
+   *
+   * @param storeId the store ID
+   * @param category the category to reprice
+   * @param percent the change, for example -10 for 10% off
+   * @return the rows updated
+   */
+  public PriceUpdateReport scaleCategoryPrices(int storeId, String category, double percent) {
+    final long start = System.nanoTime();
+    final double factor = 1 + percent / 100;
+    final String categoryKey = Item.normalizeCategory(category);
+    PriceUpdateReport report = new PriceUpdateReport();
+    Limit limit = Limit.of(updateBatchSize);
+    int lastId = 0;
+    List<Integer> batch;
+    do {
+      final int after = lastId;
+      batch = transactionTemplate.execute(status -> {
+        List<Integer> ids = itemRepository.findIdsByStoreIdAndCategoryAfter(storeId,
+            categoryKey, after, limit);
+        if (!ids.isEmpty()) {
+          report.addItems(itemRepository.scalePricesByIdIn(ids, factor));
+          publishRepriced(ids, report);
+        }
+        return ids;
+      });
+      if (batch != null && !batch.isEmpty()) {
+        lastId = batch.get(batch.size() - 1);
+      }
+    } while (batch != null && batch.size() == updateBatchSize);
+    report.finish(System.nanoTime() - start);
+    return report;
+  }
+
+  private static Map<Integer, Double> mapOf(List<Map.Entry<Integer, Double>> entries) {
+    Map<Integer, Double> map = new LinkedHashMap<>();
+    for (Map.Entry<Integer, Double> entry : entries) {
+      map.put(entry.getKey(), entry.getValue());
+    }
+    return map;
+  }
+
+  /**
+   * Reads back one batch of repriced items and publishes them, so the replica rebuilds
+   * the stores that own them once the batch commits. Must run in a transaction.
+   */
+  private void publishRepriced(Collection<Integer> ids, PriceUpdateReport report) {
+    List<Item> items = itemRepository.findByIdIn(ids);
+    if (items.isEmpty()) {
+      return;
+    }
+    for (Item item : items) {
+      report.addStore(item.getStoreId());
+    }
+    report.addBatch();
+    eventPublisher.publishEvent(CatalogChangeEvent.updatedItems(items));
+  }
+
+  // ===== Deletes =====
+
+  /**
+   * Deletes an item from the system, together with the item coupons that target it.
    *
    * @param id the item ID
    * @return true if deleted, false if not found
    */
   public boolean deleteItem(int id) {
-    if (itemRepository.existsById(id)) {
-      itemRepository.deleteById(id);
-      return true;
-    }
-    return false;
+    return deleteItems(List.of(id)).getItemsDeleted() > 0;
   }
 
   /**
-   * Deletes a store from the system.
+   * Deletes a store from the system, together with its items and coupons and the item
+   * coupons of other stores that target its items.
    *
    * @param id the store ID
    * @return true if deleted, false if not found
    */
   public boolean deleteStore(int id) {
-    if (storeRepository.existsById(id)) {
-      storeRepository.deleteById(id);
-      return true;
-    }
-    return false;
+    return deleteStoreWithContents(id) != null;
   }
 
   /**
@@ -168,10 +909,203 @@ public class DataService {
    * @return true if deleted, false if not found
    */
   public boolean deleteCoupon(int id) {
-    if (couponRepository.existsById(id)) {
-      couponRepository.deleteById(id);
-      return true;
+    return deleteCoupons(List.of(id)).getCouponsDeleted() > 0;
+  }
+
+  /**
+   * Deletes items by ID, together with the item coupons that target them. Rows are
+   * removed with set-based statements, without loading them, in batches of the
+   * configured size that each commit on their own. Unknown IDs are ignored.
+   *
+   * @param ids the item IDs
+   * @return the rows deleted
+   */
+  public DeleteReport deleteItems(Collection<Integer> ids) {
+    final long start = System.nanoTime();
+    DeleteReport report = new DeleteReport();
+    List<Integer> distinct = ids.stream().distinct().toList();
+    for (int from = 0; from < distinct.size(); from += deleteBatchSize) {
+      List<Integer> batch = distinct.subList(from,
+          Math.min(distinct.size(), from + deleteBatchSize));
+      transactionTemplate.executeWithoutResult(status -> deleteItemBatch(batch, report));
+    }
+    report.finish(System.nanoTime() - start);
+    return report;
+  }
+
+  /**
+   * Deletes every item of a store, together with the item coupons that target them, in
+   * bounded batches that each commit on their own.
+   *
+   * @param storeId the store ID
+   * @return the rows deleted
+   */
+  public DeleteReport deleteItemsByStore(int storeId) {
+    final long start = System.nanoTime();
+    DeleteReport report = new DeleteReport();
+    deleteItemsOfStore(storeId, report);
+    report.finish(System.nanoTime() - start);
+    return report;
+  }
+
+  /**
+   * Deletes coupons by ID with set-based statements, in batches that each commit on
+   * their own. Unknown IDs are ignored.
+   *
+   * @param ids the coupon IDs
+   * @return the rows deleted
+   */
+  public DeleteReport deleteCoupons(Collection<Integer> ids) {
+    final long start = System.nanoTime();
+    DeleteReport report = new DeleteReport();
+    List<Integer> distinct = ids.stream().distinct().toList();
+    for (int from = 0; from < distinct.size(); from += deleteBatchSize) {
+      List<Integer> batch = distinct.subList(from,
+          Math.min(distinct.size(), from + deleteBatchSize));
+      transactionTemplate.executeWithoutResult(status -> deleteCouponBatch(batch, report));
+    }
+    report.finish(System.nanoTime() - start);
+    return report;
+  }
+
+  /**
+   * Deletes every coupon of a store in bounded batches that each commit on their own.
+   *
+   * @param storeId the store ID
+   * @return the rows deleted
+   */
+  public DeleteReport deleteCouponsByStore(int storeId) {
+    final long start = System.nanoTime();
+    DeleteReport report = new DeleteReport();
+    deleteCouponsOfStore(storeId, report);
+    report.finish(System.nanoTime() - start);
+    return report;
+  }
+
+  /**
+   * Deletes a store after its coupons, its items, and the item coupons of other stores
+   * that target its items, each in bounded batches that commit on their own. Nothing is
+   * loaded as an entity.
+   *
+   * <p>Writers hold a shared lock on the rows of the stores they add to. The last
+   * transaction locks the store's row, which waits for them, deletes whatever they added
+   * after the batches above, and then the store, so no item or coupon outlives it.
+   *
+   * @param id the store ID
+   * @return the rows deleted, or null if the store does not exist
+   */
+  public DeleteReport deleteStoreWithContents(int id) {
+    if (!storeRepository.existsById(id)) {
+      return null;
+    }
+    final long start = System.nanoTime();
+    DeleteReport report = new DeleteReport();
+    deleteCouponsOfStore(id, report);
+    deleteItemsOfStore(id, report);
+    transactionTemplate.executeWithoutResult(status -> {
+      if (storeRepository.findIdForUpdateById(id).isEmpty()) {
+        return;
+      }
+      deleteRemaining(id, report);
+      int deleted = storeRepository.deleteRowById(id);
+      report.addStores(deleted);
+      report.addBatch();
+      if (deleted > 0) {
+        eventPublisher.publishEvent(
+            CatalogChangeEvent.deleted(CatalogChangeEvent.EntityType.STORE, id));
+      }
+    });
+    report.finish(System.nanoTime() - start);
+    return report;
+  }
+
+  /**
+   * Deletes the store's remaining coupons and items in this transaction. Must run in a
+   * transaction.
+   */
+  private void deleteRemaining(int storeId, DeleteReport report) {
+    Limit limit = Limit.of(deleteBatchSize);
+    List<Integer> coupons = couponRepository.findIdsByStoreId(storeId, limit);
+    while (!coupons.isEmpty()) {
+      deleteCouponBatch(coupons, report);
+      coupons = couponRepository.findIdsByStoreId(storeId, limit);
+    }
+    List<Integer> items = itemRepository.findIdsByStoreId(storeId, limit);
+    while (!items.isEmpty()) {
+      deleteItemBatch(items, report);
+      items = itemRepository.findIdsByStoreId(storeId, limit);
+    }
+  }
+
+  private void deleteItemsOfStore(int storeId, DeleteReport report) {
+    Limit limit = Limit.of(deleteBatchSize);
+    Integer deleted;
+    do {
+      deleted = transactionTemplate.execute(status -> {
+        List<Integer> batch = itemRepository.findIdsByStoreId(storeId, limit);
+        deleteItemBatch(batch, report);
+        return batch.size();
+      });
+    } while (deleted != null && deleted == deleteBatchSize);
+  }
+
+  private void deleteCouponsOfStore(int storeId, DeleteReport report) {
+    Limit limit = Limit.of(deleteBatchSize);
+    Integer deleted;
+    do {
+      deleted = transactionTemplate.execute(status -> {
+        List<Integer> batch = couponRepository.findIdsByStoreId(storeId, limit);
+        deleteCouponBatch(batch, report);
+        return batch.size();
+      });
+    } while (deleted != null && deleted == deleteBatchSize);
+  }
+
+  /**
+   * Deletes one batch of items, their catalog sync keys, and the item coupons targeting
+   * them. Only the items that exist are deleted and published, together with the stores
+   * whose sync keys went with them. Must run in a transaction.
+   */
+  private void deleteItemBatch(List<Integer> ids, DeleteReport report) {
+    if (ids.isEmpty()) {
+      return;
+    }
+    List<Integer> existing = itemRepository.findIdsForUpdateByIdIn(ids);
+    if (!existing.isEmpty()) {
+      deleteCouponRows(couponRepository.findIdsByTargetItemIdIn(existing), report);
+      List<Integer> syncedStores = itemSyncKeyRepository.findStoreIdsByItemIdIn(existing);
+      if (!syncedStores.isEmpty()) {
+        itemSyncKeyRepository.deleteRowsByItemIdIn(existing);
+        eventPublisher.publishEvent(new CatalogSyncService.SyncKeysDeleted(syncedStores));
+      }
+      report.addItems(itemRepository.deleteRowsByIdIn(existing));
+      eventPublisher.publishEvent(
+          CatalogChangeEvent.deletedAll(CatalogChangeEvent.EntityType.ITEM, existing));
+    }
+    report.addBatch();
+  }
+
+  /**
+   * Deletes one batch of coupons. Must run in a transaction.
+   */
+  private void deleteCouponBatch(List<Integer> ids, DeleteReport report) {
+    if (ids.isEmpty()) {
+      return;
+    }
+    deleteCouponRows(ids, report);
+    report.addBatch();
+  }
+
+  /**
+   * Deletes the coupons that exist among the given ones and publishes their IDs. Must run
+   * in a transaction.
+   */
+  private void deleteCouponRows(List<Integer> ids, DeleteReport report) {
+    List<Integer> existing = ids.isEmpty() ? ids : couponRepository.findIdsForUpdateByIdIn(ids);
+    if (!existing.isEmpty()) {
+      report.addCoupons(couponRepository.deleteRowsByIdIn(existing));
+      eventPublisher.publishEvent(
+          CatalogChangeEvent.deletedAll(CatalogChangeEvent.EntityType.COUPON, existing));
     }
-    return false;
   }
 }
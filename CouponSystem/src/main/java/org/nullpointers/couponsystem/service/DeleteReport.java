@@ -0,0 +1,59 @@
+package org.nullpointers.couponsystem.service;
+
+/**
+ * The rows removed by a bulk or cascading delete. Each batch commits on its own, so if
+ * a delete fails part-way the rows counted by its completed batches stay deleted.
+ */
+public class DeleteReport {
+  private int storesDeleted;
+  private long itemsDeleted;
+  private long couponsDeleted;
+  private int batches;
+  private long elapsedMillis;
+
+  void addStores(int count) {
+    storesDeleted += count;
+  }
+
+  void addItems(int count) {
+    itemsDeleted += count;
+  }
+
+  void addCoupons(int count) {
+    couponsDeleted += count;
+  }
+
+  void addBatch() {
+    batches++;
+  }
+
+  void finish(long elapsedNanos) {
+    elapsedMillis = elapsedNanos / 1_000_000;
+  }
+
+  public int getStoresDeleted() {
+    return storesDeleted;
+  }
+
+  public long getItemsDeleted() {
+    return itemsDeleted;
+  }
+
+  /**
+   * Returns the number of coupons deleted, including item coupons removed because their
+   * target item was deleted.
+   *
+   * @return the coupon count
+   */
+  public long getCouponsDeleted() {
+    return couponsDeleted;
+  }
+
+  public int getBatches() {
+    return batches;
+  }
+
+  public long getElapsedMillis() {
+    return elapsedMillis;
+  }
+}
@@ -0,0 +1,125 @@
+package org.nullpointers.couponsystem.service;
+
+import jakarta.persistence.Tuple;
+import java.util.ArrayList;
+import java.util.List;
+import org.nullpointers.couponsystem.model.Item;
+
+/**
+ * A sparse fieldset for items: the item properties a client asked for with
+ * {@code ?fields=}. Items and column-query rows are projected to {@link ItemRow}s that
+ * serialize only those properties, in the order items serialize them, whichever order
+ * they were requested in.
+ */
+public final class ItemFields {
+  /** Every item property, in serialization order. */
+  public static final List<String> NAMES = List.of("id", "name", "price", "storeId",
+      "category");
+
+  static final int ID = 0;
+  static final int NAME = 1;
+  static final int PRICE = 2;
+  static final int STORE_ID = 3;
+  static final int CATEGORY = 4;
+
+  private final boolean[] selected;
+  private final List<String> names;
+
+  private ItemFields(boolean[] selected) {
+    this.selected = selected;
+    List<String> chosen = new ArrayList<>();
+    for (int i = 0; i < selected.length; i++) {
+      if (selected[i]) {
+        chosen.add(NAMES.get(i));
+      }
+    }
+    this.names = List.copyOf(chosen);
+  }
+
+  /**
+   * Parses a comma-separated list of item properties. Blank entries are ignored and
+   * repeated names count once.
+   *
+   * @param fields the {@code fields} parameter, for example {@code id,name,price}
+   * @return the fieldset
+   * @throws IllegalArgumentException if a name is not an item property or none are given
+   */
+  public static ItemFields parse(String fields) {
+    boolean[] selected = new boolean[NAMES.size()];
+    boolean any = false;
+    for (String field : fields.split(",")) {
+      String name = field.trim();
+      if (name.isEmpty()) {
+        continue;
+      }
+      int index = NAMES.indexOf(name);
+      if (index < 0) {
+        throw new IllegalArgumentException("Unknown field: " + name + ". Allowed fields: "
+            + String.join(", ", NAMES) + ".");
+      }
+      selected[index] = true;
+      any = true;
+    }
+    if (!any) {
+      throw new IllegalArgumentException("Fields cannot be empty.");
+    }
+    return new ItemFields(selected);
+  }
+
+  /**
+   * Returns the selected properties, in serialization order.
+   *
+   * @return the property names
+   */
+  public List<String> getNames() {
+    return names;
+  }
+
+  /**
+   * Returns the columns to select for a query that also needs some properties of its own,
+   * such as the keys a keyset page is ordered by.
+   *
+   * @param required properties the query needs whether or not they were requested
+   * @return the selected properties plus any required ones not already selected
+   */
+  public List<String> columnsWith(String... required) {
+    List<String> columns = new ArrayList<>(names);
+    for (String name : required) {
+      if (!columns.contains(name)) {
+        columns.add(name);
+      }
+    }
+    return columns;
+  }
+
+  boolean includes(int property) {
+    return selected[property];
+  }
+
+  /**
+   * Projects a loaded item.
+   *
+   * @param item the item
+   * @return the selected properties of the item
+   */
+  public ItemRow project(Item item) {
+    return new ItemRow(this, item.getId(), item.getName(), item.getPrice(),
+        item.getStoreId(), item.getCategory());
+  }
+
+  /**
+   * Projects a row read by a column query. Columns that were only selected for the
+   * query's own use are left out.
+   *
+   * @param tuple the row, with elements aliased by property name
+   * @return the selected properties of the row
+   */
+  public ItemRow project(Tuple tuple) {
+    return new ItemRow(this,
+        selected[ID] ? tuple.get("id", Integer.class) : 0,
+        selected[NAME] ? tuple.get("name", String.class) : null,
+        selected[PRICE] ? tuple.get("price", Double.class) : 0.0,
+        selected[STORE_ID] ? tuple.get("storeId", Integer.class) : 0,
+        selected[CATEGORY] ? tuple.get("category", String.class) : null);
+  }
+}
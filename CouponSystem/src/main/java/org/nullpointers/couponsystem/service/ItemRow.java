@@ -0,0 +1,92 @@
+package org.nullpointers.couponsystem.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import java.io.IOException;
+
+/**
+ * The selected properties of one item, as returned for a sparse fieldset. Properties
+ * outside the fieldset are not set and are left out when the row is serialized. Rows are
+ * written field by field with primitive values, without going through a map.
+ */
+@JsonSerialize(using = ItemRow.Serializer.class)
+public final class ItemRow {
+  private final ItemFields fields;
+  private final int id;
+  private final String name;
+  private final double price;
+  private final int storeId;
+  private final String category;
+
+  ItemRow(ItemFields fields, int id, String name, double price, int storeId,
+          String category) {
+    this.fields = fields;
+    this.id = id;
+    this.name = name;
+    this.price = price;
+    this.storeId = storeId;
+    this.category = category;
+  }
+
+  public ItemFields getFields() {
+    return fields;
+  }
+
+  /**
+   * Returns one selected property.
+   *
+   * @param property the property name
+   * @return the value, or null if the property is not in the row's fieldset
+   */
+  public Object get(String property) {
+    if (!fields.getNames().contains(property)) {
+      return null;
+    }
+    switch (property) {
+      case "id":
+        return id;
+      case "name":
+        return name;
+      case "price":
+        return price;
+      case "storeId":
+        return storeId;
+      default:
+        return category;
+    }
+  }
+
+  /**
+   * Writes the selected properties in the order items serialize them.
+   */
+  static class Serializer extends StdSerializer<ItemRow> {
+    Serializer() {
+      super(ItemRow.class);
+    }
+
+    @Override
+    public void serialize(ItemRow row, JsonGenerator gen, SerializerProvider provider)
+        throws IOException {
+      ItemFields fields = row.fields;
+      gen.writeStartObject(row);
+      if (fields.includes(ItemFields.ID)) {
+        gen.writeNumberField("id", row.id);
+      }
+      if (fields.includes(ItemFields.NAME)) {
+        gen.writeStringField("name", row.name);
+      }
+      if (fields.includes(ItemFields.PRICE)) {
+        gen.writeNumberField("price", row.price);
+      }
+      if (fields.includes(ItemFields.STORE_ID)) {
+        gen.writeNumberField("storeId", row.storeId);
+      }
+      if (fields.includes(ItemFields.CATEGORY)) {
+        gen.writeStringField("category", row.category);
+      }
+      gen.writeEndObject();
+    }
+  }
+}
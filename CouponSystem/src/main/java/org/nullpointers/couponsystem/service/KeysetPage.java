@@ -0,0 +1,83 @@
+package org.nullpointers.couponsystem.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset-paginated list, with the cursor for the page after it.
+ *
+ * @param <T> the row type
+ */
+public class KeysetPage<T> {
+  private final ArrayList<T> items;
+  private final String next;
+
+  /**
+   * Creates a page.
+   *
+   * @param items the rows on this page
+   * @param next the cursor token for the next page, or null if this is the last page
+   */
+  public KeysetPage(ArrayList<T> items, String next) {
+    this.items = items;
+    this.next = next;
+  }
+
+  /**
+   * Builds a page from rows fetched with a limit one above the page size, so that the
+   * extra row, if present, shows there is a next page without another query.
+   *
+   * @param rows up to {@code pageSize + 1} rows, in list order
+   * @param pageSize the page size
+   * @param cursorOf the cursor after a row
+   * @param <T> the row type
+   * @return the page
+   */
+  public static <T> KeysetPage<T> of(List<T> rows, int pageSize,
+                                     Function<T, PageCursor> cursorOf) {
+    if (rows.size() <= pageSize) {
+      return new KeysetPage<>(new ArrayList<>(rows), null);
+    }
+    ArrayList<T> items = new ArrayList<>(rows.subList(0, pageSize));
+    return new KeysetPage<>(items, cursorOf.apply(items.get(pageSize - 1)).encode());
+  }
+
+  /**
+   * Builds a page like {@link #of(List, int, Function)}, converting each row kept on the
+   * page. The cursor is taken from the fetched row, so it may use columns the converted
+   * row leaves out.
+   *
+   * @param rows up to {@code pageSize + 1} rows, in list order
+   * @param pageSize the page size
+   * @param cursorOf the cursor after a fetched row
+   * @param convert converts a fetched row to the row returned on the page
+   * @param <R> the fetched row type
+   * @param <T> the returned row type
+   * @return the page
+   */
+  public static <R, T> KeysetPage<T> of(List<R> rows, int pageSize,
+                                        Function<R, PageCursor> cursorOf,
+                                        Function<R, T> convert) {
+    final int count = Math.min(rows.size(), pageSize);
+    ArrayList<T> items = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      items.add(convert.apply(rows.get(i)));
+    }
+    String next = rows.size() > pageSize ? cursorOf.apply(rows.get(pageSize - 1)).encode()
+        : null;
+    return new KeysetPage<>(items, next);
+  }
+
+  public ArrayList<T> getItems() {
+    return items;
+  }
+
+  public String getNext() {
+    return next;
+  }
+
+  public boolean hasNext() {
+    return next != null;
+  }
+}
@@ -0,0 +1,99 @@
+package org.nullpointers.couponsystem.service;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+/**
+ * Position in a keyset-paginated list: the sort key of the last row a client has seen.
+ * Lists ordered by ID only use {@link #getId()}; lists ordered by price use both fields.
+ *
+ * <p>Clients see the cursor as an opaque URL-safe token and pass it back unchanged to get
+ * the next page. A page is found by seeking to the rows after the cursor, so page N costs
+ * the same as page 1, and rows added or removed on earlier pages do not shift later ones.
+ */
+public final class PageCursor {
+  /** Position before the first row. IDs are always positive. */
+  public static final PageCursor START = new PageCursor(Double.NEGATIVE_INFINITY, 0);
+
+  private static final int TOKEN_BYTES = Double.BYTES + Integer.BYTES;
+
+  private final double price;
+  private final int id;
+
+  private PageCursor(double price, int id) {
+    this.price = price;
+    this.id = id;
+  }
+
+  /**
+   * Returns the position after a row of a list ordered by ID.
+   *
+   * @param id the row's ID
+   * @return the cursor
+   */
+  public static PageCursor afterId(int id) {
+    return new PageCursor(Double.NEGATIVE_INFINITY, id);
+  }
+
+  /**
+   * Returns the position after a row of a list ordered by price, then ID.
+   *
+   * @param price the row's price
+   * @param id the row's ID
+   * @return the cursor
+   */
+  public static PageCursor after(double price, int id) {
+    return new PageCursor(price, id);
+  }
+
+  /**
+   * Decodes a token from {@link #encode()}.
+   *
+   * @param token the token, or null or blank for the first page
+   * @return the cursor
+   * @throws IllegalArgumentException if the token is not a valid cursor
+   */
+  public static PageCursor decode(String token) {
+    if (token == null || token.isBlank()) {
+      return START;
+    }
+    byte[] bytes;
+    try {
+      bytes = Base64.getUrlDecoder().decode(token);
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Invalid cursor.", e);
+    }
+    if (bytes.length != TOKEN_BYTES) {
+      throw new IllegalArgumentException("Invalid cursor.");
+    }
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    double price = buffer.getDouble();
+    int id = buffer.getInt();
+    if (Double.isNaN(price) || id < 0) {
+      throw new IllegalArgumentException("Invalid cursor.");
+    }
+    return new PageCursor(price, id);
+  }
+
+  /**
+   * Encodes this cursor as an opaque URL-safe token.
+   *
+   * @return the token
+   */
+  public String encode() {
+    ByteBuffer buffer = ByteBuffer.allocate(TOKEN_BYTES).putDouble(price).putInt(id);
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+  }
+
+  public boolean isStart() {
+    return id == 0 && price == Double.NEGATIVE_INFINITY;
+  }
+
+  public double getPrice() {
+    return price;
+  }
+
+  public int getId() {
+    return id;
+  }
+}
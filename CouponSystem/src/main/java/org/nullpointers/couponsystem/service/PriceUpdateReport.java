@@ -0,0 +1,53 @@
+package org.nullpointers.couponsystem.service;
+
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * The result of a bulk price update. Each batch commits on its own, so if an update
+ * fails part-way the rows counted by its completed batches keep their new prices.
+ */
+public class PriceUpdateReport {
+  private final TreeSet<Integer> stores = new TreeSet<>();
+  private long itemsUpdated;
+  private int batches;
+  private long elapsedMillis;
+
+  void addItems(int count) {
+    itemsUpdated += count;
+  }
+
+  void addStore(int storeId) {
+    stores.add(storeId);
+  }
+
+  void addBatch() {
+    batches++;
+  }
+
+  void finish(long elapsedNanos) {
+    elapsedMillis = elapsedNanos / 1_000_000;
+  }
+
+  public long getItemsUpdated() {
+    return itemsUpdated;
+  }
+
+  /**
+   * Returns the stores whose items were repriced. Only these stores' views in the
+   * catalog replica were rebuilt.
+   *
+   * @return the store IDs, in ascending order
+   */
+  public List<Integer> getStoresAffected() {
+    return List.copyOf(stores);
+  }
+
+  public int getBatches() {
+    return batches;
+  }
+
+  public long getElapsedMillis() {
+    return elapsedMillis;
+  }
+}
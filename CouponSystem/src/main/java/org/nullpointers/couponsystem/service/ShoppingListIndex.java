@@ -0,0 +1,113 @@
+package org.nullpointers.couponsystem.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.nullpointers.couponsystem.model.Item;
+
+/**
+ * Per-store index of the cheapest item matching each entry of a shopping list.
+ * Every list entry is resolved with a single lookup, and the matches are folded into
+ * one slot array per store, where slot {@code i} holds that store's cheapest match for
+ * entry {@code i} (or null if the store has no match).
+ */
+public class ShoppingListIndex {
+  private final ArrayList<String> entries;
+  private final HashMap<Integer, Item[]> cheapestByStore;
+
+  private ShoppingListIndex(ArrayList<String> entries) {
+    this.entries = entries;
+    this.cheapestByStore = new HashMap<>();
+  }
+
+  /**
+   * Resolves every keyword and category entry of a shopping list and indexes the
+   * cheapest match per store. Keyword entries come first, followed by category entries.
+   *
+   * @param dataService the data service used to resolve entries
+   * @param keywords keywords to match against item names (can be null)
+   * @param categories categories to match (can be null)
+   * @return the index for the list
+   */
+  public static ShoppingListIndex build(DataService dataService,
+                                        List<String> keywords, List<String> categories) {
+    ArrayList<String> entries = new ArrayList<>();
+    if (keywords != null) {
+      entries.addAll(keywords);
+    }
+    int keywordCount = entries.size();
+    if (categories != null) {
+      entries.addAll(categories);
+    }
+
+    ShoppingListIndex index = new ShoppingListIndex(entries);
+    for (int i = 0; i < entries.size(); i++) {
+      ArrayList<Item> matches = i < keywordCount
+          ? dataService.searchItemsByKeyword(entries.get(i))
+          : dataService.getItemsByCategory(entries.get(i));
+      index.addMatches(i, matches);
+    }
+    return index;
+  }
+
+  private void addMatches(int entry, List<Item> matches) {
+    for (Item item : matches) {
+      Item[] slots = slotsFor(item.getStoreId());
+      if (slots[entry] == null || item.getPrice() < slots[entry].getPrice()) {
+        slots[entry] = item;
+      }
+    }
+  }
+
+  private Item[] slotsFor(int storeId) {
+    Item[] slots = cheapestByStore.get(storeId);
+    if (slots == null) {
+      slots = new Item[entries.size()];
+      cheapestByStore.put(storeId, slots);
+    }
+    return slots;
+  }
+
+  public int getEntryCount() {
+    return entries.size();
+  }
+
+  public String getEntry(int entry) {
+    return entries.get(entry);
+  }
+
+  /**
+   * Returns the slot arrays of every store with at least one match.
+   * Callers must not modify the returned arrays.
+   *
+   * @return map from store ID to that store's cheapest match per entry
+   */
+  public Map<Integer, Item[]> getCheapestByStore() {
+    return cheapestByStore;
+  }
+
+  /**
+   * Returns the virtual cart of every store that carries a match for each entry.
+   *
+   * @return map from store ID to a cart holding the store's cheapest match per entry
+   */
+  public Map<Integer, Item[]> getCompleteCarts() {
+    HashMap<Integer, Item[]> carts = new HashMap<>();
+    for (Map.Entry<Integer, Item[]> store : cheapestByStore.entrySet()) {
+      if (isComplete(store.getValue())) {
+        carts.put(store.getKey(), store.getValue());
+      }
+    }
+    return carts;
+  }
+
+  private static boolean isComplete(Item[] slots) {
+    for (Item slot : slots) {
+      if (slot == null) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
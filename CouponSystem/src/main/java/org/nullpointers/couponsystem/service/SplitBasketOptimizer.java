@@ -0,0 +1,563 @@
+package org.nullpointers.couponsystem.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+import org.nullpointers.couponsystem.model.Coupon;
+import org.nullpointers.couponsystem.model.Item;
+
+/**
+ * Local search heuristic that splits a shopping list across up to K stores so that the
+ * total price after each store's best coupon is as low as possible.
+ *
+ * <p>Each list entry is bought from exactly one store, at that store's cheapest match
+ * taken from a {@link ShoppingListIndex}. A store's best coupon depends on which entries
+ * are sent there (for example, whether a TotalPriceCoupon threshold is crossed), so each
+ * candidate store cart is priced with {@link CouponService#bestCouponFor} and the result
+ * is memoized per store and entry set.
+ *
+ * <p>The search starts from a greedy cover of the list, or from an exact search for a
+ * cover when the greedy one needs too many stores, then repeatedly applies relocate
+ * moves (one entry to another store), swap-store moves (a store's whole cart to an unused
+ * store) and close-store moves (a store's entries to the other open stores), perturbing
+ * the plan when it reaches a local optimum. It stops when the time budget runs out or
+ * after {@link #MAX_STALE_ROUNDS} rounds without a better plan, and always returns the
+ * best plan found so far.
+ */
+public class SplitBasketOptimizer {
+  /** Longest supported list, since entry sets are tracked as 64-bit masks. */
+  public static final int MAX_ENTRIES = 64;
+
+  /** Rounds without a better plan after which the search is taken to have converged. */
+  public static final int MAX_STALE_ROUNDS = 200;
+
+  private static final double EPSILON = 1e-9;
+  private static final int MAX_MEMO_SIZE = 50_000;
+
+  private final int entryCount;
+  private final int[] storeIds;
+  private final Item[][] slots;
+  private final long[] coverMasks;
+  private final List<List<Coupon>> coupons;
+  private final List<Map<Long, Double>> costMemo;
+  private final int[][] options;
+
+  /**
+   * Creates an optimizer for one shopping list.
+   *
+   * @param index the per-store index of cheapest matches for the list
+   * @param couponsByStore the coupons of every store in the index, keyed by store ID
+   */
+  public SplitBasketOptimizer(ShoppingListIndex index,
+                              Map<Integer, List<Coupon>> couponsByStore) {
+    if (index.getEntryCount() > MAX_ENTRIES) {
+      throw new IllegalArgumentException(
+          "Shopping list cannot exceed " + MAX_ENTRIES + " entries.");
+    }
+    this.entryCount = index.getEntryCount();
+
+    Map<Integer, Item[]> byStore = index.getCheapestByStore();
+    this.storeIds = byStore.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+    this.slots = new Item[storeIds.length][];
+    this.coverMasks = new long[storeIds.length];
+    this.coupons = new ArrayList<>(storeIds.length);
+    this.costMemo = new ArrayList<>(storeIds.length);
+    for (int s = 0; s < storeIds.length; s++) {
+      slots[s] = byStore.get(storeIds[s]);
+      coupons.add(couponsByStore.getOrDefault(storeIds[s], List.of()));
+      costMemo.add(new HashMap<>());
+      for (int e = 0; e < entryCount; e++) {
+        if (slots[s][e] != null) {
+          coverMasks[s] |= 1L << e;
+        }
+      }
+    }
+
+    this.options = new int[entryCount][];
+    for (int e = 0; e < entryCount; e++) {
+      options[e] = storesCarrying(e);
+    }
+  }
+
+  private int[] storesCarrying(int entry) {
+    final long bit = 1L << entry;
+    return IntStream.range(0, storeIds.length)
+        .filter(s -> (coverMasks[s] & bit) != 0)
+        .boxed()
+        .sorted((a, b) -> Double.compare(slots[a][entry].getPrice(), slots[b][entry].getPrice()))
+        .mapToInt(Integer::intValue)
+        .toArray();
+  }
+
+  /**
+   * Searches for the cheapest assignment of list entries to at most {@code maxStores}
+   * stores within the given time budget.
+   *
+   * @param maxStores the maximum number of stores the shopper is willing to visit
+   * @param timeBudgetNanos the time budget for the search in nanoseconds
+   * @param seed seed for the perturbation step, so runs are reproducible
+   * @return the best plan found, or null if no set of {@code maxStores} stores carrying
+   *     every entry was found within the time budget
+   */
+  public Result optimize(int maxStores, long timeBudgetNanos, long seed) {
+    final long start = System.nanoTime();
+    final long deadline = start + timeBudgetNanos;
+    if (entryCount == 0 || maxStores < 1) {
+      return null;
+    }
+
+    boolean[] open = greedyCover(maxStores);
+    if (open == null) {
+      open = exactCover(maxStores, deadline);
+    }
+    if (open == null) {
+      return null;
+    }
+    Solution current = solutionFor(open);
+    Solution best = current.copy();
+    ArrayList<Improvement> improvements = new ArrayList<>();
+    improvements.add(new Improvement((System.nanoTime() - start) / 1000, best.total));
+
+    Random random = new Random(seed);
+    long iterations = 0;
+    int staleRounds = 0;
+    while (System.nanoTime() < deadline && staleRounds < MAX_STALE_ROUNDS) {
+      iterations++;
+      staleRounds++;
+      boolean improved = relocatePass(current, maxStores, deadline);
+      improved |= swapStorePass(current, deadline);
+      improved |= closeStorePass(current, deadline);
+      if (current.total < best.total - EPSILON) {
+        best = current.copy();
+        improvements.add(new Improvement((System.nanoTime() - start) / 1000, best.total));
+        staleRounds = 0;
+      }
+      if (!improved) {
+        perturb(current, maxStores, random);
+      }
+    }
+
+    LinkedHashMap<Integer, Item[]> storeCarts = new LinkedHashMap<>();
+    for (int s = 0; s < storeIds.length; s++) {
+      if (best.masks[s] != 0) {
+        storeCarts.put(storeIds[s], cartFor(s, best.masks[s]));
+      }
+    }
+    return new Result(storeCarts, best.total, iterations,
+        (System.nanoTime() - start) / 1000, improvements);
+  }
+
+  /**
+   * Picks the stores of a starting plan by repeatedly opening the store that carries the
+   * most uncovered entries (cheapest first on ties). Returns null if that needs more than
+   * {@code maxStores} stores.
+   */
+  private boolean[] greedyCover(int maxStores) {
+    long uncovered = allEntries();
+    boolean[] open = new boolean[storeIds.length];
+    int opened = 0;
+    while (uncovered != 0 && opened < maxStores) {
+      int bestStore = -1;
+      int bestGain = 0;
+      double bestPrice = Double.MAX_VALUE;
+      for (int s = 0; s < storeIds.length; s++) {
+        int gain = Long.bitCount(coverMasks[s] & uncovered);
+        if (gain == 0 || gain < bestGain) {
+          continue;
+        }
+        double price = subtotal(s, coverMasks[s] & uncovered);
+        if (gain > bestGain || price < bestPrice) {
+          bestStore = s;
+          bestGain = gain;
+          bestPrice = price;
+        }
+      }
+      if (bestStore < 0) {
+        break;
+      }
+      open[bestStore] = true;
+      opened++;
+      uncovered &= ~coverMasks[bestStore];
+    }
+    return uncovered == 0 ? open : null;
+  }
+
+  /**
+   * Searches depth-first for at most {@code maxStores} stores that together carry every
+   * entry, branching on the uncovered entry with the fewest stores. Returns null if there
+   * is no such set or the deadline passes first.
+   */
+  private boolean[] exactCover(int maxStores, long deadline) {
+    int widest = Arrays.stream(coverMasks).mapToInt(Long::bitCount).max().orElse(0);
+    boolean[] open = new boolean[storeIds.length];
+    return coverFrom(allEntries(), maxStores, widest, open, deadline) ? open : null;
+  }
+
+  private boolean coverFrom(long uncovered, int remaining, int widest, boolean[] open,
+                            long deadline) {
+    if (uncovered == 0) {
+      return true;
+    }
+    if ((long) remaining * widest < Long.bitCount(uncovered)
+        || System.nanoTime() >= deadline) {
+      return false;
+    }
+    int entry = -1;
+    for (int e = 0; e < entryCount; e++) {
+      if ((uncovered & (1L << e)) != 0
+          && (entry < 0 || options[e].length < options[entry].length)) {
+        entry = e;
+      }
+    }
+    for (int s : options[entry]) {
+      open[s] = true;
+      if (coverFrom(uncovered & ~coverMasks[s], remaining - 1, widest, open, deadline)) {
+        return true;
+      }
+      open[s] = false;
+    }
+    return false;
+  }
+
+  private long allEntries() {
+    return entryCount == MAX_ENTRIES ? -1L : (1L << entryCount) - 1;
+  }
+
+  /**
+   * Builds a plan that sends each entry to the open store with its cheapest match.
+   */
+  private Solution solutionFor(boolean[] open) {
+    Solution solution = new Solution(entryCount, storeIds.length);
+    for (int e = 0; e < entryCount; e++) {
+      for (int s : options[e]) {
+        if (open[s]) {
+          solution.assign[e] = s;
+          solution.masks[s] |= 1L << e;
+          break;
+        }
+      }
+    }
+    for (int s = 0; s < storeIds.length; s++) {
+      if (solution.masks[s] != 0) {
+        solution.used++;
+        solution.costs[s] = storeCost(s, solution.masks[s]);
+        solution.total += solution.costs[s];
+      }
+    }
+    return solution;
+  }
+
+  private boolean relocatePass(Solution solution, int maxStores, long deadline) {
+    boolean improved = false;
+    for (int e = 0; e < entryCount && System.nanoTime() < deadline; e++) {
+      long bit = 1L << e;
+      int from = solution.assign[e];
+      long fromMask = solution.masks[from] & ~bit;
+      double fromCost = storeCost(from, fromMask);
+      for (int to : options[e]) {
+        if (to == from || !canOpen(solution, to, fromMask == 0, maxStores)) {
+          continue;
+        }
+        long toMask = solution.masks[to] | bit;
+        double toCost = storeCost(to, toMask);
+        double delta = fromCost + toCost - solution.costs[from] - solution.costs[to];
+        if (delta < -EPSILON) {
+          solution.move(e, to, fromCost, toCost);
+          improved = true;
+          break;
+        }
+      }
+    }
+    return improved;
+  }
+
+  private boolean swapStorePass(Solution solution, long deadline) {
+    boolean improved = false;
+    for (int s = 0; s < storeIds.length && System.nanoTime() < deadline; s++) {
+      long entries = solution.masks[s];
+      if (entries == 0) {
+        continue;
+      }
+      for (int t = 0; t < storeIds.length; t++) {
+        if (solution.masks[t] != 0 || (coverMasks[t] & entries) != entries) {
+          continue;
+        }
+        double cost = storeCost(t, entries);
+        if (cost < solution.costs[s] - EPSILON) {
+          solution.swap(s, t, cost);
+          improved = true;
+          break;
+        }
+      }
+    }
+    return improved;
+  }
+
+  private boolean closeStorePass(Solution solution, long deadline) {
+    boolean improved = false;
+    long[] trial = new long[storeIds.length];
+    for (int s = 0; s < storeIds.length && System.nanoTime() < deadline; s++) {
+      if (solution.masks[s] == 0 || solution.used == 1) {
+        continue;
+      }
+      System.arraycopy(solution.masks, 0, trial, 0, trial.length);
+      trial[s] = 0;
+      if (!reassignToOpenStores(solution.masks[s], s, trial)) {
+        continue;
+      }
+      double total = 0.0;
+      for (int t = 0; t < storeIds.length; t++) {
+        total += trial[t] == solution.masks[t] ? solution.costs[t] : storeCost(t, trial[t]);
+      }
+      if (total < solution.total - EPSILON) {
+        solution.replace(trial, this);
+        improved = true;
+      }
+    }
+    return improved;
+  }
+
+  /**
+   * Sends every entry of {@code entries} to the cheapest other store that is open in
+   * {@code masks}, returning false if some entry has nowhere else to go.
+   */
+  private boolean reassignToOpenStores(long entries, int closed, long[] masks) {
+    for (int e = 0; e < entryCount; e++) {
+      if ((entries & (1L << e)) == 0) {
+        continue;
+      }
+      int target = -1;
+      for (int t : options[e]) {
+        if (t != closed && masks[t] != 0) {
+          target = t;
+          break;
+        }
+      }
+      if (target < 0) {
+        return false;
+      }
+      masks[target] |= 1L << e;
+    }
+    return true;
+  }
+
+  private void perturb(Solution solution, int maxStores, Random random) {
+    int moves = 1 + random.nextInt(Math.min(3, entryCount));
+    for (int i = 0; i < moves; i++) {
+      int e = random.nextInt(entryCount);
+      int[] choices = options[e];
+      int to = choices[random.nextInt(choices.length)];
+      int from = solution.assign[e];
+      long fromMask = solution.masks[from] & ~(1L << e);
+      if (to != from && canOpen(solution, to, fromMask == 0, maxStores)) {
+        solution.move(e, to, storeCost(from, fromMask),
+            storeCost(to, solution.masks[to] | (1L << e)));
+      }
+    }
+  }
+
+  private static boolean canOpen(Solution solution, int store, boolean closesOther,
+                                 int maxStores) {
+    return solution.masks[store] != 0 || closesOther || solution.used < maxStores;
+  }
+
+  /**
+   * Returns the price of buying the given entries at one store after its best coupon.
+   */
+  double storeCost(int store, long mask) {
+    if (mask == 0) {
+      return 0.0;
+    }
+    Map<Long, Double> memo = costMemo.get(store);
+    Double cached = memo.get(mask);
+    if (cached != null) {
+      return cached;
+    }
+    Item[] cart = cartFor(store, mask);
+    double cost = subtotal(store, mask);
+    Coupon coupon = CouponService.bestCouponFor(cart, coupons.get(store));
+    if (coupon != null) {
+      cost -= coupon.calculateDiscount(cart);
+    }
+    if (memo.size() >= MAX_MEMO_SIZE) {
+      memo.clear();
+    }
+    memo.put(mask, cost);
+    return cost;
+  }
+
+  private double subtotal(int store, long mask) {
+    double total = 0.0;
+    for (int e = 0; e < entryCount; e++) {
+      if ((mask & (1L << e)) != 0) {
+        total += slots[store][e].getPrice();
+      }
+    }
+    return total;
+  }
+
+  private Item[] cartFor(int store, long mask) {
+    Item[] cart = new Item[Long.bitCount(mask)];
+    int next = 0;
+    for (int e = 0; e < entryCount; e++) {
+      if ((mask & (1L << e)) != 0) {
+        cart[next++] = slots[store][e];
+      }
+    }
+    return cart;
+  }
+
+  /**
+   * Mutable assignment of entries to stores, with cached per-store costs.
+   */
+  private static final class Solution {
+    private final int[] assign;
+    private final long[] masks;
+    private final double[] costs;
+    private int used;
+    private double total;
+
+    Solution(int entryCount, int storeCount) {
+      this.assign = new int[entryCount];
+      this.masks = new long[storeCount];
+      this.costs = new double[storeCount];
+    }
+
+    private Solution(Solution other) {
+      this.assign = other.assign.clone();
+      this.masks = other.masks.clone();
+      this.costs = other.costs.clone();
+      this.used = other.used;
+      this.total = other.total;
+    }
+
+    Solution copy() {
+      return new Solution(this);
+    }
+
+    void move(int entry, int to, double fromCost, double toCost) {
+      int from = assign[entry];
+      long bit = 1L << entry;
+      if (masks[to] == 0) {
+        used++;
+      }
+      masks[from] &= ~bit;
+      masks[to] |= bit;
+      if (masks[from] == 0) {
+        used--;
+      }
+      total += fromCost + toCost - costs[from] - costs[to];
+      costs[from] = fromCost;
+      costs[to] = toCost;
+      assign[entry] = to;
+    }
+
+    void swap(int from, int to, double toCost) {
+      masks[to] = masks[from];
+      masks[from] = 0;
+      total += toCost - costs[from];
+      costs[to] = toCost;
+      costs[from] = 0.0;
+      for (int e = 0; e < assign.length; e++) {
+        if (assign[e] == from) {
+          assign[e] = to;
+        }
+      }
+    }
+
+    void replace(long[] newMasks, SplitBasketOptimizer optimizer) {
+      used = 0;
+      total = 0.0;
+      for (int s = 0; s < masks.length; s++) {
+        if (newMasks[s] != masks[s]) {
+          masks[s] = newMasks[s];
+          costs[s] = optimizer.storeCost(s, masks[s]);
+        }
+        if (masks[s] != 0) {
+          used++;
+          total += costs[s];
+          for (int e = 0; e < assign.length; e++) {
+            if ((masks[s] & (1L << e)) != 0) {
+              assign[e] = s;
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * A point on the anytime curve: the best total known after some elapsed time.
+   */
+  public static class Improvement {
+    private final long elapsedMicros;
+    private final double totalPrice;
+
+    public Improvement(long elapsedMicros, double totalPrice) {
+      this.elapsedMicros = elapsedMicros;
+      this.totalPrice = totalPrice;
+    }
+
+    public long getElapsedMicros() {
+      return elapsedMicros;
+    }
+
+    public double getTotalPrice() {
+      return totalPrice;
+    }
+  }
+
+  /**
+   * The best plan found by a search, with its anytime trace.
+   */
+  public static class Result {
+    private final Map<Integer, Item[]> storeCarts;
+    private final double totalPrice;
+    private final long iterations;
+    private final long elapsedMicros;
+    private final List<Improvement> improvements;
+
+    /**
+     * Creates a search result.
+     *
+     * @param storeCarts the cart bought at each used store, keyed by store ID
+     * @param totalPrice the total price of the plan after coupons
+     * @param iterations the number of local search rounds performed
+     * @param elapsedMicros the time spent searching in microseconds
+     * @param improvements the best total over time, starting with the greedy plan
+     */
+    public Result(Map<Integer, Item[]> storeCarts, double totalPrice, long iterations,
+                  long elapsedMicros, List<Improvement> improvements) {
+      this.storeCarts = storeCarts;
+      this.totalPrice = totalPrice;
+      this.iterations = iterations;
+      this.elapsedMicros = elapsedMicros;
+      this.improvements = improvements;
+    }
+
+    public Map<Integer, Item[]> getStoreCarts() {
+      return storeCarts;
+    }
+
+    public double getTotalPrice() {
+      return totalPrice;
+    }
+
+    public long getIterations() {
+      return iterations;
+    }
+
+    public long getElapsedMicros() {
+      return elapsedMicros;
+    }
+
+    public List<Improvement> getImprovements() {
+      return improvements;
+    }
+  }
+}
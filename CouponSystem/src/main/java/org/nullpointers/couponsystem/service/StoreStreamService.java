@@ -0,0 +1,460 @@
+package org.nullpointers.couponsystem.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.nullpointers.couponsystem.catalog.CatalogChangeEvent;
+import org.nullpointers.couponsystem.catalog.CatalogReplica;
+import org.nullpointers.couponsystem.catalog.CatalogSnapshot;
+import org.nullpointers.couponsystem.model.Coupon;
+import org.nullpointers.couponsystem.model.Item;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Service class that pushes committed item and coupon changes of a store to its
+ * server-sent event subscribers. Saves are sent as {@code item} or {@code coupon} events
+ * carrying the entity, deletes as {@code item-deleted} or {@code coupon-deleted} events
+ * carrying its ID, and the store's own deletion as a {@code store-deleted} event that
+ * ends the stream.
+ *
+ * <p>The committing thread only queues updates. A small pool of sender threads writes
+ * them out, one subscriber at a time, so an idle subscriber holds a connection but no
+ * thread, and a slow one delays only itself. Each subscriber keeps at most one pending
+ * update per item or coupon: a change replaces an earlier one that has not been sent yet,
+ * so a slow reader catches up with the latest state rather than every step. A subscriber
+ * with more pending updates than the configured bound is dropped; its client reconnects
+ * and reloads the store. So is one whose client stopped reading: a write still blocked
+ * after the send timeout is failed and its sender thread interrupted, so stalled clients
+ * cannot hold every sender thread.
+ */
+@Service
+public class StoreStreamService {
+  private static final Update HEARTBEAT = new Update(null, null, false);
+
+  private final CatalogReplica catalogReplica;
+  private final ObjectMapper objectMapper;
+  private final ExecutorService senders;
+  private final Duration timeout;
+  private final long sendTimeoutNanos;
+  private final int maxPending;
+  private final int maxSubscribers;
+  private final Map<Integer, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+  private final AtomicInteger subscriberCount = new AtomicInteger();
+  private final AtomicLong dropped = new AtomicLong();
+
+  /**
+   * Initializes the service.
+   *
+   * @param catalogReplica the replica that tells which store a deleted entity was in
+   * @param objectMapper mapper for the entities' JSON
+   * @param sendThreads the number of threads writing to subscribers
+   * @param timeout how long a stream stays open before the client must reconnect
+   * @param sendTimeout how long one write may block before the subscriber is dropped
+   * @param maxPending the most unsent updates a subscriber may have before it is dropped
+   * @param maxSubscribers the most streams open at once
+   */
+  @Autowired
+  public StoreStreamService(CatalogReplica catalogReplica, ObjectMapper objectMapper,
+                            @Value("${couponsystem.stream.send-threads:4}") int sendThreads,
+                            @Value("${couponsystem.stream.timeout:PT30M}") Duration timeout,
+                            @Value("${couponsystem.stream.send-timeout:PT10S}")
+                            Duration sendTimeout,
+                            @Value("${couponsystem.stream.max-pending:256}") int maxPending,
+                            @Value("${couponsystem.stream.max-subscribers:10000}")
+                            int maxSubscribers) {
+    this.catalogReplica = catalogReplica;
+    this.objectMapper = objectMapper;
+    this.senders = Executors.newFixedThreadPool(sendThreads);
+    this.timeout = timeout;
+    this.sendTimeoutNanos = sendTimeout.toNanos();
+    this.maxPending = maxPending;
+    this.maxSubscribers = maxSubscribers;
+  }
+
+  /**
+   * Stops the sender threads.
+   */
+  @PreDestroy
+  public void shutdown() {
+    senders.shutdown();
+  }
+
+  /**
+   * Opens a stream of a store's changes.
+   *
+   * @param storeId the store ID
+   * @return the emitter to return from the handler, or null if too many streams are open
+   */
+  public SseEmitter subscribe(int storeId) {
+    SseEmitter emitter = new SseEmitter(timeout.toMillis());
+    return register(storeId, emitter) ? emitter : null;
+  }
+
+  /**
+   * Adds a subscriber to a store.
+   *
+   * @return false if too many streams are open
+   */
+  boolean register(int storeId, SseEmitter emitter) {
+    if (subscriberCount.incrementAndGet() > maxSubscribers) {
+      subscriberCount.decrementAndGet();
+      return false;
+    }
+    Subscriber subscriber = new Subscriber(storeId, emitter);
+    subscribers.compute(storeId, (id, current) -> {
+      Set<Subscriber> set = current == null ? ConcurrentHashMap.newKeySet() : current;
+      set.add(subscriber);
+      return set;
+    });
+    emitter.onCompletion(() -> remove(subscriber));
+    emitter.onTimeout(() -> remove(subscriber));
+    emitter.onError(error -> remove(subscriber));
+    return true;
+  }
+
+  /**
+   * Returns the number of open streams.
+   *
+   * @return the subscribers across all stores
+   */
+  public int getSubscriberCount() {
+    return subscriberCount.get();
+  }
+
+  /**
+   * Returns how many subscribers were dropped for falling too far behind or for a write
+   * that blocked past the send timeout.
+   *
+   * @return the count since startup
+   */
+  public long getDroppedCount() {
+    return dropped.get();
+  }
+
+  /**
+   * Queues a committed change for the subscribers of the stores it touches. Runs before
+   * the replica applies the change, so the replica still knows which store a deleted or
+   * moved entity was in.
+   *
+   * @param event the change
+   */
+  @Order(Ordered.HIGHEST_PRECEDENCE)
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onCatalogChange(CatalogChangeEvent event) {
+    if (subscriberCount.get() == 0) {
+      return;
+    }
+    CatalogSnapshot snapshot = catalogReplica.isReady() ? catalogReplica.snapshot() : null;
+    switch (event.getEntityType()) {
+      case STORE:
+        if (event.isDelete()) {
+          offer(event.getId(), "store",
+              new Update("store-deleted", "{\"id\":" + event.getId() + "}", true));
+        }
+        return;
+      case ITEM:
+        if (event.isDelete()) {
+          deleted(snapshot, "item", deletedIds(event));
+        } else {
+          saved(snapshot, "item", entities(event));
+        }
+        return;
+      default:
+        if (event.isDelete()) {
+          deleted(snapshot, "coupon", deletedIds(event));
+        } else {
+          saved(snapshot, "coupon", entities(event));
+        }
+    }
+  }
+
+  /**
+   * Sends a comment to every subscriber, so idle connections are not closed by proxies
+   * and closed ones are noticed.
+   */
+  @Scheduled(initialDelayString = "${couponsystem.stream.heartbeat-interval:PT30S}",
+      fixedDelayString = "${couponsystem.stream.heartbeat-interval:PT30S}")
+  public void sendHeartbeats() {
+    subscribers.values().forEach(set -> set.forEach(
+        subscriber -> subscriber.offer("heartbeat", HEARTBEAT)));
+  }
+
+  /**
+   * Drops the subscribers whose current write has been blocked longer than the send
+   * timeout, freeing the sender threads they hold.
+   */
+  @Scheduled(initialDelayString = "${couponsystem.stream.send-timeout:PT10S}",
+      fixedDelayString = "${couponsystem.stream.send-timeout:PT10S}")
+  public void abortStalledSends() {
+    final long now = System.nanoTime();
+    subscribers.values().forEach(set -> set.forEach(subscriber -> subscriber.abortIfStalled(now)));
+  }
+
+  private void saved(CatalogSnapshot snapshot, String type, List<?> entities) {
+    for (Object entity : entities) {
+      final int id = entity instanceof Item ? ((Item) entity).getId() : ((Coupon) entity).getId();
+      int storeId = storeIdOf(entity);
+      Object previous = snapshot == null ? null : current(snapshot, type, id);
+      // Moved to another store, so it is gone from the one it was in
+      if (previous != null && storeIdOf(previous) != storeId) {
+        offer(storeIdOf(previous), type + ":" + id, deletion(type, id));
+      }
+      if (subscribers.containsKey(storeId)) {
+        offer(storeId, type + ":" + id, saving(type, entity));
+      }
+    }
+  }
+
+  private void deleted(CatalogSnapshot snapshot, String type, int[] ids) {
+    for (int id : ids) {
+      Update update = deletion(type, id);
+      if (snapshot == null) {
+        // Without the replica the store is unknown; clients ignore IDs they do not show
+        subscribers.keySet().forEach(storeId -> offer(storeId, type + ":" + id, update));
+        continue;
+      }
+      Object previous = current(snapshot, type, id);
+      if (previous != null) {
+        offer(storeIdOf(previous), type + ":" + id, update);
+      }
+    }
+  }
+
+  private void offer(int storeId, String key, Update update) {
+    Set<Subscriber> set = subscribers.get(storeId);
+    if (set != null) {
+      set.forEach(subscriber -> subscriber.offer(key, update));
+    }
+  }
+
+  private void remove(Subscriber subscriber) {
+    if (!subscriber.removed.compareAndSet(false, true)) {
+      return;
+    }
+    subscribers.computeIfPresent(subscriber.storeId, (id, set) -> {
+      set.remove(subscriber);
+      return set.isEmpty() ? null : set;
+    });
+    subscriberCount.decrementAndGet();
+  }
+
+  private String json(Object entity) {
+    try {
+      return objectMapper.writeValueAsString(entity);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Cannot stream change: " + e.getOriginalMessage(), e);
+    }
+  }
+
+  private Update saving(String type, Object entity) {
+    return new Update(type, json(entity), false);
+  }
+
+  private static Update deletion(String type, int id) {
+    return new Update(type + "-deleted", "{\"id\":" + id + "}", false);
+  }
+
+  private static int[] deletedIds(CatalogChangeEvent event) {
+    return event.isBatch() ? event.getDeletedIds() : new int[] {event.getId()};
+  }
+
+  private static List<?> entities(CatalogChangeEvent event) {
+    return event.isBatch() ? (List<?>) event.getEntity() : List.of(event.getEntity());
+  }
+
+  private static Object current(CatalogSnapshot snapshot, String type, int id) {
+    return "item".equals(type) ? snapshot.getItem(id) : snapshot.getCoupon(id);
+  }
+
+  private static int storeIdOf(Object entity) {
+    return entity instanceof Item ? ((Item) entity).getStoreId()
+        : ((Coupon) entity).getStoreId();
+  }
+
+  /**
+   * One event to send, already serialized so subscribers share it. A null name is a
+   * heartbeat comment; the last update of a stream completes it once sent.
+   */
+  private record Update(String name, String data, boolean last) {
+    Set<ResponseBodyEmitter.DataWithMediaType> build() {
+      return name == null ? SseEmitter.event().comment("heartbeat").build()
+          : SseEmitter.event().name(name).data(data).build();
+    }
+  }
+
+  /**
+   * A stream and its unsent updates. At most one sender thread drains it at a time.
+   */
+  private final class Subscriber {
+    private final int storeId;
+    private final SseEmitter emitter;
+    private final AtomicBoolean removed = new AtomicBoolean();
+    /** Unsent updates by entity, oldest first; guarded by this subscriber. */
+    private final LinkedHashMap<String, Update> pending = new LinkedHashMap<>();
+    private boolean draining;
+    private boolean closing;
+    /** The thread blocked in the current write and when it started, or null. */
+    private Thread sender;
+    private long sendStarted;
+    private boolean stalled;
+
+    Subscriber(int storeId, SseEmitter emitter) {
+      this.storeId = storeId;
+      this.emitter = emitter;
+    }
+
+    void offer(String key, Update update) {
+      final boolean overflow;
+      final boolean idle;
+      synchronized (this) {
+        if (closing) {
+          return;
+        }
+        // A replaced update moves to the end, so the order of latest changes is kept
+        overflow = pending.remove(key) == null && pending.size() >= maxPending;
+        if (overflow) {
+          pending.clear();
+        } else {
+          pending.put(key, update);
+        }
+        closing = overflow || update.last();
+        idle = !draining;
+        draining = true;
+      }
+      if (overflow) {
+        dropped.incrementAndGet();
+        remove(this);
+      }
+      if (idle) {
+        senders.execute(this::drain);
+      }
+    }
+
+    /**
+     * Sends pending updates until there are none. The emitter is only written here, so
+     * a write blocked on a slow client never holds up the committing thread.
+     */
+    private void drain() {
+      while (true) {
+        List<Update> batch = takePending();
+        if (batch == null) {
+          return;
+        }
+        if (batch.isEmpty()) {
+          emitter.complete();
+          remove(this);
+          return;
+        }
+        if (!send(eventsOf(batch))) {
+          synchronized (this) {
+            pending.clear();
+            closing = true;
+          }
+          remove(this);
+          return;
+        }
+      }
+    }
+
+    /**
+     * Writes events to the client.
+     *
+     * @return false if the write failed or the watchdog gave up on it
+     */
+    private boolean send(Set<ResponseBodyEmitter.DataWithMediaType> events) {
+      startSend();
+      try {
+        emitter.send(events);
+        return endSend();
+      } catch (IOException | IllegalStateException e) {
+        // The client went away or the stream timed out; the container completes it
+        endSend();
+        return false;
+      }
+    }
+
+    private synchronized void startSend() {
+      sender = Thread.currentThread();
+      sendStarted = System.nanoTime();
+    }
+
+    /**
+     * Ends the current write.
+     *
+     * @return false if the watchdog gave up on it
+     */
+    private synchronized boolean endSend() {
+      sender = null;
+      if (stalled) {
+        // Clear the watchdog's interrupt before the thread goes back to the pool
+        Thread.interrupted();
+        return false;
+      }
+      return true;
+    }
+
+    /**
+     * Fails the stream if its current write has blocked past the send timeout. Completing
+     * the emitter with an error lets the container close the connection, which ends the
+     * write; the interrupt ends it if the write is waiting on the thread.
+     */
+    void abortIfStalled(long now) {
+      synchronized (this) {
+        if (sender == null || stalled || now - sendStarted < sendTimeoutNanos) {
+          return;
+        }
+        stalled = true;
+        closing = true;
+        pending.clear();
+        sender.interrupt();
+      }
+      dropped.incrementAndGet();
+      remove(this);
+      emitter.completeWithError(new IOException("Client stopped reading the stream"));
+    }
+
+    /**
+     * Takes the pending updates, leaving none.
+     *
+     * @return the updates, empty if the stream is to be completed, or null if there is
+     *     nothing to do and draining stopped
+     */
+    private synchronized List<Update> takePending() {
+      if (pending.isEmpty() && !closing) {
+        draining = false;
+        return null;
+      }
+      List<Update> batch = new ArrayList<>(pending.values());
+      pending.clear();
+      return batch;
+    }
+
+    private Set<ResponseBodyEmitter.DataWithMediaType> eventsOf(List<Update> batch) {
+      Set<ResponseBodyEmitter.DataWithMediaType> events = new LinkedHashSet<>();
+      batch.forEach(update -> events.addAll(update.build()));
+      return events;
+    }
+  }
+}
@@ -33,8 +33,17 @@ import org.springframework.test.context.ActiveProfiles;
  * - Scenario 1: Flower Shop complete workflow
  * - Scenario 2: Multi-client isolation verification
  * - Scenario 3: Cart optimization and coupon selection
+ *
+ * <p>The server runs on its own in-memory database. Recreating the shared one would
+ * restart its ID sequences under the other test contexts, whose catalog replicas
+ * remember deleted IDs.
  */
-@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.datasource.url=jdbc:h2:mem:end-to-end;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"})
 @ActiveProfiles("test1")
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
 class EndToEndTest {
@@ -0,0 +1,154 @@
+package org.nullpointers.couponsystem.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.nullpointers.couponsystem.service.DataService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Compares an admin sequence, creating a store with {@value #ITEMS} items and
+ * {@value #COUPONS} coupons and then reading the store, its items, and each coupon back,
+ * sent as separate HTTP calls and as one {@code POST /batch}. Reports requests, database
+ * transactions, and time per sequence. Runs against a web server on a random port with
+ * its own in-memory database, so it does not disturb the schema other test contexts
+ * share. Excluded from the default build; run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.datasource.url=jdbc:h2:mem:batch-load;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"})
+@ActiveProfiles("test1")
+public class BatchEndpointBenchmarkTest {
+  private static final int ITEMS = 20;
+  private static final int COUPONS = 5;
+  private static final int REPEATS = 50;
+  private static final ObjectMapper JSON = new ObjectMapper();
+
+  @LocalServerPort
+  private int port;
+
+  @Autowired
+  private DataService dataService;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  private final HttpClient http = HttpClient.newHttpClient();
+
+  @Test
+  public void separateCallsVersusBatch() throws Exception {
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    BenchmarkReport report = new BenchmarkReport("batch-endpoint", "api", "operations",
+        "requests", "transactions", "millis");
+    for (String api : new String[] {"separate", "batch"}) {
+      boolean batch = "batch".equals(api);
+      sequence(batch);
+      final long transactions = statistics.getTransactionCount();
+      final long start = System.nanoTime();
+      int requests = 0;
+      for (int r = 0; r < REPEATS; r++) {
+        requests = sequence(batch);
+      }
+      double millis = (System.nanoTime() - start) / 1e6 / REPEATS;
+      report.row(api, operations().size(), requests,
+          (statistics.getTransactionCount() - transactions) / REPEATS, millis);
+    }
+    report.write();
+  }
+
+  /**
+   * Runs the sequence once, deletes the store it created, and returns how many requests
+   * the sequence took.
+   */
+  private int sequence(boolean batch) throws Exception {
+    List<Map<String, Object>> operations = operations();
+    int storeId;
+    if (batch) {
+      JsonNode results = send("POST", "/batch", Map.of("operations", operations));
+      for (JsonNode result : results) {
+        assertEquals(true, result.get("status").asInt() < 300, result.toString());
+      }
+      storeId = results.get(0).get("body").get("id").asInt();
+    } else {
+      Map<String, JsonNode> created = new HashMap<>();
+      for (Map<String, Object> operation : operations) {
+        String body = JSON.writeValueAsString(operation.get("body"));
+        String path = (String) operation.get("path");
+        for (Map.Entry<String, JsonNode> entry : created.entrySet()) {
+          String id = entry.getValue().get("id").asText();
+          body = body.replace("\"${" + entry.getKey() + ".id}\"", id);
+          path = path.replace("${" + entry.getKey() + ".id}", id);
+        }
+        JsonNode result = send((String) operation.get("method"), path, JSON.readTree(body));
+        if (operation.get("id") != null) {
+          created.put((String) operation.get("id"), result);
+        }
+      }
+      storeId = created.get("store").get("id").asInt();
+    }
+    dataService.deleteStoreWithContents(storeId);
+    return batch ? 1 : operations.size();
+  }
+
+  private static List<Map<String, Object>> operations() {
+    List<Map<String, Object>> operations = new ArrayList<>();
+    operations.add(operation("store", "POST", "/store", Map.of("name", "Batch Benchmark")));
+    for (int i = 0; i < ITEMS; i++) {
+      operations.add(operation("item" + i, "POST", "/item", Map.of("name", "Item" + i,
+          "price", 1.0 + i, "storeId", "${store.id}", "category", "category" + i % 4)));
+    }
+    for (int i = 0; i < COUPONS; i++) {
+      operations.add(operation("coupon" + i, "POST", "/coupon", Map.of(
+          "type", "category", "storeId", "${store.id}", "discountValue", 5.0,
+          "isPercentage", true, "category", "category" + i % 4)));
+    }
+    operations.add(operation(null, "GET", "/store/${store.id}", null));
+    operations.add(operation(null, "GET", "/items/store/${store.id}", null));
+    for (int i = 0; i < COUPONS; i++) {
+      operations.add(operation(null, "GET", "/coupon/${coupon" + i + ".id}", null));
+    }
+    return operations;
+  }
+
+  private static Map<String, Object> operation(String id, String method, String path,
+                                               Object body) {
+    Map<String, Object> operation = new HashMap<>();
+    operation.put("id", id);
+    operation.put("method", method);
+    operation.put("path", path);
+    operation.put("body", body);
+    return operation;
+  }
+
+  private JsonNode send(String method, String path, Object body) throws Exception {
+    HttpRequest.BodyPublisher publisher = body == null || "GET".equals(method)
+        ? HttpRequest.BodyPublishers.noBody()
+        : HttpRequest.BodyPublishers.ofString(JSON.writeValueAsString(body));
+    HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+        .header("Content-Type", "application/json").method(method, publisher).build();
+    HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+    assertEquals(true, response.statusCode() < 300, response.body());
+    return JSON.readTree(response.body());
+  }
+}
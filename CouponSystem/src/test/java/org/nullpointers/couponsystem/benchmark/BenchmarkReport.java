@@ -0,0 +1,61 @@
+package org.nullpointers.couponsystem.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects benchmark rows and writes them as CSV under {@code target/benchmarks}.
+ * Each row is also echoed to standard output so results show up in the Maven log.
+ */
+public class BenchmarkReport {
+  private static final Path OUTPUT_DIR = Paths.get("target", "benchmarks");
+
+  private final String name;
+  private final List<String> lines = new ArrayList<>();
+
+  /**
+   * Creates a report with the given name and CSV header columns.
+   *
+   * @param name the report name, used as the CSV file name
+   * @param columns the header columns
+   */
+  public BenchmarkReport(String name, String... columns) {
+    this.name = name;
+    lines.add(String.join(",", columns));
+  }
+
+  /**
+   * Adds a row of values to the report.
+   *
+   * @param values the row values, in header order
+   */
+  public void row(Object... values) {
+    StringBuilder line = new StringBuilder();
+    for (int i = 0; i < values.length; i++) {
+      if (i > 0) {
+        line.append(',');
+      }
+      line.append(values[i]);
+    }
+    lines.add(line.toString());
+    System.out.println("[" + name + "] " + line);
+  }
+
+  /**
+   * Writes the report to {@code target/benchmarks/<name>.csv}.
+   *
+   * @return the path of the written file
+   * @throws IOException if the file cannot be written
+   */
+  public Path write() throws IOException {
+    Files.createDirectories(OUTPUT_DIR);
+    Path file = OUTPUT_DIR.resolve(name + ".csv");
+    Files.write(file, lines, StandardCharsets.UTF_8);
+    return file;
+  }
+}
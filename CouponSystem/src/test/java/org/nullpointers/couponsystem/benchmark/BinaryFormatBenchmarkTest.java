@@ -0,0 +1,150 @@
+package org.nullpointers.couponsystem.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.nullpointers.couponsystem.dto.CartRequest;
+import org.nullpointers.couponsystem.dto.PackedIds;
+import org.nullpointers.couponsystem.model.CategoryCoupon;
+import org.nullpointers.couponsystem.model.Coupon;
+import org.nullpointers.couponsystem.model.Item;
+import org.nullpointers.couponsystem.model.Store;
+import org.nullpointers.couponsystem.model.TotalPriceCoupon;
+import org.nullpointers.couponsystem.service.DataService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Compares JSON with CBOR for the bodies of the high-volume endpoints: the cart sent to
+ * {@code POST /cart/optimal-coupon} (a number array in JSON, packed IDs in CBOR), its
+ * response, and a full page of {@code GET /items/store/{storeId}} and
+ * {@code GET /coupons/store/{storeId}}. For each body it reports the encoded size and
+ * the CPU time to encode it and decode it as the receiving side does. Excluded from the
+ * default build; run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test1")
+public class BinaryFormatBenchmarkTest {
+  private static final int PAGE = 1000;
+  private static final int CART = 50;
+  private static final int WARM_UP = 2000;
+  private static final int MEASURED = 5000;
+
+  @Autowired
+  private DataService dataService;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private MappingJackson2CborHttpMessageConverter cborConverter;
+
+  @Test
+  public void jsonVersusCbor() throws IOException {
+    Store store = dataService.addStore(new Store(0, "Binary Format Benchmark"));
+    List<Item> items = new ArrayList<>(PAGE);
+    for (int i = 0; i < PAGE; i++) {
+      items.add(new Item(0, "Item" + i, 1.0 + i % 100, store.getId(), "category" + i % 20));
+    }
+    items = dataService.addItems(items);
+    List<Coupon> coupons = new ArrayList<>(PAGE);
+    for (int i = 0; i < PAGE; i++) {
+      coupons.add(i % 2 == 0
+          ? new TotalPriceCoupon(0, store.getId(), 5 + i % 10, true, 20.0 + i % 50)
+          : new CategoryCoupon(0, store.getId(), 3 + i % 7, false, "category" + i % 20));
+    }
+    dataService.addCoupons(coupons);
+
+    int[] cart = new int[CART];
+    for (int i = 0; i < CART; i++) {
+      cart[i] = items.get(i * 7).getId();
+    }
+    final Map<String, Object> jsonCart = Map.of("itemIds", cart, "storeId", store.getId());
+    final Map<String, Object> cborCart = Map.of("itemIds", PackedIds.pack(cart),
+        "storeId", store.getId());
+    Map<String, Object> optimal = new HashMap<>();
+    optimal.put("coupon", coupons.get(0));
+    optimal.put("discount", 12.5);
+    final Object itemPage = dataService.getItemsByStorePage(store.getId(), null, PAGE)
+        .getItems();
+    final Object couponPage = dataService.getCouponsByStorePage(store.getId(), null, PAGE)
+        .getItems();
+
+    final ObjectMapper cbor = cborConverter.getObjectMapper();
+    BenchmarkReport report = new BenchmarkReport("binary-formats", "body", "format",
+        "bytes", "encodeMicros", "decodeMicros");
+    Object[][] bodies = {
+        {"cart request", jsonCart, cborCart, CartRequest.class},
+        {"optimal-coupon response", optimal, optimal, null},
+        {"items page", itemPage, itemPage, null},
+        {"coupons page", couponPage, couponPage, null},
+    };
+    for (Object[] body : bodies) {
+      Class<?> target = (Class<?>) body[3];
+      Result json = measure(objectMapper, body[1], target);
+      Result binary = measure(cbor, body[2], target);
+      report.row(body[0], "json", json.bytes, json.encodeMicros, json.decodeMicros);
+      report.row(body[0], "cbor", binary.bytes, binary.encodeMicros, binary.decodeMicros);
+      assertTrue(binary.bytes < json.bytes, body[0] + " is not smaller in CBOR");
+    }
+    report.write();
+    dataService.deleteStoreWithContents(store.getId());
+  }
+
+  /**
+   * Encodes and decodes a body {@value #MEASURED} times after warming up, measuring the
+   * CPU time of each half. Bodies without a target type are decoded as trees, as a
+   * client reading a response does.
+   */
+  private static Result measure(ObjectMapper mapper, Object body, Class<?> target)
+      throws IOException {
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    Result result = new Result();
+    byte[] encoded = mapper.writeValueAsBytes(body);
+    result.bytes = encoded.length;
+    long sink = 0;
+    for (int i = 0; i < WARM_UP; i++) {
+      sink += mapper.writeValueAsBytes(body).length;
+      sink += decode(mapper, encoded, target).hashCode();
+    }
+    final long start = threads.getCurrentThreadCpuTime();
+    for (int i = 0; i < MEASURED; i++) {
+      sink += mapper.writeValueAsBytes(body).length;
+    }
+    final long encodedAt = threads.getCurrentThreadCpuTime();
+    for (int i = 0; i < MEASURED; i++) {
+      sink += decode(mapper, encoded, target).hashCode();
+    }
+    long end = threads.getCurrentThreadCpuTime();
+    assertTrue(sink != 0);
+    result.encodeMicros = (encodedAt - start) / 1e3 / MEASURED;
+    result.decodeMicros = (end - encodedAt) / 1e3 / MEASURED;
+    return result;
+  }
+
+  private static Object decode(ObjectMapper mapper, byte[] encoded, Class<?> target)
+      throws IOException {
+    return target == null ? mapper.readTree(encoded) : mapper.readValue(encoded, target);
+  }
+
+  /**
+   * The size and per-operation CPU time of one body in one format.
+   */
+  private static class Result {
+    private int bytes;
+    private double encodeMicros;
+    private double decodeMicros;
+  }
+}
@@ -0,0 +1,91 @@
+package org.nullpointers.couponsystem.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.nullpointers.couponsystem.dto.CouponRequest;
+import org.nullpointers.couponsystem.model.Item;
+import org.nullpointers.couponsystem.model.ItemCoupon;
+import org.nullpointers.couponsystem.model.Store;
+import org.nullpointers.couponsystem.service.CouponBulkService;
+import org.nullpointers.couponsystem.service.CouponBulkService.BulkCouponReport;
+import org.nullpointers.couponsystem.service.DataService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Creates item coupons across several stores twice: one at a time, checking the store and
+ * target item and saving each coupon as {@code POST /coupon} does, and as one
+ * {@code POST /coupons/bulk} request. One definition in a hundred refers to a missing
+ * item and must be rejected. Excluded from the default build; run with
+ * {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test1")
+public class BulkCouponBenchmarkTest {
+  private static final int STORES = 10;
+  private static final int ITEMS_PER_STORE = 100;
+  private static final int SINGLE_ROWS = 5_000;
+  private static final int BULK_ROWS = 50_000;
+
+  @Autowired
+  private DataService dataService;
+
+  @Autowired
+  private CouponBulkService couponBulkService;
+
+  @Test
+  public void singleVersusBulk() throws IOException {
+    List<Item> targets = new ArrayList<>(STORES * ITEMS_PER_STORE);
+    for (int s = 0; s < STORES; s++) {
+      Store store = dataService.addStore(new Store(0, "Coupon Benchmark " + s));
+      List<Item> items = new ArrayList<>(ITEMS_PER_STORE);
+      for (int i = 0; i < ITEMS_PER_STORE; i++) {
+        items.add(new Item(0, "Item" + i, 10.0, store.getId(), "general"));
+      }
+      targets.addAll(dataService.addItems(items));
+    }
+    BenchmarkReport report = new BenchmarkReport("bulk-coupons", "path", "rows", "created",
+        "rejected", "millis", "rowsPerSecond");
+
+    long start = System.nanoTime();
+    int created = 0;
+    for (int i = 0; i < SINGLE_ROWS; i++) {
+      Item target = targets.get(i % targets.size());
+      if (dataService.getStore(target.getStoreId()) != null
+          && dataService.getItem(target.getId()) != null) {
+        dataService.addCoupon(new ItemCoupon(0, target.getStoreId(), 5.0, true,
+            target.getId()));
+        created++;
+      }
+    }
+    double singleMillis = (System.nanoTime() - start) / 1e6;
+    report.row("single", SINGLE_ROWS, created, 0, singleMillis,
+        Math.round(SINGLE_ROWS * 1000 / singleMillis));
+
+    List<CouponRequest> definitions = new ArrayList<>(BULK_ROWS);
+    for (int i = 0; i < BULK_ROWS; i++) {
+      Item target = targets.get(i % targets.size());
+      definitions.add(definition(target.getStoreId(),
+          i % 100 == 99 ? -target.getId() : target.getId()));
+    }
+    BulkCouponReport bulk = couponBulkService.createCoupons(definitions);
+    report.row("bulk", BULK_ROWS, bulk.getRowsCreated(), bulk.getRowsRejected(),
+        bulk.getElapsedMillis(), Math.round(bulk.getRowsPerSecond()));
+    report.write();
+
+    assertEquals(SINGLE_ROWS, created);
+    assertEquals(BULK_ROWS / 100, bulk.getRowsRejected());
+    assertEquals(BULK_ROWS - BULK_ROWS / 100, bulk.getRowsCreated());
+  }
+
+  private static CouponRequest definition(int storeId, int targetItemId) {
+    return new CouponRequest("item", storeId, 5.0, true, null, null, targetItemId);
+  }
+}
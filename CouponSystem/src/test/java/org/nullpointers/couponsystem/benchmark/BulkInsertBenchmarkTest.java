@@ -0,0 +1,79 @@
+package org.nullpointers.couponsystem.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import jakarta.persistence.EntityManagerFactory;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.nullpointers.couponsystem.model.Item;
+import org.nullpointers.couponsystem.model.Store;
+import org.nullpointers.couponsystem.service.DataService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Compares item insert throughput of one {@code addItem} call per row, as clients do
+ * through {@code POST /item}, with the batched {@code addItems} path. The row count
+ * defaults to 20,000 and can be set with {@code -Dbulk.benchmark.items=N}. Excluded from
+ * the default build; run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test1")
+public class BulkInsertBenchmarkTest {
+  private static final int ITEMS = Integer.getInteger("bulk.benchmark.items", 20_000);
+
+  @Autowired
+  private DataService dataService;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @Test
+  public void perRowVersusBulk() throws IOException {
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.setStatisticsEnabled(true);
+    BenchmarkReport report = new BenchmarkReport("bulk-insert", "path", "rows", "millis",
+        "rowsPerSec", "statements", "transactions");
+
+    Store perRowStore = dataService.addStore(new Store(0, "Per Row"));
+    statistics.clear();
+    long start = System.nanoTime();
+    for (Item item : items(perRowStore.getId())) {
+      dataService.addItem(item);
+    }
+    record(report, "per-row", start, statistics);
+
+    Store bulkStore = dataService.addStore(new Store(0, "Bulk"));
+    List<Item> bulkItems = items(bulkStore.getId());
+    statistics.clear();
+    start = System.nanoTime();
+    dataService.addItems(bulkItems);
+    record(report, "bulk", start, statistics);
+
+    assertEquals(ITEMS, dataService.getItemsByStore(perRowStore.getId()).size());
+    assertEquals(ITEMS, dataService.getItemsByStore(bulkStore.getId()).size());
+    report.write();
+  }
+
+  private static List<Item> items(int storeId) {
+    List<Item> items = new ArrayList<>(ITEMS);
+    for (int i = 0; i < ITEMS; i++) {
+      items.add(new Item(0, "Item" + i, 1.0 + i % 100, storeId, "cat" + i % 20));
+    }
+    return items;
+  }
+
+  private static void record(BenchmarkReport report, String path, long start,
+                             Statistics statistics) {
+    long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+    report.row(path, ITEMS, millis, ITEMS * 1000L / millis,
+        statistics.getPrepareStatementCount(), statistics.getTransactionCount());
+  }
+}
@@ -0,0 +1,78 @@
+package org.nullpointers.couponsystem.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.nullpointers.couponsystem.catalog.CatalogReplica;
+import org.nullpointers.couponsystem.model.Item;
+import org.nullpointers.couponsystem.model.Store;
+import org.nullpointers.couponsystem.service.DataService;
+import org.nullpointers.couponsystem.service.PriceUpdateReport;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Reprices a 100k-item store twice: once by setting every item's price by ID, as
+ * {@code POST /items/prices} does, and once by scaling a category, as
+ * {@code POST /items/store/{storeId}/reprice} does. A second, untouched store checks that
+ * its replica view is not rebuilt. Excluded from the default build; run with
+ * {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test1")
+public class BulkPriceUpdateBenchmarkTest {
+  private static final int ITEMS = 100_000;
+
+  @Autowired
+  private DataService dataService;
+
+  @Autowired
+  private CatalogReplica catalogReplica;
+
+  @Test
+  public void repriceLargeStore() throws IOException {
+    Store store = dataService.addStore(new Store(0, "Reprice Benchmark"));
+    Store other = dataService.addStore(new Store(0, "Untouched Store"));
+    List<Item> items = new ArrayList<>(ITEMS);
+    for (int i = 0; i < ITEMS; i++) {
+      items.add(new Item(0, "Item" + i, 10.0, store.getId(), i % 2 == 0 ? "plants" : "tools"));
+    }
+    List<Item> added = dataService.addItems(items);
+    dataService.addItem(new Item(0, "Other", 10.0, other.getId(), "plants"));
+    final Object otherView = catalogReplica.snapshot().getStoreView(other.getId());
+    Map<Integer, Double> prices = new LinkedHashMap<>();
+    for (Item item : added) {
+      prices.put(item.getId(), 5.0 + item.getId() % 100);
+    }
+    BenchmarkReport report = new BenchmarkReport("bulk-price-update", "operation", "rows",
+        "batches", "millis", "rowsPerSecond");
+
+    long start = System.nanoTime();
+    PriceUpdateReport set = dataService.updatePrices(prices);
+    double setMillis = (System.nanoTime() - start) / 1e6;
+    start = System.nanoTime();
+    PriceUpdateReport scaled = dataService.scaleCategoryPrices(store.getId(), "plants", -10);
+    double scaleMillis = (System.nanoTime() - start) / 1e6;
+    report.row("set-by-id", set.getItemsUpdated(), set.getBatches(), setMillis,
+        Math.round(set.getItemsUpdated() * 1000 / setMillis));
+    report.row("scale-category", scaled.getItemsUpdated(), scaled.getBatches(), scaleMillis,
+        Math.round(scaled.getItemsUpdated() * 1000 / scaleMillis));
+    report.write();
+
+    assertEquals(ITEMS, set.getItemsUpdated());
+    assertEquals(ITEMS / 2, scaled.getItemsUpdated());
+    assertEquals(List.of(store.getId()), scaled.getStoresAffected());
+    assertEquals(otherView, catalogReplica.snapshot().getStoreView(other.getId()));
+    Item first = added.get(0);
+    assertEquals(Math.round((5.0 + first.getId() % 100) * 0.9 * 100) / 100.0,
+        catalogReplica.snapshot().getItem(first.getId()).getPrice());
+  }
+}
@@ -0,0 +1,138 @@
+package org.nullpointers.couponsystem.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.nullpointers.couponsystem.model.Item;
+import org.nullpointers.couponsystem.model.Store;
+import org.nullpointers.couponsystem.repository.ItemRepository;
+import org.nullpointers.couponsystem.service.CatalogExportService;
+import org.nullpointers.couponsystem.service.DataService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Compares exporting every item as one serialized list, as {@code GET /items} does, with
+ * the streaming NDJSON export. Reports time to first byte, total time, and peak heap
+ * during the export. The row count defaults to 200,000 and can be set with
+ * {@code -Dexport.benchmark.items=N}. Excluded from the default build; run with
+ * {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test1")
+public class CatalogExportBenchmarkTest {
+  private static final int ITEMS = Integer.getInteger("export.benchmark.items", 200_000);
+
+  @Autowired
+  private DataService dataService;
+
+  @Autowired
+  private ItemRepository itemRepository;
+
+  @Autowired
+  private CatalogExportService catalogExportService;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Test
+  public void listVersusStream() throws IOException {
+    Store store = dataService.addStore(new Store(0, "Export Benchmark"));
+    List<Item> items = new ArrayList<>(ITEMS);
+    for (int i = 0; i < ITEMS; i++) {
+      items.add(new Item(0, "Item" + i, 1.0 + i % 100, store.getId(), "cat" + i % 20));
+    }
+    dataService.addItems(items);
+    items = null;
+    BenchmarkReport report = new BenchmarkReport("catalog-export", "path", "rows", "bytes",
+        "firstByteMillis", "totalMillis", "liveHeapBytes");
+
+    long baseline = liveHeap();
+    CountingStream listOut = new CountingStream(baseline);
+    long start = System.nanoTime();
+    List<Item> all = itemRepository.findAll();
+    listOut.write(objectMapper.writeValueAsBytes(all));
+    record(report, "list", listOut, start);
+    final long expectedBytes = listOut.bytes;
+    assertTrue(all.size() >= ITEMS);
+    all = null;
+
+    CountingStream streamOut = new CountingStream(liveHeap(), expectedBytes / 2);
+    start = System.nanoTime();
+    long rows = catalogExportService.exportItems(streamOut);
+    record(report, "stream", streamOut, start);
+
+    assertTrue(rows >= ITEMS);
+    assertEquals(rows, streamOut.lines);
+    report.write();
+  }
+
+  private static void record(BenchmarkReport report, String path, CountingStream out,
+                             long start) {
+    long end = System.nanoTime();
+    report.row(path, ITEMS, out.bytes, (out.firstByteNanos - start) / 1_000_000,
+        (end - start) / 1_000_000, out.liveHeapBytes);
+  }
+
+  /**
+   * Returns the heap still in use after a full collection.
+   */
+  private static long liveHeap() {
+    System.gc();
+    Runtime runtime = Runtime.getRuntime();
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  /**
+   * Discards output, counting bytes and lines and noting when the first byte arrived.
+   * Once a given number of bytes has been written, records how much heap the export
+   * holds at that point, above a baseline.
+   */
+  private static class CountingStream extends OutputStream {
+    private final long baseline;
+    private final long sampleAtBytes;
+    private long bytes;
+    private long lines;
+    private long firstByteNanos;
+    private long liveHeapBytes;
+
+    CountingStream(long baseline) {
+      this(baseline, 0);
+    }
+
+    CountingStream(long baseline, long sampleAtBytes) {
+      this.baseline = baseline;
+      this.sampleAtBytes = sampleAtBytes;
+    }
+
+    @Override
+    public void write(int b) {
+      write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] buffer, int offset, int length) {
+      if (bytes == 0 && length > 0) {
+        firstByteNanos = System.nanoTime();
+      }
+      if (bytes <= sampleAtBytes && bytes + length > sampleAtBytes) {
+        liveHeapBytes = liveHeap() - baseline;
+      }
+      bytes += length;
+      for (int i = offset; i < offset + length; i++) {
+        if (buffer[i] == '\n') {
+          lines++;
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,117 @@
+package org.nullpointers.couponsystem.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.IntFunction;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.nullpointers.couponsystem.catalog.CatalogSnapshot;
+import org.nullpointers.couponsystem.model.Item;
+import org.nullpointers.couponsystem.model.Store;
+
+/**
+ * Measures the heap used by the catalog replica's indexes for a large synthetic catalog,
+ * compared with boxed {@link HashMap} indexes over the same items, and the lookup rate.
+ * The item count defaults to 10 million and can be set with
+ * {@code -Dcatalog.benchmark.items=N}. Excluded from the default build; run with
+ * {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+public class CatalogFootprintBenchmarkTest {
+  private static final int ITEMS = Integer.getInteger("catalog.benchmark.items", 10_000_000);
+  private static final int STORES = 10_000;
+  private static final int LOOKUPS = 5_000_000;
+  private static final String[] CATEGORIES = {"toys", "books", "food", "garden", "tools"};
+
+  @Test
+  public void footprintAndLookupRate() throws IOException {
+    long baseline = usedHeap();
+    Item[] items = new Item[ITEMS];
+    for (int i = 0; i < ITEMS; i++) {
+      items[i] = new Item(i + 1, CATEGORIES[i % CATEGORIES.length], 1.0 + i % 100,
+          1 + i % STORES, CATEGORIES[i % CATEGORIES.length]);
+    }
+    long entityBytes = usedHeap() - baseline;
+
+    BenchmarkReport report = new BenchmarkReport("catalog-footprint", "structure", "items",
+        "buildMillis", "heapBytes", "estimatedBytes", "bytesPerItem", "lookupsPerSec");
+    report.row("entities", ITEMS, 0, entityBytes, 0, perItem(entityBytes), 0);
+
+    measureReplica(items, report);
+    measureHashMaps(items, report);
+    report.write();
+  }
+
+  private static void measureReplica(Item[] items, BenchmarkReport report) {
+    long before = usedHeap();
+    long start = System.nanoTime();
+    CatalogSnapshot.Builder builder = new CatalogSnapshot.Builder();
+    for (int store = 1; store <= STORES; store++) {
+      builder.addStore(new Store(store, "Store" + store));
+    }
+    for (Item item : items) {
+      builder.addItem(item);
+    }
+    CatalogSnapshot snapshot = builder.build();
+    long buildMillis = (System.nanoTime() - start) / 1_000_000;
+    long heapBytes = usedHeap() - before;
+    report.row("replica", ITEMS, buildMillis, heapBytes, snapshot.estimateIndexBytes(),
+        perItem(heapBytes), lookupRate(snapshot::getItem));
+    assertEquals(ITEMS, snapshot.getItemCount());
+    assertNotNull(snapshot.getItemsByStore(STORES));
+  }
+
+  /**
+   * Baseline: the same two indexes as boxed hash maps, as a straightforward cache would
+   * hold them.
+   */
+  private static void measureHashMaps(Item[] items, BenchmarkReport report) {
+    long before = usedHeap();
+    long start = System.nanoTime();
+    Map<Integer, Item> byId = new HashMap<>();
+    Map<Integer, List<Item>> byStore = new HashMap<>();
+    for (Item item : items) {
+      byId.put(item.getId(), item);
+      byStore.computeIfAbsent(item.getStoreId(), id -> new ArrayList<>()).add(item);
+    }
+    long buildMillis = (System.nanoTime() - start) / 1_000_000;
+    long heapBytes = usedHeap() - before;
+    report.row("hashmap", ITEMS, buildMillis, heapBytes, 0, perItem(heapBytes),
+        lookupRate(byId::get));
+    assertEquals(ITEMS, byId.size());
+    assertEquals(STORES, byStore.size());
+  }
+
+  private static long lookupRate(IntFunction<Item> lookup) {
+    Random random = new Random(3L);
+    long found = 0;
+    long start = System.nanoTime();
+    for (int i = 0; i < LOOKUPS; i++) {
+      if (lookup.apply(1 + random.nextInt(ITEMS)) != null) {
+        found++;
+      }
+    }
+    long elapsed = System.nanoTime() - start;
+    assertEquals(LOOKUPS, found);
+    return LOOKUPS * 1_000_000_000L / Math.max(1, elapsed);
+  }
+
+  private static String perItem(long bytes) {
+    return String.format("%.1f", (double) bytes / ITEMS);
+  }
+
+  private static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
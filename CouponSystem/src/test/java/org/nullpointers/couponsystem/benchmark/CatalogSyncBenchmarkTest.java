@@ -0,0 +1,102 @@
+package org.nullpointers.couponsystem.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.nullpointers.couponsystem.model.Store;
+import org.nullpointers.couponsystem.service.CatalogSyncService;
+import org.nullpointers.couponsystem.service.DataService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Simulates a nightly push of a 100k-item catalog in which 1% of the records changed,
+ * comparing the bytes of a full upload with those of a hash list plus the changed
+ * records, and timing the diff on a cold index (read from the database) and on the loaded
+ * one. Excluded from the default build; run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test1")
+public class CatalogSyncBenchmarkTest {
+  private static final int ITEMS = 100_000;
+  private static final int CHANGED_EVERY = 100;
+
+  @Autowired
+  private CatalogSyncService catalogSyncService;
+
+  @Autowired
+  private DataService dataService;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Test
+  public void nightlyPush() throws IOException {
+    Store store = dataService.addStore(new Store(0, "Sync Benchmark"));
+    List<Map<String, Object>> records = new ArrayList<>(ITEMS);
+    for (int i = 0; i < ITEMS; i++) {
+      records.add(record(i, "v1", 10.0));
+    }
+    long start = System.nanoTime();
+    catalogSyncService.upsert(store.getId(), records);
+    final double initialMillis = (System.nanoTime() - start) / 1e6;
+
+    // The next night: every 100th record has a new price
+    List<Map<String, Object>> pairs = new ArrayList<>(ITEMS);
+    Set<String> changed = new HashSet<>();
+    for (int i = 0; i < ITEMS; i++) {
+      boolean edited = i % CHANGED_EVERY == 0;
+      records.set(i, record(i, edited ? "v2" : "v1", edited ? 12.0 : 10.0));
+      pairs.add(Map.of("externalKey", "SKU-" + i, "contentHash", edited ? "v2" : "v1"));
+      if (edited) {
+        changed.add("SKU-" + i);
+      }
+    }
+    start = System.nanoTime();
+    final CatalogSyncService.SyncDiff diff = catalogSyncService.diff(store.getId(), pairs);
+    final double diffMillis = (System.nanoTime() - start) / 1e6;
+    List<Map<String, Object>> delta = records.stream()
+        .filter(record -> changed.contains(record.get("externalKey"))).toList();
+    start = System.nanoTime();
+    catalogSyncService.upsert(store.getId(), delta);
+    final double deltaMillis = (System.nanoTime() - start) / 1e6;
+    start = System.nanoTime();
+    final CatalogSyncService.SyncDiff after = catalogSyncService.diff(store.getId(), pairs);
+    final double loadedMillis = (System.nanoTime() - start) / 1e6;
+
+    long fullBytes = bytes(records);
+    long syncBytes = bytes(pairs) + bytes(diff.getChangedKeys()) + bytes(delta);
+    BenchmarkReport report = new BenchmarkReport("catalog-sync", "step", "rows", "bytes",
+        "millis");
+    report.row("full-upload", ITEMS, fullBytes, initialMillis);
+    report.row("hash-diff", ITEMS, bytes(pairs) + bytes(diff.getChangedKeys()), diffMillis);
+    report.row("hash-diff-loaded", ITEMS, bytes(pairs), loadedMillis);
+    report.row("delta-upload", delta.size(), bytes(delta), deltaMillis);
+    report.row("sync-total", ITEMS, syncBytes, diffMillis + deltaMillis);
+    report.write();
+
+    assertEquals(changed.size(), diff.getChangedKeys().size());
+    assertEquals(0, after.getChangedKeys().size());
+    assertEquals(ITEMS, dataService.getItemsByStore(store.getId()).size());
+    dataService.deleteStore(store.getId());
+  }
+
+  private long bytes(Object body) throws IOException {
+    return objectMapper.writeValueAsBytes(body).length;
+  }
+
+  private static Map<String, Object> record(int i, String hash, double price) {
+    return Map.of("externalKey", "SKU-" + i, "contentHash", hash, "name", "Item " + i,
+        "price", price, "category", "category" + i % 20);
+  }
+}
@@ -0,0 +1,77 @@
+package org.nullpointers.couponsystem.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.nullpointers.couponsystem.model.Item;
+import org.nullpointers.couponsystem.model.Store;
+import org.nullpointers.couponsystem.service.DataService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+/**
+ * Compares polling a store's first page of {@value #ITEMS} items without a tag, which
+ * reads and serializes the page every time, with polling under {@code If-None-Match},
+ * which is answered {@code 304} while the store is unchanged. Reports time and bytes per
+ * poll. Excluded from the default build; run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test1")
+public class ConditionalGetBenchmarkTest {
+  private static final int ITEMS = 1000;
+  private static final int POLLS = 2000;
+
+  @Autowired
+  private WebApplicationContext context;
+
+  @Autowired
+  private DataService dataService;
+
+  @Test
+  public void fullVersusConditionalPolls() throws Exception {
+    Store store = dataService.addStore(new Store(0, "Poll Benchmark"));
+    List<Item> items = new ArrayList<>(ITEMS);
+    for (int i = 0; i < ITEMS; i++) {
+      items.add(new Item(0, "Item" + i, 1.0 + i % 50, store.getId(), "category" + i % 10));
+    }
+    dataService.addItems(items);
+    MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    String path = "/items/store/" + store.getId();
+    String etag = mockMvc.perform(get(path)).andReturn().getResponse()
+        .getHeader(HttpHeaders.ETAG);
+    BenchmarkReport report = new BenchmarkReport("conditional-get", "poll", "status",
+        "bytesPerPoll", "microsPerPoll");
+
+    for (String poll : new String[] {"full", "conditional"}) {
+      MockHttpServletRequestBuilder request = get(path);
+      if ("conditional".equals(poll)) {
+        request.header(HttpHeaders.IF_NONE_MATCH, etag);
+      }
+      for (int i = 0; i < POLLS / 4; i++) {
+        mockMvc.perform(request);
+      }
+      MockHttpServletResponse response = null;
+      final long start = System.nanoTime();
+      for (int i = 0; i < POLLS; i++) {
+        response = mockMvc.perform(request).andReturn().getResponse();
+      }
+      double micros = (System.nanoTime() - start) / 1e3 / POLLS;
+      assertEquals("full".equals(poll) ? 200 : 304, response.getStatus());
+      report.row(poll, response.getStatus(), response.getContentAsByteArray().length, micros);
+    }
+    report.write();
+    dataService.deleteStoreWithContents(store.getId());
+  }
+}
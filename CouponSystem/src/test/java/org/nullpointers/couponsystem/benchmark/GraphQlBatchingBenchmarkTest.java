@@ -0,0 +1,156 @@
+package org.nullpointers.couponsystem.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.nullpointers.couponsystem.model.CategoryCoupon;
+import org.nullpointers.couponsystem.model.Coupon;
+import org.nullpointers.couponsystem.model.Item;
+import org.nullpointers.couponsystem.model.Store;
+import org.nullpointers.couponsystem.model.TotalPriceCoupon;
+import org.nullpointers.couponsystem.service.DataService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.WebApplicationContext;
+
+/**
+ * Compares loading a page of stores with their items and coupons through the REST API,
+ * one {@code /store}, {@code /items/store} and {@code /coupons/store} call per store, with
+ * one {@code POST /graphql} query for the whole page. Both run inside a transaction so
+ * every read reaches the database, and report requests, SQL statements, and time per
+ * page. Excluded from the default build; run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test1")
+public class GraphQlBatchingBenchmarkTest {
+  private static final int STORES = 20;
+  private static final int ITEMS_PER_STORE = 50;
+  private static final int COUPONS_PER_STORE = 10;
+  private static final int REPEATS = 20;
+  private static final String QUERY = "query($ids: [Int!]) { stores(ids: $ids) { id name"
+      + " items { id name price category } coupons { id type discountValue } } }";
+
+  @Autowired
+  private WebApplicationContext context;
+
+  @Autowired
+  private DataService dataService;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Test
+  public void restVersusGraphQl() throws Exception {
+    List<Integer> storeIds = new ArrayList<>(STORES);
+    for (int s = 0; s < STORES; s++) {
+      Store store = dataService.addStore(new Store(0, "GraphQL Benchmark " + s));
+      List<Item> items = new ArrayList<>(ITEMS_PER_STORE);
+      for (int i = 0; i < ITEMS_PER_STORE; i++) {
+        items.add(new Item(0, "Item" + i, 1.0 + i, store.getId(), "category" + i % 5));
+      }
+      dataService.addItems(items);
+      List<Coupon> coupons = new ArrayList<>(COUPONS_PER_STORE);
+      for (int i = 0; i < COUPONS_PER_STORE; i++) {
+        coupons.add(i % 2 == 0
+            ? new TotalPriceCoupon(0, store.getId(), 5, true, 20.0 + i)
+            : new CategoryCoupon(0, store.getId(), 2, false, "category" + i % 5));
+      }
+      dataService.addCoupons(coupons);
+      storeIds.add(store.getId());
+    }
+    MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    String graphQl = objectMapper.writeValueAsString(
+        Map.of("query", QUERY, "variables", Map.of("ids", storeIds)));
+    BenchmarkReport report = new BenchmarkReport("graphql-batching", "api", "stores",
+        "requests", "statements", "millis");
+
+    Page[] pages = {
+        new Page("rest", () -> {
+          for (int id : storeIds) {
+            mockMvc.perform(get("/store/" + id)).andExpect(status().isOk());
+            mockMvc.perform(get("/items/store/" + id)).andExpect(status().isOk());
+            mockMvc.perform(get("/coupons/store/" + id)).andExpect(status().isOk());
+          }
+          return 3 * storeIds.size();
+        }),
+        new Page("graphql", () -> {
+          mockMvc.perform(post("/graphql").contentType(MediaType.APPLICATION_JSON)
+              .content(graphQl)).andExpect(status().isOk());
+          return 1;
+        }),
+    };
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    for (Page page : pages) {
+      load(page);
+      final long statementsBefore = statistics.getPrepareStatementCount();
+      final long start = System.nanoTime();
+      int requests = 0;
+      for (int r = 0; r < REPEATS; r++) {
+        requests = load(page);
+      }
+      double millis = (System.nanoTime() - start) / 1e6 / REPEATS;
+      long statements = (statistics.getPrepareStatementCount() - statementsBefore) / REPEATS;
+      report.row(page.name, STORES, requests, statements, millis);
+      if ("graphql".equals(page.name)) {
+        assertEquals(3, statements);
+      }
+    }
+    report.write();
+    for (int id : storeIds) {
+      dataService.deleteStoreWithContents(id);
+    }
+  }
+
+  private int load(Page page) {
+    return transactionTemplate.execute(status -> {
+      try {
+        return page.load.requests();
+      } catch (Exception e) {
+        throw new IllegalStateException(e);
+      }
+    });
+  }
+
+  /**
+   * Loads one page of stores and returns how many requests it took.
+   */
+  private interface Load {
+    int requests() throws Exception;
+  }
+
+  /**
+   * A named way of loading a page of stores.
+   */
+  private static class Page {
+    private final String name;
+    private final Load load;
+
+    private Page(String name, Load load) {
+      this.name = name;
+      this.load = load;
+    }
+  }
+}
@@ -0,0 +1,248 @@
+package org.nullpointers.couponsystem.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.grpc.ManagedChannel;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.stub.StreamObserver;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.nullpointers.couponsystem.grpc.Cart;
+import org.nullpointers.couponsystem.grpc.CartResult;
+import org.nullpointers.couponsystem.grpc.CartServiceGrpc;
+import org.nullpointers.couponsystem.grpc.GrpcServer;
+import org.nullpointers.couponsystem.model.CategoryCoupon;
+import org.nullpointers.couponsystem.model.Coupon;
+import org.nullpointers.couponsystem.model.Item;
+import org.nullpointers.couponsystem.model.Store;
+import org.nullpointers.couponsystem.model.TotalPriceCoupon;
+import org.nullpointers.couponsystem.service.DataService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Load test comparing cart evaluation over REST with gRPC on localhost. The same carts
+ * are sent as {@code POST /cart/optimal-coupon} over HTTP/1.1 from
+ * {@value #CONCURRENCY} threads, as unary {@code FindOptimalCoupon} calls from as many
+ * threads sharing one HTTP/2 connection, and pipelined through one
+ * {@code EvaluateCarts} stream. Reports carts per second for each. Runs against a web
+ * server on a random port with its own in-memory database, so it does not disturb the
+ * schema other test contexts share. Excluded from the default build; run with
+ * {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.datasource.url=jdbc:h2:mem:grpc-load;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"})
+@ActiveProfiles("test1")
+public class GrpcLoadBenchmarkTest {
+  private static final int ITEMS = 500;
+  private static final int COUPONS = 50;
+  private static final int CART_SIZE = 10;
+  private static final int CARTS = 20_000;
+  private static final int WARM_UP_CARTS = 5_000;
+  private static final int CONCURRENCY = 16;
+
+  @LocalServerPort
+  private int httpPort;
+
+  @Autowired
+  private GrpcServer grpcServer;
+
+  @Autowired
+  private DataService dataService;
+
+  @Test
+  public void restVersusGrpc() throws Exception {
+    Store store = dataService.addStore(new Store(0, "gRPC Load"));
+    List<Item> items = new ArrayList<>(ITEMS);
+    for (int i = 0; i < ITEMS; i++) {
+      items.add(new Item(0, "Item" + i, 1.0 + i % 50, store.getId(), "category" + i % 10));
+    }
+    items = dataService.addItems(items);
+    List<Coupon> coupons = new ArrayList<>(COUPONS);
+    for (int i = 0; i < COUPONS; i++) {
+      coupons.add(i % 2 == 0
+          ? new TotalPriceCoupon(0, store.getId(), 5 + i % 10, true, 50.0 + i)
+          : new CategoryCoupon(0, store.getId(), 2 + i % 5, false, "category" + i % 10));
+    }
+    dataService.addCoupons(coupons);
+
+    Random random = new Random(42);
+    int[][] carts = new int[CARTS][CART_SIZE];
+    for (int[] cart : carts) {
+      for (int i = 0; i < CART_SIZE; i++) {
+        cart[i] = items.get(random.nextInt(ITEMS)).getId();
+      }
+    }
+    final int storeId = store.getId();
+    HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    ManagedChannel channel = NettyChannelBuilder.forAddress("localhost", grpcServer.getPort())
+        .usePlaintext().build();
+    BenchmarkReport report = new BenchmarkReport("grpc-load", "transport", "carts",
+        "millis", "cartsPerSecond");
+    try {
+      Transport[] transports = {
+          new Transport("rest", n -> rest(http, carts, n, storeId)),
+          new Transport("grpc-unary", n -> unary(channel, carts, n, storeId)),
+          new Transport("grpc-stream", n -> stream(channel, carts, n, storeId)),
+      };
+      for (Transport transport : transports) {
+        transport.run.send(WARM_UP_CARTS);
+        long start = System.nanoTime();
+        assertEquals(CARTS, transport.run.send(CARTS), transport.name);
+        double millis = (System.nanoTime() - start) / 1e6;
+        report.row(transport.name, CARTS, millis, CARTS * 1000.0 / millis);
+      }
+    } finally {
+      channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+    report.write();
+    dataService.deleteStoreWithContents(storeId);
+  }
+
+  /**
+   * Posts the first {@code count} carts as JSON, spread over the worker threads.
+   */
+  private int rest(HttpClient http, int[][] carts, int count, int storeId)
+      throws Exception {
+    URI uri = URI.create("http://localhost:" + httpPort + "/cart/optimal-coupon");
+    return inParallel(count, i -> {
+      StringBuilder body = new StringBuilder(128).append("{\"itemIds\":[");
+      for (int j = 0; j < CART_SIZE; j++) {
+        body.append(j == 0 ? "" : ",").append(carts[i][j]);
+      }
+      body.append("],\"storeId\":").append(storeId).append('}');
+      HttpRequest request = HttpRequest.newBuilder(uri)
+          .header("Content-Type", "application/json")
+          .POST(HttpRequest.BodyPublishers.ofString(body.toString())).build();
+      return http.send(request, HttpResponse.BodyHandlers.ofString()).statusCode() == 200;
+    });
+  }
+
+  /**
+   * Makes one unary call per cart, spread over the worker threads.
+   */
+  private static int unary(ManagedChannel channel, int[][] carts, int count, int storeId)
+      throws Exception {
+    CartServiceGrpc.CartServiceBlockingStub stub = CartServiceGrpc.newBlockingStub(channel);
+    return inParallel(count, i -> stub.findOptimalCoupon(cart(i, carts[i], storeId))
+        .getError().isEmpty());
+  }
+
+  /**
+   * Pipelines the carts through one stream and waits for every result.
+   */
+  private static int stream(ManagedChannel channel, int[][] carts, int count, int storeId)
+      throws Exception {
+    AtomicInteger answered = new AtomicInteger();
+    CompletableFuture<Void> done = new CompletableFuture<>();
+    StreamObserver<Cart> requests = CartServiceGrpc.newStub(channel).evaluateCarts(
+        new StreamObserver<>() {
+          @Override
+          public void onNext(CartResult result) {
+            if (result.getError().isEmpty()) {
+              answered.incrementAndGet();
+            }
+          }
+
+          @Override
+          public void onError(Throwable t) {
+            done.completeExceptionally(t);
+          }
+
+          @Override
+          public void onCompleted() {
+            done.complete(null);
+          }
+        });
+    for (int i = 0; i < count; i++) {
+      requests.onNext(cart(i, carts[i], storeId));
+    }
+    requests.onCompleted();
+    done.get(5, TimeUnit.MINUTES);
+    return answered.get();
+  }
+
+  private static Cart cart(int requestId, int[] itemIds, int storeId) {
+    Cart.Builder cart = Cart.newBuilder().setRequestId(requestId).setStoreId(storeId);
+    for (int itemId : itemIds) {
+      cart.addItemIds(itemId);
+    }
+    return cart.build();
+  }
+
+  /**
+   * Runs {@code count} calls on {@value #CONCURRENCY} threads, each thread taking every
+   * {@value #CONCURRENCY}th cart, and returns how many succeeded.
+   */
+  private static int inParallel(int count, Call call) throws Exception {
+    ExecutorService workers = Executors.newFixedThreadPool(CONCURRENCY);
+    try {
+      List<Future<Integer>> succeeded = new ArrayList<>(CONCURRENCY);
+      for (int t = 0; t < CONCURRENCY; t++) {
+        final int first = t;
+        succeeded.add(workers.submit(() -> {
+          int ok = 0;
+          for (int i = first; i < count; i += CONCURRENCY) {
+            ok += call.send(i) ? 1 : 0;
+          }
+          return ok;
+        }));
+      }
+      int total = 0;
+      for (Future<Integer> future : succeeded) {
+        total += future.get();
+      }
+      return total;
+    } finally {
+      workers.shutdownNow();
+    }
+  }
+
+  /**
+   * One cart evaluation, returning whether it succeeded.
+   */
+  private interface Call {
+    boolean send(int cart) throws IOException, InterruptedException;
+  }
+
+  /**
+   * Sends a number of carts over one transport and returns how many succeeded.
+   */
+  private interface Run {
+    int send(int carts) throws Exception;
+  }
+
+  /**
+   * A named way of sending carts.
+   */
+  private static class Transport {
+    private final String name;
+    private final Run run;
+
+    private Transport(String name, Run run) {
+      this.name = name;
+      this.run = run;
+    }
+  }
+}
@@ -0,0 +1,99 @@
+package org.nullpointers.couponsystem.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.nullpointers.couponsystem.controller.JsonBodyCache;
+import org.nullpointers.couponsystem.model.Item;
+import org.nullpointers.couponsystem.model.Store;
+import org.nullpointers.couponsystem.service.DataService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Compares GETs of one item and of a store's first page of {@value #ITEMS} items when
+ * Jackson writes every response, which the benchmark forces by emptying the
+ * {@link JsonBodyCache} before each request, with GETs answered from the cached bytes,
+ * plain and gzipped. Reports time and bytes per request. Runs against a web server on a
+ * random port with its own in-memory database. Excluded from the default build; run with
+ * {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.datasource.url=jdbc:h2:mem:body-cache;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"})
+@ActiveProfiles("test1")
+public class JsonBodyCacheBenchmarkTest {
+  private static final int ITEMS = 1000;
+  private static final int REQUESTS = 2000;
+
+  @LocalServerPort
+  private int port;
+
+  @Autowired
+  private DataService dataService;
+
+  @Autowired
+  private JsonBodyCache jsonBodyCache;
+
+  private final HttpClient http = HttpClient.newHttpClient();
+
+  @Test
+  public void serializedVersusCachedBodies() throws Exception {
+    Store store = dataService.addStore(new Store(0, "Body Cache Benchmark"));
+    List<Item> items = new ArrayList<>(ITEMS);
+    for (int i = 0; i < ITEMS; i++) {
+      items.add(new Item(0, "Item" + i, 1.0 + i % 50, store.getId(), "category" + i % 10));
+    }
+    List<Item> added = dataService.addItems(items);
+    BenchmarkReport report = new BenchmarkReport("json-body-cache", "path", "mode",
+        "bytesPerRequest", "microsPerRequest");
+
+    for (String path : new String[] {"/item/" + added.get(0).getId(),
+        "/items/store/" + store.getId()}) {
+      for (String mode : new String[] {"jackson", "cached", "cached-gzip"}) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(
+            URI.create("http://localhost:" + port + path));
+        if ("cached-gzip".equals(mode)) {
+          builder.header(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        }
+        HttpRequest request = builder.build();
+        boolean uncached = "jackson".equals(mode);
+        for (int i = 0; i < REQUESTS / 4; i++) {
+          send(request, uncached);
+        }
+        HttpResponse<byte[]> response = null;
+        final long start = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+          response = send(request, uncached);
+        }
+        double micros = (System.nanoTime() - start) / 1e3 / REQUESTS;
+        assertEquals(200, response.statusCode());
+        report.row(path.substring(0, path.lastIndexOf('/')), mode, response.body().length,
+            micros);
+      }
+    }
+    report.write();
+    dataService.deleteStoreWithContents(store.getId());
+  }
+
+  private HttpResponse<byte[]> send(HttpRequest request, boolean uncached) throws Exception {
+    if (uncached) {
+      jsonBodyCache.clear();
+    }
+    return http.send(request, HttpResponse.BodyHandlers.ofByteArray());
+  }
+}
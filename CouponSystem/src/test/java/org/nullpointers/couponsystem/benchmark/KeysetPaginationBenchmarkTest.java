@@ -0,0 +1,81 @@
+package org.nullpointers.couponsystem.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.nullpointers.couponsystem.catalog.CatalogSnapshot;
+import org.nullpointers.couponsystem.model.Item;
+import org.nullpointers.couponsystem.model.Store;
+
+/**
+ * Measures the cost of fetching a page of items at increasing depths of a 1,000,000-item
+ * replica, for keyset pages (by ID, and by price within a category) and for offset
+ * pages cut from the full list. Keyset pages should cost the same at every depth.
+ * Excluded from the default build; run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+public class KeysetPaginationBenchmarkTest {
+  private static final int ITEMS = 1_000_000;
+  private static final int STORES = 500;
+  private static final int PAGE = 100;
+  private static final int REPEATS = 20;
+  private static final String[] CATEGORIES = {"toys", "books", "food", "garden", "tools"};
+
+  @Test
+  public void pageCostByDepth() throws IOException {
+    CatalogSnapshot.Builder builder = new CatalogSnapshot.Builder();
+    for (int store = 1; store <= STORES; store++) {
+      builder.addStore(new Store(store, "Store" + store));
+    }
+    for (int id = 1; id <= ITEMS; id++) {
+      builder.addItem(new Item(id, "Item" + id, 1.0 + id % 997, 1 + id % STORES,
+          CATEGORIES[id % CATEGORIES.length]));
+    }
+    CatalogSnapshot snapshot = builder.build();
+    List<Item> category = snapshot.getItemsByCategoryAfter("toys", Double.NEGATIVE_INFINITY,
+        0, Integer.MAX_VALUE);
+
+    BenchmarkReport report = new BenchmarkReport("keyset-pagination", "path", "depth",
+        "microsPerPage");
+    double shallowKeyset = 0;
+    double deepKeyset = 0;
+    for (int depth : new int[] {0, ITEMS / 10, ITEMS / 2, ITEMS - PAGE}) {
+      double keyset = time(d -> snapshot.getItemsAfter(d, PAGE), depth);
+      report.row("keyset-id", depth, keyset);
+      report.row("offset-id", depth, time(d -> offsetPage(snapshot.getAllItems(), d), depth));
+      int categoryDepth = depth / CATEGORIES.length;
+      Item last = category.get(Math.max(0, categoryDepth - 1));
+      report.row("keyset-category", categoryDepth, time(d -> snapshot.getItemsByCategoryAfter(
+          "toys", last.getPrice(), last.getId(), PAGE), categoryDepth));
+      if (depth == 0) {
+        shallowKeyset = keyset;
+      }
+      deepKeyset = keyset;
+    }
+    report.write();
+    assertEquals(PAGE, snapshot.getItemsAfter(ITEMS - PAGE - 1, PAGE).size());
+    // Generous bound: a deep keyset page must not cost like scanning the list
+    assertTrue(deepKeyset < shallowKeyset * 20 + 50);
+  }
+
+  private static List<Item> offsetPage(List<Item> all, int offset) {
+    return new ArrayList<>(all.subList(offset, Math.min(all.size(), offset + PAGE)));
+  }
+
+  private static double time(IntFunction<List<Item>> query, int depth) {
+    for (int i = 0; i < REPEATS; i++) {
+      query.apply(depth);
+    }
+    long start = System.nanoTime();
+    for (int i = 0; i < REPEATS; i++) {
+      query.apply(depth);
+    }
+    return (System.nanoTime() - start) / 1000.0 / REPEATS;
+  }
+}
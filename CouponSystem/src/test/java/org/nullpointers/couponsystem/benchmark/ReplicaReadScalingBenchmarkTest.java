@@ -0,0 +1,138 @@
+package org.nullpointers.couponsystem.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.nullpointers.couponsystem.catalog.CatalogChangeEvent;
+import org.nullpointers.couponsystem.catalog.CatalogReplica;
+import org.nullpointers.couponsystem.catalog.CatalogVersions;
+import org.nullpointers.couponsystem.catalog.StoreSnapshot;
+import org.nullpointers.couponsystem.model.Coupon;
+import org.nullpointers.couponsystem.model.Item;
+import org.nullpointers.couponsystem.model.TotalPriceCoupon;
+import org.nullpointers.couponsystem.repository.CouponRepository;
+import org.nullpointers.couponsystem.repository.ItemRepository;
+import org.nullpointers.couponsystem.repository.StoreRepository;
+
+/**
+ * Measures replica read throughput as reader threads are added while a writer keeps
+ * updating items and coupons. Readers never lock, so throughput should grow linearly
+ * up to the number of free cores. Excluded from the default build; run with
+ * {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+public class ReplicaReadScalingBenchmarkTest {
+  private static final int STORES = 1000;
+  private static final int ITEMS = 200_000;
+  private static final long WINDOW_MS = 2000;
+  private static final String[] CATEGORIES = {"toys", "books", "food", "garden", "tools"};
+
+  @Test
+  public void readThroughputScaling() throws Exception {
+    CatalogReplica replica = new CatalogReplica(mock(StoreRepository.class),
+        mock(ItemRepository.class), mock(CouponRepository.class), new CatalogVersions(),
+        true, 1000);
+    replica.load();
+    Random random = new Random(1L);
+    for (int id = 1; id <= ITEMS; id++) {
+      replica.onCatalogChange(CatalogChangeEvent.saved(randomItem(random, id)));
+    }
+    for (int store = 1; store <= STORES; store++) {
+      replica.onCatalogChange(CatalogChangeEvent.saved(
+          new TotalPriceCoupon(store, store, 10.0, true, 20.0)));
+    }
+
+    int cores = Runtime.getRuntime().availableProcessors();
+    BenchmarkReport report = new BenchmarkReport("replica-read-scaling", "readers", "cores",
+        "readsPerSec", "readsPerSecPerReader", "efficiency", "writesPerSec");
+    double single = 0;
+    for (int readers = 1; readers <= Math.max(4, cores); readers *= 2) {
+      long[] result = measure(replica, readers);
+      double readsPerSec = result[0] * 1000.0 / WINDOW_MS;
+      if (readers == 1) {
+        single = readsPerSec;
+      }
+      double efficiency = readsPerSec / (single * readers);
+      report.row(readers, cores, (long) readsPerSec, (long) (readsPerSec / readers),
+          String.format("%.2f", efficiency), result[1] * 1000 / WINDOW_MS);
+      // Leave one core for the writer; beyond that, threads only time-slice
+      if (readers < cores) {
+        assertTrue(efficiency > 0.6, "Reads stopped scaling at " + readers + " readers");
+      }
+    }
+    report.write();
+  }
+
+  /**
+   * Runs readers and one writer for the measurement window.
+   *
+   * @return the total reads and writes completed
+   */
+  private static long[] measure(CatalogReplica replica, int readers) throws Exception {
+    AtomicBoolean running = new AtomicBoolean(true);
+    AtomicLong reads = new AtomicLong();
+    AtomicLong writes = new AtomicLong();
+    CountDownLatch done = new CountDownLatch(readers + 1);
+    List<Thread> threads = new ArrayList<>();
+    for (int r = 0; r < readers; r++) {
+      final long seed = r;
+      threads.add(new Thread(() -> {
+        reads.addAndGet(read(replica, running, seed));
+        done.countDown();
+      }));
+    }
+    threads.add(new Thread(() -> {
+      Random random = new Random(-1L);
+      long count = 0;
+      while (running.get()) {
+        replica.onCatalogChange(CatalogChangeEvent.saved(
+            randomItem(random, 1 + random.nextInt(ITEMS))));
+        count++;
+      }
+      writes.set(count);
+      done.countDown();
+    }));
+    threads.forEach(Thread::start);
+    Thread.sleep(WINDOW_MS);
+    running.set(false);
+    done.await(30, TimeUnit.SECONDS);
+    return new long[] {reads.get(), writes.get()};
+  }
+
+  /**
+   * Repeats a typical request: the cheapest item of a category in a store, priced with
+   * the store's best coupon.
+   */
+  private static long read(CatalogReplica replica, AtomicBoolean running, long seed) {
+    Random random = new Random(seed);
+    long count = 0;
+    double checksum = 0;
+    Item[] cart = new Item[1];
+    while (running.get()) {
+      StoreSnapshot view = replica.snapshot().getStoreView(1 + random.nextInt(STORES));
+      cart[0] = view.getCheapestInCategory(CATEGORIES[random.nextInt(CATEGORIES.length)]);
+      if (cart[0] != null) {
+        for (Coupon coupon : view.getCoupons()) {
+          checksum += coupon.calculateDiscount(cart);
+        }
+      }
+      count++;
+    }
+    return checksum >= 0 ? count : -count;
+  }
+
+  private static Item randomItem(Random random, int id) {
+    return new Item(id, "Item" + id, 1 + random.nextInt(100), 1 + random.nextInt(STORES),
+        CATEGORIES[random.nextInt(CATEGORIES.length)]);
+  }
+}
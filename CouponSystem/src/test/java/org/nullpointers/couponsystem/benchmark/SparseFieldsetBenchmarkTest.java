@@ -0,0 +1,136 @@
+package org.nullpointers.couponsystem.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.nullpointers.couponsystem.model.Item;
+import org.nullpointers.couponsystem.model.Store;
+import org.nullpointers.couponsystem.repository.ItemScope;
+import org.nullpointers.couponsystem.service.DataService;
+import org.nullpointers.couponsystem.service.ItemFields;
+import org.nullpointers.couponsystem.service.KeysetPage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Compares reading every page of a large store's items as full items with reading only
+ * {@code id,name,price}, as {@code GET /items/store/{storeId}?fields=id,name,price} does.
+ * Each path is measured on the replica and, inside a transaction, on the database, and
+ * reports response bytes, time to fetch and serialize all pages, and how many entities
+ * the persistence context holds afterwards. Excluded from the default build; run with
+ * {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test1")
+public class SparseFieldsetBenchmarkTest {
+  private static final int ITEMS = 50_000;
+  private static final int PAGE = 1000;
+  private static final int REPEATS = 5;
+
+  @Autowired
+  private DataService dataService;
+
+  @Autowired
+  private EntityManager entityManager;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Test
+  public void fullVersusProjected() throws IOException {
+    Store store = dataService.addStore(new Store(0, "Fieldset Benchmark"));
+    List<Item> items = new ArrayList<>(ITEMS);
+    for (int i = 0; i < ITEMS; i++) {
+      items.add(new Item(0, "Item" + i, 1.0 + i % 100, store.getId(), "category" + i % 20));
+    }
+    dataService.addItems(items);
+    final ItemFields fields = ItemFields.parse("id,name,price");
+    final int storeId = store.getId();
+    BenchmarkReport report = new BenchmarkReport("sparse-fieldsets", "source", "path",
+        "rows", "bytes", "millis", "managedEntities");
+
+    for (String source : new String[] {"replica", "database"}) {
+      Result full = measure(source, (cursor, limit) ->
+          dataService.getItemsByStorePage(storeId, cursor, limit));
+      Result projected = measure(source, (cursor, limit) ->
+          dataService.getItemFieldsPage(ItemScope.store(storeId), fields, cursor, limit));
+      report.row(source, "full", full.rows, full.bytes, full.millis, full.managedEntities);
+      report.row(source, "fields", projected.rows, projected.bytes, projected.millis,
+          projected.managedEntities);
+
+      assertEquals(ITEMS, full.rows);
+      assertEquals(ITEMS, projected.rows);
+      assertTrue(projected.bytes < full.bytes);
+      assertEquals(0, projected.managedEntities);
+    }
+    report.write();
+  }
+
+  /**
+   * Reads and serializes every page {@value #REPEATS} times after one warm-up pass,
+   * inside a transaction for the database source.
+   */
+  private Result measure(String source, BiFunction<String, Integer, KeysetPage<?>> pages) {
+    boolean database = "database".equals(source);
+    Result result = new Result();
+    for (int pass = 0; pass <= REPEATS; pass++) {
+      Result run = database
+          ? transactionTemplate.execute(status -> readAll(pages, true))
+          : readAll(pages, false);
+      if (pass > 0) {
+        result.rows = run.rows;
+        result.bytes = run.bytes;
+        result.managedEntities = run.managedEntities;
+        result.millis += run.millis / REPEATS;
+      }
+    }
+    return result;
+  }
+
+  private Result readAll(BiFunction<String, Integer, KeysetPage<?>> pages, boolean database) {
+    Result result = new Result();
+    long start = System.nanoTime();
+    String cursor = null;
+    do {
+      KeysetPage<?> page = pages.apply(cursor, PAGE);
+      try {
+        result.bytes += objectMapper.writeValueAsBytes(page.getItems()).length;
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+      result.rows += page.getItems().size();
+      cursor = page.getNext();
+    } while (cursor != null);
+    result.millis = (System.nanoTime() - start) / 1e6;
+    if (database) {
+      result.managedEntities = entityManager.unwrap(Session.class).getStatistics()
+          .getEntityCount();
+    }
+    return result;
+  }
+
+  /**
+   * The totals of one pass over every page.
+   */
+  private static class Result {
+    private int rows;
+    private long bytes;
+    private double millis;
+    private int managedEntities;
+  }
+}
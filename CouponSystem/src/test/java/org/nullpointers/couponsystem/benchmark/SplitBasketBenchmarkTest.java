@@ -0,0 +1,98 @@
+package org.nullpointers.couponsystem.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.nullpointers.couponsystem.model.CategoryCoupon;
+import org.nullpointers.couponsystem.model.Coupon;
+import org.nullpointers.couponsystem.model.Item;
+import org.nullpointers.couponsystem.model.TotalPriceCoupon;
+import org.nullpointers.couponsystem.service.DataService;
+import org.nullpointers.couponsystem.service.ShoppingListIndex;
+import org.nullpointers.couponsystem.service.SplitBasketOptimizer;
+
+/**
+ * Measures split-basket plan quality against the time budget on a random catalog.
+ * Excluded from the default build; run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+public class SplitBasketBenchmarkTest {
+  private static final int STORES = 500;
+  private static final int ENTRIES = 30;
+  private static final double CARRY_RATE = 0.5;
+  private static final long[] BUDGETS_MS = {1, 5, 20, 100, 500};
+
+  @Test
+  public void qualityVersusTimeBudget() throws IOException {
+    Random random = new Random(7L);
+    ArrayList<String> keywords = new ArrayList<>();
+    DataService dataService = mock(DataService.class);
+    int nextId = 1;
+    for (int entry = 0; entry < ENTRIES; entry++) {
+      String keyword = "product" + entry;
+      keywords.add(keyword);
+      ArrayList<Item> matches = new ArrayList<>();
+      for (int store = 1; store <= STORES; store++) {
+        if (random.nextDouble() < CARRY_RATE) {
+          double price = 1.0 + random.nextInt(2000) / 100.0;
+          matches.add(new Item(nextId++, keyword, price, store, "cat" + entry % 5));
+        }
+      }
+      when(dataService.searchItemsByKeyword(keyword)).thenReturn(matches);
+    }
+    ShoppingListIndex index = ShoppingListIndex.build(dataService, keywords, null);
+    Map<Integer, List<Coupon>> coupons = randomCoupons(random);
+
+    BenchmarkReport report = new BenchmarkReport("split-basket",
+        "maxStores", "budgetMs", "totalPrice", "iterations", "improvements", "gapPercent");
+    for (int maxStores : new int[] {3, 5, 8}) {
+      double[] totals = new double[BUDGETS_MS.length];
+      long[] iterations = new long[BUDGETS_MS.length];
+      int[] improvements = new int[BUDGETS_MS.length];
+      for (int i = 0; i < BUDGETS_MS.length; i++) {
+        SplitBasketOptimizer.Result result = new SplitBasketOptimizer(index, coupons)
+            .optimize(maxStores, TimeUnit.MILLISECONDS.toNanos(BUDGETS_MS[i]), 42L);
+        assertNotNull(result);
+        totals[i] = result.getTotalPrice();
+        iterations[i] = result.getIterations();
+        improvements[i] = result.getImprovements().size();
+      }
+      double best = totals[totals.length - 1];
+      for (int i = 0; i < BUDGETS_MS.length; i++) {
+        report.row(maxStores, BUDGETS_MS[i], String.format("%.2f", totals[i]), iterations[i],
+            improvements[i], String.format("%.2f", 100.0 * (totals[i] - best) / best));
+      }
+      assertTrue(best <= totals[0] + 0.001);
+    }
+    report.write();
+  }
+
+  private static Map<Integer, List<Coupon>> randomCoupons(Random random) {
+    Map<Integer, List<Coupon>> coupons = new HashMap<>();
+    int nextId = 1;
+    for (int store = 1; store <= STORES; store++) {
+      ArrayList<Coupon> storeCoupons = new ArrayList<>();
+      if (random.nextBoolean()) {
+        storeCoupons.add(new TotalPriceCoupon(nextId++, store,
+            5 + random.nextInt(20), random.nextBoolean(), 20 + random.nextInt(100)));
+      }
+      if (random.nextInt(4) == 0) {
+        storeCoupons.add(new CategoryCoupon(nextId++, store,
+            5 + random.nextInt(15), true, "cat" + random.nextInt(5)));
+      }
+      coupons.put(store, storeCoupons);
+    }
+    return coupons;
+  }
+}
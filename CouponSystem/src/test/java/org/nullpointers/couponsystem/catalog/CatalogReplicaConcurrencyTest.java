@@ -0,0 +1,143 @@
+package org.nullpointers.couponsystem.catalog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+import org.nullpointers.couponsystem.model.Item;
+import org.nullpointers.couponsystem.model.TotalPriceCoupon;
+import org.nullpointers.couponsystem.repository.CouponRepository;
+import org.nullpointers.couponsystem.repository.ItemRepository;
+import org.nullpointers.couponsystem.repository.StoreRepository;
+
+/**
+ * Tests that concurrent writers to the catalog replica lose no updates and that readers
+ * only ever see consistent snapshots.
+ */
+public class CatalogReplicaConcurrencyTest {
+  private static final int WRITERS = 4;
+  private static final int READERS = 2;
+  private static final int STORES = 40;
+  private static final int ITEMS_PER_WRITER = 2000;
+  private static final String[] CATEGORIES = {"toys", "books", "food"};
+
+  @Test
+  public void concurrentWritesAndReadsTest() throws Exception {
+    CatalogReplica replica = new CatalogReplica(mock(StoreRepository.class),
+        mock(ItemRepository.class), mock(CouponRepository.class), new CatalogVersions(),
+        true, 100);
+    replica.load();
+
+    ExecutorService executor = Executors.newFixedThreadPool(WRITERS + READERS);
+    AtomicBoolean writing = new AtomicBoolean(true);
+    List<Future<String>> readers = new ArrayList<>();
+    for (int r = 0; r < READERS; r++) {
+      readers.add(executor.submit(() -> readUntilDone(replica, writing)));
+    }
+    List<Future<Map<Integer, Item>>> writers = new ArrayList<>();
+    for (int w = 0; w < WRITERS; w++) {
+      final int writer = w;
+      writers.add(executor.submit(() -> write(replica, writer)));
+    }
+
+    Map<Integer, Item> expected = new HashMap<>();
+    for (Future<Map<Integer, Item>> writer : writers) {
+      expected.putAll(writer.get(60, TimeUnit.SECONDS));
+    }
+    writing.set(false);
+    for (Future<String> reader : readers) {
+      assertNull(reader.get(60, TimeUnit.SECONDS));
+    }
+    executor.shutdown();
+
+    CatalogSnapshot snapshot = replica.snapshot();
+    assertEquals(expected.size(), snapshot.getItemCount());
+    assertEquals(WRITERS, snapshot.getCouponCount());
+    int inViews = 0;
+    for (int store = 1; store <= STORES; store++) {
+      inViews += snapshot.getStoreView(store).getItemCount();
+    }
+    assertEquals(expected.size(), inViews);
+    for (Item item : expected.values()) {
+      assertEquals(item.getStoreId(), snapshot.getItem(item.getId()).getStoreId());
+      assertEquals(item.getId(), snapshot.getStoreView(item.getStoreId())
+          .getItems().stream().filter(i -> i.getId() == item.getId()).findFirst()
+          .orElseThrow().getId());
+    }
+  }
+
+  /**
+   * Adds items to random stores, then moves or deletes some of them, and returns the
+   * items the writer expects to remain.
+   */
+  private static Map<Integer, Item> write(CatalogReplica replica, int writer) {
+    Random random = new Random(writer);
+    Map<Integer, Item> expected = new HashMap<>();
+    int firstId = writer * ITEMS_PER_WRITER + 1;
+    for (int id = firstId; id < firstId + ITEMS_PER_WRITER; id++) {
+      Item item = randomItem(random, id);
+      replica.onCatalogChange(CatalogChangeEvent.saved(item));
+      expected.put(id, item);
+    }
+    for (int id = firstId; id < firstId + ITEMS_PER_WRITER; id++) {
+      int action = random.nextInt(4);
+      if (action == 0) {
+        replica.onCatalogChange(CatalogChangeEvent.deleted(CatalogChangeEvent.EntityType.ITEM, id));
+        expected.remove(id);
+      } else if (action == 1) {
+        Item moved = randomItem(random, id);
+        replica.onCatalogChange(CatalogChangeEvent.saved(moved));
+        expected.put(id, moved);
+      }
+    }
+    replica.onCatalogChange(CatalogChangeEvent.saved(
+        new TotalPriceCoupon(writer + 1, 1 + writer, 10.0, true, 50.0)));
+    return expected;
+  }
+
+  private static Item randomItem(Random random, int id) {
+    return new Item(id, "Item" + id, 1 + random.nextInt(100), 1 + random.nextInt(STORES),
+        CATEGORIES[random.nextInt(CATEGORIES.length)]);
+  }
+
+  /**
+   * Checks snapshots until writing stops.
+   *
+   * @return a description of the first inconsistency, or null if none was seen
+   */
+  private static String readUntilDone(CatalogReplica replica, AtomicBoolean writing) {
+    Random random = new Random();
+    while (writing.get()) {
+      CatalogSnapshot snapshot = replica.snapshot();
+      StoreSnapshot view = snapshot.getStoreView(1 + random.nextInt(STORES));
+      List<Item> items = view.getItems();
+      int grouped = 0;
+      for (String category : CATEGORIES) {
+        grouped += view.getItemsInCategory(category).size();
+      }
+      if (grouped != items.size()) {
+        return "Category index out of step with items in store " + view.getStoreId();
+      }
+      for (int i = 0; i < items.size(); i++) {
+        Item item = items.get(i);
+        if (item.getStoreId() != view.getStoreId()
+            || snapshot.getItem(item.getId()) != item
+            || i > 0 && items.get(i - 1).getId() >= item.getId()) {
+          return "Inconsistent item " + item.getId() + " in store " + view.getStoreId();
+        }
+      }
+    }
+    return null;
+  }
+}
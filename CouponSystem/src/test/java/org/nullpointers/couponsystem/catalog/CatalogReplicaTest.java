@@ -0,0 +1,177 @@
+package org.nullpointers.couponsystem.catalog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.nullpointers.couponsystem.model.Coupon;
+import org.nullpointers.couponsystem.model.Item;
+import org.nullpointers.couponsystem.model.ItemCoupon;
+import org.nullpointers.couponsystem.model.Store;
+import org.nullpointers.couponsystem.service.DataService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Tests that the catalog replica is loaded at startup and follows committed writes.
+ */
+@SpringBootTest
+@ActiveProfiles("test1")
+public class CatalogReplicaTest {
+  @Autowired
+  private CatalogReplica catalogReplica;
+
+  @Autowired
+  private DataService dataService;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  private Store store;
+
+  /**
+   * Adds a store before each test.
+   */
+  @BeforeEach
+  public void setUp() {
+    store = dataService.addStore(new Store(0, "Replica Store"));
+  }
+
+  /**
+   * Removes the test data after each test.
+   */
+  @AfterEach
+  public void tearDown() {
+    dataService.getItemsByStore(store.getId())
+        .forEach(item -> dataService.deleteItem(item.getId()));
+    dataService.deleteStore(store.getId());
+  }
+
+  @Test
+  public void replicaIsReadyTest() {
+    assertTrue(catalogReplica.isReady());
+    assertTrue(catalogReplica.getFootprint().isReady());
+  }
+
+  @Test
+  public void committedWritesReachReplicaTest() {
+    Item item = dataService.addItem(new Item(0, "Replica Item", 3.0, store.getId(), "misc"));
+
+    assertNotNull(catalogReplica.snapshot().getStore(store.getId()));
+    assertEquals(item.getId(), catalogReplica.snapshot().getItem(item.getId()).getId());
+    assertEquals(1, dataService.getItemsByStore(store.getId()).size());
+
+    dataService.deleteItem(item.getId());
+
+    assertNull(catalogReplica.snapshot().getItem(item.getId()));
+    assertTrue(dataService.getItemsByStore(store.getId()).isEmpty());
+  }
+
+  @Test
+  public void rolledBackWritesDoNotReachReplicaTest() {
+    Item item = transactionTemplate.execute(status -> {
+      Item added = dataService.addItem(new Item(0, "Rolled Back", 3.0, store.getId(), "misc"));
+      // Reads inside the transaction go to the database and see the uncommitted row
+      assertEquals(1, dataService.getItemsByStore(store.getId()).size());
+      status.setRollbackOnly();
+      return added;
+    });
+
+    assertNull(catalogReplica.snapshot().getItem(item.getId()));
+    assertTrue(dataService.getItemsByStore(store.getId()).isEmpty());
+  }
+
+  @Test
+  public void footprintCountsEntitiesTest() {
+    int before = catalogReplica.getFootprint().getItemCount();
+    Item item = dataService.addItem(new Item(0, "Counted", 3.0, store.getId(), "misc"));
+
+    CatalogReplica.Footprint footprint = catalogReplica.getFootprint();
+    assertEquals(before + 1, footprint.getItemCount());
+    assertTrue(footprint.getIndexBytes() > 0);
+
+    dataService.deleteItem(item.getId());
+  }
+
+  @Test
+  public void bulkInsertsReachReplicaTest() {
+    List<Item> added = dataService.addItems(List.of(
+        new Item(0, "Bulk A", 1.0, store.getId(), "misc"),
+        new Item(0, "Bulk B", 2.0, store.getId(), "misc")));
+
+    assertEquals(2, catalogReplica.snapshot().getStoreView(store.getId()).getItemCount());
+    assertEquals("Bulk B", catalogReplica.snapshot().getItem(added.get(1).getId()).getName());
+  }
+
+  @Test
+  public void cascadingStoreDeleteReachesReplicaTest() {
+    Store doomed = dataService.addStore(new Store(0, "Doomed Replica Store"));
+    Item item = dataService.addItem(new Item(0, "Doomed", 1.0, doomed.getId(), "misc"));
+    final Coupon coupon = dataService.addCoupon(
+        new ItemCoupon(0, store.getId(), 5.0, false, item.getId()));
+
+    dataService.deleteStore(doomed.getId());
+
+    CatalogSnapshot snapshot = catalogReplica.snapshot();
+    assertNull(snapshot.getStore(doomed.getId()));
+    assertNull(snapshot.getItem(item.getId()));
+    assertNull(snapshot.getCoupon(coupon.getId()));
+    assertTrue(snapshot.getStoreView(doomed.getId()).isEmpty());
+    assertTrue(snapshot.getCouponsByStore(store.getId()).isEmpty());
+  }
+
+  @Test
+  public void repricedItemsReachReplicaTest() {
+    Store other = dataService.addStore(new Store(0, "Untouched Replica Store"));
+    Item cheap = dataService.addItem(new Item(0, "Cheap Fern", 2.0, store.getId(), "plants"));
+    Item dear = dataService.addItem(new Item(0, "Dear Fern", 9.0, store.getId(), "plants"));
+    final Item untouched = dataService.addItem(
+        new Item(0, "Other Fern", 5.0, other.getId(), "plants"));
+    final StoreSnapshot otherView = catalogReplica.snapshot().getStoreView(other.getId());
+
+    dataService.updatePrices(Map.of(dear.getId(), 1.0));
+    dataService.scaleCategoryPrices(store.getId(), "PLANTS", -50);
+
+    CatalogSnapshot snapshot = catalogReplica.snapshot();
+    assertEquals(1.0, snapshot.getItem(cheap.getId()).getPrice());
+    assertEquals(0.5, snapshot.getItem(dear.getId()).getPrice());
+    // The category index is price-ordered, so it must have been rebuilt
+    assertEquals(List.of(dear.getId(), cheap.getId()),
+        snapshot.getItemsByCategoryAfter("plants", Double.NEGATIVE_INFINITY, 0, 1000).stream()
+            .filter(item -> item.getStoreId() == store.getId()).map(Item::getId).toList());
+    assertSame(otherView, snapshot.getStoreView(other.getId()));
+    assertEquals(5.0, snapshot.getItem(untouched.getId()).getPrice());
+
+    dataService.deleteStore(other.getId());
+  }
+
+  @Test
+  public void outOfOrderChangesAreIgnoredTest() {
+    Item item = dataService.addItem(new Item(0, "Late Fern", 2.0, store.getId(), "plants"));
+    dataService.updatePrices(Map.of(item.getId(), 4.0));
+    final long held = catalogReplica.snapshot().getItem(item.getId()).getVersion();
+    Item older = new Item(item.getId(), "Late Fern", 3.0, store.getId(), "plants");
+    older.setVersion(held - 1);
+
+    // The update committed first arrives after the newer one
+    catalogReplica.onCatalogChange(CatalogChangeEvent.saved(older));
+    catalogReplica.onCatalogChange(CatalogChangeEvent.updatedItems(List.of(older)));
+    assertEquals(4.0, catalogReplica.snapshot().getItem(item.getId()).getPrice());
+
+    // A save that arrives after the delete does not bring the item back
+    dataService.deleteItem(item.getId());
+    catalogReplica.onCatalogChange(CatalogChangeEvent.saved(older));
+    assertNull(catalogReplica.snapshot().getItem(item.getId()));
+    assertTrue(catalogReplica.isDeleted(CatalogChangeEvent.EntityType.ITEM, item.getId()));
+    assertTrue(catalogReplica.snapshot().getStoreView(store.getId()).isEmpty());
+  }
+}
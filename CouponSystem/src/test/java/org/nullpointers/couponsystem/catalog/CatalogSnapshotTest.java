@@ -0,0 +1,188 @@
+package org.nullpointers.couponsystem.catalog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.nullpointers.couponsystem.model.CategoryCoupon;
+import org.nullpointers.couponsystem.model.Item;
+import org.nullpointers.couponsystem.model.Store;
+import org.nullpointers.couponsystem.model.TotalPriceCoupon;
+
+/**
+ * Unit tests for the CatalogSnapshot class.
+ */
+public class CatalogSnapshotTest {
+
+  @Test
+  public void withItemKeepsStoreIndexSortedTest() {
+    CatalogSnapshot snapshot = CatalogSnapshot.EMPTY
+        .withItem(new Item(3, "C", 1.0, 1, "toys"))
+        .withItem(new Item(1, "A", 1.0, 1, "toys"))
+        .withItem(new Item(2, "B", 1.0, 1, "books"));
+
+    assertEquals(List.of(1, 2, 3),
+        snapshot.getItemsByStore(1).stream().map(Item::getId).toList());
+    assertEquals(3, snapshot.getItemCount());
+  }
+
+  @Test
+  public void withItemMovesItemBetweenStoresTest() {
+    CatalogSnapshot before = CatalogSnapshot.EMPTY.withItem(new Item(1, "A", 1.0, 1, "toys"));
+    CatalogSnapshot after = before.withItem(new Item(1, "A", 2.0, 2, "toys"));
+
+    assertTrue(after.getItemsByStore(1).isEmpty());
+    assertEquals(2.0, after.getItemsByStore(2).get(0).getPrice());
+    assertEquals(1, after.getItemCount());
+    // The earlier snapshot is unchanged
+    assertEquals(1, before.getItemsByStore(1).size());
+    assertTrue(before.getItemsByStore(2).isEmpty());
+  }
+
+  @Test
+  public void withoutItemTest() {
+    CatalogSnapshot snapshot = CatalogSnapshot.EMPTY
+        .withItem(new Item(1, "A", 1.0, 1, "toys"))
+        .withItem(new Item(2, "B", 1.0, 1, "toys"))
+        .withoutItem(1);
+
+    assertNull(snapshot.getItem(1));
+    assertEquals(1, snapshot.getItemsByStore(1).size());
+    assertSame(snapshot, snapshot.withoutItem(42));
+  }
+
+  @Test
+  public void withCouponAndWithoutCouponTest() {
+    CatalogSnapshot snapshot = CatalogSnapshot.EMPTY
+        .withCoupon(new TotalPriceCoupon(1, 1, 10.0, true, 50.0))
+        .withCoupon(new CategoryCoupon(2, 2, 5.0, false, "toys"));
+
+    assertEquals(1, snapshot.getCouponsByStore(1).size());
+    assertEquals(1, snapshot.getCouponsByStore(2).size());
+
+    CatalogSnapshot moved = snapshot.withCoupon(new TotalPriceCoupon(1, 2, 10.0, true, 50.0));
+    assertTrue(moved.getCouponsByStore(1).isEmpty());
+    assertEquals(2, moved.getCouponsByStore(2).size());
+
+    CatalogSnapshot removed = moved.withoutCoupon(2);
+    assertNull(removed.getCoupon(2));
+    assertEquals(1, removed.getCouponCount());
+  }
+
+  @Test
+  public void withoutStoreKeepsItemsTest() {
+    CatalogSnapshot snapshot = CatalogSnapshot.EMPTY
+        .withStore(new Store(1, "Shop"))
+        .withItem(new Item(1, "A", 1.0, 1, "toys"))
+        .withoutStore(1);
+
+    assertNull(snapshot.getStore(1));
+    assertEquals(1, snapshot.getItemsByStore(1).size());
+  }
+
+  @Test
+  public void categoryAndKeywordSearchTest() {
+    CatalogSnapshot snapshot = CatalogSnapshot.EMPTY
+        .withItem(new Item(1, "Red Robot", 1.0, 1, "Toys"))
+        .withItem(new Item(2, "Blue Book", 1.0, 2, "books"))
+        .withItem(new Item(3, "Robot Kit", 1.0, 2, "toys"));
+
+    assertEquals(2, snapshot.getItemsByCategory("TOYS").size());
+    assertEquals(List.of(1, 3),
+        snapshot.searchItemsByKeyword("robot").stream().map(Item::getId).toList());
+  }
+
+  @Test
+  public void getItemsByCategoryAfterMergesStoresTest() {
+    CatalogSnapshot snapshot = CatalogSnapshot.EMPTY
+        .withItem(new Item(1, "A", 5.0, 1, "toys"))
+        .withItem(new Item(2, "B", 1.0, 2, "Toys"))
+        .withItem(new Item(3, "C", 5.0, 3, "toys"))
+        .withItem(new Item(4, "D", 3.0, 1, "toys"))
+        .withItem(new Item(5, "E", 2.0, 2, "books"))
+        .withItem(new Item(6, "F", 5.0, 2, "toys"));
+
+    List<Item> first =
+        snapshot.getItemsByCategoryAfter("TOYS", Double.NEGATIVE_INFINITY, 0, 3);
+    Item last = first.get(first.size() - 1);
+    List<Item> second =
+        snapshot.getItemsByCategoryAfter("toys", last.getPrice(), last.getId(), 3);
+
+    assertEquals(List.of(2, 4, 1), first.stream().map(Item::getId).toList());
+    assertEquals(List.of(3, 6), second.stream().map(Item::getId).toList());
+  }
+
+  @Test
+  public void keysetPagesByIdTest() {
+    CatalogSnapshot snapshot = CatalogSnapshot.EMPTY
+        .withItem(new Item(1, "Red Robot", 1.0, 1, "toys"))
+        .withItem(new Item(2, "Blue Book", 1.0, 2, "books"))
+        .withItem(new Item(3, "Robot Kit", 1.0, 2, "toys"))
+        .withCoupon(new TotalPriceCoupon(7, 1, 10.0, true, 0.0));
+
+    assertEquals(List.of(2, 3),
+        snapshot.getItemsAfter(1, 5).stream().map(Item::getId).toList());
+    assertEquals(List.of(3),
+        snapshot.searchItemsByKeywordAfter("ROBOT", 1, 5).stream().map(Item::getId).toList());
+    assertEquals(1, snapshot.getCouponsAfter(0, 5).size());
+    assertTrue(snapshot.getCouponsAfter(7, 5).isEmpty());
+  }
+
+  @Test
+  public void getItemsByStoreReturnsCopyTest() {
+    CatalogSnapshot snapshot = CatalogSnapshot.EMPTY.withItem(new Item(1, "A", 1.0, 1, "toys"));
+
+    snapshot.getItemsByStore(1).clear();
+
+    assertEquals(1, snapshot.getItemsByStore(1).size());
+  }
+
+  @Test
+  public void prepareItemsAddsAndMovesTest() {
+    CatalogSnapshot before = CatalogSnapshot.EMPTY
+        .withItem(new Item(1, "A", 1.0, 1, "toys"))
+        .withItem(new Item(2, "B", 1.0, 1, "toys"));
+
+    CatalogSnapshot after = before.prepareItems(List.of(
+        new Item(3, "C", 1.0, 1, "toys"),
+        new Item(2, "B", 1.0, 2, "toys"),
+        new Item(4, "D", 1.0, 2, "books"))).apply(before);
+
+    assertEquals(List.of(1, 3),
+        after.getItemsByStore(1).stream().map(Item::getId).toList());
+    assertEquals(List.of(2, 4),
+        after.getItemsByStore(2).stream().map(Item::getId).toList());
+    assertEquals(4, after.getItemCount());
+    assertEquals(List.of(1, 2, 3),
+        after.getItemsByCategory("toys").stream().map(Item::getId).toList());
+  }
+
+  @Test
+  public void batchRemovalEventsTest() {
+    CatalogSnapshot snapshot = CatalogSnapshot.EMPTY
+        .withItem(new Item(1, "A", 1.0, 1, "toys"))
+        .withItem(new Item(2, "B", 2.0, 2, "toys"))
+        .withItem(new Item(3, "C", 3.0, 2, "books"))
+        .withCoupon(new TotalPriceCoupon(4, 1, 10.0, true, 50.0))
+        .withCoupon(new TotalPriceCoupon(5, 2, 10.0, true, 50.0));
+    CatalogChangeEvent items =
+        CatalogChangeEvent.deletedAll(CatalogChangeEvent.EntityType.ITEM, List.of(3, 1, 9));
+    CatalogChangeEvent coupons =
+        CatalogChangeEvent.deletedAll(CatalogChangeEvent.EntityType.COUPON, List.of(5));
+
+    assertEquals(List.of(1, 2), Arrays.stream(items.touchedStores(snapshot)).boxed().toList());
+    CatalogSnapshot after = coupons.applyTo(items.applyTo(snapshot));
+
+    assertEquals(1, after.getItemCount());
+    assertTrue(after.getItemsByStore(1).isEmpty());
+    assertEquals(List.of(2), after.getItemsByCategory("toys").stream().map(Item::getId)
+        .toList());
+    assertTrue(after.getItemsByCategory("books").isEmpty());
+    assertEquals(1, after.getCouponCount());
+    assertTrue(after.getCouponsByStore(2).isEmpty());
+  }
+}
@@ -0,0 +1,78 @@
+package org.nullpointers.couponsystem.catalog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.Mockito.mock;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.nullpointers.couponsystem.model.Item;
+import org.nullpointers.couponsystem.model.Store;
+import org.nullpointers.couponsystem.model.TotalPriceCoupon;
+import org.nullpointers.couponsystem.repository.CouponRepository;
+import org.nullpointers.couponsystem.repository.ItemRepository;
+import org.nullpointers.couponsystem.repository.StoreRepository;
+
+/**
+ * Tests that the replica raises the version of exactly the stores each change touches.
+ */
+public class CatalogVersionsTest {
+  private final CatalogVersions versions = new CatalogVersions();
+
+  private CatalogReplica replica(boolean enabled) {
+    CatalogReplica replica = new CatalogReplica(mock(StoreRepository.class),
+        mock(ItemRepository.class), mock(CouponRepository.class), versions, enabled, 100);
+    replica.load();
+    return replica;
+  }
+
+  @Test
+  public void changesRaiseTheirStoresTest() {
+    CatalogReplica replica = replica(true);
+    replica.onCatalogChange(CatalogChangeEvent.saved(new Store(1, "One")));
+    replica.onCatalogChange(CatalogChangeEvent.saved(new Store(2, "Two")));
+    assertEquals(1, versions.getVersion(1));
+    assertEquals(1, versions.getVersion(2));
+
+    replica.onCatalogChange(CatalogChangeEvent.saved(new Item(10, "Rose", 3.0, 1, "flowers")));
+    replica.onCatalogChange(CatalogChangeEvent.saved(
+        new TotalPriceCoupon(20, 1, 10.0, true, 50.0)));
+    assertEquals(3, versions.getVersion(1));
+    assertEquals(1, versions.getVersion(2));
+
+    // Moving an item changes the store it leaves and the one it joins
+    replica.onCatalogChange(CatalogChangeEvent.saved(new Item(10, "Rose", 3.0, 2, "flowers")));
+    assertEquals(4, versions.getVersion(1));
+    assertEquals(2, versions.getVersion(2));
+
+    // A delete raises the store the item belonged to
+    replica.onCatalogChange(CatalogChangeEvent.deletedAll(
+        CatalogChangeEvent.EntityType.ITEM, List.of(10)));
+    assertEquals(4, versions.getVersion(1));
+    assertEquals(3, versions.getVersion(2));
+    assertEquals(0, versions.getVersion(3));
+    assertEquals(6, versions.getChangeCount());
+  }
+
+  @Test
+  public void changesWithoutReplicaRaiseEveryStoreTest() {
+    CatalogReplica replica = replica(false);
+    replica.onCatalogChange(CatalogChangeEvent.deleted(CatalogChangeEvent.EntityType.ITEM, 10));
+
+    assertEquals(1, versions.getVersion(1));
+    assertEquals(1, versions.getVersion(99));
+  }
+
+  @Test
+  public void etagTracksVersionAndVariantTest() {
+    final CatalogReplica replica = replica(true);
+    String before = versions.etag(1, null);
+    assertEquals(before, versions.etag(1, null));
+    assertNotEquals(before, versions.etag(1, "cbor"));
+    assertNotEquals(before, versions.etag(2, null));
+
+    replica.onCatalogChange(CatalogChangeEvent.saved(new Store(1, "One")));
+    assertNotEquals(before, versions.etag(1, null));
+    assertEquals('"', before.charAt(0));
+  }
+}
@@ -0,0 +1,50 @@
+package org.nullpointers.couponsystem.catalog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the ContentHashIndex class.
+ */
+public class ContentHashIndexTest {
+  @Test
+  public void matchesLastHashTest() {
+    ContentHashIndex index = new ContentHashIndex(0);
+    index.put("SKU-1", "aaa");
+    index.put("SKU-2", "bbb");
+    index.put("SKU-1", "ccc");
+
+    assertEquals(2, index.size());
+    assertTrue(index.matches("SKU-1", "ccc"));
+    assertFalse(index.matches("SKU-1", "aaa"));
+    assertTrue(index.matches("SKU-2", "bbb"));
+    assertFalse(index.matches("SKU-3", "bbb"));
+  }
+
+  @Test
+  public void growsPastInitialCapacityTest() {
+    ContentHashIndex index = new ContentHashIndex(4);
+    final long before = index.estimateBytes();
+    for (int i = 0; i < 10_000; i++) {
+      index.put("key" + i, "hash" + i);
+    }
+
+    assertEquals(10_000, index.size());
+    assertTrue(index.estimateBytes() > before);
+    for (int i = 0; i < 10_000; i++) {
+      assertTrue(index.matches("key" + i, "hash" + i));
+      assertFalse(index.matches("key" + i, "hash" + (i + 1)));
+    }
+  }
+
+  @Test
+  public void fingerprintTest() {
+    assertEquals(ContentHashIndex.fingerprint("abc"), ContentHashIndex.fingerprint("abc"));
+    assertNotEquals(ContentHashIndex.fingerprint("abc"), ContentHashIndex.fingerprint("acb"));
+    assertNotEquals(0, ContentHashIndex.fingerprint(""));
+  }
+}
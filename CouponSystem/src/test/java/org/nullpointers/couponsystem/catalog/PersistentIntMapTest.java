@@ -0,0 +1,169 @@
+package org.nullpointers.couponsystem.catalog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the PersistentIntMap class.
+ */
+public class PersistentIntMapTest {
+
+  @Test
+  public void withAndGetTest() {
+    PersistentIntMap<String> map = PersistentIntMap.<String>empty().with(1, "a").with(40, "b");
+
+    assertEquals(2, map.size());
+    assertEquals("a", map.get(1));
+    assertEquals("b", map.get(40));
+    assertNull(map.get(2));
+    assertTrue(map.containsKey(40));
+    assertFalse(map.containsKey(41));
+  }
+
+  @Test
+  public void withReplacesValueTest() {
+    PersistentIntMap<String> map = PersistentIntMap.<String>empty().with(7, "a").with(7, "b");
+
+    assertEquals(1, map.size());
+    assertEquals("b", map.get(7));
+  }
+
+  @Test
+  public void updatesLeaveOlderVersionsUnchangedTest() {
+    PersistentIntMap<String> first = PersistentIntMap.<String>empty().with(1, "a");
+    PersistentIntMap<String> second = first.with(2, "b");
+    final PersistentIntMap<String> third = second.without(1);
+
+    assertEquals(1, first.size());
+    assertNull(first.get(2));
+    assertEquals("a", second.get(1));
+    assertEquals("b", second.get(2));
+    assertNull(third.get(1));
+    assertEquals(1, third.size());
+  }
+
+  @Test
+  public void withoutAbsentKeyReturnsSameMapTest() {
+    PersistentIntMap<String> map = PersistentIntMap.<String>empty().with(1, "a");
+
+    assertSame(map, map.without(99));
+  }
+
+  @Test
+  public void withoutLastKeyEmptiesMapTest() {
+    PersistentIntMap<String> map = PersistentIntMap.<String>empty().with(5, "a").without(5);
+
+    assertTrue(map.isEmpty());
+    assertEquals(0, map.estimateStructureBytes());
+  }
+
+  @Test
+  public void withNullValueTest() {
+    assertThrows(IllegalArgumentException.class,
+        () -> PersistentIntMap.<String>empty().with(1, null));
+  }
+
+  @Test
+  public void iterationOrderTest() {
+    PersistentIntMap<Integer> map = PersistentIntMap.empty();
+    for (int key : new int[] {300, 5, -1, 70000, 0}) {
+      map = map.with(key, key);
+    }
+    List<Integer> keys = new ArrayList<>();
+    map.forEach((key, value) -> keys.add(key));
+
+    // Unsigned order places negative keys after all non-negative ones
+    assertEquals(List.of(0, 5, 300, 70000, -1), keys);
+    assertEquals(keys, map.values());
+  }
+
+  @Test
+  public void valuesAfterTest() {
+    PersistentIntMap<Integer> map = PersistentIntMap.empty();
+    for (int key : new int[] {300, 5, -1, 70000, 0, 31, 32, 33}) {
+      map = map.with(key, key);
+    }
+
+    assertEquals(List.of(31, 32, 33), map.valuesAfter(5, 3, value -> true));
+    assertEquals(List.of(33, 70000), map.valuesAfter(31, 10, value -> value % 2 == 1
+        || value > 1000 && value != -1));
+    assertEquals(List.of(-1), map.valuesAfter(70000, 10, value -> true));
+    assertEquals(List.of(5), map.valuesAfter(4, 1, value -> true));
+    assertEquals(List.of(), map.valuesAfter(-1, 10, value -> true));
+    assertEquals(List.of(), map.valuesAfter(0, 0, value -> true));
+  }
+
+  @Test
+  public void valuesAfterMatchesTreeMapTest() {
+    Random random = new Random(11L);
+    TreeMap<Integer, Integer> expected = new TreeMap<>();
+    PersistentIntMap<Integer> map = PersistentIntMap.empty();
+    for (int i = 0; i < 3000; i++) {
+      int key = random.nextInt(100000);
+      expected.put(key, key);
+      map = map.with(key, key);
+    }
+    for (int i = 0; i < 200; i++) {
+      int after = random.nextInt(100000);
+      List<Integer> page = new ArrayList<>(expected.tailMap(after, false).values());
+      assertEquals(page.subList(0, Math.min(25, page.size())),
+          map.valuesAfter(after, 25, value -> true));
+    }
+  }
+
+  @Test
+  public void builderMatchesPersistentUpdatesTest() {
+    Random random = new Random(5L);
+    TreeMap<Integer, Integer> expected = new TreeMap<>();
+    PersistentIntMap.Builder<Integer> builder = new PersistentIntMap.Builder<>();
+    PersistentIntMap<Integer> map = PersistentIntMap.empty();
+    for (int i = 0; i < 5000; i++) {
+      int key = random.nextInt(20000);
+      expected.put(key, i);
+      builder.put(key, i);
+      map = map.with(key, i);
+      if (i % 3 == 0) {
+        int removed = random.nextInt(20000);
+        expected.remove(removed);
+        map = map.without(removed);
+        builder = rebuild(map);
+      }
+    }
+    PersistentIntMap<Integer> built = builder.build();
+
+    assertEquals(expected.size(), map.size());
+    assertEquals(expected.size(), built.size());
+    assertEquals(new ArrayList<>(expected.values()), map.values());
+    assertEquals(new ArrayList<>(expected.values()), built.values());
+  }
+
+  @Test
+  public void estimateStructureBytesGrowsWithSizeTest() {
+    PersistentIntMap.Builder<String> builder = new PersistentIntMap.Builder<>();
+    builder.put(1, "a");
+    long small = builder.build().estimateStructureBytes();
+    for (int i = 0; i < 1000; i++) {
+      builder.put(i, "a");
+    }
+    long large = builder.build().estimateStructureBytes();
+
+    assertTrue(small > 0);
+    assertTrue(large > small);
+  }
+
+  private static PersistentIntMap.Builder<Integer> rebuild(PersistentIntMap<Integer> map) {
+    PersistentIntMap.Builder<Integer> builder = new PersistentIntMap.Builder<>();
+    map.forEach(builder::put);
+    return builder;
+  }
+}
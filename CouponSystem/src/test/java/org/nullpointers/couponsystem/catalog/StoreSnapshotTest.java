@@ -0,0 +1,183 @@
+package org.nullpointers.couponsystem.catalog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.nullpointers.couponsystem.model.Coupon;
+import org.nullpointers.couponsystem.model.Item;
+import org.nullpointers.couponsystem.model.TotalPriceCoupon;
+
+/**
+ * Unit tests for the StoreSnapshot class.
+ */
+public class StoreSnapshotTest {
+
+  @Test
+  public void ofBuildsCategoryIndexTest() {
+    StoreSnapshot view = StoreSnapshot.of(1, new Item[] {
+        new Item(1, "Robot", 30.0, 1, "Toys"),
+        new Item(2, "Ball", 5.0, 1, "toys"),
+        new Item(3, "Novel", 12.0, 1, "books")}, new Coupon[0]);
+
+    assertEquals(List.of(2, 1), ids(view.getItemsInCategory("TOYS")));
+    assertEquals(3, view.getCheapestInCategory("books").getId());
+    assertNull(view.getCheapestInCategory("food"));
+  }
+
+  @Test
+  public void withItemUpdatesCategoryIndexTest() {
+    StoreSnapshot before = StoreSnapshot.empty(1)
+        .withItem(new Item(1, "Robot", 30.0, 1, "toys"))
+        .withItem(new Item(2, "Ball", 5.0, 1, "toys"));
+
+    // Repricing and recategorizing item 2 moves it between groups
+    StoreSnapshot after = before.withItem(new Item(2, "Ball", 50.0, 1, "sports"));
+
+    assertEquals(List.of(1), ids(after.getItemsInCategory("toys")));
+    assertEquals(2, after.getCheapestInCategory("sports").getId());
+    assertEquals(List.of(1, 2), ids(after.getItems()));
+    // The earlier view is unchanged
+    assertEquals(List.of(2, 1), ids(before.getItemsInCategory("toys")));
+  }
+
+  @Test
+  public void withoutItemsTest() {
+    StoreSnapshot view = StoreSnapshot.empty(1)
+        .withItems(List.of(new Item(1, "Robot", 30.0, 1, "toys"),
+            new Item(2, "Ball", 5.0, 1, "toys"), new Item(3, "Novel", 12.0, 1, "books"),
+            new Item(4, "Kite", 8.0, 1, "toys")));
+
+    StoreSnapshot after = view.withoutItems(new int[] {2, 3, 99});
+
+    assertEquals(List.of(1, 4), ids(after.getItems()));
+    assertEquals(List.of(4, 1), ids(after.getItemsInCategory("toys")));
+    assertNull(after.getCheapestInCategory("books"));
+    assertSame(after, after.withoutItems(new int[] {99}));
+    assertEquals(4, view.getItemCount());
+  }
+
+  @Test
+  public void withItemsMergesByIdTest() {
+    StoreSnapshot view = StoreSnapshot.empty(1)
+        .withItem(new Item(2, "Old", 9.0, 1, "toys"))
+        .withItem(new Item(5, "Kept", 3.0, 1, "toys"))
+        .withItems(List.of(new Item(7, "New", 1.0, 1, "toys"),
+            new Item(2, "Replaced", 4.0, 1, "toys"), new Item(1, "First", 8.0, 1, "books")));
+
+    assertEquals(List.of(1, 2, 5, 7), ids(view.getItems()));
+    assertEquals("Replaced", view.getItems().get(1).getName());
+    assertEquals(List.of(7, 5, 2), ids(view.getItemsInCategory("toys")));
+  }
+
+  @Test
+  public void withItemsRegroupsReplacedItemsTest() {
+    StoreSnapshot view = StoreSnapshot.empty(1)
+        .withItems(List.of(new Item(1, "Fern", 2.0, 1, "plants"),
+            new Item(2, "Palm", 9.0, 1, "plants"), new Item(3, "Rake", 4.0, 1, "tools"),
+            new Item(4, "Hoe", 6.0, 1, "tools")))
+        .withItems(List.of(new Item(2, "Palm", 1.0, 1, "plants"),
+            new Item(3, "Rake", 4.0, 1, "garden"), new Item(4, "Hoe", 3.0, 1, "garden")));
+
+    assertEquals(List.of(1, 2, 3, 4), ids(view.getItems()));
+    assertEquals(List.of(2, 1), ids(view.getItemsInCategory("plants")));
+    assertEquals(List.of(4, 3), ids(view.getItemsInCategory("garden")));
+    assertNull(view.getCheapestInCategory("tools"));
+  }
+
+  @Test
+  public void withItemsAppendMergesCategoryGroupsTest() {
+    StoreSnapshot view = StoreSnapshot.empty(1)
+        .withItem(new Item(1, "Mid", 5.0, 1, "toys"))
+        .withItem(new Item(2, "High", 9.0, 1, "toys"))
+        .withItems(List.of(new Item(4, "Low", 1.0, 1, "Toys"),
+            new Item(3, "Between", 7.0, 1, "toys"), new Item(5, "Book", 2.0, 1, "books")));
+
+    assertEquals(List.of(1, 2, 3, 4, 5), ids(view.getItems()));
+    assertEquals(List.of(4, 1, 3, 2), ids(view.getItemsInCategory("toys")));
+    assertEquals(5, view.getCheapestInCategory("books").getId());
+  }
+
+  @Test
+  public void withoutItemTest() {
+    StoreSnapshot view = StoreSnapshot.empty(1)
+        .withItem(new Item(1, "Robot", 30.0, 1, "toys"))
+        .withoutItem(1);
+
+    assertTrue(view.isEmpty());
+    assertTrue(view.getItemsInCategory("toys").isEmpty());
+    assertSame(view, view.withoutItem(1));
+  }
+
+  @Test
+  public void itemWithoutCategoryTest() {
+    StoreSnapshot view = StoreSnapshot.empty(1).withItem(new Item(1, "Thing", 1.0, 1, null));
+
+    assertEquals(1, view.getItemCount());
+    assertNull(view.getCheapestInCategory(null));
+    assertEquals(0, view.withoutItem(1).getItemCount());
+  }
+
+  @Test
+  public void withCouponAndWithoutCouponTest() {
+    StoreSnapshot view = StoreSnapshot.empty(1)
+        .withCoupon(new TotalPriceCoupon(2, 1, 10.0, true, 50.0))
+        .withCoupon(new TotalPriceCoupon(1, 1, 5.0, false, 20.0));
+
+    assertEquals(List.of(1, 2), view.getCoupons().stream().map(Coupon::getId).toList());
+    assertEquals(1, view.withoutCoupon(2).getCouponCount());
+    assertSame(view, view.withoutCoupon(9));
+  }
+
+  @Test
+  public void withCouponsMergesByIdTest() {
+    StoreSnapshot view = StoreSnapshot.empty(1)
+        .withCoupon(new TotalPriceCoupon(2, 1, 10.0, true, 50.0))
+        .withCoupon(new TotalPriceCoupon(5, 1, 5.0, false, 20.0));
+
+    StoreSnapshot after = view.withCoupons(List.of(
+        new TotalPriceCoupon(7, 1, 1.0, false, 0.0),
+        new TotalPriceCoupon(2, 1, 15.0, true, 50.0),
+        new TotalPriceCoupon(1, 1, 2.0, false, 0.0)));
+
+    assertEquals(List.of(1, 2, 5, 7), after.getCoupons().stream().map(Coupon::getId)
+        .toList());
+    assertEquals(15.0, after.getCoupons().get(1).getDiscountValue());
+    assertEquals(2, view.getCouponCount());
+  }
+
+  @Test
+  public void getItemsAfterTest() {
+    StoreSnapshot view = StoreSnapshot.of(1, new Item[] {
+        new Item(2, "A", 1.0, 1, "toys"),
+        new Item(5, "B", 1.0, 1, "toys"),
+        new Item(9, "C", 1.0, 1, "toys")}, new Coupon[0]);
+
+    assertEquals(List.of(2, 5), ids(view.getItemsAfter(0, 2)));
+    assertEquals(List.of(5, 9), ids(view.getItemsAfter(2, 10)));
+    assertEquals(List.of(9), ids(view.getItemsAfter(6, Integer.MAX_VALUE)));
+    assertTrue(view.getItemsAfter(9, 10).isEmpty());
+    assertTrue(view.getCouponsAfter(0, 10).isEmpty());
+  }
+
+  @Test
+  public void positionAfterTest() {
+    Item[] group = {
+        new Item(4, "A", 1.0, 1, "toys"),
+        new Item(2, "B", 2.0, 1, "toys"),
+        new Item(3, "C", 2.0, 1, "toys"),
+        new Item(1, "D", 3.0, 1, "toys")};
+
+    assertEquals(0, StoreSnapshot.positionAfter(group, Double.NEGATIVE_INFINITY, 0));
+    assertEquals(2, StoreSnapshot.positionAfter(group, 2.0, 2));
+    assertEquals(3, StoreSnapshot.positionAfter(group, 2.5, 0));
+    assertEquals(4, StoreSnapshot.positionAfter(group, 3.0, 1));
+  }
+
+  private static List<Integer> ids(List<Item> items) {
+    return items.stream().map(Item::getId).toList();
+  }
+}
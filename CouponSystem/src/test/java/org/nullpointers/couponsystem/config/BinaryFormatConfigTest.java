@@ -0,0 +1,142 @@
+package org.nullpointers.couponsystem.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.nullpointers.couponsystem.dto.PackedIds;
+import org.nullpointers.couponsystem.model.Item;
+import org.nullpointers.couponsystem.model.Store;
+import org.nullpointers.couponsystem.model.TotalPriceCoupon;
+import org.nullpointers.couponsystem.service.DataService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+/**
+ * Tests content negotiation between JSON and CBOR through the full MVC stack.
+ */
+@SpringBootTest
+@ActiveProfiles("test1")
+public class BinaryFormatConfigTest {
+  private static final ObjectMapper JSON = new ObjectMapper();
+  private static final CBORMapper CBOR = new CBORMapper();
+
+  @Autowired
+  private WebApplicationContext context;
+
+  @Autowired
+  private DataService dataService;
+
+  private MockMvc mockMvc;
+  private Store store;
+  private Item first;
+  private Item second;
+
+  /**
+   * Creates a store with two items and a coupon they qualify for.
+   */
+  @BeforeEach
+  public void setUp() {
+    mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    store = dataService.addStore(new Store(0, "Binary Format Store"));
+    first = dataService.addItem(new Item(0, "Rose", 30.0, store.getId(), "flowers"));
+    second = dataService.addItem(new Item(0, "Vase", 25.0, store.getId(), "decor"));
+    dataService.addCoupon(new TotalPriceCoupon(0, store.getId(), 10.0, true, 50.0));
+  }
+
+  /**
+   * Removes the test store and everything in it.
+   */
+  @AfterEach
+  public void tearDown() {
+    dataService.deleteStoreWithContents(store.getId());
+  }
+
+  @Test
+  public void optimalCouponOverCborTest() throws Exception {
+    byte[] body = CBOR.writeValueAsBytes(Map.of(
+        "itemIds", PackedIds.pack(new int[] {first.getId(), second.getId()}),
+        "storeId", store.getId()));
+
+    MockHttpServletResponse response = mockMvc.perform(post("/cart/optimal-coupon")
+            .contentType(MediaType.APPLICATION_CBOR)
+            .accept(MediaType.APPLICATION_CBOR)
+            .content(body))
+        .andReturn().getResponse();
+
+    assertEquals(200, response.getStatus());
+    assertEquals(MediaType.APPLICATION_CBOR_VALUE, response.getContentType());
+    JsonNode result = CBOR.readTree(response.getContentAsByteArray());
+    assertEquals(5.5, result.get("discount").asDouble(), 1e-9);
+    assertEquals(store.getId(), result.get("coupon").get("storeId").asInt());
+  }
+
+  @Test
+  public void jsonStaysDefaultTest() throws Exception {
+    MockHttpServletResponse response = mockMvc.perform(
+        get("/coupons/store/" + store.getId())).andReturn().getResponse();
+
+    assertEquals(200, response.getStatus());
+    assertTrue(response.getContentType().startsWith(MediaType.APPLICATION_JSON_VALUE));
+    assertEquals(1, JSON.readTree(response.getContentAsByteArray()).size());
+
+    MockHttpServletResponse message = mockMvc.perform(get("/store/" + Integer.MAX_VALUE))
+        .andReturn().getResponse();
+    assertTrue(message.getContentType().startsWith(MediaType.TEXT_PLAIN_VALUE));
+    assertEquals("Store not found.", message.getContentAsString());
+  }
+
+  @Test
+  public void cborListIsSmallerThanJsonTest() throws Exception {
+    String path = "/items/store/" + store.getId();
+    byte[] json = mockMvc.perform(get(path).accept(MediaType.APPLICATION_JSON))
+        .andReturn().getResponse().getContentAsByteArray();
+    byte[] cbor = mockMvc.perform(get(path).accept(MediaType.APPLICATION_CBOR))
+        .andReturn().getResponse().getContentAsByteArray();
+
+    assertEquals(JSON.readTree(json), CBOR.readTree(cbor));
+    assertTrue(cbor.length < json.length);
+  }
+
+  @Test
+  public void messagesAreCborTextTest() throws Exception {
+    MockHttpServletResponse response = mockMvc.perform(get("/store/" + Integer.MAX_VALUE)
+            .accept(MediaType.APPLICATION_CBOR))
+        .andReturn().getResponse();
+
+    assertEquals(404, response.getStatus());
+    assertEquals(MediaType.APPLICATION_CBOR_VALUE, response.getContentType());
+    assertEquals("Store not found.",
+        CBOR.readValue(response.getContentAsByteArray(), String.class));
+  }
+
+  @Test
+  public void malformedPackedIdsTest() throws Exception {
+    byte[] body = CBOR.writeValueAsBytes(Map.of(
+        "itemIds", new byte[] {(byte) 0x80}, "storeId", store.getId()));
+
+    MockHttpServletResponse response = mockMvc.perform(post("/cart/optimal-coupon")
+            .contentType(MediaType.APPLICATION_CBOR)
+            .accept(MediaType.APPLICATION_CBOR)
+            .content(body))
+        .andReturn().getResponse();
+
+    assertEquals(400, response.getStatus());
+    assertTrue(CBOR.readValue(response.getContentAsByteArray(), String.class)
+        .startsWith("Malformed request body: Invalid packed item IDs"));
+  }
+}
@@ -0,0 +1,50 @@
+package org.nullpointers.couponsystem.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.nullpointers.couponsystem.model.Item;
+import org.nullpointers.couponsystem.repository.ItemRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Tests that items stored before the normalized category column existed are found by
+ * category once it is backfilled.
+ */
+@SpringBootTest
+@ActiveProfiles("test1")
+public class CategoryKeyConfigTest {
+  private static final int LEGACY_ID = 900_001;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private ItemRepository itemRepository;
+
+  /**
+   * Removes the test row after each test.
+   */
+  @AfterEach
+  public void tearDown() {
+    jdbcTemplate.update("delete from items where id = ?", LEGACY_ID);
+  }
+
+  @Test
+  public void backfillNormalizesLegacyCategoriesTest() {
+    jdbcTemplate.update("insert into items (id, name, price, store_id, category)"
+        + " values (?, ?, ?, ?, ?)", LEGACY_ID, "Legacy Lamp", 12.0, 1, "Legacy Home");
+    assertTrue(itemRepository.findByCategoryKey("legacy home").isEmpty());
+
+    assertEquals(1, CategoryKeyConfig.backfill(jdbcTemplate));
+
+    assertEquals(LEGACY_ID, itemRepository.findByCategoryKey(
+        Item.normalizeCategory("LEGACY HOME")).get(0).getId());
+    assertEquals(0, CategoryKeyConfig.backfill(jdbcTemplate));
+  }
+}
@@ -0,0 +1,198 @@
+package org.nullpointers.couponsystem.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.nullpointers.couponsystem.model.Item;
+import org.nullpointers.couponsystem.model.Store;
+import org.nullpointers.couponsystem.model.TotalPriceCoupon;
+import org.nullpointers.couponsystem.service.DataService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+
+/**
+ * Tests ETags and conditional GETs of a store's items and coupons, and caching of
+ * entities by ID, through the full MVC stack.
+ */
+@SpringBootTest
+@ActiveProfiles("test1")
+public class ConditionalGetConfigTest {
+  @Autowired
+  private WebApplicationContext context;
+
+  @Autowired
+  private DataService dataService;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  private FilterRegistrationBean<ShallowEtagHeaderFilter> entityEtagFilter;
+
+  private MockMvc mockMvc;
+  private Store store;
+  private Store other;
+
+  /**
+   * Creates two stores, one with an item and a coupon.
+   */
+  @BeforeEach
+  public void setUp() {
+    mockMvc = MockMvcBuilders.webAppContextSetup(context)
+        .addFilter(entityEtagFilter.getFilter(), ConditionalGetConfig.ENTITY_PATHS)
+        .build();
+    store = dataService.addStore(new Store(0, "ETag Store"));
+    other = dataService.addStore(new Store(0, "ETag Other"));
+    dataService.addItem(new Item(0, "Rose", 3.0, store.getId(), "flowers"));
+    dataService.addCoupon(new TotalPriceCoupon(0, store.getId(), 10.0, true, 20.0));
+  }
+
+  /**
+   * Removes the test stores.
+   */
+  @AfterEach
+  public void tearDown() {
+    dataService.deleteStoreWithContents(store.getId());
+    dataService.deleteStoreWithContents(other.getId());
+  }
+
+  @Test
+  public void unchangedCatalogIsNotModifiedTest() throws Exception {
+    MockHttpServletResponse first = fetch("/items/store/" + store.getId(), null, null);
+    String etag = first.getHeader(HttpHeaders.ETAG);
+    assertEquals(200, first.getStatus());
+    assertNotNull(etag);
+    assertEquals("no-cache", first.getHeader(HttpHeaders.CACHE_CONTROL));
+
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    final long statements = statistics.getPrepareStatementCount();
+    MockHttpServletResponse again = fetch("/items/store/" + store.getId(), etag, null);
+    assertEquals(304, again.getStatus());
+    assertEquals(etag, again.getHeader(HttpHeaders.ETAG));
+    assertEquals(0, again.getContentLength());
+    assertEquals(statements, statistics.getPrepareStatementCount());
+
+    // Changes to another store leave the tag alone
+    dataService.addItem(new Item(0, "Tulip", 2.0, other.getId(), "flowers"));
+    assertEquals(304, fetch("/items/store/" + store.getId(), etag, null).getStatus());
+  }
+
+  @Test
+  public void changeInvalidatesTagTest() throws Exception {
+    String items = fetch("/items/store/" + store.getId(), null, null)
+        .getHeader(HttpHeaders.ETAG);
+    String coupons = fetch("/coupons/store/" + store.getId(), null, null)
+        .getHeader(HttpHeaders.ETAG);
+    assertEquals(items, coupons);
+
+    dataService.addCoupon(new TotalPriceCoupon(0, store.getId(), 5.0, false, 10.0));
+
+    MockHttpServletResponse changed = fetch("/coupons/store/" + store.getId(), coupons, null);
+    assertEquals(200, changed.getStatus());
+    assertNotEquals(coupons, changed.getHeader(HttpHeaders.ETAG));
+    assertEquals(200, fetch("/items/store/" + store.getId(), items, null).getStatus());
+  }
+
+  @Test
+  public void formatsHaveTheirOwnTagsTest() throws Exception {
+    String json = fetch("/items/store/" + store.getId(), null, null)
+        .getHeader(HttpHeaders.ETAG);
+    MockHttpServletResponse cbor = fetch("/items/store/" + store.getId(), json,
+        MediaType.APPLICATION_CBOR_VALUE);
+
+    assertEquals(200, cbor.getStatus());
+    assertNotEquals(json, cbor.getHeader(HttpHeaders.ETAG));
+    assertEquals(HttpHeaders.ACCEPT, cbor.getHeader(HttpHeaders.VARY));
+  }
+
+  @Test
+  public void deletesAreNotConditionalTest() throws Exception {
+    MockHttpServletResponse response = mockMvc.perform(
+            delete("/coupons/store/" + other.getId()))
+        .andReturn().getResponse();
+
+    assertEquals(200, response.getStatus());
+    assertNull(response.getHeader(HttpHeaders.ETAG));
+  }
+
+  @Test
+  public void entitiesByIdAreCacheableTest() throws Exception {
+    int itemId = dataService.getItemsByStore(store.getId()).get(0).getId();
+
+    assertEquals("no-cache",
+        fetch("/store/" + store.getId(), null, null).getHeader(HttpHeaders.CACHE_CONTROL));
+    assertEquals("max-age=60",
+        fetch("/item/" + itemId, null, null).getHeader(HttpHeaders.CACHE_CONTROL));
+    assertNull(fetch("/store/-1", null, null).getHeader(HttpHeaders.CACHE_CONTROL));
+  }
+
+  @Test
+  public void onlyEntitiesByIdGetBodyTagsTest() throws Exception {
+    MockHttpServletResponse basket = fetch("/store/" + store.getId()
+        + "/budget-basket?budget=10", null, null);
+
+    assertEquals(200, basket.getStatus());
+    assertNull(basket.getHeader(HttpHeaders.ETAG));
+    ConditionalGetConfig.EntityEtagFilter filter =
+        (ConditionalGetConfig.EntityEtagFilter) entityEtagFilter.getFilter();
+    for (String path : new String[] {"/store/1/sync", "/store/1/sync/items",
+        "/store/1/import", "/store/1/budget-basket"}) {
+      assertTrue(filter.shouldNotFilter(new MockHttpServletRequest("POST", path)), path);
+    }
+    assertFalse(filter.shouldNotFilter(new MockHttpServletRequest("GET", "/store/1")));
+    assertFalse(filter.shouldNotFilter(new MockHttpServletRequest("GET", "/coupon/1")));
+  }
+
+  @Test
+  public void deletedEntitiesFailRevalidationTest() throws Exception {
+    int couponId = dataService.getCouponsByStore(store.getId()).get(0).getId();
+    String path = "/coupon/" + couponId;
+    MockHttpServletResponse first = fetch(path, null, null);
+    String etag = first.getHeader(HttpHeaders.ETAG);
+
+    assertNotNull(etag);
+    assertEquals("no-cache", first.getHeader(HttpHeaders.CACHE_CONTROL));
+    assertEquals(304, fetch(path, etag, null).getStatus());
+    assertEquals(304, fetch("/store/" + other.getId(),
+        fetch("/store/" + other.getId(), null, null).getHeader(HttpHeaders.ETAG), null)
+        .getStatus());
+
+    dataService.deleteCoupon(couponId);
+    assertEquals(404, fetch(path, etag, null).getStatus());
+  }
+
+  private MockHttpServletResponse fetch(String path, String ifNoneMatch, String accept)
+      throws Exception {
+    MockHttpServletRequestBuilder request = get(path);
+    if (ifNoneMatch != null) {
+      request.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+    }
+    if (accept != null) {
+      request.accept(accept);
+    }
+    return mockMvc.perform(request).andReturn().getResponse();
+  }
+}
@@ -0,0 +1,75 @@
+package org.nullpointers.couponsystem.config;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.nullpointers.couponsystem.model.Store;
+import org.nullpointers.couponsystem.service.DataService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Tests that ID sequences are moved past rows inserted with explicit IDs, as in
+ * databases created before sequence-based IDs.
+ */
+@SpringBootTest
+@ActiveProfiles("test1")
+public class IdGenerationConfigTest {
+  private static final int LEGACY_ID = 900_000;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  private DataService dataService;
+
+  private Store added;
+
+  /**
+   * Removes the test rows after each test.
+   */
+  @AfterEach
+  public void tearDown() {
+    jdbcTemplate.update("delete from stores where id = ?", LEGACY_ID);
+    if (added != null) {
+      dataService.deleteStore(added.getId());
+    }
+  }
+
+  @Test
+  public void alignSequencesSkipsExistingIdsTest() {
+    jdbcTemplate.update("insert into stores (id, name) values (?, ?)", LEGACY_ID, "Legacy");
+    Dialect dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+        .getJdbcServices().getDialect();
+
+    IdGenerationConfig.alignSequences(dialect, jdbcTemplate);
+    // The running optimizer uses up the block it already holds before reading the sequence
+    for (int i = 0; i <= IdGenerationConfig.ALLOCATION_SIZE; i++) {
+      dataService.deleteStore(dataService.addStore(new Store(0, "Filler")).getId());
+    }
+    added = dataService.addStore(new Store(0, "After Legacy"));
+
+    assertTrue(added.getId() > LEGACY_ID);
+  }
+
+  @Test
+  public void alignSequencesIsIdempotentTest() {
+    Dialect dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+        .getJdbcServices().getDialect();
+
+    IdGenerationConfig.alignSequences(dialect, jdbcTemplate);
+    IdGenerationConfig.alignSequences(dialect, jdbcTemplate);
+    added = dataService.addStore(new Store(0, "Still Works"));
+
+    assertTrue(added.getId() > 0);
+  }
+}
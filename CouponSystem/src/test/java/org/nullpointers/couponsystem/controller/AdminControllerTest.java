@@ -0,0 +1,70 @@
+package org.nullpointers.couponsystem.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.nullpointers.couponsystem.catalog.CatalogReplica;
+import org.nullpointers.couponsystem.service.CacheStatisticsService;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Unit tests for the AdminController class using mocking.
+ */
+@SpringBootTest
+@ActiveProfiles("test1")
+public class AdminControllerTest {
+  private AdminController controller;
+  private CacheStatisticsService mockCacheStatisticsService;
+  private CatalogReplica mockCatalogReplica;
+
+  /**
+   * Sets up mocks before each test.
+   */
+  @BeforeEach
+  public void setUp() {
+    mockCacheStatisticsService = mock(CacheStatisticsService.class);
+    mockCatalogReplica = mock(CatalogReplica.class);
+    controller = new AdminController(mockCacheStatisticsService, mockCatalogReplica);
+  }
+
+  @Test
+  public void getCacheStatisticsTest() {
+    CacheStatisticsService.CacheReport report = new CacheStatisticsService.CacheReport(
+        true, new ArrayList<>(),
+        new CacheStatisticsService.RegionStatistics("query", 3, 1, 1, -1));
+    when(mockCacheStatisticsService.getReport()).thenReturn(report);
+
+    ResponseEntity<?> response = controller.getCacheStatistics();
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(report, response.getBody());
+    assertEquals(0.75, report.getQueryCache().getHitRatio(), 0.001);
+  }
+
+  @Test
+  public void resetCacheStatisticsTest() {
+    ResponseEntity<?> response = controller.resetCacheStatistics();
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    verify(mockCacheStatisticsService).resetStatistics();
+  }
+
+  @Test
+  public void getCatalogStatisticsTest() {
+    CatalogReplica.Footprint footprint = new CatalogReplica.Footprint(true, 2, 10, 3, 4096, 5);
+    when(mockCatalogReplica.getFootprint()).thenReturn(footprint);
+
+    ResponseEntity<?> response = controller.getCatalogStatistics();
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(footprint, response.getBody());
+  }
+}
@@ -0,0 +1,171 @@
+package org.nullpointers.couponsystem.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.nullpointers.couponsystem.service.DataService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+/**
+ * Tests {@code POST /batch} through the full MVC stack.
+ */
+@SpringBootTest
+@ActiveProfiles("test1")
+public class BatchControllerTest {
+  private static final ObjectMapper JSON = new ObjectMapper();
+
+  @Autowired
+  private WebApplicationContext context;
+
+  @Autowired
+  private DataService dataService;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  private MockMvc mockMvc;
+  private final List<Integer> storeIds = new ArrayList<>();
+
+  @BeforeEach
+  public void setUp() {
+    mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+  }
+
+  /**
+   * Removes the stores the batches created.
+   */
+  @AfterEach
+  public void tearDown() {
+    storeIds.forEach(dataService::deleteStoreWithContents);
+  }
+
+  @Test
+  public void buildsStoreAndReadsItBackTest() throws Exception {
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    final long transactions = statistics.getTransactionCount();
+
+    JsonNode results = batch(List.of(
+        operation("store", "POST", "/store", Map.of("name", "Batch Store")),
+        operation("rose", "POST", "/item", Map.of("name", "Rose", "price", 30.0,
+            "storeId", "${store.id}", "category", "flowers")),
+        operation("vase", "POST", "/item", Map.of("name", "Vase", "price", 25.0,
+            "storeId", "${store.id}", "category", "decor")),
+        operation(null, "POST", "/coupon", Map.of("type", "totalprice",
+            "storeId", "${store.id}", "discountValue", 10.0, "isPercentage", true,
+            "minimumPurchase", 50.0)),
+        operation(null, "GET", "/store/${store.id}", null),
+        operation(null, "GET", "/items/store/${store.id}?limit=1", null),
+        operation(null, "POST", "/cart/optimal-coupon", Map.of(
+            "itemIds", List.of("${rose.id}", "${vase.id}"), "storeId", "${store.id}"))));
+    storeIds.add(results.get(0).get("body").get("id").asInt());
+
+    assertEquals(7, results.size());
+    for (int i = 0; i < 4; i++) {
+      assertEquals(201, results.get(i).get("status").asInt());
+    }
+    assertEquals("store", results.get(0).get("id").asText());
+    assertEquals(storeIds.get(0), results.get(1).get("body").get("storeId").asInt());
+    assertEquals("Batch Store", results.get(4).get("body").get("name").asText());
+    assertEquals(1, results.get(5).get("body").size());
+    assertEquals("Rose", results.get(5).get("body").get(0).get("name").asText());
+    assertEquals(1, results.get(5).get("headers").size());
+    assertEquals(5.5, results.get(6).get("body").get("discount").asDouble(), 1e-9);
+    // The four writes share one transaction; the reads come from the replica
+    assertEquals(1, statistics.getTransactionCount() - transactions);
+  }
+
+  @Test
+  public void reportsEachOperationsStatusTest() throws Exception {
+    JsonNode results = batch(List.of(
+        operation("blank", "POST", "/store", Map.of("name", " ")),
+        operation(null, "POST", "/item", Map.of("name", "Rose", "price", 1.0,
+            "storeId", "${blank.id}")),
+        operation("kept", "POST", "/store", Map.of("name", "Batch Kept")),
+        operation(null, "GET", "/item/abc", null),
+        operation(null, "GET", "/store/${kept.name}", null),
+        operation(null, "PATCH", "/store/1", null),
+        operation(null, "GET", "/stores/${kept.missing}", null)));
+    storeIds.add(results.get(2).get("body").get("id").asInt());
+
+    assertEquals(400, results.get(0).get("status").asInt());
+    assertEquals("Store name cannot be empty.", results.get(0).get("body").asText());
+    assertEquals(424, results.get(1).get("status").asInt());
+    assertEquals("Operation 'blank' failed with status 400.",
+        results.get(1).get("body").asText());
+    assertEquals(201, results.get(2).get("status").asInt());
+    assertEquals("id must be an integer.", results.get(3).get("body").asText());
+    assertEquals(400, results.get(4).get("status").asInt());
+    assertEquals(404, results.get(5).get("status").asInt());
+    assertEquals("Unsupported operation: PATCH /store/1", results.get(5).get("body").asText());
+    assertEquals("Reference ${kept.missing} does not resolve.",
+        results.get(6).get("body").asText());
+  }
+
+  @Test
+  public void rejectsInvalidBatchesTest() throws Exception {
+    assertEquals("operations must be a non-empty array.",
+        rejected(Map.of("operations", List.of())));
+    assertEquals("operations[0] refers to 'later', which is not an earlier operation.",
+        rejected(Map.of("operations", List.of(
+            operation(null, "GET", "/store/${later.id}", null),
+            operation("later", "GET", "/stores", null)))));
+    assertEquals("operations[1] reuses the id 'same'.",
+        rejected(Map.of("operations", List.of(
+            operation("same", "GET", "/stores", null),
+            operation("same", "GET", "/stores", null)))));
+    assertEquals("operations[0] needs a method and a path.",
+        rejected(Map.of("operations", List.of(Map.of("method", "GET")))));
+    List<Map<String, Object>> tooMany = new ArrayList<>();
+    for (int i = 0; i <= 100; i++) {
+      tooMany.add(operation(null, "GET", "/stores", null));
+    }
+    assertEquals("A batch may hold at most 100 operations.",
+        rejected(Map.of("operations", tooMany)));
+  }
+
+  private JsonNode batch(List<Map<String, Object>> operations) throws Exception {
+    MockHttpServletResponse response = perform(Map.of("operations", operations));
+    assertEquals(200, response.getStatus());
+    return JSON.readTree(response.getContentAsString());
+  }
+
+  private String rejected(Map<String, Object> request) throws Exception {
+    MockHttpServletResponse response = perform(request);
+    assertEquals(400, response.getStatus());
+    return response.getContentAsString();
+  }
+
+  private MockHttpServletResponse perform(Map<String, Object> request) throws Exception {
+    return mockMvc.perform(post("/batch").contentType(MediaType.APPLICATION_JSON)
+        .content(JSON.writeValueAsString(request))).andReturn().getResponse();
+  }
+
+  private static Map<String, Object> operation(String id, String method, String path,
+                                               Object body) {
+    Map<String, Object> operation = new HashMap<>();
+    operation.put("id", id);
+    operation.put("method", method);
+    operation.put("path", path);
+    operation.put("body", body);
+    return operation;
+  }
+}
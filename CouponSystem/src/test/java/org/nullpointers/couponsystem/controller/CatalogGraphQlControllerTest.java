@@ -0,0 +1,179 @@
+package org.nullpointers.couponsystem.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import jakarta.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.nullpointers.couponsystem.model.CategoryCoupon;
+import org.nullpointers.couponsystem.model.Item;
+import org.nullpointers.couponsystem.model.Store;
+import org.nullpointers.couponsystem.model.TotalPriceCoupon;
+import org.nullpointers.couponsystem.service.DataService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.graphql.ExecutionGraphQlService;
+import org.springframework.graphql.execution.ErrorType;
+import org.springframework.graphql.test.tester.ExecutionGraphQlServiceTester;
+import org.springframework.graphql.test.tester.GraphQlTester;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Tests the GraphQL catalog queries and that nested fields are loaded in batches.
+ */
+@SpringBootTest
+@ActiveProfiles("test1")
+public class CatalogGraphQlControllerTest {
+  private static final String STORES_QUERY = "query($ids: [Int!]) { stores(ids: $ids) {"
+      + " id name items { name store { name } } coupons { type category minimumPurchase } } }";
+
+  @Autowired
+  private ExecutionGraphQlService graphQlService;
+
+  @Autowired
+  private DataService dataService;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  private GraphQlTester tester;
+  private Store first;
+  private Store second;
+  private Store third;
+
+  /**
+   * Creates three stores, each with two items and two coupons.
+   */
+  @BeforeEach
+  public void setUp() {
+    tester = ExecutionGraphQlServiceTester.create(graphQlService);
+    first = addStore("GraphQL Store A");
+    second = addStore("GraphQL Store B");
+    third = addStore("GraphQL Store C");
+  }
+
+  private Store addStore(String name) {
+    Store store = dataService.addStore(new Store(0, name));
+    dataService.addItem(new Item(0, name + " Rose", 3.0, store.getId(), "flowers"));
+    dataService.addItem(new Item(0, name + " Vase", 12.0, store.getId(), "decor"));
+    dataService.addCoupon(new TotalPriceCoupon(0, store.getId(), 10.0, true, 20.0));
+    dataService.addCoupon(new CategoryCoupon(0, store.getId(), 1.0, false, "flowers"));
+    return store;
+  }
+
+  /**
+   * Removes the test stores and their contents.
+   */
+  @AfterEach
+  public void tearDown() {
+    for (Store store : List.of(first, second, third)) {
+      dataService.deleteStoreWithContents(store.getId());
+    }
+  }
+
+  @Test
+  public void storesWithItemsAndCouponsTest() {
+    GraphQlTester.Response response = tester.document(STORES_QUERY)
+        .variable("ids", List.of(second.getId(), -1, first.getId()))
+        .execute();
+
+    response.path("stores[*].name").entityList(String.class)
+        .containsExactly("GraphQL Store B", "GraphQL Store A");
+    response.path("stores[0].items[*].name").entityList(String.class)
+        .contains("GraphQL Store B Rose", "GraphQL Store B Vase").hasSize(2);
+    response.path("stores[0].items[0].store.name").entity(String.class)
+        .isEqualTo("GraphQL Store B");
+    response.path("stores[1].coupons[*].type").entityList(String.class)
+        .contains("totalprice", "category").hasSize(2);
+  }
+
+  @Test
+  public void singleLookupsTest() {
+    int itemId = dataService.getItemsByStore(third.getId()).get(0).getId();
+    tester.document("{ store(id: " + third.getId() + ") { name coupons { isPercentage } }"
+            + " item(id: " + itemId + ") { storeId store { name } } missing: store(id: -1)"
+            + " { name } }")
+        .execute()
+        .path("store.name").entity(String.class).isEqualTo("GraphQL Store C")
+        .path("store.coupons[*].isPercentage").entityList(Boolean.class)
+        .contains(true, false)
+        .path("item.store.name").entity(String.class).isEqualTo("GraphQL Store C")
+        .path("missing").valueIsNull();
+  }
+
+  @Test
+  public void nestedFieldsAreBatchedTest() {
+    // In a transaction reads go to the database, where statements can be counted
+    long oneStore = statementsFor(List.of(first.getId()));
+    long threeStores = statementsFor(List.of(first.getId(), second.getId(), third.getId()));
+
+    // Stores, items, coupons, and the items' stores: one statement each
+    assertEquals(4, oneStore);
+    assertEquals(oneStore, threeStores);
+  }
+
+  @Test
+  public void listsArePagedAndBoundedTest() {
+    GraphQlTester.Response response = tester.document("query($after: Int) {"
+            + " stores(after: $after, limit: 2) { id items(limit: 1) { name }"
+            + " coupons(after: 0, limit: 5) { type } } }")
+        .variable("after", first.getId() - 1)
+        .execute();
+
+    response.path("stores[*].id").entityList(Integer.class)
+        .containsExactly(first.getId(), second.getId());
+    response.path("stores[0].items[*].name").entityList(String.class)
+        .containsExactly("GraphQL Store A Rose");
+    response.path("stores[1].coupons").entityList(Object.class).hasSize(2);
+
+    List<Integer> tooMany = IntStream.rangeClosed(1, 101).boxed().toList();
+    tester.document(STORES_QUERY).variable("ids", tooMany).execute()
+        .errors().satisfy(errors -> assertTrue(errors.stream().anyMatch(error ->
+            error.getErrorType() == ErrorType.BAD_REQUEST
+                && error.getMessage().contains("more than 100 store IDs"))));
+  }
+
+  @Test
+  public void nestedPagesAreReadPerStoreTest() {
+    for (int i = 0; i < 20; i++) {
+      dataService.addItem(new Item(0, "Extra " + i, 1.0, first.getId(), "misc"));
+    }
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+    long loaded = transactionTemplate.execute(status -> {
+      long before = statistics.getEntityLoadCount();
+      tester.document("query($ids: [Int!]) { stores(ids: $ids) { items(limit: 2) { name }"
+              + " coupons(limit: 1) { type } } }")
+          .variable("ids", List.of(first.getId(), second.getId()))
+          .execute()
+          .path("stores[0].items[*].name").entityList(String.class)
+          .containsExactly("GraphQL Store A Rose", "GraphQL Store A Vase")
+          .path("stores[1].coupons").entityList(Object.class).hasSize(1);
+      return statistics.getEntityLoadCount() - before;
+    });
+
+    // Two stores, two items and one coupon each: the rest of the first store is never read
+    assertEquals(2 + 2 * 2 + 2, loaded);
+  }
+
+  private long statementsFor(List<Integer> ids) {
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    return transactionTemplate.execute(status -> {
+      long before = statistics.getPrepareStatementCount();
+      tester.document(STORES_QUERY).variable("ids", ids).execute()
+          .path("stores[*].items[*].store.name").entityList(String.class)
+          .hasSize(2 * ids.size());
+      return statistics.getPrepareStatementCount() - before;
+    });
+  }
+}
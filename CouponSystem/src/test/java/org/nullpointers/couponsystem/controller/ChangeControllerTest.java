@@ -0,0 +1,110 @@
+package org.nullpointers.couponsystem.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Duration;
+import java.time.Instant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.nullpointers.couponsystem.model.Item;
+import org.nullpointers.couponsystem.model.Store;
+import org.nullpointers.couponsystem.repository.CatalogChangeRepository;
+import org.nullpointers.couponsystem.service.ChangeLogService;
+import org.nullpointers.couponsystem.service.DataService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+/**
+ * Tests {@code GET /changes} through the full MVC stack, on the change log's own
+ * in-memory database like {@code ChangeLogServiceTest}.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:change-log;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"})
+@ActiveProfiles("test1")
+public class ChangeControllerTest {
+  private static final ObjectMapper JSON = new ObjectMapper();
+
+  @Autowired
+  private WebApplicationContext context;
+
+  @Autowired
+  private DataService dataService;
+
+  @Autowired
+  private ChangeLogService changeLogService;
+
+  @Autowired
+  private CatalogChangeRepository changeRepository;
+
+  private MockMvc mockMvc;
+  private long head;
+
+  /**
+   * Notes where the log ends before each test.
+   */
+  @BeforeEach
+  public void setUp() {
+    mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    Long highest = changeRepository.findMaxSeq();
+    head = highest == null ? 0 : highest;
+  }
+
+  @Test
+  public void changesCarryEntitiesAsJsonTest() throws Exception {
+    Store store = dataService.addStore(new Store(0, "Feed Store"));
+    final Item item = dataService.addItem(new Item(0, "Rose", 3.0, store.getId(), "flowers"));
+
+    MockHttpServletResponse response = fetch("/changes?since=" + head + "&limit=1");
+    JsonNode page = JSON.readTree(response.getContentAsString());
+    assertEquals(200, response.getStatus());
+    assertEquals(1, page.get("changes").size());
+    assertEquals("Feed Store", page.at("/changes/0/entity/name").asText());
+    assertTrue(page.get("more").asBoolean());
+
+    JsonNode next = JSON.readTree(fetch("/changes?since=" + page.get("next").asLong())
+        .getContentAsString());
+    assertEquals("ITEM", next.at("/changes/0/entityType").asText());
+    assertEquals("CREATE", next.at("/changes/0/operation").asText());
+    assertEquals(item.getId(), next.at("/changes/0/entity/id").asInt());
+    assertFalse(next.get("more").asBoolean());
+    dataService.deleteStoreWithContents(store.getId());
+  }
+
+  @Test
+  public void invalidParametersAreRejectedTest() throws Exception {
+    assertEquals(400, fetch("/changes?limit=0").getStatus());
+    assertEquals(400, fetch("/changes?since=-1").getStatus());
+    assertEquals(400, fetch("/changes?since=abc").getStatus());
+  }
+
+  @Test
+  public void compactedChangesAreGoneTest() throws Exception {
+    Store store = dataService.addStore(new Store(0, "Gone Store"));
+    dataService.deleteStore(store.getId());
+    changeLogService.compact(Instant.now().plus(Duration.ofDays(30)));
+
+    MockHttpServletResponse response = fetch("/changes?since=" + head);
+    assertEquals(410, response.getStatus());
+    assertTrue(response.getContentAsString().contains(
+        "read changes since " + changeLogService.getFloor()));
+    assertEquals(200, fetch("/changes?since=" + changeLogService.getFloor()).getStatus());
+  }
+
+  private MockHttpServletResponse fetch(String path) throws Exception {
+    return mockMvc.perform(get(path)).andReturn().getResponse();
+  }
+}
@@ -0,0 +1,65 @@
+package org.nullpointers.couponsystem.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.nullpointers.couponsystem.service.CatalogExportService;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Unit tests for the ExportController class using mocking.
+ */
+@SpringBootTest
+@ActiveProfiles("test1")
+public class ExportControllerTest {
+  private ExportController controller;
+  private CatalogExportService mockCatalogExportService;
+
+  /**
+   * Sets up mocks before each test.
+   */
+  @BeforeEach
+  public void setUp() {
+    mockCatalogExportService = mock(CatalogExportService.class);
+    controller = new ExportController(mockCatalogExportService);
+  }
+
+  @Test
+  public void exportStoresTest() throws IOException {
+    ByteArrayOutputStream out = write(controller.exportStores(), new ByteArrayOutputStream());
+
+    verify(mockCatalogExportService).exportStores(out);
+  }
+
+  @Test
+  public void exportItemsTest() throws IOException {
+    ByteArrayOutputStream out = write(controller.exportItems(), new ByteArrayOutputStream());
+
+    verify(mockCatalogExportService).exportItems(out);
+  }
+
+  @Test
+  public void exportCouponsTest() throws IOException {
+    ByteArrayOutputStream out = write(controller.exportCoupons(), new ByteArrayOutputStream());
+
+    verify(mockCatalogExportService).exportCoupons(out);
+  }
+
+  private static ByteArrayOutputStream write(ResponseEntity<StreamingResponseBody> response,
+                                             ByteArrayOutputStream out) throws IOException {
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(MediaType.APPLICATION_NDJSON, response.getHeaders().getContentType());
+    response.getBody().writeTo(out);
+    return out;
+  }
+}
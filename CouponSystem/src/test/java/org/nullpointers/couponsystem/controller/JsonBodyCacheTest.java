@@ -0,0 +1,209 @@
+package org.nullpointers.couponsystem.controller;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.nullpointers.couponsystem.model.Coupon;
+import org.nullpointers.couponsystem.model.Item;
+import org.nullpointers.couponsystem.model.Store;
+import org.nullpointers.couponsystem.model.TotalPriceCoupon;
+import org.nullpointers.couponsystem.service.DataService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Tests that entity and store-list GETs are answered from cached JSON until the store
+ * changes, through the full MVC stack.
+ */
+@SpringBootTest
+@ActiveProfiles("test1")
+public class JsonBodyCacheTest {
+  @Autowired
+  private WebApplicationContext context;
+
+  @Autowired
+  private DataService dataService;
+
+  @Autowired
+  private JsonBodyCache jsonBodyCache;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  private MockMvc mockMvc;
+  private Store store;
+  private Item item;
+
+  /**
+   * Creates a store with an item and a coupon.
+   */
+  @BeforeEach
+  public void setUp() {
+    mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    store = dataService.addStore(new Store(0, "Cached Store"));
+    item = dataService.addItem(new Item(0, "Rose", 3.0, store.getId(), "flowers"));
+    dataService.addCoupon(new TotalPriceCoupon(0, store.getId(), 10.0, true, 20.0));
+  }
+
+  /**
+   * Removes the test store.
+   */
+  @AfterEach
+  public void tearDown() {
+    dataService.deleteStoreWithContents(store.getId());
+  }
+
+  @Test
+  public void repeatedGetsAreServedFromCacheTest() throws Exception {
+    for (String path : new String[] {"/store/" + store.getId(), "/item/" + item.getId(),
+        "/coupons/store/" + store.getId()}) {
+      MockHttpServletResponse first = fetch(path, null, null);
+      final long hits = jsonBodyCache.getStatistics().hitCount();
+      MockHttpServletResponse second = fetch(path, null, null);
+
+      assertEquals(hits + 1, jsonBodyCache.getStatistics().hitCount());
+      assertEquals(200, second.getStatus());
+      assertArrayEquals(first.getContentAsByteArray(), second.getContentAsByteArray());
+      assertEquals(first.getHeader(HttpHeaders.CACHE_CONTROL),
+          second.getHeader(HttpHeaders.CACHE_CONTROL));
+      assertTrue(second.getContentType().startsWith(MediaType.APPLICATION_JSON_VALUE));
+    }
+    // The cached bytes are what Jackson writes for the entity
+    assertArrayEquals(objectMapper.writeValueAsBytes(dataService.getItem(item.getId())),
+        fetch("/item/" + item.getId(), null, null).getContentAsByteArray());
+  }
+
+  @Test
+  public void writesRetireCachedBodiesTest() throws Exception {
+    String coupons = "/coupons/store/" + store.getId();
+    fetch(coupons, null, null);
+    fetch("/item/" + item.getId(), null, null);
+
+    dataService.addCoupon(new TotalPriceCoupon(0, store.getId(), 5.0, false, 10.0));
+    dataService.deleteItem(item.getId());
+
+    assertEquals(2, objectMapper.readTree(
+        fetch(coupons, null, null).getContentAsByteArray()).size());
+    assertEquals(404, fetch("/item/" + item.getId(), null, null).getStatus());
+  }
+
+  @Test
+  public void largeBodiesAreSentGzippedTest() throws Exception {
+    List<Item> items = new ArrayList<>();
+    for (int i = 0; i < 40; i++) {
+      items.add(new Item(0, "Item" + i, 1.0 + i, store.getId(), "category" + i % 4));
+    }
+    dataService.addItems(items);
+    String path = "/items/store/" + store.getId() + "?limit=30";
+    MockHttpServletResponse plain = fetch(path, null, null);
+    MockHttpServletResponse gzipped = fetch(path, null, "gzip, deflate");
+
+    assertNull(plain.getHeader(HttpHeaders.CONTENT_ENCODING));
+    assertEquals("gzip", gzipped.getHeader(HttpHeaders.CONTENT_ENCODING));
+    assertTrue(gzipped.getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT_ENCODING));
+    assertNotNull(gzipped.getHeader(RouteController.NEXT_CURSOR_HEADER));
+    assertEquals(plain.getHeader(RouteController.NEXT_CURSOR_HEADER),
+        gzipped.getHeader(RouteController.NEXT_CURSOR_HEADER));
+    try (GZIPInputStream in = new GZIPInputStream(
+        new ByteArrayInputStream(gzipped.getContentAsByteArray()))) {
+      assertArrayEquals(plain.getContentAsByteArray(), in.readAllBytes());
+    }
+    assertTrue(gzipped.getContentAsByteArray().length < plain.getContentAsByteArray().length);
+  }
+
+  @Test
+  public void writesToOtherStoresDoNotKeepListsOutTest() throws Exception {
+    Store other = dataService.addStore(new Store(0, "Busy Store"));
+    try {
+      String path = "/coupons/store/" + store.getId();
+      MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+      request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE,
+          Map.of("storeId", String.valueOf(store.getId())));
+      MockHttpServletResponse response = new MockHttpServletResponse();
+      assertTrue(jsonBodyCache.preHandle(request, response, null));
+      List<Coupon> coupons = dataService.getCouponsByStore(store.getId());
+      // Another store changes while the list is being read
+      dataService.addItem(new Item(0, "Tulip", 1.0, other.getId(), "flowers"));
+      jsonBodyCache.beforeBodyWrite(coupons, null, MediaType.APPLICATION_JSON,
+          MappingJackson2HttpMessageConverter.class, new ServletServerHttpRequest(request),
+          new ServletServerHttpResponse(response));
+      final long hits = jsonBodyCache.getStatistics().hitCount();
+
+      fetch(path, null, null);
+
+      assertEquals(hits + 1, jsonBodyCache.getStatistics().hitCount());
+    } finally {
+      dataService.deleteStoreWithContents(other.getId());
+    }
+  }
+
+  @Test
+  public void gzipRefusedWithZeroQualityTest() throws Exception {
+    List<Item> items = new ArrayList<>();
+    for (int i = 0; i < 40; i++) {
+      items.add(new Item(0, "Item" + i, 1.0 + i, store.getId(), "category" + i % 4));
+    }
+    dataService.addItems(items);
+    String path = "/items/store/" + store.getId() + "?limit=30";
+
+    assertNull(fetch(path, null, "gzip;q=0, deflate").getHeader(HttpHeaders.CONTENT_ENCODING));
+    assertNull(fetch(path, null, "*;q=1, gzip; q=0.0").getHeader(HttpHeaders.CONTENT_ENCODING));
+    assertEquals("gzip",
+        fetch(path, null, "deflate, *;q=0.5").getHeader(HttpHeaders.CONTENT_ENCODING));
+    assertEquals("gzip",
+        fetch(path, null, "GZIP;Q=0.8").getHeader(HttpHeaders.CONTENT_ENCODING));
+    assertFalse(JsonBodyCache.acceptsGzip("identity, deflate"));
+    assertFalse(JsonBodyCache.acceptsGzip("gzip;q=bad"));
+  }
+
+  @Test
+  public void cborIsNotCachedTest() throws Exception {
+    String path = "/store/" + store.getId();
+    fetch(path, null, null);
+    final long hits = jsonBodyCache.getStatistics().hitCount();
+
+    MockHttpServletResponse cbor = fetch(path, MediaType.APPLICATION_CBOR_VALUE, null);
+
+    assertEquals(MediaType.APPLICATION_CBOR_VALUE, cbor.getContentType());
+    assertEquals(hits, jsonBodyCache.getStatistics().hitCount());
+  }
+
+  private MockHttpServletResponse fetch(String path, String accept, String acceptEncoding)
+      throws Exception {
+    MockHttpServletRequestBuilder request = get(path);
+    if (accept != null) {
+      request.accept(accept);
+    }
+    if (acceptEncoding != null) {
+      request.header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+    }
+    return mockMvc.perform(request).andReturn().getResponse();
+  }
+}
@@ -1,29 +1,54 @@
 package org.nullpointers.couponsystem.controller;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.nullpointers.couponsystem.dto.BulkCouponRequest;
+import org.nullpointers.couponsystem.dto.CartRequest;
+import org.nullpointers.couponsystem.dto.CouponRequest;
 import org.nullpointers.couponsystem.model.CategoryCoupon;
 import org.nullpointers.couponsystem.model.Coupon;
 import org.nullpointers.couponsystem.model.Item;
 import org.nullpointers.couponsystem.model.Store;
 import org.nullpointers.couponsystem.model.TotalPriceCoupon;
+import org.nullpointers.couponsystem.repository.ItemScope;
+import org.nullpointers.couponsystem.service.CatalogImportService;
+import org.nullpointers.couponsystem.service.CouponBulkService;
+import org.nullpointers.couponsystem.service.CouponBulkService.BulkCouponReport;
 import org.nullpointers.couponsystem.service.CouponService;
 import org.nullpointers.couponsystem.service.DataService;
+import org.nullpointers.couponsystem.service.DeleteReport;
+import org.nullpointers.couponsystem.service.ItemFields;
+import org.nullpointers.couponsystem.service.ItemRow;
+import org.nullpointers.couponsystem.service.KeysetPage;
+import org.nullpointers.couponsystem.service.PriceUpdateReport;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.mock.http.MockHttpInputMessage;
 import org.springframework.test.context.ActiveProfiles;
 
 /**
@@ -32,9 +57,12 @@ import org.springframework.test.context.ActiveProfiles;
 @SpringBootTest
 @ActiveProfiles("test1")
 public class RouteControllerTest {
+  private static final ObjectMapper JSON = new ObjectMapper();
   private RouteController controller;
   private DataService mockDataService;
   private CouponService mockCouponService;
+  private CatalogImportService mockCatalogImportService;
+  private CouponBulkService mockCouponBulkService;
   private Store testStore;
   private Item testItem;
   private Coupon testCoupon;
@@ -46,7 +74,10 @@ public class RouteControllerTest {
   public void setUp() {
     mockDataService = mock(DataService.class);
     mockCouponService = mock(CouponService.class);
-    controller = new RouteController(mockDataService, mockCouponService);
+    mockCatalogImportService = mock(CatalogImportService.class);
+    mockCouponBulkService = mock(CouponBulkService.class);
+    controller = new RouteController(mockDataService, mockCouponService,
+        mockCatalogImportService, mockCouponBulkService);
 
     testStore = new Store(1, "Test Store");
     testItem = new Item(1, "Test Item", 50.0, 1, "books");
@@ -115,22 +146,140 @@ public class RouteControllerTest {
 
   @Test
   public void deleteStoreWhenExistsTest() {
-    when(mockDataService.deleteStore(1)).thenReturn(true);
+    DeleteReport report = new DeleteReport();
+    when(mockDataService.deleteStoreWithContents(1)).thenReturn(report);
 
     ResponseEntity<?> response = controller.deleteStore(1);
 
     assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(report, response.getBody());
   }
 
   @Test
   public void deleteStoreWhenNotFoundTest() {
-    when(mockDataService.deleteStore(999)).thenReturn(false);
+    when(mockDataService.deleteStoreWithContents(999)).thenReturn(null);
 
     ResponseEntity<?> response = controller.deleteStore(999);
 
     assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
   }
 
+  @Test
+  public void deleteItemsTest() {
+    DeleteReport report = new DeleteReport();
+    when(mockDataService.deleteItems(List.of(1, 2))).thenReturn(report);
+    Map<String, Object> request = new HashMap<>();
+    request.put("itemIds", List.of(1, 2));
+
+    ResponseEntity<?> response = controller.deleteItems(request);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(report, response.getBody());
+  }
+
+  @Test
+  public void deleteItemsInvalidIdsTest() {
+    Map<String, Object> request = new HashMap<>();
+    request.put("itemIds", List.of());
+    assertEquals(HttpStatus.BAD_REQUEST, controller.deleteItems(request).getStatusCode());
+
+    request.put("itemIds", List.of(1, "two"));
+    ResponseEntity<?> response = controller.deleteItems(request);
+
+    assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    assertEquals("itemIds must contain only integer IDs.", response.getBody());
+  }
+
+  @Test
+  public void deleteByStoreTest() {
+    DeleteReport items = new DeleteReport();
+    DeleteReport coupons = new DeleteReport();
+    when(mockDataService.deleteItemsByStore(1)).thenReturn(items);
+    when(mockDataService.deleteCouponsByStore(1)).thenReturn(coupons);
+
+    assertEquals(items, controller.deleteItemsByStore(1).getBody());
+    assertEquals(coupons, controller.deleteCouponsByStore(1).getBody());
+  }
+
+  @Test
+  public void updateItemPricesTest() {
+    PriceUpdateReport report = new PriceUpdateReport();
+    when(mockDataService.updatePrices(Map.of(1, 2.5, 2, 3.0))).thenReturn(report);
+    Map<String, Object> prices = new HashMap<>();
+    prices.put("1", 2.5);
+    prices.put("2", 3);
+    Map<String, Object> request = new HashMap<>();
+    request.put("prices", prices);
+
+    ResponseEntity<?> response = controller.updateItemPrices(request);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(report, response.getBody());
+  }
+
+  @Test
+  public void updateItemPricesInvalidTest() {
+    Map<String, Object> request = new HashMap<>();
+    request.put("prices", Map.of());
+    assertEquals(HttpStatus.BAD_REQUEST, controller.updateItemPrices(request).getStatusCode());
+
+    request.put("prices", Map.of("one", 2.0));
+    assertEquals("prices must be keyed by integer item IDs.",
+        controller.updateItemPrices(request).getBody());
+
+    request.put("prices", Map.of("1", -2.0));
+    ResponseEntity<?> response = controller.updateItemPrices(request);
+
+    assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    assertEquals("Item price cannot be negative.", response.getBody());
+  }
+
+  @Test
+  public void repriceCategoryTest() {
+    PriceUpdateReport report = new PriceUpdateReport();
+    when(mockDataService.getStore(1)).thenReturn(new Store(1, "Store1"));
+    when(mockDataService.scaleCategoryPrices(1, "plants", -10.0)).thenReturn(report);
+    Map<String, Object> request = new HashMap<>();
+    request.put("category", "plants");
+    request.put("percent", -10);
+
+    ResponseEntity<?> response = controller.repriceCategory(1, request);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(report, response.getBody());
+  }
+
+  @Test
+  public void repriceCategoryInvalidTest() {
+    Map<String, Object> request = new HashMap<>();
+    request.put("percent", -10);
+    assertEquals(HttpStatus.BAD_REQUEST, controller.repriceCategory(1, request).getStatusCode());
+
+    request.put("category", "plants");
+    request.put("percent", -150);
+    assertEquals("Percent cannot be less than -100.",
+        controller.repriceCategory(1, request).getBody());
+
+    request.put("percent", 5);
+    when(mockDataService.getStore(999)).thenReturn(null);
+    assertEquals(HttpStatus.NOT_FOUND, controller.repriceCategory(999, request).getStatusCode());
+  }
+
+  @Test
+  public void deleteCouponsTest() {
+    DeleteReport report = new DeleteReport();
+    when(mockDataService.deleteCoupons(List.of(3))).thenReturn(report);
+    Map<String, Object> request = new HashMap<>();
+    request.put("couponIds", List.of(3));
+
+    ResponseEntity<?> response = controller.deleteCoupons(request);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(report, response.getBody());
+    assertEquals(HttpStatus.BAD_REQUEST,
+        controller.deleteCoupons(new HashMap<>()).getStatusCode());
+  }
+
   // ===== Item Endpoint Tests =====
 
   @Test
@@ -179,7 +328,7 @@ public class RouteControllerTest {
   public void getItemWhenExistsTest() {
     when(mockDataService.getItem(1)).thenReturn(testItem);
 
-    ResponseEntity<?> response = controller.getItem(1);
+    ResponseEntity<?> response = controller.getItem(1, null);
 
     assertEquals(HttpStatus.OK, response.getStatusCode());
     assertEquals(testItem, response.getBody());
@@ -189,29 +338,96 @@ public class RouteControllerTest {
   public void getItemWhenNotFoundTest() {
     when(mockDataService.getItem(999)).thenReturn(null);
 
-    ResponseEntity<?> response = controller.getItem(999);
+    ResponseEntity<?> response = controller.getItem(999, null);
 
     assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
   }
 
+  @Test
+  public void getItemWithFieldsTest() {
+    ItemRow row = ItemFields.parse("id,name").project(testItem);
+    when(mockDataService.getItemFields(eq(1), any(ItemFields.class))).thenReturn(row);
+
+    ResponseEntity<?> response = controller.getItem(1, "id,name");
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(row, response.getBody());
+  }
+
+  @Test
+  public void getItemWithUnknownFieldTest() {
+    ResponseEntity<?> response = controller.getItem(1, "id,secret");
+
+    assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    assertTrue(response.getBody().toString().contains("Unknown field: secret"));
+  }
+
+  @Test
+  public void getItemsByStoreWithFieldsTest() {
+    ArrayList<ItemRow> rows = new ArrayList<>();
+    rows.add(ItemFields.parse("id,price").project(testItem));
+    when(mockDataService.getItemFieldsPage(any(ItemScope.class), any(ItemFields.class),
+        eq("abc"), eq(10))).thenReturn(new KeysetPage<>(rows, "def"));
+
+    ResponseEntity<?> response = controller.getItemsByStore(1, 10, "abc", "price,id");
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(rows, response.getBody());
+    assertEquals("def", response.getHeaders().getFirst(RouteController.NEXT_CURSOR_HEADER));
+  }
+
+  @Test
+  public void getItemsByCategoryWithEmptyFieldsTest() {
+    ResponseEntity<?> response = controller.getItemsByCategory("books", null, null, " , ");
+
+    assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    assertEquals("Fields cannot be empty.", response.getBody());
+  }
+
   @Test
   public void getAllItemsTest() {
     ArrayList<Item> items = new ArrayList<>();
     items.add(testItem);
-    when(mockDataService.getAllItems()).thenReturn(items);
+    when(mockDataService.getItemsPage(null, null)).thenReturn(new KeysetPage<>(items, null));
 
-    ResponseEntity<?> response = controller.getAllItems();
+    ResponseEntity<?> response = controller.getAllItems(null, null, null);
 
     assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(items, response.getBody());
+    assertFalse(response.getHeaders().containsKey(RouteController.NEXT_CURSOR_HEADER));
+  }
+
+  @Test
+  public void getAllItemsNextCursorTest() {
+    ArrayList<Item> items = new ArrayList<>();
+    items.add(testItem);
+    when(mockDataService.getItemsPage("abc", 1)).thenReturn(new KeysetPage<>(items, "def"));
+
+    ResponseEntity<?> response = controller.getAllItems(1, "abc", null);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals("def", response.getHeaders().getFirst(RouteController.NEXT_CURSOR_HEADER));
+  }
+
+  @Test
+  public void getAllItemsInvalidCursorTest() {
+    when(mockDataService.getItemsPage("bad", null))
+        .thenThrow(new IllegalArgumentException("Invalid cursor."));
+
+    ResponseEntity<?> response = controller.getAllItems(null, "bad", null);
+
+    assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    assertEquals("Invalid cursor.", response.getBody());
   }
 
   @Test
   public void getItemsByStoreTest() {
     ArrayList<Item> items = new ArrayList<>();
     items.add(testItem);
-    when(mockDataService.getItemsByStore(1)).thenReturn(items);
+    when(mockDataService.getItemsByStorePage(1, null, 10))
+        .thenReturn(new KeysetPage<>(items, null));
 
-    ResponseEntity<?> response = controller.getItemsByStore(1);
+    ResponseEntity<?> response = controller.getItemsByStore(1, 10, null, null);
 
     assertEquals(HttpStatus.OK, response.getStatusCode());
   }
@@ -220,9 +436,10 @@ public class RouteControllerTest {
   public void searchItemsTest() {
     ArrayList<Item> items = new ArrayList<>();
     items.add(testItem);
-    when(mockDataService.searchItemsByKeyword(anyString())).thenReturn(items);
+    when(mockDataService.searchItemsPage(anyString(), any(), any()))
+        .thenReturn(new KeysetPage<>(items, null));
 
-    ResponseEntity<?> response = controller.searchItems("Test");
+    ResponseEntity<?> response = controller.searchItems("Test", null, null, null);
 
     assertEquals(HttpStatus.OK, response.getStatusCode());
   }
@@ -231,11 +448,13 @@ public class RouteControllerTest {
   public void getItemsByCategoryTest() {
     ArrayList<Item> items = new ArrayList<>();
     items.add(testItem);
-    when(mockDataService.getItemsByCategory("books")).thenReturn(items);
+    when(mockDataService.getItemsByCategoryPage("books", null, null))
+        .thenReturn(new KeysetPage<>(items, null));
 
-    ResponseEntity<?> response = controller.getItemsByCategory("books");
+    ResponseEntity<?> response = controller.getItemsByCategory("books", null, null, null);
 
     assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(items, response.getBody());
   }
 
   @Test
@@ -270,7 +489,7 @@ public class RouteControllerTest {
     when(mockDataService.getStore(1)).thenReturn(testStore);
     when(mockDataService.addCoupon(any(Coupon.class))).thenReturn(testCoupon);
 
-    ResponseEntity<?> response = controller.createCoupon(requestBody);
+    ResponseEntity<?> response = controller.createCoupon(couponRequest(requestBody));
 
     assertEquals(HttpStatus.CREATED, response.getStatusCode());
   }
@@ -288,7 +507,7 @@ public class RouteControllerTest {
     when(mockDataService.getStore(1)).thenReturn(testStore);
     when(mockDataService.addCoupon(any(Coupon.class))).thenReturn(categoryCoupon);
 
-    ResponseEntity<?> response = controller.createCoupon(requestBody);
+    ResponseEntity<?> response = controller.createCoupon(couponRequest(requestBody));
 
     assertEquals(HttpStatus.CREATED, response.getStatusCode());
   }
@@ -306,7 +525,7 @@ public class RouteControllerTest {
     when(mockDataService.getItem(1)).thenReturn(testItem);
     when(mockDataService.addCoupon(any(Coupon.class))).thenReturn(testCoupon);
 
-    ResponseEntity<?> response = controller.createCoupon(requestBody);
+    ResponseEntity<?> response = controller.createCoupon(couponRequest(requestBody));
 
     assertEquals(HttpStatus.CREATED, response.getStatusCode());
   }
@@ -319,7 +538,7 @@ public class RouteControllerTest {
     requestBody.put("discountValue", 10.0);
     requestBody.put("isPercentage", true);
 
-    ResponseEntity<?> response = controller.createCoupon(requestBody);
+    ResponseEntity<?> response = controller.createCoupon(couponRequest(requestBody));
 
     assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
   }
@@ -335,7 +554,7 @@ public class RouteControllerTest {
 
     when(mockDataService.getStore(1)).thenReturn(testStore);
 
-    ResponseEntity<?> response = controller.createCoupon(requestBody);
+    ResponseEntity<?> response = controller.createCoupon(couponRequest(requestBody));
 
     assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
     assertTrue(response.getBody().toString().contains("Discount value cannot be negative"));
@@ -352,7 +571,7 @@ public class RouteControllerTest {
 
     when(mockDataService.getStore(1)).thenReturn(testStore);
 
-    ResponseEntity<?> response = controller.createCoupon(requestBody);
+    ResponseEntity<?> response = controller.createCoupon(couponRequest(requestBody));
 
     assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
     assertTrue(response.getBody().toString().contains("Percentage discount cannot exceed 100"));
@@ -369,7 +588,7 @@ public class RouteControllerTest {
 
     when(mockDataService.getStore(1)).thenReturn(testStore);
 
-    ResponseEntity<?> response = controller.createCoupon(requestBody);
+    ResponseEntity<?> response = controller.createCoupon(couponRequest(requestBody));
 
     assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
     assertTrue(response.getBody().toString().contains("Minimum purchase cannot be negative"));
@@ -386,7 +605,7 @@ public class RouteControllerTest {
 
     when(mockDataService.getStore(1)).thenReturn(testStore);
 
-    ResponseEntity<?> response = controller.createCoupon(requestBody);
+    ResponseEntity<?> response = controller.createCoupon(couponRequest(requestBody));
 
     assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
     assertTrue(response.getBody().toString().contains("Category cannot be empty"));
@@ -404,12 +623,47 @@ public class RouteControllerTest {
     when(mockDataService.getStore(1)).thenReturn(testStore);
     when(mockDataService.getItem(99999)).thenReturn(null);
 
-    ResponseEntity<?> response = controller.createCoupon(requestBody);
+    ResponseEntity<?> response = controller.createCoupon(couponRequest(requestBody));
 
     assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
     assertTrue(response.getBody().toString().contains("Target item does not exist"));
   }
 
+  @Test
+  public void createCouponsTest() {
+    BulkCouponReport report = mock(BulkCouponReport.class);
+    List<CouponRequest> coupons = List.of(
+        new CouponRequest("totalprice", 1, 10.0, true, 50.0, null, null));
+    when(mockCouponBulkService.createCoupons(coupons)).thenReturn(report);
+
+    ResponseEntity<?> response = controller.createCoupons(new BulkCouponRequest(coupons));
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(report, response.getBody());
+  }
+
+  @Test
+  public void createCouponsWithoutArrayTest() {
+    ResponseEntity<?> response = controller.createCoupons(new BulkCouponRequest(null));
+
+    assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    assertEquals("coupons must be an array.", response.getBody());
+  }
+
+  @Test
+  public void createCouponsWithMistypedFieldTest() {
+    JsonMappingException error = assertThrows(JsonMappingException.class, () ->
+        JSON.readValue("{\"coupons\": [{\"storeId\": 1}, {\"storeId\": \"one\"}]}",
+            BulkCouponRequest.class));
+
+    ResponseEntity<?> response = controller.handleUnreadableBody(
+        new HttpMessageNotReadableException("bad", error, new MockHttpInputMessage(new byte[0])));
+
+    assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    assertTrue(response.getBody().toString().startsWith("Malformed request body: "));
+    assertTrue(response.getBody().toString().endsWith("(at coupons[1].storeId)"));
+  }
+
   @Test
   public void getCouponWhenExistsTest() {
     when(mockDataService.getCoupon(1)).thenReturn(testCoupon);
@@ -432,9 +686,9 @@ public class RouteControllerTest {
   public void getAllCouponsTest() {
     ArrayList<Coupon> coupons = new ArrayList<>();
     coupons.add(testCoupon);
-    when(mockDataService.getAllCoupons()).thenReturn(coupons);
+    when(mockDataService.getCouponsPage(null, null)).thenReturn(new KeysetPage<>(coupons, null));
 
-    ResponseEntity<?> response = controller.getAllCoupons();
+    ResponseEntity<?> response = controller.getAllCoupons(null, null);
 
     assertEquals(HttpStatus.OK, response.getStatusCode());
   }
@@ -443,13 +697,24 @@ public class RouteControllerTest {
   public void getCouponsByStoreTest() {
     ArrayList<Coupon> coupons = new ArrayList<>();
     coupons.add(testCoupon);
-    when(mockDataService.getCouponsByStore(1)).thenReturn(coupons);
+    when(mockDataService.getCouponsByStorePage(1, null, null))
+        .thenReturn(new KeysetPage<>(coupons, null));
 
-    ResponseEntity<?> response = controller.getCouponsByStore(1);
+    ResponseEntity<?> response = controller.getCouponsByStore(1, null, null);
 
     assertEquals(HttpStatus.OK, response.getStatusCode());
   }
 
+  @Test
+  public void getCouponsByStoreInvalidLimitTest() {
+    when(mockDataService.getCouponsByStorePage(1, null, 0))
+        .thenThrow(new IllegalArgumentException("Limit must be at least 1."));
+
+    ResponseEntity<?> response = controller.getCouponsByStore(1, 0, null);
+
+    assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+  }
+
   @Test
   public void deleteCouponWhenExistsTest() {
     when(mockDataService.deleteCoupon(1)).thenReturn(true);
@@ -479,13 +744,26 @@ public class RouteControllerTest {
     requestBody.put("itemIds", itemIds);
     requestBody.put("storeId", 1);
 
-    when(mockDataService.getItem(anyInt())).thenReturn(testItem);
-    when(mockCouponService.findOptimalCoupon(any(int[].class), anyInt()))
-        .thenReturn(testCoupon);
+    when(mockCouponService.evaluateCart(any(int[].class), anyInt()))
+        .thenReturn(new CouponService.CartEvaluation(testCoupon, 2.5, null));
 
-    ResponseEntity<?> response = controller.findOptimalCoupon(requestBody);
+    ResponseEntity<?> response = controller.findOptimalCoupon(cartRequest(requestBody));
 
     assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(2.5, ((Map<?, ?>) response.getBody()).get("discount"));
+    verify(mockDataService, never()).getItem(anyInt());
+  }
+
+  @Test
+  public void findOptimalCouponWithMissingItemTest() {
+    when(mockCouponService.evaluateCart(any(int[].class), anyInt()))
+        .thenReturn(new CouponService.CartEvaluation(null, 0.0, 7));
+
+    ResponseEntity<?> response = controller.findOptimalCoupon(
+        new CartRequest(new int[] {1, 7}, 1, null));
+
+    assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    assertEquals("Item with ID 7 does not exist.", response.getBody());
   }
 
   @Test
@@ -496,15 +774,34 @@ public class RouteControllerTest {
     requestBody.put("itemIds", itemIds);
     requestBody.put("storeId", 1);
 
-    when(mockDataService.getItem(anyInt())).thenReturn(testItem);
-    when(mockCouponService.findOptimalCoupon(any(int[].class), anyInt())).thenReturn(null);
+    when(mockCouponService.evaluateCart(any(int[].class), anyInt()))
+        .thenReturn(new CouponService.CartEvaluation(null, 0.0, null));
 
-    ResponseEntity<?> response = controller.findOptimalCoupon(requestBody);
+    ResponseEntity<?> response = controller.findOptimalCoupon(cartRequest(requestBody));
 
     assertEquals(HttpStatus.OK, response.getStatusCode());
     assertTrue(response.getBody().toString().contains("No applicable coupon"));
   }
 
+  @Test
+  public void findOptimalCouponWithoutStoreTest() {
+    ResponseEntity<?> response = controller.findOptimalCoupon(
+        new CartRequest(new int[] {1}, null, null));
+
+    assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    assertEquals("storeId is required.", response.getBody());
+  }
+
+  @Test
+  public void handleUnreadableBodyTest() {
+    ResponseEntity<?> response = controller.handleUnreadableBody(
+        new HttpMessageNotReadableException("bad", new IllegalStateException("not a number"),
+            new MockHttpInputMessage(new byte[0])));
+
+    assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    assertEquals("Malformed request body: not a number", response.getBody());
+  }
+
   @Test
   public void findOptimalStoresWithKeywordTest() {
     ArrayList<CouponService.StoreRecommendation> recommendations = new ArrayList<>();
@@ -534,6 +831,157 @@ public class RouteControllerTest {
     assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
   }
 
+  @Test
+  public void findOptimalStoreForListTest() {
+    Map<String, Object> requestBody = new HashMap<>();
+    requestBody.put("keywords", List.of("Test"));
+    requestBody.put("categories", List.of("books"));
+
+    CouponService.ShoppingListRecommendation recommendation =
+        new CouponService.ShoppingListRecommendation(
+            testStore, List.of(testItem, testItem), testCoupon, 100.0, 10.0, 90.0);
+    when(mockCouponService.findCheapestStoreForList(any(), any())).thenReturn(recommendation);
+
+    ResponseEntity<?> response = controller.findOptimalStoreForList(requestBody);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(recommendation, response.getBody());
+  }
+
+  @Test
+  public void findOptimalStoreForListWhenNoStoreCarriesListTest() {
+    Map<String, Object> requestBody = new HashMap<>();
+    requestBody.put("keywords", List.of("Test"));
+
+    when(mockCouponService.findCheapestStoreForList(any(), any())).thenReturn(null);
+
+    ResponseEntity<?> response = controller.findOptimalStoreForList(requestBody);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertTrue(response.getBody().toString().contains("No single store"));
+  }
+
+  @Test
+  public void findOptimalStoreForListWithEmptyListTest() {
+    Map<String, Object> requestBody = new HashMap<>();
+    requestBody.put("keywords", new ArrayList<String>());
+
+    ResponseEntity<?> response = controller.findOptimalStoreForList(requestBody);
+
+    assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    assertTrue(response.getBody().toString().contains("Shopping list cannot be empty"));
+  }
+
+  @Test
+  public void planSplitBasketTest() {
+    Map<String, Object> requestBody = new HashMap<>();
+    requestBody.put("keywords", List.of("Test"));
+    requestBody.put("maxStores", 2);
+    requestBody.put("timeBudgetMs", 50);
+
+    CouponService.SplitBasketPlan plan = new CouponService.SplitBasketPlan(
+        new ArrayList<>(), 90.0, 10L, 500L, new ArrayList<>());
+    when(mockCouponService.planSplitBasket(any(), any(), anyInt(), anyLong()))
+        .thenReturn(plan);
+
+    ResponseEntity<?> response = controller.planSplitBasket(requestBody);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(plan, response.getBody());
+  }
+
+  @Test
+  public void planSplitBasketWhenNoPlanExistsTest() {
+    Map<String, Object> requestBody = new HashMap<>();
+    requestBody.put("keywords", List.of("Test"));
+    requestBody.put("maxStores", 1);
+
+    when(mockCouponService.planSplitBasket(any(), any(), anyInt(), anyLong()))
+        .thenReturn(null);
+
+    ResponseEntity<?> response = controller.planSplitBasket(requestBody);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertTrue(response.getBody().toString().contains("No combination of 1 store(s)"));
+  }
+
+  @Test
+  public void planSplitBasketWithEmptyListTest() {
+    Map<String, Object> requestBody = new HashMap<>();
+    requestBody.put("categories", new ArrayList<String>());
+    requestBody.put("maxStores", 2);
+
+    ResponseEntity<?> response = controller.planSplitBasket(requestBody);
+
+    assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    assertTrue(response.getBody().toString().contains("Shopping list cannot be empty"));
+  }
+
+  @Test
+  public void planSplitBasketWithInvalidStoreLimitTest() {
+    Map<String, Object> requestBody = new HashMap<>();
+    requestBody.put("keywords", List.of("Test"));
+    requestBody.put("maxStores", 0);
+
+    ResponseEntity<?> response = controller.planSplitBasket(requestBody);
+
+    assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    assertTrue(response.getBody().toString().contains("at least 1"));
+  }
+
+  @Test
+  public void planSplitBasketWithInvalidTimeBudgetTest() {
+    Map<String, Object> requestBody = new HashMap<>();
+    requestBody.put("keywords", List.of("Test"));
+    requestBody.put("maxStores", 2);
+    requestBody.put("timeBudgetMs", 5000);
+
+    ResponseEntity<?> response = controller.planSplitBasket(requestBody);
+
+    assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    assertTrue(response.getBody().toString().contains("Time budget"));
+  }
+
+  @Test
+  public void findBudgetBasketTest() {
+    CouponService.BudgetBasket basket = new CouponService.BudgetBasket(
+        new CouponService.ShoppingListRecommendation(
+            testStore, List.of(testItem), null, 50.0, 0.0, 50.0),
+        60.0, "dp", true, 100L);
+    when(mockDataService.getStore(1)).thenReturn(testStore);
+    when(mockCouponService.findBudgetBasket(1, 60.0, 200L)).thenReturn(basket);
+
+    ResponseEntity<?> response = controller.findBudgetBasket(1, 60.0, null);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(basket, response.getBody());
+  }
+
+  @Test
+  public void findBudgetBasketWithMissingStoreTest() {
+    when(mockDataService.getStore(999)).thenReturn(null);
+
+    ResponseEntity<?> response = controller.findBudgetBasket(999, 60.0, null);
+
+    assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+  }
+
+  @Test
+  public void findBudgetBasketWithInvalidBudgetTest() {
+    ResponseEntity<?> response = controller.findBudgetBasket(1, 0.0, null);
+
+    assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    assertTrue(response.getBody().toString().contains("Budget must be greater than 0"));
+  }
+
+  @Test
+  public void findBudgetBasketWithInvalidTimeBudgetTest() {
+    ResponseEntity<?> response = controller.findBudgetBasket(1, 60.0, 0L);
+
+    assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    assertTrue(response.getBody().toString().contains("Time budget"));
+  }
+
   @Test
   public void suggestItemsForCouponTest() {
     Map<String, Object> requestBody = new HashMap<>();
@@ -549,7 +997,7 @@ public class RouteControllerTest {
     when(mockCouponService.findItemsToMeetCouponThreshold(
         any(int[].class), anyInt(), anyInt())).thenReturn(suggestions);
 
-    ResponseEntity<?> response = controller.suggestItemsForCoupon(requestBody);
+    ResponseEntity<?> response = controller.suggestItemsForCoupon(cartRequest(requestBody));
 
     assertEquals(HttpStatus.OK, response.getStatusCode());
   }
@@ -567,9 +1015,62 @@ public class RouteControllerTest {
     when(mockCouponService.findItemsToMeetCouponThreshold(
         any(int[].class), anyInt(), anyInt())).thenReturn(new ArrayList<>());
 
-    ResponseEntity<?> response = controller.suggestItemsForCoupon(requestBody);
+    ResponseEntity<?> response = controller.suggestItemsForCoupon(cartRequest(requestBody));
 
     assertEquals(HttpStatus.OK, response.getStatusCode());
   }
-}
 
+  @Test
+  public void importItemsTest() throws Exception {
+    InputStream body = new ByteArrayInputStream(new byte[0]);
+    CatalogImportService.ImportReport report = mock(CatalogImportService.ImportReport.class);
+    when(mockDataService.getStore(1)).thenReturn(testStore);
+    when(mockCatalogImportService.importItems(1, body, CatalogImportService.Format.CSV))
+        .thenReturn(report);
+
+    ResponseEntity<?> response = controller.importItems(1, "text/csv; charset=utf-8", body);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(report, response.getBody());
+  }
+
+  @Test
+  public void importItemsUnsupportedFormatTest() {
+    ResponseEntity<?> response = controller.importItems(1, "application/json",
+        new ByteArrayInputStream(new byte[0]));
+
+    assertEquals(HttpStatus.UNSUPPORTED_MEDIA_TYPE, response.getStatusCode());
+  }
+
+  @Test
+  public void importItemsStoreNotFoundTest() {
+    when(mockDataService.getStore(99)).thenReturn(null);
+
+    ResponseEntity<?> response = controller.importItems(99, "application/x-ndjson",
+        new ByteArrayInputStream(new byte[0]));
+
+    assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    assertEquals("Store not found.", response.getBody());
+  }
+
+  @Test
+  public void importItemsBadHeaderTest() throws Exception {
+    when(mockDataService.getStore(1)).thenReturn(testStore);
+    when(mockCatalogImportService.importItems(anyInt(), any(), any()))
+        .thenThrow(new IllegalArgumentException("CSV header must include name and price columns."));
+
+    ResponseEntity<?> response = controller.importItems(1, "text/csv",
+        new ByteArrayInputStream(new byte[0]));
+
+    assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    assertEquals("CSV header must include name and price columns.", response.getBody());
+  }
+
+  private static CouponRequest couponRequest(Map<String, Object> requestBody) {
+    return JSON.convertValue(requestBody, CouponRequest.class);
+  }
+
+  private static CartRequest cartRequest(Map<String, Object> requestBody) {
+    return JSON.convertValue(requestBody, CartRequest.class);
+  }
+}
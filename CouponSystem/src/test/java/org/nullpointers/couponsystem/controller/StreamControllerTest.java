@@ -0,0 +1,80 @@
+package org.nullpointers.couponsystem.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.nullpointers.couponsystem.model.Item;
+import org.nullpointers.couponsystem.model.Store;
+import org.nullpointers.couponsystem.model.TotalPriceCoupon;
+import org.nullpointers.couponsystem.service.DataService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+/**
+ * Tests {@code GET /stream/store/{storeId}} through the full MVC stack.
+ */
+@SpringBootTest
+@ActiveProfiles("test1")
+public class StreamControllerTest {
+  @Autowired
+  private WebApplicationContext context;
+
+  @Autowired
+  private DataService dataService;
+
+  private MockMvc mockMvc;
+
+  @BeforeEach
+  public void setUp() {
+    mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+  }
+
+  @Test
+  public void streamsCommittedChangesUntilStoreIsDeletedTest() throws Exception {
+    Store store = dataService.addStore(new Store(0, "Display Store"));
+    MvcResult result = mockMvc.perform(get("/stream/store/" + store.getId())).andReturn();
+    assertTrue(result.getRequest().isAsyncStarted());
+    MockHttpServletResponse response = result.getResponse();
+
+    final Item item = dataService.addItem(new Item(0, "Orchid", 12.0, store.getId(), "flowers"));
+    dataService.addCoupon(new TotalPriceCoupon(0, store.getId(), 10.0, true, 20.0));
+    // Unsent updates of an entity are merged, so let the coupon go out before its delete
+    awaitContent(response, "event:coupon\ndata:");
+    dataService.deleteStoreWithContents(store.getId());
+
+    String events = awaitContent(response, "event:store-deleted");
+    assertTrue(response.getContentType().startsWith(MediaType.TEXT_EVENT_STREAM_VALUE));
+    assertTrue(events.contains("event:item\ndata:"));
+    assertTrue(events.contains("Orchid"));
+    assertTrue(events.contains("event:coupon\ndata:"));
+    assertTrue(events.contains("event:item-deleted\ndata:{\"id\":" + item.getId() + "}"));
+  }
+
+  @Test
+  public void unknownStoreIsNotFoundTest() throws Exception {
+    assertEquals(404, mockMvc.perform(get("/stream/store/" + Integer.MAX_VALUE))
+        .andReturn().getResponse().getStatus());
+  }
+
+  private static String awaitContent(MockHttpServletResponse response, String text)
+      throws Exception {
+    final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (!response.getContentAsString().contains(text) && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    String content = response.getContentAsString();
+    assertTrue(content.contains(text), () -> "Not streamed: " + text + " in " + content);
+    return content;
+  }
+}
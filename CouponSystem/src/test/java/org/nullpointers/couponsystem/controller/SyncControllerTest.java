@@ -0,0 +1,74 @@
+package org.nullpointers.couponsystem.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.nullpointers.couponsystem.model.Store;
+import org.nullpointers.couponsystem.service.CatalogSyncService;
+import org.nullpointers.couponsystem.service.DataService;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Unit tests for the SyncController class using mocking.
+ */
+@SpringBootTest
+@ActiveProfiles("test1")
+public class SyncControllerTest {
+  private SyncController controller;
+  private DataService mockDataService;
+  private CatalogSyncService mockCatalogSyncService;
+
+  /**
+   * Sets up mocks before each test.
+   */
+  @BeforeEach
+  public void setUp() {
+    mockDataService = mock(DataService.class);
+    mockCatalogSyncService = mock(CatalogSyncService.class);
+    controller = new SyncController(mockDataService, mockCatalogSyncService);
+    when(mockDataService.getStore(1)).thenReturn(new Store(1, "Store1"));
+  }
+
+  @Test
+  public void diffTest() {
+    List<Object> pairs = List.of(Map.of("externalKey", "A", "contentHash", "h1"));
+    when(mockCatalogSyncService.diff(1, pairs)).thenThrow(
+        new IllegalArgumentException("Entry 0 is malformed."));
+    Map<String, Object> request = new HashMap<>();
+    request.put("items", pairs);
+
+    ResponseEntity<?> response = controller.diff(1, request);
+
+    assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    assertEquals("Entry 0 is malformed.", response.getBody());
+  }
+
+  @Test
+  public void upsertTest() {
+    Map<String, Object> request = new HashMap<>();
+    request.put("items", List.of());
+
+    ResponseEntity<?> response = controller.upsert(1, request);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+  }
+
+  @Test
+  public void invalidRequestTest() {
+    Map<String, Object> request = new HashMap<>();
+    assertEquals("items must be an array.", controller.diff(1, request).getBody());
+
+    request.put("items", List.of());
+    assertEquals(HttpStatus.NOT_FOUND, controller.diff(2, request).getStatusCode());
+    assertEquals(HttpStatus.NOT_FOUND, controller.upsert(2, request).getStatusCode());
+  }
+}
@@ -0,0 +1,143 @@
+package org.nullpointers.couponsystem.dto;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the CartRequest record and the ItemIdsDeserializer it reads item IDs
+ * with.
+ */
+public class CartRequestTest {
+  private static final ObjectMapper JSON = new ObjectMapper();
+  private static final TypeReference<Map<String, Object>> MAP = new TypeReference<>() {};
+  private static final int WARM_UP = 20_000;
+  private static final int MEASURED = 10_000;
+
+  @Test
+  public void readsItemIdsIntoIntArrayTest() throws IOException {
+    StringBuilder ids = new StringBuilder(200);
+    for (int i = 0; i < 40; i++) {
+      ids.append(i == 0 ? "" : ",").append(1000 + i);
+    }
+    CartRequest request = JSON.readValue("{\"itemIds\":[" + ids + "],\"storeId\":3}",
+        CartRequest.class);
+
+    assertEquals(40, request.itemIds().length);
+    assertEquals(1039, request.itemIds()[39]);
+    assertEquals(3, request.storeId());
+    assertNull(request.couponId());
+    assertNull(request.validate());
+    assertArrayEquals(new int[0],
+        JSON.readValue("{\"itemIds\":[]}", CartRequest.class).itemIds());
+  }
+
+  @Test
+  public void rejectsNonIntegerItemIdsTest() {
+    assertThrows(MismatchedInputException.class,
+        () -> JSON.readValue("{\"itemIds\":[1,\"two\"]}", CartRequest.class));
+    assertThrows(MismatchedInputException.class,
+        () -> JSON.readValue("{\"itemIds\":[1.5]}", CartRequest.class));
+    assertThrows(MismatchedInputException.class,
+        () -> JSON.readValue("{\"itemIds\":7}", CartRequest.class));
+  }
+
+  @Test
+  public void readsPackedItemIdsTest() throws IOException {
+    int[] ids = {1005, 1001, 1002, 70_000};
+    byte[] packed = PackedIds.pack(ids);
+
+    CartRequest fromCbor = new CBORMapper().readValue(new CBORMapper().writeValueAsBytes(
+        Map.of("itemIds", packed, "storeId", 4)), CartRequest.class);
+    assertArrayEquals(ids, fromCbor.itemIds());
+    assertEquals(4, fromCbor.storeId());
+
+    CartRequest fromJson = JSON.readValue("{\"itemIds\":\""
+        + Base64.getEncoder().encodeToString(packed) + "\"}", CartRequest.class);
+    assertArrayEquals(ids, fromJson.itemIds());
+  }
+
+  @Test
+  public void rejectsTruncatedPackedItemIdsTest() {
+    String truncated = Base64.getEncoder().encodeToString(new byte[] {2, (byte) 0x80});
+    JsonMappingException e = assertThrows(JsonMappingException.class,
+        () -> JSON.readValue("{\"itemIds\":\"" + truncated + "\"}", CartRequest.class));
+    assertTrue(e.getOriginalMessage().startsWith("Invalid packed item IDs"));
+  }
+
+  @Test
+  public void validateTest() {
+    assertEquals("Cart cannot be empty.", new CartRequest(null, 1, null).validate());
+    assertEquals("Cart cannot be empty.", new CartRequest(new int[0], 1, null).validate());
+    assertEquals("storeId is required.", new CartRequest(new int[] {1}, null, 2).validate());
+    assertEquals("couponId is required.",
+        new CartRequest(new int[] {1}, 1, null).validateWithCoupon());
+    assertNull(new CartRequest(new int[] {1}, 1, 2).validateWithCoupon());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void typedRequestAllocatesLessThanMapTest() throws IOException {
+    StringBuilder json = new StringBuilder(600).append("{\"itemIds\":[");
+    for (int i = 0; i < 50; i++) {
+      json.append(i == 0 ? "" : ",").append(100_000 + i * 7);
+    }
+    final byte[] body = json.append("],\"storeId\":12}").toString()
+        .getBytes(StandardCharsets.UTF_8);
+
+    long viaMap = bytesPerRequest(() -> {
+      Map<String, Object> fields = JSON.readValue(body, MAP);
+      int[] ids = ((List<Integer>) fields.get("itemIds")).stream()
+          .mapToInt(Integer::intValue).toArray();
+      return ids.length + ((Number) fields.get("storeId")).intValue();
+    });
+    long typed = bytesPerRequest(() -> {
+      CartRequest request = JSON.readValue(body, CartRequest.class);
+      return request.itemIds().length + request.storeId();
+    });
+
+    assertTrue(typed * 2 < viaMap,
+        "typed request allocates " + typed + " bytes, map request " + viaMap);
+  }
+
+  /**
+   * Returns the bytes the current thread allocates per call, after warming up.
+   */
+  private static long bytesPerRequest(Request request) throws IOException {
+    com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long sink = 0;
+    for (int i = 0; i < WARM_UP; i++) {
+      sink += request.read();
+    }
+    long before = threads.getCurrentThreadAllocatedBytes();
+    for (int i = 0; i < MEASURED; i++) {
+      sink += request.read();
+    }
+    long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+    assertTrue(sink > 0);
+    return allocated / MEASURED;
+  }
+
+  /**
+   * One request body read, returning a value derived from it so the work is kept.
+   */
+  private interface Request {
+    int read() throws IOException;
+  }
+}
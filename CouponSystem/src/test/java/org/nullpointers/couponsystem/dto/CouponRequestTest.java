@@ -0,0 +1,67 @@
+package org.nullpointers.couponsystem.dto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import org.junit.jupiter.api.Test;
+import org.nullpointers.couponsystem.model.CategoryCoupon;
+import org.nullpointers.couponsystem.model.Coupon;
+import org.nullpointers.couponsystem.model.ItemCoupon;
+import org.nullpointers.couponsystem.model.TotalPriceCoupon;
+
+/**
+ * Unit tests for the CouponRequest record.
+ */
+public class CouponRequestTest {
+  private static final ObjectMapper JSON = new ObjectMapper();
+
+  @Test
+  public void readsEveryCouponTypeTest() throws IOException {
+    Coupon total = JSON.readValue("{\"type\":\"TotalPrice\",\"storeId\":1,"
+        + "\"discountValue\":10,\"isPercentage\":true,\"minimumPurchase\":50}",
+        CouponRequest.class).toCoupon();
+    Coupon category = JSON.readValue("{\"type\":\"category\",\"storeId\":1,"
+        + "\"discountValue\":5,\"isPercentage\":false,\"category\":\"books\"}",
+        CouponRequest.class).toCoupon();
+    final Coupon item = JSON.readValue("{\"type\":\"item\",\"storeId\":1,"
+        + "\"discountValue\":15,\"isPercentage\":true,\"targetItemId\":7}",
+        CouponRequest.class).toCoupon();
+
+    assertEquals(50.0, ((TotalPriceCoupon) total).getMinimumPurchase());
+    assertTrue(((TotalPriceCoupon) total).isPercentage());
+    assertEquals("books", ((CategoryCoupon) category).getCategory());
+    assertEquals(7, ((ItemCoupon) item).getTargetItemId());
+  }
+
+  @Test
+  public void validateReportsInvalidDefinitionsTest() {
+    assertEquals("storeId is required.",
+        new CouponRequest("item", null, 1.0, true, null, null, 1).validate());
+    assertEquals("isPercentage is required.",
+        new CouponRequest("item", 1, 1.0, null, null, null, 1).validate());
+    assertEquals("Discount value cannot be negative.",
+        new CouponRequest("item", 1, -1.0, true, null, null, 1).validate());
+    assertEquals("Percentage discount cannot exceed 100%.",
+        new CouponRequest("item", 1, 101.0, true, null, null, 1).validate());
+    assertEquals("minimumPurchase is required.",
+        new CouponRequest("totalprice", 1, 1.0, true, null, null, null).validate());
+    assertEquals("Category cannot be empty.",
+        new CouponRequest("category", 1, 1.0, true, null, " ", null).validate());
+    assertEquals("targetItemId is required.",
+        new CouponRequest("item", 1, 1.0, true, null, null, null).validate());
+    assertEquals("Invalid coupon type.",
+        new CouponRequest(null, 1, 1.0, true, null, null, null).validate());
+    assertNull(new CouponRequest("item", 1, 1.0, true, null, null, 7).validate());
+  }
+
+  @Test
+  public void toCouponRejectsInvalidDefinitionsTest() {
+    IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+        () -> new CouponRequest("category", 1, 1.0, true, null, null, null).toCoupon());
+    assertEquals("Category cannot be empty.", error.getMessage());
+  }
+}
@@ -0,0 +1,43 @@
+package org.nullpointers.couponsystem.dto;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the PackedIds varint encoding.
+ */
+public class PackedIdsTest {
+  @Test
+  public void roundTripTest() {
+    int[][] carts = {
+        {},
+        {1},
+        {1000, 1001, 1002, 1003},
+        {500, 3, 500_000, 499_999},
+        {Integer.MAX_VALUE, 0, Integer.MIN_VALUE, -1, Integer.MAX_VALUE},
+    };
+    for (int[] cart : carts) {
+      assertArrayEquals(cart, PackedIds.unpack(PackedIds.pack(cart)));
+    }
+  }
+
+  @Test
+  public void closeIdsTakeOneByteEachTest() {
+    // The first ID is a full varint, then each step of at most 63 fits in one byte
+    assertEquals(3 + 3, PackedIds.pack(new int[] {20_000, 20_001, 20_063, 20_000}).length);
+    assertArrayEquals(new byte[] {2, 1, 3}, PackedIds.pack(new int[] {1, 0, -2}));
+  }
+
+  @Test
+  public void rejectsMalformedBytesTest() {
+    assertEquals("Packed IDs end inside a varint.", assertThrows(
+        IllegalArgumentException.class,
+        () -> PackedIds.unpack(new byte[] {2, (byte) 0x81})).getMessage());
+    byte[] tooLong = {(byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 1};
+    assertEquals("Packed ID varint is too long.", assertThrows(
+        IllegalArgumentException.class, () -> PackedIds.unpack(tooLong)).getMessage());
+  }
+}
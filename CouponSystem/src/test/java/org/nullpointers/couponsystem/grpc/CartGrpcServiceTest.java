@@ -0,0 +1,151 @@
+package org.nullpointers.couponsystem.grpc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.grpc.ManagedChannel;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.stub.StreamObserver;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.nullpointers.couponsystem.model.Item;
+import org.nullpointers.couponsystem.model.Store;
+import org.nullpointers.couponsystem.model.TotalPriceCoupon;
+import org.nullpointers.couponsystem.service.DataService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Tests the gRPC cart service through the application's running gRPC server.
+ */
+@SpringBootTest
+@ActiveProfiles("test1")
+public class CartGrpcServiceTest {
+  @Autowired
+  private GrpcServer grpcServer;
+
+  @Autowired
+  private DataService dataService;
+
+  private ManagedChannel channel;
+  private Store store;
+  private Item rose;
+  private Item vase;
+  private TotalPriceCoupon coupon;
+
+  /**
+   * Creates a store with two items and a coupon, and connects to the server.
+   */
+  @BeforeEach
+  public void setUp() {
+    store = dataService.addStore(new Store(0, "gRPC Store"));
+    rose = dataService.addItem(new Item(0, "Rose", 30.0, store.getId(), "flowers"));
+    vase = dataService.addItem(new Item(0, "Vase", 25.0, store.getId(), "decor"));
+    coupon = (TotalPriceCoupon) dataService.addCoupon(
+        new TotalPriceCoupon(0, store.getId(), 10.0, true, 50.0));
+    channel = NettyChannelBuilder.forAddress("localhost", grpcServer.getPort())
+        .usePlaintext().build();
+  }
+
+  /**
+   * Closes the connection and removes the test store.
+   */
+  @AfterEach
+  public void tearDown() throws InterruptedException {
+    channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    dataService.deleteStoreWithContents(store.getId());
+  }
+
+  @Test
+  public void findOptimalCouponTest() {
+    CartResult result = CartServiceGrpc.newBlockingStub(channel).findOptimalCoupon(
+        cart(7, rose.getId(), vase.getId()));
+
+    assertEquals(7, result.getRequestId());
+    assertEquals(coupon.getId(), result.getCoupon().getId());
+    assertEquals("totalprice", result.getCoupon().getType());
+    assertEquals(50.0, result.getCoupon().getMinimumPurchase(), 1e-9);
+    assertEquals(5.5, result.getDiscount(), 1e-9);
+    assertTrue(result.getError().isEmpty());
+
+    CartResult none = CartServiceGrpc.newBlockingStub(channel).findOptimalCoupon(
+        cart(8, rose.getId()));
+    assertFalse(none.hasCoupon());
+    assertEquals(0.0, none.getDiscount(), 1e-9);
+  }
+
+  @Test
+  public void findOptimalCouponRejectsInvalidCartsTest() {
+    CartServiceGrpc.CartServiceBlockingStub stub = CartServiceGrpc.newBlockingStub(channel);
+
+    StatusRuntimeException empty = assertThrows(StatusRuntimeException.class,
+        () -> stub.findOptimalCoupon(cart(1)));
+    assertEquals(Status.Code.INVALID_ARGUMENT, empty.getStatus().getCode());
+    assertEquals("Cart cannot be empty.", empty.getStatus().getDescription());
+
+    StatusRuntimeException missing = assertThrows(StatusRuntimeException.class,
+        () -> stub.findOptimalCoupon(cart(2, Integer.MAX_VALUE)));
+    assertEquals("Item with ID " + Integer.MAX_VALUE + " does not exist.",
+        missing.getStatus().getDescription());
+  }
+
+  @Test
+  public void evaluateCartsAnswersEveryCartInOrderTest() throws Exception {
+    final int carts = 500;
+    List<CartResult> results = new CopyOnWriteArrayList<>();
+    CompletableFuture<Void> done = new CompletableFuture<>();
+    StreamObserver<Cart> requests = CartServiceGrpc.newStub(channel).evaluateCarts(
+        new StreamObserver<>() {
+          @Override
+          public void onNext(CartResult result) {
+            results.add(result);
+          }
+
+          @Override
+          public void onError(Throwable t) {
+            done.completeExceptionally(t);
+          }
+
+          @Override
+          public void onCompleted() {
+            done.complete(null);
+          }
+        });
+    for (int i = 0; i < carts; i++) {
+      requests.onNext(i % 100 == 99 ? cart(i, Integer.MAX_VALUE)
+          : cart(i, rose.getId(), vase.getId()));
+    }
+    requests.onCompleted();
+    done.get(30, TimeUnit.SECONDS);
+
+    assertEquals(carts, results.size());
+    for (int i = 0; i < carts; i++) {
+      CartResult result = results.get(i);
+      assertEquals(i, result.getRequestId());
+      if (i % 100 == 99) {
+        assertEquals("Item with ID " + Integer.MAX_VALUE + " does not exist.",
+            result.getError());
+      } else {
+        assertEquals(5.5, result.getDiscount(), 1e-9);
+      }
+    }
+  }
+
+  private Cart cart(long requestId, int... itemIds) {
+    Cart.Builder cart = Cart.newBuilder().setRequestId(requestId).setStoreId(store.getId());
+    for (int itemId : itemIds) {
+      cart.addItemIds(itemId);
+    }
+    return cart.build();
+  }
+}
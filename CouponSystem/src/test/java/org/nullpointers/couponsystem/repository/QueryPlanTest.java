@@ -0,0 +1,214 @@
+package org.nullpointers.couponsystem.repository;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.function.Executable;
+import org.nullpointers.couponsystem.model.CategoryCoupon;
+import org.nullpointers.couponsystem.model.Coupon;
+import org.nullpointers.couponsystem.model.Item;
+import org.nullpointers.couponsystem.model.ItemCoupon;
+import org.nullpointers.couponsystem.model.Store;
+import org.nullpointers.couponsystem.service.DataService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Query plan regression tests. Loads a generated catalog, asks the database to
+ * {@code explain} the SQL of each hot repository query, and fails if a plan falls back
+ * to scanning the whole table or stops using the index the query is meant to use.
+ *
+ * <p>Each case calls the repository method it is named after and explains the SQL
+ * Hibernate sent for it, captured by a statement inspector. Full scans are recognized in
+ * H2 ({@code tableScan}) and PostgreSQL ({@code Seq Scan}) plans. The context updates the
+ * shared schema rather than recreating it, so the other test contexts keep their data.
+ */
+@SpringBootTest(properties = {
+    "spring.jpa.hibernate.ddl-auto=update",
+    "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "org.nullpointers.couponsystem.repository.QueryPlanTest$CapturedStatements"})
+@ActiveProfiles("test1")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class QueryPlanTest {
+  private static final int STORES = 40;
+  private static final int ITEMS_PER_STORE = 250;
+  private static final String[] CATEGORIES = {"Toys", "books", "Garden", "food", "tools"};
+
+  @Autowired
+  private DataService dataService;
+
+  @Autowired
+  private ItemRepository itemRepository;
+
+  @Autowired
+  private CouponRepository couponRepository;
+
+  @Autowired
+  private ItemSyncKeyRepository itemSyncKeyRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  private final List<Store> stores = new ArrayList<>();
+  private Store store;
+  private Item item;
+
+  /**
+   * Loads the catalog once for every case and refreshes the planner's statistics.
+   */
+  @BeforeAll
+  public void setUp() {
+    for (int s = 0; s < STORES; s++) {
+      stores.add(dataService.addStore(new Store(0, "Plan Store " + s)));
+    }
+    List<Item> items = new ArrayList<>(STORES * ITEMS_PER_STORE);
+    List<Coupon> coupons = new ArrayList<>(STORES * 3);
+    for (Store each : stores) {
+      for (int i = 0; i < ITEMS_PER_STORE; i++) {
+        items.add(new Item(0, "Item" + i, 1.0 + i % 97, each.getId(),
+            CATEGORIES[i % CATEGORIES.length]));
+      }
+    }
+    List<Item> added = dataService.addItems(items);
+    for (int i = 0; i < STORES; i++) {
+      Store each = stores.get(i);
+      coupons.add(new ItemCoupon(0, each.getId(), 10.0, true,
+          added.get(i * ITEMS_PER_STORE).getId()));
+      coupons.add(new CategoryCoupon(0, each.getId(), 2.0, false, "toys"));
+    }
+    dataService.addCoupons(coupons);
+    store = stores.get(STORES / 2);
+    item = added.get(added.size() / 2);
+    jdbcTemplate.execute("analyze");
+  }
+
+  /**
+   * Removes the catalog after the last case.
+   */
+  @AfterAll
+  public void tearDown() {
+    stores.forEach(each -> dataService.deleteStoreWithContents(each.getId()));
+  }
+
+  @Test
+  public void itemQueriesUseIndexesTest() {
+    int storeId = store.getId();
+    int otherId = stores.get(0).getId();
+    int itemId = item.getId();
+    assertAll(
+        uses("ItemRepository.findByStoreId", "idx_items_store_id",
+            () -> itemRepository.findByStoreId(storeId), storeId),
+        uses("ItemRepository.findByStoreIdAndIdGreaterThanOrderByIdAsc", "idx_items_store_id",
+            () -> itemRepository.findByStoreIdAndIdGreaterThanOrderByIdAsc(storeId, itemId,
+                Limit.of(100)), storeId, itemId, 100),
+        uses("ItemRepository.findPagesByStoreIdIn", "idx_items_store_id",
+            () -> itemRepository.findPagesByStoreIdIn(List.of(storeId, otherId), 0, 100),
+            storeId, otherId, 0, 100),
+        uses("ItemRepository.findIdsByStoreId", "idx_items_store_id",
+            () -> itemRepository.findIdsByStoreId(storeId, Limit.of(1000)), storeId, 1000),
+        uses("ItemRepository.findByCategoryKey", "idx_items_category_key",
+            () -> itemRepository.findByCategoryKey("garden"), "garden"),
+        uses("ItemRepository.findByCategoryKeyOrderByPriceAscIdAsc", "idx_items_category_key",
+            () -> itemRepository.findByCategoryKeyOrderByPriceAscIdAsc("garden",
+                Limit.of(100)), "garden", 100),
+        uses("ItemRepository.findByCategoryAfter", "idx_items_category_key",
+            () -> itemRepository.findByCategoryAfter("garden", 50.0, itemId, Limit.of(100)),
+            "garden", 50.0, 50.0, itemId, 100),
+        uses("ItemRepository.findIdsByStoreIdAndCategoryAfter", null,
+            () -> itemRepository.findIdsByStoreIdAndCategoryAfter(storeId, "garden", 0,
+                Limit.of(1000)), storeId, "garden", 0, 1000));
+  }
+
+  @Test
+  public void couponQueriesUseIndexesTest() {
+    int storeId = store.getId();
+    int otherId = stores.get(0).getId();
+    int itemId = item.getId();
+    assertAll(
+        uses("CouponRepository.findByStoreId", "idx_coupons_store_id",
+            () -> couponRepository.findByStoreId(storeId), storeId),
+        uses("CouponRepository.findByStoreIdIn", "idx_coupons_store_id",
+            () -> couponRepository.findByStoreIdIn(List.of(storeId, otherId)),
+            storeId, otherId),
+        uses("CouponRepository.findPagesByStoreIdIn", "idx_coupons_store_id",
+            () -> couponRepository.findPagesByStoreIdIn(List.of(storeId, otherId), 0, 100),
+            storeId, otherId, 0, 100),
+        uses("CouponRepository.findByStoreIdAndIdGreaterThanOrderByIdAsc",
+            "idx_coupons_store_id", () -> couponRepository
+                .findByStoreIdAndIdGreaterThanOrderByIdAsc(storeId, 0, Limit.of(100)),
+            storeId, 0, 100),
+        uses("CouponRepository.findIdsByTargetItemIdIn", "idx_coupons_target_item_id",
+            () -> couponRepository.findIdsByTargetItemIdIn(List.of(itemId, itemId + 1)),
+            itemId, itemId + 1));
+  }
+
+  @Test
+  public void syncKeyLookupUsesIndexTest() {
+    int storeId = store.getId();
+    assertAll(uses("ItemSyncKeyRepository.findByStoreIdAndExternalKeyIn", null,
+        () -> itemSyncKeyRepository.findByStoreIdAndExternalKeyIn(storeId,
+            List.of("SKU-1", "SKU-2")), storeId, "SKU-1", "SKU-2"));
+  }
+
+  /**
+   * Checks one query's plan: it must not scan the whole table and, if an index is given,
+   * must use it. The SQL is the statement the repository call runs, with the arguments
+   * bound in the order they appear in it.
+   */
+  private Executable uses(String query, String index, Runnable call, Object... arguments) {
+    return () -> {
+      List<String> statements = CapturedStatements.during(call);
+      assertEquals(1, statements.size(), query + " ran " + statements);
+      String plan = String.join("\n", jdbcTemplate.queryForList(
+          "explain " + statements.get(0), String.class, arguments));
+      String normalized = plan.toLowerCase(Locale.ROOT);
+      assertFalse(normalized.contains("tablescan") || normalized.contains("seq scan"),
+          query + " scans the whole table:\n" + plan);
+      if (index != null) {
+        assertTrue(normalized.contains(index), query + " does not use " + index + ":\n"
+            + plan);
+      }
+    };
+  }
+
+  /**
+   * Records the SQL Hibernate sends on the current thread while a call runs.
+   */
+  public static class CapturedStatements implements StatementInspector {
+    private static final long serialVersionUID = 1L;
+    private static final ThreadLocal<List<String>> CAPTURED = new ThreadLocal<>();
+
+    static List<String> during(Runnable call) {
+      List<String> statements = new ArrayList<>();
+      CAPTURED.set(statements);
+      try {
+        call.run();
+      } finally {
+        CAPTURED.remove();
+      }
+      return statements;
+    }
+
+    @Override
+    public String inspect(String sql) {
+      List<String> statements = CAPTURED.get();
+      if (statements != null) {
+        statements.add(sql);
+      }
+      return sql;
+    }
+  }
+}
@@ -0,0 +1,181 @@
+package org.nullpointers.couponsystem.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.nullpointers.couponsystem.model.CategoryCoupon;
+import org.nullpointers.couponsystem.model.Coupon;
+import org.nullpointers.couponsystem.model.Item;
+import org.nullpointers.couponsystem.model.ItemCoupon;
+import org.nullpointers.couponsystem.model.TotalPriceCoupon;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Unit tests for the BudgetBasketSolver class.
+ */
+@SpringBootTest
+@ActiveProfiles("test1")
+public class BudgetBasketSolverTest {
+  private static final long BUDGET = TimeUnit.SECONDS.toNanos(5);
+  private static final String[] CATEGORIES = {"toys", "books", "food"};
+
+  @Test
+  public void solveCrossesCouponThresholdTest() {
+    // Without the coupon the best cart is 30 + 10; with it all three items cost 65 - 20
+    List<Item> items = List.of(new Item(1, "A", 30.0, 1, "toys"),
+        new Item(2, "B", 25.0, 1, "toys"), new Item(3, "C", 10.0, 1, "books"));
+    List<Coupon> coupons = List.of(new TotalPriceCoupon(1, 1, 20.0, false, 60.0));
+
+    BudgetBasketSolver.Result result = new BudgetBasketSolver(items, coupons).solve(45.0, BUDGET);
+
+    assertEquals(3, result.getCart().length);
+    assertEquals(45.0, paid(result.getCart(), coupons), 0.001);
+    assertTrue(result.isOptimal());
+    assertEquals(BudgetBasketSolver.DP, result.getMethod());
+  }
+
+  @Test
+  public void solveWithPercentageCategoryCouponTest() {
+    List<Item> items = List.of(new Item(1, "Robot", 40.0, 1, "toys"),
+        new Item(2, "Novel", 30.0, 1, "books"));
+    List<Coupon> coupons = List.of(new CategoryCoupon(1, 1, 50.0, true, "Toys"));
+
+    BudgetBasketSolver.Result result = new BudgetBasketSolver(items, coupons).solve(50.0, BUDGET);
+
+    assertEquals(70.0, value(result.getCart()), 0.001);
+    assertEquals(50.0, paid(result.getCart(), coupons), 0.001);
+  }
+
+  @Test
+  public void solveMatchesBruteForceWithDpTest() {
+    Random random = new Random(11L);
+    for (int round = 0; round < 20; round++) {
+      List<Item> items = randomItems(random, 12, 1, 40);
+      List<Coupon> coupons = randomCoupons(random, items);
+      double budget = 10 + random.nextInt(120);
+
+      BudgetBasketSolver.Result result =
+          new BudgetBasketSolver(items, coupons).solve(budget, BUDGET);
+
+      assertEquals(BudgetBasketSolver.DP, result.getMethod());
+      assertTrue(paid(result.getCart(), coupons) <= budget + 0.001);
+      assertEquals(bruteForce(items, coupons, budget), value(result.getCart()), 0.001);
+    }
+  }
+
+  @Test
+  public void largeBudgetForFewItemsUsesBranchAndBoundTest() {
+    // Two items fit within the cell limit at any budget, but the row would take 160 MB
+    List<Item> items = List.of(new Item(1, "Lamp", 40.0, 1, "home"),
+        new Item(2, "Rug", 90.0, 1, "home"));
+    List<Coupon> coupons = List.of(new TotalPriceCoupon(1, 1, 10.0, false, 100.0));
+
+    BudgetBasketSolver.Result result =
+        new BudgetBasketSolver(items, coupons).solve(90_000.0, BUDGET);
+
+    assertEquals(BudgetBasketSolver.BRANCH_AND_BOUND, result.getMethod());
+    assertEquals(2, result.getCart().length);
+    assertTrue(result.isOptimal());
+  }
+
+  @Test
+  public void solveMatchesBruteForceWithBranchAndBoundTest() {
+    Random random = new Random(13L);
+    for (int round = 0; round < 10; round++) {
+      // Large prices and budgets make the DP table too big, forcing branch-and-bound
+      List<Item> items = randomItems(random, 14, 1000, 5000);
+      List<Coupon> coupons = randomCoupons(random, items);
+      double budget = 15000 + random.nextInt(10000);
+
+      BudgetBasketSolver.Result result =
+          new BudgetBasketSolver(items, coupons).solve(budget, BUDGET);
+
+      assertTrue(result.isOptimal());
+      assertTrue(paid(result.getCart(), coupons) <= budget + 0.001);
+      assertEquals(bruteForce(items, coupons, budget), value(result.getCart()), 0.001);
+    }
+  }
+
+  @Test
+  public void solveWithZeroBudgetTest() {
+    List<Item> items = List.of(new Item(1, "A", 5.0, 1, "toys"));
+
+    BudgetBasketSolver.Result result = new BudgetBasketSolver(items, List.of()).solve(0.0, BUDGET);
+
+    assertEquals(0, result.getCart().length);
+    assertTrue(result.isOptimal());
+  }
+
+  @Test
+  public void solveWithExpiredDeadlineTest() {
+    List<Item> items = randomItems(new Random(3L), 12, 1, 40);
+
+    BudgetBasketSolver.Result result = new BudgetBasketSolver(items, List.of()).solve(50.0, -1);
+
+    assertFalse(result.isOptimal());
+    assertTrue(value(result.getCart()) <= 50.0);
+  }
+
+  private static List<Item> randomItems(Random random, int count, int minPrice, int maxPrice) {
+    ArrayList<Item> items = new ArrayList<>();
+    for (int i = 1; i <= count; i++) {
+      items.add(new Item(i, "Item" + i, minPrice + random.nextInt(maxPrice - minPrice + 1),
+          1, CATEGORIES[random.nextInt(CATEGORIES.length)]));
+    }
+    return items;
+  }
+
+  private static List<Coupon> randomCoupons(Random random, List<Item> items) {
+    ArrayList<Coupon> coupons = new ArrayList<>();
+    double scale = items.get(0).getPrice() >= 1000 ? 1000 : 1;
+    int[] rates = {10, 20, 25, 50};
+    coupons.add(new TotalPriceCoupon(1, 1, rates[random.nextInt(rates.length)], true,
+        scale * (20 + random.nextInt(60))));
+    coupons.add(new TotalPriceCoupon(2, 1, scale * (5 + random.nextInt(20)), false,
+        scale * (30 + random.nextInt(60))));
+    coupons.add(new CategoryCoupon(3, 1, scale * (3 + random.nextInt(10)), false,
+        CATEGORIES[random.nextInt(CATEGORIES.length)]));
+    coupons.add(new CategoryCoupon(4, 1, rates[random.nextInt(rates.length)], true,
+        CATEGORIES[random.nextInt(CATEGORIES.length)]));
+    coupons.add(new ItemCoupon(5, 1, rates[random.nextInt(rates.length)], true,
+        1 + random.nextInt(items.size())));
+    return coupons;
+  }
+
+  private static double bruteForce(List<Item> items, List<Coupon> coupons, double budget) {
+    double best = 0.0;
+    for (int mask = 0; mask < 1 << items.size(); mask++) {
+      ArrayList<Item> cart = new ArrayList<>();
+      for (int i = 0; i < items.size(); i++) {
+        if ((mask & (1 << i)) != 0) {
+          cart.add(items.get(i));
+        }
+      }
+      Item[] array = cart.toArray(new Item[0]);
+      if (paid(array, coupons) <= budget + 1e-9) {
+        best = Math.max(best, value(array));
+      }
+    }
+    return best;
+  }
+
+  private static double value(Item[] cart) {
+    double total = 0.0;
+    for (Item item : cart) {
+      total += item.getPrice();
+    }
+    return total;
+  }
+
+  private static double paid(Item[] cart, List<Coupon> coupons) {
+    Coupon coupon = CouponService.bestCouponFor(cart, coupons);
+    return value(cart) - (coupon == null ? 0.0 : coupon.calculateDiscount(cart));
+  }
+}
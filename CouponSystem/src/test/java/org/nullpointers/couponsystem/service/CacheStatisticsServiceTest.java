@@ -0,0 +1,107 @@
+package org.nullpointers.couponsystem.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.nullpointers.couponsystem.config.CacheConfig;
+import org.nullpointers.couponsystem.model.Item;
+import org.nullpointers.couponsystem.model.Store;
+import org.nullpointers.couponsystem.repository.ItemRepository;
+import org.nullpointers.couponsystem.repository.StoreRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Tests that repeated repository reads are served by the second-level and query caches.
+ * Not transactional, so every read runs in its own session like a real request.
+ * Reads go straight to the repositories because DataService serves them from the
+ * catalog replica.
+ */
+@SpringBootTest
+@ActiveProfiles("test1")
+public class CacheStatisticsServiceTest {
+  @Autowired
+  private DataService dataService;
+
+  @Autowired
+  private CacheStatisticsService cacheStatisticsService;
+
+  @Autowired
+  private StoreRepository storeRepository;
+
+  @Autowired
+  private ItemRepository itemRepository;
+
+  private Store store;
+  private Item item;
+
+  /**
+   * Adds a store with one item and resets the cache counts before each test.
+   */
+  @BeforeEach
+  public void setUp() {
+    store = dataService.addStore(new Store(0, "Cached Store"));
+    item = dataService.addItem(new Item(0, "Cached Item", 5.0, store.getId(), "misc"));
+    cacheStatisticsService.resetStatistics();
+  }
+
+  /**
+   * Removes the test data after each test.
+   */
+  @AfterEach
+  public void tearDown() {
+    dataService.deleteItem(item.getId());
+    dataService.deleteStore(store.getId());
+  }
+
+  @Test
+  public void repeatedStoreLookupsHitCacheTest() {
+    // The first lookup may load from the database; the rest must come from the cache
+    storeRepository.findById(store.getId());
+    storeRepository.findById(store.getId());
+    storeRepository.findById(store.getId());
+
+    CacheStatisticsService.RegionStatistics stats = region(CacheConfig.STORE_REGION);
+    assertTrue(stats.getHitCount() >= 2);
+    assertTrue(stats.getMissCount() <= 1);
+  }
+
+  @Test
+  public void repeatedStoreItemQueriesHitQueryCacheTest() {
+    itemRepository.findByStoreId(store.getId());
+    itemRepository.findByStoreId(store.getId());
+
+    CacheStatisticsService.RegionStatistics stats =
+        cacheStatisticsService.getReport().getQueryCache();
+    assertEquals(1, stats.getMissCount());
+    assertEquals(1, stats.getHitCount());
+  }
+
+  @Test
+  public void writeInvalidatesQueryCacheTest() {
+    itemRepository.findByStoreId(store.getId());
+    Item extra = dataService.addItem(new Item(0, "Extra", 1.0, store.getId(), "misc"));
+
+    assertEquals(2, itemRepository.findByStoreId(store.getId()).size());
+    dataService.deleteItem(extra.getId());
+  }
+
+  @Test
+  public void reportListsEntityRegionsTest() {
+    CacheStatisticsService.CacheReport report = cacheStatisticsService.getReport();
+
+    assertTrue(report.isStatisticsEnabled());
+    assertEquals(3, report.getEntityRegions().size());
+  }
+
+  private CacheStatisticsService.RegionStatistics region(String name) {
+    return cacheStatisticsService.getReport().getEntityRegions().stream()
+        .filter(stats -> stats.getRegion().equals(name))
+        .findFirst()
+        .orElseThrow();
+  }
+}
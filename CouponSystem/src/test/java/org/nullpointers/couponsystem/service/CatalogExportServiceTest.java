@@ -0,0 +1,130 @@
+package org.nullpointers.couponsystem.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.nullpointers.couponsystem.model.Coupon;
+import org.nullpointers.couponsystem.model.Item;
+import org.nullpointers.couponsystem.model.ItemCoupon;
+import org.nullpointers.couponsystem.model.Store;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Tests that catalog exports write every row as one line of JSON, in ID order.
+ */
+@SpringBootTest
+@ActiveProfiles("test1")
+public class CatalogExportServiceTest {
+  @Autowired
+  private CatalogExportService catalogExportService;
+
+  @Autowired
+  private DataService dataService;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  private Store store;
+  private List<Item> items;
+  private Coupon coupon;
+
+  /**
+   * Adds a store with three items and a coupon before each test.
+   */
+  @BeforeEach
+  public void setUp() {
+    store = dataService.addStore(new Store(0, "Export Store"));
+    items = dataService.addItems(List.of(
+        new Item(0, "Export A", 1.0, store.getId(), "misc"),
+        new Item(0, "Export B", 2.0, store.getId(), null),
+        new Item(0, "Export C", 3.0, store.getId(), "misc")));
+    coupon = dataService.addCoupon(
+        new ItemCoupon(0, store.getId(), 10.0, true, items.get(0).getId()));
+  }
+
+  /**
+   * Removes the test data after each test.
+   */
+  @AfterEach
+  public void tearDown() {
+    dataService.deleteCoupon(coupon.getId());
+    items.forEach(item -> dataService.deleteItem(item.getId()));
+    dataService.deleteStore(store.getId());
+  }
+
+  @Test
+  public void exportItemsTest() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    long count = catalogExportService.exportItems(out);
+
+    List<JsonNode> lines = parse(out);
+    assertEquals(count, lines.size());
+    List<JsonNode> ours = ofStore(lines);
+    assertEquals(3, ours.size());
+    assertEquals("Export A", ours.get(0).get("name").asText());
+    assertEquals(items.get(2).getId(), ours.get(2).get("id").asInt());
+    assertTrue(ours.get(1).get("category").isNull());
+    for (int i = 1; i < lines.size(); i++) {
+      assertTrue(lines.get(i - 1).get("id").asInt() < lines.get(i).get("id").asInt());
+    }
+  }
+
+  @Test
+  public void exportCouponsIncludesSubtypeFieldsTest() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    catalogExportService.exportCoupons(out);
+
+    List<JsonNode> ours = ofStore(parse(out));
+    assertEquals(1, ours.size());
+    assertEquals(items.get(0).getId(), ours.get(0).get("targetItemId").asInt());
+  }
+
+  @Test
+  public void exportStoresTest() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    long count = catalogExportService.exportStores(out);
+
+    List<JsonNode> lines = parse(out);
+    assertEquals(count, lines.size());
+    assertTrue(lines.stream().anyMatch(line -> line.get("id").asInt() == store.getId()
+        && line.get("name").asText().equals("Export Store")));
+  }
+
+  @Test
+  public void exportLeavesStreamOpenTest() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    catalogExportService.exportItems(out);
+    out.write('x');
+
+    String text = out.toString(StandardCharsets.UTF_8);
+    assertTrue(text.endsWith("}\nx"));
+  }
+
+  private List<JsonNode> parse(ByteArrayOutputStream out) throws IOException {
+    List<JsonNode> lines = new ArrayList<>();
+    for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+      lines.add(objectMapper.readTree(line));
+    }
+    return lines;
+  }
+
+  private List<JsonNode> ofStore(List<JsonNode> lines) {
+    return lines.stream().filter(line -> line.get("storeId").asInt() == store.getId()).toList();
+  }
+}
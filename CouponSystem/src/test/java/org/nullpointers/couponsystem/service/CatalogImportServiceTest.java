@@ -0,0 +1,198 @@
+package org.nullpointers.couponsystem.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.nullpointers.couponsystem.model.Item;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Unit tests for the CatalogImportService class using mocking.
+ */
+@SpringBootTest
+@ActiveProfiles("test1")
+public class CatalogImportServiceTest {
+  private DataService mockDataService;
+  private CatalogImportService importService;
+
+  /**
+   * Sets up the service with a batch size of 2 before each test.
+   */
+  @BeforeEach
+  public void setUp() {
+    mockDataService = mock(DataService.class);
+    when(mockDataService.addItems(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+    importService = new CatalogImportService(mockDataService, new ObjectMapper(), 2);
+  }
+
+  @Test
+  public void importNdjsonInBatchesTest() throws IOException {
+    String body = "{\"name\":\"Rose\",\"price\":3.5,\"category\":\"flowers\"}\n"
+        + "{\"name\":\"Tulip\",\"price\":2}\n"
+        + "\n"
+        + "{\"name\":\"Lily\",\"price\":4.25,\"category\":\"flowers\"}\n";
+
+    CatalogImportService.ImportReport report =
+        importService.importItems(7, stream(body), CatalogImportService.Format.NDJSON);
+
+    assertEquals(3, report.getRowsRead());
+    assertEquals(3, report.getRowsImported());
+    assertEquals(0, report.getRowsRejected());
+    assertEquals(2, report.getBatches());
+    List<Item> imported = capturedItems(2);
+    assertEquals("Rose", imported.get(0).getName());
+    assertEquals(7, imported.get(0).getStoreId());
+    assertNull(imported.get(1).getCategory());
+    assertEquals(4.25, imported.get(2).getPrice());
+  }
+
+  @Test
+  public void importNdjsonRejectsInvalidRowsTest() throws IOException {
+    String body = "{\"name\":\"Rose\",\"price\":3.5}\n"
+        + "not json\n"
+        + "{\"name\":\"\",\"price\":1}\n"
+        + "{\"name\":\"Free\",\"price\":-1}\n"
+        + "{\"name\":\"NoPrice\"}\n"
+        + "[1,2]\n";
+
+    CatalogImportService.ImportReport report =
+        importService.importItems(1, stream(body), CatalogImportService.Format.NDJSON);
+
+    assertEquals(6, report.getRowsRead());
+    assertEquals(1, report.getRowsImported());
+    assertEquals(5, report.getRowsRejected());
+    assertEquals(2, report.getRejectedRows().get(0).getLine());
+    assertEquals("Malformed JSON.", report.getRejectedRows().get(0).getReason());
+    assertEquals("Item name cannot be empty.", report.getRejectedRows().get(1).getReason());
+    assertEquals("Item price cannot be negative.", report.getRejectedRows().get(2).getReason());
+    assertEquals("Item price is missing or not a number.",
+        report.getRejectedRows().get(3).getReason());
+    assertEquals("Expected a JSON object.", report.getRejectedRows().get(4).getReason());
+    assertFalse(report.isRejectedRowsTruncated());
+  }
+
+  @Test
+  public void importCsvTest() throws IOException {
+    String body = "category,name,price\r\n"
+        + "flowers,\"Roses, red\",29.99\r\n"
+        + "plants,\"Say \"\"Cactus\"\"\",5\r\n"
+        + "plants,Fern\r\n"
+        + "plants,Moss,cheap\r\n";
+
+    CatalogImportService.ImportReport report =
+        importService.importItems(1, stream(body), CatalogImportService.Format.CSV);
+
+    assertEquals(4, report.getRowsRead());
+    assertEquals(2, report.getRowsImported());
+    assertEquals("Expected 3 columns but found 2.", report.getRejectedRows().get(0).getReason());
+    assertEquals(4, report.getRejectedRows().get(0).getLine());
+    List<Item> imported = capturedItems(1);
+    assertEquals("Roses, red", imported.get(0).getName());
+    assertEquals("Say \"Cactus\"", imported.get(1).getName());
+    assertEquals("plants", imported.get(1).getCategory());
+  }
+
+  @Test
+  public void importCsvMissingColumnTest() {
+    assertThrows(IllegalArgumentException.class, () -> importService.importItems(1,
+        stream("name,category\nRose,flowers\n"), CatalogImportService.Format.CSV));
+  }
+
+  @Test
+  public void importGzipTest() throws IOException {
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+      gzip.write("name,price\nRose,1\nLily,2\nFern,3\n".getBytes(StandardCharsets.UTF_8));
+    }
+
+    CatalogImportService.ImportReport report = importService.importItems(1,
+        new ByteArrayInputStream(compressed.toByteArray()), CatalogImportService.Format.CSV);
+
+    assertEquals(3, report.getRowsImported());
+    assertEquals(2, report.getBatches());
+  }
+
+  @Test
+  public void importRejectsOverlongLineTest() throws IOException {
+    String longName = "x".repeat(CatalogImportService.MAX_LINE_LENGTH);
+    String body = "{\"name\":\"" + longName + "\",\"price\":1}\n{\"name\":\"Ok\",\"price\":1}\n";
+
+    CatalogImportService.ImportReport report =
+        importService.importItems(1, stream(body), CatalogImportService.Format.NDJSON);
+
+    assertEquals(1, report.getRowsImported());
+    assertEquals(1, report.getRowsRejected());
+    assertTrue(report.getRejectedRows().get(0).getReason().startsWith("Line exceeds"));
+  }
+
+  @Test
+  public void importCapsRejectedDetailsTest() throws IOException {
+    String body = "bad\n".repeat(CatalogImportService.MAX_REJECTED_DETAILS + 5);
+
+    CatalogImportService.ImportReport report =
+        importService.importItems(1, stream(body), CatalogImportService.Format.NDJSON);
+
+    assertEquals(CatalogImportService.MAX_REJECTED_DETAILS + 5, report.getRowsRejected());
+    assertEquals(CatalogImportService.MAX_REJECTED_DETAILS, report.getRejectedRows().size());
+    assertTrue(report.isRejectedRowsTruncated());
+  }
+
+  @Test
+  public void importEmptyBodyTest() throws IOException {
+    CatalogImportService.ImportReport report = importService.importItems(1,
+        stream(""), CatalogImportService.Format.NDJSON);
+
+    assertEquals(0, report.getRowsRead());
+    assertEquals(0, report.getBatches());
+  }
+
+  @Test
+  public void fromContentTypeTest() {
+    assertEquals(CatalogImportService.Format.NDJSON,
+        CatalogImportService.Format.fromContentType("application/x-ndjson"));
+    assertEquals(CatalogImportService.Format.CSV,
+        CatalogImportService.Format.fromContentType("TEXT/CSV; charset=UTF-8"));
+    assertNull(CatalogImportService.Format.fromContentType("application/json"));
+    assertNull(CatalogImportService.Format.fromContentType(null));
+  }
+
+  @Test
+  public void splitCsvTest() {
+    assertEquals(List.of("a", "", "c,d"), CatalogImportService.splitCsv("a,,\"c,d\""));
+    assertNull(CatalogImportService.splitCsv("\"open"));
+  }
+
+  private static InputStream stream(String body) {
+    return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<Item> capturedItems(int batches) {
+    ArgumentCaptor<List<Item>> captor = ArgumentCaptor.forClass(List.class);
+    verify(mockDataService, times(batches)).addItems(captor.capture());
+    List<Item> all = new ArrayList<>();
+    captor.getAllValues().forEach(all::addAll);
+    return all;
+  }
+}
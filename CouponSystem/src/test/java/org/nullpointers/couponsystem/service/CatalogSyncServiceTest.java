@@ -0,0 +1,154 @@
+package org.nullpointers.couponsystem.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.nullpointers.couponsystem.model.Item;
+import org.nullpointers.couponsystem.model.Store;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Tests for the CatalogSyncService class against the database. Not transactional, since
+ * each upsert batch commits on its own.
+ */
+@SpringBootTest
+@ActiveProfiles("test1")
+public class CatalogSyncServiceTest {
+  @Autowired
+  private CatalogSyncService catalogSyncService;
+
+  @Autowired
+  private DataService dataService;
+
+  private Store store;
+
+  /**
+   * Adds a store before each test.
+   */
+  @BeforeEach
+  public void setUp() {
+    store = dataService.addStore(new Store(0, "Sync Store"));
+  }
+
+  /**
+   * Removes the test data after each test.
+   */
+  @AfterEach
+  public void tearDown() {
+    dataService.deleteStore(store.getId());
+  }
+
+  @Test
+  public void diffUpsertDiffTest() {
+    List<Map<String, Object>> pairs = List.of(pair("A", "h1"), pair("B", "h1"));
+    assertEquals(List.of("A", "B"), catalogSyncService.diff(store.getId(), pairs)
+        .getChangedKeys());
+
+    CatalogSyncService.SyncReport report = catalogSyncService.upsert(store.getId(), List.of(
+        record("A", "h1", "Fern", 4.0), record("B", "h1", "Palm", 9.0)));
+
+    assertEquals(2, report.getRowsInserted());
+    assertEquals(0, report.getRowsUpdated());
+    CatalogSyncService.SyncDiff diff = catalogSyncService.diff(store.getId(), List.of(
+        pair("A", "h1"), pair("B", "h2"), pair("C", "h1")));
+    assertEquals(List.of("B", "C"), diff.getChangedKeys());
+    assertEquals(1, diff.getUnchangedCount());
+    assertEquals(2, diff.getKeysIndexed());
+  }
+
+  @Test
+  public void upsertUpdatesMatchedItemsTest() {
+    catalogSyncService.upsert(store.getId(), List.of(record("A", "h1", "Fern", 4.0)));
+    final int itemId = dataService.getItemsByStore(store.getId()).get(0).getId();
+
+    CatalogSyncService.SyncReport report = catalogSyncService.upsert(store.getId(),
+        List.of(record("A", "h2", "Fern", 3.5)));
+
+    assertEquals(1, report.getRowsUpdated());
+    List<Item> items = dataService.getItemsByStore(store.getId());
+    assertEquals(1, items.size());
+    assertEquals(itemId, items.get(0).getId());
+    assertEquals(3.5, dataService.getItem(itemId).getPrice());
+    assertTrue(catalogSyncService.diff(store.getId(), List.of(pair("A", "h2")))
+        .getChangedKeys().isEmpty());
+  }
+
+  @Test
+  public void upsertReportsRejectedRecordsTest() {
+    List<Object> records = new ArrayList<>();
+    records.add(record("A", "h1", "Fern", 4.0));
+    records.add(record("B", "h1", "Palm", -1.0));
+    records.add(Map.of("contentHash", "h1", "name", "Moss", "price", 1.0));
+    records.add("not an object");
+
+    CatalogSyncService.SyncReport report = catalogSyncService.upsert(store.getId(), records);
+
+    assertEquals(4, report.getRowsReceived());
+    assertEquals(1, report.getRowsInserted());
+    assertEquals(3, report.getRowsRejected());
+    assertEquals(1, report.getRejectedRecords().get(0).getIndex());
+    assertEquals("Item price cannot be negative.",
+        report.getRejectedRecords().get(0).getReason());
+  }
+
+  @Test
+  public void deletedItemsAreChangedAgainTest() {
+    catalogSyncService.upsert(store.getId(), List.of(record("A", "h1", "Fern", 4.0)));
+    assertTrue(catalogSyncService.diff(store.getId(), List.of(pair("A", "h1")))
+        .getChangedKeys().isEmpty());
+
+    dataService.deleteItemsByStore(store.getId());
+
+    assertEquals(List.of("A"), catalogSyncService.diff(store.getId(),
+        List.of(pair("A", "h1"))).getChangedKeys());
+  }
+
+  @Test
+  public void itemDeletesKeepOtherStoresIndexesTest() {
+    Store other = dataService.addStore(new Store(0, "Other Sync Store"));
+    try {
+      catalogSyncService.upsert(store.getId(), List.of(record("A", "h1", "Fern", 4.0)));
+      catalogSyncService.upsert(other.getId(), List.of(record("A", "h1", "Moss", 2.0)));
+      final Item unsynced = dataService.addItem(new Item(0, "Rock", 1.0, other.getId(), "misc"));
+      catalogSyncService.diff(store.getId(), List.of(pair("A", "h1")));
+      catalogSyncService.diff(other.getId(), List.of(pair("A", "h1")));
+
+      dataService.deleteItem(unsynced.getId());
+      assertTrue(catalogSyncService.isIndexLoaded(other.getId()));
+      dataService.deleteItemsByStore(store.getId());
+
+      assertFalse(catalogSyncService.isIndexLoaded(store.getId()));
+      assertTrue(catalogSyncService.isIndexLoaded(other.getId()));
+      assertTrue(catalogSyncService.diff(other.getId(), List.of(pair("A", "h1")))
+          .getChangedKeys().isEmpty());
+    } finally {
+      dataService.deleteStore(other.getId());
+    }
+  }
+
+  @Test
+  public void malformedPairTest() {
+    assertThrows(IllegalArgumentException.class, () ->
+        catalogSyncService.diff(store.getId(), List.of(Map.of("externalKey", "A"))));
+  }
+
+  private static Map<String, Object> pair(String key, String hash) {
+    return Map.of("externalKey", key, "contentHash", hash);
+  }
+
+  private static Map<String, Object> record(String key, String hash, String name,
+                                            double price) {
+    return Map.of("externalKey", key, "contentHash", hash, "name", name, "price", price,
+        "category", "plants");
+  }
+}
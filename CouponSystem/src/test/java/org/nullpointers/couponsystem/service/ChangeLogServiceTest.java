@@ -0,0 +1,198 @@
+package org.nullpointers.couponsystem.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.nullpointers.couponsystem.model.CatalogChange;
+import org.nullpointers.couponsystem.model.Item;
+import org.nullpointers.couponsystem.model.Store;
+import org.nullpointers.couponsystem.repository.CatalogChangeRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Tests for the ChangeLogService class against the database. Not transactional, since
+ * entries are written by the transactions of the changes they record. Uses its own
+ * in-memory database: other test contexts writing to a shared one would act as further
+ * application instances, which the change log does not support.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:change-log;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"})
+@ActiveProfiles("test1")
+public class ChangeLogServiceTest {
+  @Autowired
+  private ChangeLogService changeLogService;
+
+  @Autowired
+  private CatalogChangeRepository changeRepository;
+
+  @Autowired
+  private DataService dataService;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  private long head;
+
+  /**
+   * Notes where the log ends before each test.
+   */
+  @BeforeEach
+  public void setUp() {
+    Long highest = changeRepository.findMaxSeq();
+    head = highest == null ? 0 : highest;
+  }
+
+  @Test
+  public void recordsEveryKindOfChangeInOrderTest() {
+    Store store = dataService.addStore(new Store(0, "Log Store"));
+    Item item = dataService.addItem(new Item(0, "Rose", 3.0, store.getId(), "flowers"));
+    dataService.updatePrices(Map.of(item.getId(), 4.5));
+    dataService.deleteStoreWithContents(store.getId());
+
+    List<CatalogChange> changes = changeLogService.getChanges(head, null).getChanges();
+
+    assertEquals(List.of("STORE CREATE", "ITEM CREATE", "ITEM UPDATE", "ITEM DELETE",
+        "STORE DELETE"), changes.stream()
+        .map(change -> change.getEntityType() + " " + change.getOperation()).toList());
+    assertTrue(changes.get(2).getEntity().contains("4.5"));
+    assertEquals(item.getId(), changes.get(3).getEntityId());
+    assertNull(changes.get(3).getEntity());
+    for (int i = 1; i < changes.size(); i++) {
+      assertTrue(changes.get(i - 1).getSeq() < changes.get(i).getSeq());
+    }
+  }
+
+  @Test
+  public void deletesRecordOnlyRowsThatExistedTest() {
+    Store store = dataService.addStore(new Store(0, "Delete Log"));
+    Item item = dataService.addItem(new Item(0, "Rose", 3.0, store.getId(), "flowers"));
+    final long before = changeRepository.findMaxSeq();
+
+    assertEquals(1, dataService.deleteItems(List.of(item.getId(), -1, 999_999))
+        .getItemsDeleted());
+    assertEquals(0, dataService.deleteCoupons(List.of(-1, 999_999)).getCouponsDeleted());
+    dataService.deleteItems(List.of(item.getId()));
+
+    List<CatalogChange> changes = changeLogService.getChanges(before, null).getChanges();
+    assertEquals(List.of(item.getId()),
+        changes.stream().map(CatalogChange::getEntityId).toList());
+    dataService.deleteStoreWithContents(store.getId());
+  }
+
+  @Test
+  public void rolledBackChangesAreNotRecordedTest() {
+    transactionTemplate.executeWithoutResult(status -> {
+      dataService.addStore(new Store(0, "Rolled Back"));
+      status.setRollbackOnly();
+    });
+
+    ChangePage page = changeLogService.getChanges(head, null);
+    assertTrue(page.getChanges().isEmpty());
+    assertFalse(page.isMore());
+  }
+
+  @Test
+  public void pagesFollowSequenceNumbersTest() {
+    Store store = dataService.addStore(new Store(0, "Paged Log"));
+    List<Item> items = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      items.add(new Item(0, "Item" + i, 1.0 + i, store.getId(), "misc"));
+    }
+    dataService.addItems(items);
+
+    List<CatalogChange> read = new ArrayList<>();
+    ChangePage page;
+    long since = head;
+    do {
+      page = changeLogService.getChanges(since, 2);
+      assertTrue(page.getChanges().size() <= 2);
+      read.addAll(page.getChanges());
+      since = page.getNext();
+    } while (page.isMore());
+
+    final long last = since;
+    assertEquals(6, read.size());
+    assertEquals(read.get(5).getSeq(), last);
+    assertTrue(changeLogService.getChanges(last, 2).getChanges().isEmpty());
+    assertThrows(IllegalArgumentException.class, () -> changeLogService.getChanges(last, 0));
+    dataService.deleteStoreWithContents(store.getId());
+  }
+
+  @Test
+  public void openTransactionHoldsBackLaterChangesTest() throws Exception {
+    CountDownLatch saved = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    List<Store> slow = new ArrayList<>();
+    Thread writer = new Thread(() -> transactionTemplate.executeWithoutResult(status -> {
+      slow.add(dataService.addStore(new Store(0, "Slow Writer")));
+      saved.countDown();
+      try {
+        release.await(10, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }));
+    writer.start();
+    assertTrue(saved.await(10, TimeUnit.SECONDS));
+    final Store fast = dataService.addStore(new Store(0, "Fast Writer"));
+
+    // The later, committed change waits for the earlier, open one
+    ChangePage blocked = changeLogService.getChanges(head, null);
+    assertTrue(blocked.getChanges().isEmpty());
+    assertEquals(head, blocked.getNext());
+
+    release.countDown();
+    writer.join();
+    List<CatalogChange> changes = changeLogService.getChanges(head, null).getChanges();
+    assertEquals(List.of(slow.get(0).getId(), fast.getId()),
+        changes.stream().map(CatalogChange::getEntityId).toList());
+    dataService.deleteStore(slow.get(0).getId());
+    dataService.deleteStore(fast.getId());
+  }
+
+  @Test
+  public void compactionKeepsLatestChangesAndRaisesFloorTest() {
+    Store store = dataService.addStore(new Store(0, "Compacted Log"));
+    Item kept = dataService.addItem(new Item(0, "Fern", 2.0, store.getId(), "plants"));
+    Item gone = dataService.addItem(new Item(0, "Palm", 9.0, store.getId(), "plants"));
+    dataService.updatePrices(Map.of(kept.getId(), 2.5));
+    dataService.updatePrices(Map.of(kept.getId(), 3.0));
+    dataService.deleteItem(gone.getId());
+
+    assertTrue(changeLogService.compact(Instant.now()) >= 3);
+    List<CatalogChange> compacted = changeLogService.getChanges(head, null).getChanges();
+    assertEquals(List.of("STORE CREATE", "ITEM UPDATE", "ITEM DELETE"), compacted.stream()
+        .map(change -> change.getEntityType() + " " + change.getOperation()).toList());
+    assertTrue(compacted.get(1).getEntity().contains("3.0"));
+
+    // Once deletes age out, readers from before them must reload
+    changeLogService.compact(Instant.now().plus(Duration.ofDays(30)));
+    assertTrue(changeLogService.getFloor() >= compacted.get(2).getSeq());
+    assertNull(changeLogService.getChanges(head, null));
+    ChangePage fromFloor = changeLogService.getChanges(changeLogService.getFloor(), null);
+    assertNotNull(fromFloor);
+    assertTrue(fromFloor.getChanges().stream()
+        .noneMatch(change -> change.getOperation() == CatalogChange.Operation.DELETE));
+    dataService.deleteStoreWithContents(store.getId());
+  }
+}
@@ -0,0 +1,115 @@
+package org.nullpointers.couponsystem.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.nullpointers.couponsystem.dto.CouponRequest;
+import org.nullpointers.couponsystem.model.Coupon;
+import org.nullpointers.couponsystem.model.Item;
+import org.nullpointers.couponsystem.model.ItemCoupon;
+import org.nullpointers.couponsystem.model.Store;
+import org.nullpointers.couponsystem.service.CouponBulkService.BulkCouponReport;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Tests for the CouponBulkService class against the database. Not transactional, since
+ * each insert batch commits on its own.
+ */
+@SpringBootTest
+@ActiveProfiles("test1")
+public class CouponBulkServiceTest {
+  @Autowired
+  private CouponBulkService couponBulkService;
+
+  @Autowired
+  private DataService dataService;
+
+  private Store store;
+  private Item item;
+
+  /**
+   * Adds a store with one item before each test.
+   */
+  @BeforeEach
+  public void setUp() {
+    store = dataService.addStore(new Store(0, "Bulk Coupon Store"));
+    item = dataService.addItem(new Item(0, "Lamp", 20.0, store.getId(), "home"));
+  }
+
+  /**
+   * Removes the test data after each test.
+   */
+  @AfterEach
+  public void tearDown() {
+    dataService.deleteStoreWithContents(store.getId());
+  }
+
+  @Test
+  public void createCouponsTest() {
+    BulkCouponReport report = couponBulkService.createCoupons(List.of(
+        totalPrice(store.getId(), 50.0),
+        category(store.getId(), "home", 10.0),
+        new CouponRequest("item", store.getId(), 10.0, true, null, null, item.getId())));
+
+    assertEquals(3, report.getRowsReceived());
+    assertEquals(3, report.getRowsCreated());
+    assertEquals(0, report.getRowsRejected());
+    assertEquals(1, report.getBatches());
+    List<Coupon> coupons = dataService.getCouponsByStore(store.getId());
+    assertEquals(report.getCreatedIds(), coupons.stream().map(Coupon::getId).toList());
+    assertEquals(item.getId(), ((ItemCoupon) coupons.get(2)).getTargetItemId());
+  }
+
+  @Test
+  public void createCouponsReportsRejectedRowsTest() {
+    BulkCouponReport report = couponBulkService.createCoupons(Arrays.asList(
+        totalPrice(store.getId(), 50.0),
+        totalPrice(store.getId() + 1000, 50.0),
+        new CouponRequest("item", store.getId(), 10.0, true, null, null, item.getId() + 1000),
+        new CouponRequest("bogus", store.getId(), 10.0, true, null, "home", null),
+        category(store.getId(), "home", 150.0),
+        null,
+        category(store.getId(), " ", 10.0)));
+
+    assertEquals(7, report.getRowsReceived());
+    assertEquals(1, report.getRowsCreated());
+    assertEquals(6, report.getRowsRejected());
+    assertEquals(List.of(1, 2, 3, 4, 5, 6), report.getRejectedCoupons().stream()
+        .map(CouponBulkService.RejectedCoupon::getIndex).sorted().toList());
+    List<String> reasons = report.getRejectedCoupons().stream()
+        .map(CouponBulkService.RejectedCoupon::getReason).toList();
+    assertTrue(reasons.contains("Store does not exist."));
+    assertTrue(reasons.contains("Target item does not exist."));
+    assertTrue(reasons.contains("Invalid coupon type."));
+    assertTrue(reasons.contains("Percentage discount cannot exceed 100%."));
+    assertTrue(reasons.contains("Expected a JSON object."));
+    assertTrue(reasons.contains("Category cannot be empty."));
+    assertEquals(1, dataService.getCouponsByStore(store.getId()).size());
+  }
+
+  @Test
+  public void createCouponsWithNothingValidTest() {
+    BulkCouponReport report = couponBulkService.createCoupons(List.of(
+        totalPrice(store.getId(), -1.0)));
+
+    assertEquals(0, report.getRowsCreated());
+    assertEquals(0, report.getBatches());
+    assertEquals("Minimum purchase cannot be negative.",
+        report.getRejectedCoupons().get(0).getReason());
+  }
+
+  private static CouponRequest totalPrice(int storeId, double minimumPurchase) {
+    return new CouponRequest("totalprice", storeId, 10.0, true, minimumPurchase, null, null);
+  }
+
+  private static CouponRequest category(int storeId, String category, double discount) {
+    return new CouponRequest("category", storeId, discount, true, null, category, null);
+  }
+}
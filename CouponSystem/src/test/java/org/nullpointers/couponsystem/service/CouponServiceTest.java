@@ -4,10 +4,12 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
+import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.nullpointers.couponsystem.model.CategoryCoupon;
@@ -71,6 +73,22 @@ public class CouponServiceTest {
     assertEquals(1, optimal.getId());  // TotalPriceCoupon gives most discount
   }
 
+  @Test
+  public void evaluateCartTest() {
+    when(mockDataService.getItem(1)).thenReturn(testItems.get(0));
+    when(mockDataService.getItem(2)).thenReturn(testItems.get(1));
+    when(mockDataService.getCouponsByStore(1)).thenReturn(testCoupons);
+
+    CouponService.CartEvaluation evaluation = couponService.evaluateCart(new int[]{1, 2}, 1);
+    assertEquals(1, evaluation.getCoupon().getId());
+    assertEquals(7.0, evaluation.getDiscount(), 1e-9);
+    assertNull(evaluation.getMissingItemId());
+
+    CouponService.CartEvaluation missing = couponService.evaluateCart(new int[]{1, 99}, 1);
+    assertNull(missing.getCoupon());
+    assertEquals(99, missing.getMissingItemId());
+  }
+
   @Test
   public void findOptimalCouponWithSingleItemCartTest() {
     // Partition: itemIds array size=1 (AT lower valid boundary)
@@ -305,6 +323,127 @@ public class CouponServiceTest {
     assertTrue(suggestions.size() > 0);
   }
 
+  @Test
+  public void findCheapestStoreForListTest() {
+    // Store 1 carries books and toys; store 2 only books
+    when(mockDataService.getItemsByCategory("books")).thenReturn(
+        new ArrayList<>(List.of(testItems.get(0), testItems.get(1), testItems.get(3))));
+    when(mockDataService.getItemsByCategory("toys")).thenReturn(
+        new ArrayList<>(List.of(testItems.get(2))));
+    when(mockDataService.getCouponsByStores(any())).thenReturn(testCoupons);
+    when(mockDataService.getStore(1)).thenReturn(testStores.get(0));
+
+    CouponService.ShoppingListRecommendation recommendation =
+        couponService.findCheapestStoreForList(null, List.of("books", "toys"));
+
+    assertNotNull(recommendation);
+    assertEquals(1, recommendation.getStore().getId());
+    assertEquals(2, recommendation.getItems().size());
+    assertEquals(50.0, recommendation.getSubtotal(), 0.001);
+    // TotalPriceCoupon (10% over $50) beats the $5 books coupon
+    assertEquals(1, recommendation.getCoupon().getId());
+    assertEquals(45.0, recommendation.getFinalPrice(), 0.001);
+  }
+
+  @Test
+  public void findCheapestStoreForListPicksLowestTotalAfterCouponTest() {
+    // Store 1 is cheaper before coupons, store 2 wins after its 50% coupon
+    ArrayList<Item> books = new ArrayList<>();
+    books.add(new Item(10, "Novel", 30.0, 1, "books"));
+    books.add(new Item(11, "Novel", 40.0, 2, "books"));
+    ArrayList<Coupon> coupons = new ArrayList<>();
+    coupons.add(new CategoryCoupon(20, 1, 5.0, false, "books"));
+    coupons.add(new TotalPriceCoupon(21, 2, 50.0, true, 10.0));
+    when(mockDataService.searchItemsByKeyword("Novel")).thenReturn(books);
+    when(mockDataService.getCouponsByStores(any())).thenReturn(coupons);
+    when(mockDataService.getStore(2)).thenReturn(testStores.get(1));
+
+    CouponService.ShoppingListRecommendation recommendation =
+        couponService.findCheapestStoreForList(List.of("Novel"), null);
+
+    assertEquals(2, recommendation.getStore().getId());
+    assertEquals(20.0, recommendation.getFinalPrice(), 0.001);
+    assertEquals(20.0, recommendation.getDiscount(), 0.001);
+  }
+
+  @Test
+  public void findCheapestStoreForListWithNoCompleteStoreTest() {
+    when(mockDataService.searchItemsByKeyword("Book")).thenReturn(
+        new ArrayList<>(List.of(testItems.get(3))));
+    when(mockDataService.searchItemsByKeyword("Toy")).thenReturn(
+        new ArrayList<>(List.of(testItems.get(2))));
+
+    CouponService.ShoppingListRecommendation recommendation =
+        couponService.findCheapestStoreForList(List.of("Book", "Toy"), null);
+
+    assertNull(recommendation);
+  }
+
+  @Test
+  public void findCheapestStoreForListWithEmptyListTest() {
+    assertNull(couponService.findCheapestStoreForList(null, null));
+  }
+
+  @Test
+  public void planSplitBasketTest() {
+    // Books are cheapest at store 2, toys only exist at store 1
+    when(mockDataService.searchItemsByKeyword("Book3")).thenReturn(
+        new ArrayList<>(List.of(testItems.get(3))));
+    when(mockDataService.searchItemsByKeyword("Toy")).thenReturn(
+        new ArrayList<>(List.of(testItems.get(2))));
+    when(mockDataService.getCouponsByStores(any())).thenReturn(new ArrayList<>());
+    when(mockDataService.getStore(1)).thenReturn(testStores.get(0));
+    when(mockDataService.getStore(2)).thenReturn(testStores.get(1));
+
+    CouponService.SplitBasketPlan plan =
+        couponService.planSplitBasket(List.of("Book3", "Toy"), null, 2, 20);
+
+    assertNotNull(plan);
+    assertEquals(2, plan.getStores().size());
+    assertEquals(45.0, plan.getTotalPrice(), 0.001);
+    assertTrue(plan.getImprovements().size() >= 1);
+  }
+
+  @Test
+  public void planSplitBasketWithTooFewStoresTest() {
+    when(mockDataService.searchItemsByKeyword("Book3")).thenReturn(
+        new ArrayList<>(List.of(testItems.get(3))));
+    when(mockDataService.searchItemsByKeyword("Toy")).thenReturn(
+        new ArrayList<>(List.of(testItems.get(2))));
+    when(mockDataService.getCouponsByStores(any())).thenReturn(new ArrayList<>());
+
+    assertNull(couponService.planSplitBasket(List.of("Book3", "Toy"), null, 1, 20));
+  }
+
+  @Test
+  public void findBudgetBasketTest() {
+    // Items 2 and 3 total $60, and the 10% over $50 coupon brings them to $54
+    when(mockDataService.getItemsByStore(1)).thenReturn(
+        new ArrayList<>(testItems.subList(0, 3)));
+    when(mockDataService.getCouponsByStore(1)).thenReturn(testCoupons);
+    when(mockDataService.getStore(1)).thenReturn(testStores.get(0));
+
+    CouponService.BudgetBasket basket = couponService.findBudgetBasket(1, 60.0, 100);
+
+    assertNotNull(basket);
+    assertEquals(60.0, basket.getBasket().getSubtotal(), 0.001);
+    assertEquals(54.0, basket.getBasket().getFinalPrice(), 0.001);
+    assertEquals(1, basket.getBasket().getCoupon().getId());
+    assertTrue(basket.isOptimal());
+  }
+
+  @Test
+  public void findBudgetBasketWithEmptyStoreTest() {
+    when(mockDataService.getItemsByStore(2)).thenReturn(new ArrayList<>());
+    when(mockDataService.getCouponsByStore(2)).thenReturn(new ArrayList<>());
+    when(mockDataService.getStore(2)).thenReturn(testStores.get(1));
+
+    CouponService.BudgetBasket basket = couponService.findBudgetBasket(2, 60.0, 100);
+
+    assertTrue(basket.getBasket().getItems().isEmpty());
+    assertEquals(0.0, basket.getBasket().getFinalPrice(), 0.001);
+  }
+
   @Test
   public void storeRecommendationTest() {
     Store store = new Store(1, "Store 1");
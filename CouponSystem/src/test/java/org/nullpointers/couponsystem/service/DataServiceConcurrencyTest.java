@@ -0,0 +1,96 @@
+package org.nullpointers.couponsystem.service;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+import org.nullpointers.couponsystem.model.Item;
+import org.nullpointers.couponsystem.model.Store;
+import org.nullpointers.couponsystem.model.TotalPriceCoupon;
+import org.nullpointers.couponsystem.repository.CouponRepository;
+import org.nullpointers.couponsystem.repository.ItemRepository;
+import org.nullpointers.couponsystem.repository.StoreRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Tests that writes racing a store delete through DataService leave nothing behind, with
+ * every call in its own committed transaction.
+ */
+@SpringBootTest
+@ActiveProfiles("test1")
+public class DataServiceConcurrencyTest {
+  @Autowired
+  private DataService dataService;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  @Autowired
+  private StoreRepository storeRepository;
+
+  @Autowired
+  private ItemRepository itemRepository;
+
+  @Autowired
+  private CouponRepository couponRepository;
+
+  @Test
+  public void storeDeleteRemovesContentsAddedDuringTheDeleteTest() throws Exception {
+    Store store = dataService.addStore(new Store(0, "Doomed Store"));
+    CountDownLatch added = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    final CompletableFuture<Void> writer = CompletableFuture.runAsync(() ->
+        transactionTemplate.executeWithoutResult(status -> {
+          dataService.addItem(new Item(0, "Late Item", 1.0, store.getId(), "misc"));
+          dataService.addCoupon(new TotalPriceCoupon(0, store.getId(), 5.0, true, 10.0));
+          added.countDown();
+          await(release);
+        }));
+    assertTrue(added.await(10, TimeUnit.SECONDS));
+
+    // The delete's batches cannot see the uncommitted rows, so its last transaction waits
+    // for the writer and then removes them
+    AtomicReference<Thread> deleting = new AtomicReference<>();
+    final CompletableFuture<Void> deleter = CompletableFuture.runAsync(() -> {
+      deleting.set(Thread.currentThread());
+      dataService.deleteStoreWithContents(store.getId());
+    });
+    awaitBlocked(deleting);
+    release.countDown();
+    writer.get(10, TimeUnit.SECONDS);
+    deleter.get(10, TimeUnit.SECONDS);
+
+    assertFalse(storeRepository.existsById(store.getId()));
+    assertTrue(itemRepository.findByStoreId(store.getId()).isEmpty());
+    assertTrue(couponRepository.findByStoreId(store.getId()).isEmpty());
+    assertThrows(IllegalArgumentException.class, () ->
+        dataService.addItem(new Item(0, "Too Late", 1.0, store.getId(), "misc")));
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void awaitBlocked(AtomicReference<Thread> thread) throws InterruptedException {
+    final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (System.nanoTime() < deadline) {
+      Thread current = thread.get();
+      if (current != null && current.getState() != Thread.State.RUNNABLE) {
+        return;
+      }
+      Thread.sleep(10);
+    }
+  }
+}
@@ -4,15 +4,25 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import jakarta.persistence.EntityManager;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.hibernate.Session;
 import org.junit.jupiter.api.Test;
 import org.nullpointers.couponsystem.model.CategoryCoupon;
 import org.nullpointers.couponsystem.model.Coupon;
 import org.nullpointers.couponsystem.model.Item;
+import org.nullpointers.couponsystem.model.ItemCoupon;
 import org.nullpointers.couponsystem.model.Store;
 import org.nullpointers.couponsystem.model.TotalPriceCoupon;
+import org.nullpointers.couponsystem.repository.ItemScope;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
@@ -28,6 +38,9 @@ public class DataServiceTest {
   @Autowired
   private DataService dataService;
 
+  @Autowired
+  private EntityManager entityManager;
+
   @Test
   public void addItemTest() {
     Store store = dataService.addStore(new Store(0, "Tech Store"));
@@ -48,6 +61,27 @@ public class DataServiceTest {
     assertTrue(added.getId() > 0);
   }
 
+  @Test
+  public void addItemsTest() {
+    Store store = dataService.addStore(new Store(0, "Bulk Store"));
+    List<Item> items = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      items.add(new Item(0, "Bulk" + i, 1.0 + i, store.getId(), "misc"));
+    }
+
+    List<Item> added = dataService.addItems(items);
+
+    assertEquals(5, added.size());
+    assertEquals("Bulk0", added.get(0).getName());
+    assertEquals(5, added.stream().mapToInt(Item::getId).filter(id -> id > 0).distinct().count());
+    assertEquals(5, dataService.getItemsByStore(store.getId()).size());
+  }
+
+  @Test
+  public void addItemsEmptyTest() {
+    assertTrue(dataService.addItems(new ArrayList<>()).isEmpty());
+  }
+
   @Test
   public void addStoreTest() {
     Store store = new Store(0, "Tech Store");
@@ -262,6 +296,162 @@ public class DataServiceTest {
     assertEquals(1, results.size());
   }
 
+  @Test
+  public void getItemsByStorePageTest() {
+    Store store = dataService.addStore(new Store(0, "Paged Store"));
+    List<Integer> expected = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      expected.add(dataService.addItem(new Item(0, "Paged" + i, 1.0, store.getId(), "misc"))
+          .getId());
+    }
+
+    List<Integer> seen = new ArrayList<>();
+    int pages = 0;
+    String cursor = null;
+    do {
+      KeysetPage<Item> page = dataService.getItemsByStorePage(store.getId(), cursor, 2);
+      page.getItems().forEach(item -> seen.add(item.getId()));
+      cursor = page.getNext();
+      pages++;
+    } while (cursor != null);
+
+    assertEquals(expected, seen);
+    assertEquals(3, pages);
+  }
+
+  @Test
+  public void getItemsByCategoryPageOrdersByPriceTest() {
+    Store store1 = dataService.addStore(new Store(0, "Store1"));
+    Store store2 = dataService.addStore(new Store(0, "Store2"));
+    Item pricey = dataService.addItem(new Item(0, "Pricey", 30.0, store1.getId(), "PageCat"));
+    Item cheap = dataService.addItem(new Item(0, "Cheap", 10.0, store2.getId(), "pagecat"));
+    Item tieA = dataService.addItem(new Item(0, "TieA", 20.0, store1.getId(), "pagecat"));
+    Item tieB = dataService.addItem(new Item(0, "TieB", 20.0, store2.getId(), "PAGECAT"));
+
+    KeysetPage<Item> first = dataService.getItemsByCategoryPage("pagecat", null, 3);
+    KeysetPage<Item> second =
+        dataService.getItemsByCategoryPage("pagecat", first.getNext(), 3);
+
+    assertEquals(List.of(cheap.getId(), tieA.getId(), tieB.getId()),
+        first.getItems().stream().map(Item::getId).toList());
+    assertEquals(List.of(pricey.getId()),
+        second.getItems().stream().map(Item::getId).toList());
+    assertFalse(second.hasNext());
+  }
+
+  @Test
+  public void searchItemsPageTest() {
+    Store store = dataService.addStore(new Store(0, "Store1"));
+    dataService.addItem(new Item(0, "Pageable Laptop", 999.0, store.getId(), "electronics"));
+    dataService.addItem(new Item(0, "Gaming Mouse", 49.0, store.getId(), "electronics"));
+    Item last = dataService.addItem(
+        new Item(0, "PAGEABLE Tablet", 499.0, store.getId(), "electronics"));
+
+    KeysetPage<Item> first = dataService.searchItemsPage("pageable", null, 1);
+    KeysetPage<Item> second = dataService.searchItemsPage("pageable", first.getNext(), 1);
+
+    assertTrue(first.hasNext());
+    assertEquals(last.getId(), second.getItems().get(0).getId());
+    assertFalse(second.hasNext());
+  }
+
+  @Test
+  public void getCouponsByStorePageTest() {
+    Store store = dataService.addStore(new Store(0, "Store1"));
+    dataService.addCoupon(new TotalPriceCoupon(0, store.getId(), 10.0, true, 50.0));
+    dataService.addCoupon(new TotalPriceCoupon(0, store.getId(), 5.0, false, 20.0));
+
+    KeysetPage<Coupon> page = dataService.getCouponsByStorePage(store.getId(), null, null);
+
+    assertEquals(2, page.getItems().size());
+    assertFalse(page.hasNext());
+  }
+
+  @Test
+  public void getItemFieldsPageTest() {
+    Store store = dataService.addStore(new Store(0, "Projected Store"));
+    List<Integer> expected = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      expected.add(dataService.addItem(new Item(0, "Row" + i, i, store.getId(), "misc"))
+          .getId());
+    }
+    entityManager.flush();
+    entityManager.clear();
+    ItemFields fields = ItemFields.parse("price,name");
+
+    List<Integer> pages = new ArrayList<>();
+    List<ItemRow> rows = new ArrayList<>();
+    String cursor = null;
+    do {
+      KeysetPage<ItemRow> page =
+          dataService.getItemFieldsPage(ItemScope.store(store.getId()), fields, cursor, 2);
+      rows.addAll(page.getItems());
+      pages.add(page.getItems().size());
+      cursor = page.getNext();
+    } while (cursor != null);
+
+    assertEquals(List.of(2, 2, 1), pages);
+    assertNull(rows.get(4).get("id"));
+    assertEquals("Row4", rows.get(4).get("name"));
+    assertEquals(4.0, rows.get(4).get("price"));
+    // Column queries never put Item entities in the persistence context
+    assertEquals(0, entityManager.unwrap(Session.class).getStatistics().getEntityCount());
+  }
+
+  @Test
+  public void getItemFieldsPageByCategoryTest() {
+    Store store = dataService.addStore(new Store(0, "Store1"));
+    Item pricey = dataService.addItem(new Item(0, "Pricey", 30.0, store.getId(), "FieldCat"));
+    Item cheap = dataService.addItem(new Item(0, "Cheap", 10.0, store.getId(), "fieldcat"));
+    Item tie = dataService.addItem(new Item(0, "Tie", 10.0, store.getId(), "FIELDCAT"));
+    ItemFields fields = ItemFields.parse("id");
+
+    KeysetPage<ItemRow> first =
+        dataService.getItemFieldsPage(ItemScope.category("fieldcat"), fields, null, 2);
+    KeysetPage<ItemRow> second = dataService.getItemFieldsPage(
+        ItemScope.category("fieldcat"), fields, first.getNext(), 2);
+
+    assertEquals(List.of(cheap.getId(), tie.getId()),
+        first.getItems().stream().map(row -> row.get("id")).toList());
+    assertNull(first.getItems().get(0).get("price"));
+    assertEquals(List.of(pricey.getId()),
+        second.getItems().stream().map(row -> row.get("id")).toList());
+    assertFalse(second.hasNext());
+  }
+
+  @Test
+  public void getItemFieldsPageKeywordIsLiteralTest() {
+    Store store = dataService.addStore(new Store(0, "Store1"));
+    Item match = dataService.addItem(new Item(0, "100% Cotton", 5.0, store.getId(), "cat"));
+    dataService.addItem(new Item(0, "1000 Cotton Buds", 5.0, store.getId(), "cat"));
+
+    KeysetPage<ItemRow> page = dataService.getItemFieldsPage(
+        ItemScope.keyword("0% c"), ItemFields.parse("id"), null, null);
+
+    assertEquals(List.of(match.getId()),
+        page.getItems().stream().map(row -> row.get("id")).toList());
+  }
+
+  @Test
+  public void getItemFieldsTest() {
+    Store store = dataService.addStore(new Store(0, "Store1"));
+    Item item = dataService.addItem(new Item(0, "Item1", 10.0, store.getId(), "cat1"));
+
+    ItemRow row = dataService.getItemFields(item.getId(), ItemFields.parse("storeId,id"));
+
+    assertEquals(item.getId(), row.get("id"));
+    assertEquals(store.getId(), row.get("storeId"));
+    assertNull(row.get("name"));
+    assertNull(dataService.getItemFields(-1, ItemFields.parse("id")));
+  }
+
+  @Test
+  public void getItemsPageInvalidArgumentsTest() {
+    assertThrows(IllegalArgumentException.class, () -> dataService.getItemsPage(null, 0));
+    assertThrows(IllegalArgumentException.class,
+        () -> dataService.getItemsPage("not a cursor", 10));
+  }
+
   @Test
   public void deleteItemTest() {
     Store store = dataService.addStore(new Store(0, "Store1"));
@@ -311,4 +501,171 @@ public class DataServiceTest {
     assertTrue(deleted);
     assertNull(dataService.getCoupon(coupon.getId()));
   }
+
+  @Test
+  public void deleteStoreCascadesTest() {
+    Store store = dataService.addStore(new Store(0, "Doomed Store"));
+    Store other = dataService.addStore(new Store(0, "Other Store"));
+    Item item = dataService.addItem(new Item(0, "Doomed Item", 5.0, store.getId(), "cat"));
+    final Item kept = dataService.addItem(new Item(0, "Kept Item", 5.0, other.getId(), "cat"));
+    final Coupon ownCoupon = dataService.addCoupon(
+        new TotalPriceCoupon(0, store.getId(), 10.0, true, 50.0));
+    final Coupon targeting = dataService.addCoupon(
+        new ItemCoupon(0, other.getId(), 5.0, false, item.getId()));
+    final Coupon keptCoupon = dataService.addCoupon(
+        new ItemCoupon(0, other.getId(), 5.0, false, kept.getId()));
+
+    DeleteReport report = dataService.deleteStoreWithContents(store.getId());
+
+    assertEquals(1, report.getStoresDeleted());
+    assertEquals(1, report.getItemsDeleted());
+    assertEquals(2, report.getCouponsDeleted());
+    assertNull(dataService.getStore(store.getId()));
+    assertNull(dataService.getItem(item.getId()));
+    assertNull(dataService.getCoupon(ownCoupon.getId()));
+    assertNull(dataService.getCoupon(targeting.getId()));
+    assertNotNull(dataService.getItem(kept.getId()));
+    assertNotNull(dataService.getCoupon(keptCoupon.getId()));
+    assertNull(dataService.deleteStoreWithContents(store.getId()));
+  }
+
+  @Test
+  public void deleteItemsTest() {
+    Store store = dataService.addStore(new Store(0, "Store1"));
+    Item first = dataService.addItem(new Item(0, "Item1", 1.0, store.getId(), "cat"));
+    Item second = dataService.addItem(new Item(0, "Item2", 2.0, store.getId(), "cat"));
+    final Item kept = dataService.addItem(new Item(0, "Item3", 3.0, store.getId(), "cat"));
+    dataService.addCoupon(new ItemCoupon(0, store.getId(), 5.0, false, first.getId()));
+
+    DeleteReport report = dataService.deleteItems(
+        List.of(first.getId(), second.getId(), first.getId(), -1));
+
+    assertEquals(2, report.getItemsDeleted());
+    assertEquals(1, report.getCouponsDeleted());
+    assertEquals(1, report.getBatches());
+    assertEquals(List.of(kept.getId()), dataService.getItemsByStore(store.getId()).stream()
+        .map(Item::getId).toList());
+    assertTrue(dataService.getCouponsByStore(store.getId()).isEmpty());
+  }
+
+  @Test
+  public void deleteItemsByStoreInBatchesTest() {
+    Store store = dataService.addStore(new Store(0, "Large Store"));
+    List<Item> items = new ArrayList<>();
+    for (int i = 0; i < 2500; i++) {
+      items.add(new Item(0, "Bulk" + i, 1.0, store.getId(), "cat"));
+    }
+    dataService.addItems(items);
+    final Coupon coupon = dataService.addCoupon(
+        new TotalPriceCoupon(0, store.getId(), 10.0, true, 50.0));
+
+    DeleteReport report = dataService.deleteItemsByStore(store.getId());
+
+    assertEquals(2500, report.getItemsDeleted());
+    assertEquals(3, report.getBatches());
+    assertTrue(dataService.getItemsByStore(store.getId()).isEmpty());
+    assertNotNull(dataService.getStore(store.getId()));
+    assertNotNull(dataService.getCoupon(coupon.getId()));
+  }
+
+  @Test
+  public void deleteCouponsTest() {
+    Store store = dataService.addStore(new Store(0, "Store1"));
+    Coupon first = dataService.addCoupon(
+        new TotalPriceCoupon(0, store.getId(), 10.0, true, 50.0));
+    Coupon second = dataService.addCoupon(
+        new CategoryCoupon(0, store.getId(), 5.0, false, "cat"));
+
+    assertEquals(1, dataService.deleteCoupons(List.of(first.getId(), -1))
+        .getCouponsDeleted());
+    assertEquals(1, dataService.deleteCouponsByStore(store.getId()).getCouponsDeleted());
+    assertNull(dataService.getCoupon(second.getId()));
+  }
+
+  @Test
+  public void addCouponsTest() {
+    Store store = dataService.addStore(new Store(0, "Store1"));
+
+    List<Coupon> added = dataService.addCoupons(List.of(
+        new TotalPriceCoupon(0, store.getId(), 10.0, true, 50.0),
+        new CategoryCoupon(0, store.getId(), 5.0, false, "cat")));
+
+    assertEquals(2, added.size());
+    assertTrue(added.get(0).getId() > 0);
+    assertEquals(2, dataService.getCouponsByStore(store.getId()).size());
+  }
+
+  @Test
+  public void findExistingIdsTest() {
+    Store store = dataService.addStore(new Store(0, "Store1"));
+    Item item = dataService.addItem(new Item(0, "Item1", 1.0, store.getId(), "cat"));
+
+    assertEquals(Set.of(store.getId()),
+        dataService.findExistingStoreIds(List.of(store.getId(), store.getId(), -1)));
+    assertEquals(Set.of(item.getId()),
+        dataService.findExistingItemIds(List.of(item.getId(), -1)));
+  }
+
+  @Test
+  public void getStoresAndItemsByIdsTest() {
+    Store store = dataService.addStore(new Store(0, "Store1"));
+    Store other = dataService.addStore(new Store(0, "Store2"));
+    Item first = dataService.addItem(new Item(0, "Item1", 1.0, store.getId(), "cat"));
+    Item second = dataService.addItem(new Item(0, "Item2", 2.0, other.getId(), "cat"));
+    Item third = dataService.addItem(new Item(0, "Item3", 3.0, store.getId(), "cat"));
+    dataService.addItem(new Item(0, "Item4", 4.0, store.getId(), "cat"));
+
+    assertEquals(Set.of(store.getId(), other.getId()),
+        dataService.getStoresByIds(List.of(store.getId(), other.getId(), store.getId(), -1))
+            .stream().map(Store::getId).collect(Collectors.toSet()));
+    assertEquals(Set.of(first.getId(), second.getId(), third.getId()),
+        dataService.getItemsByStoresAfter(List.of(store.getId(), other.getId(), -1), 0, 2)
+            .stream().map(Item::getId).collect(Collectors.toSet()));
+    assertEquals(List.of(third.getId()),
+        dataService.getItemsByStoresAfter(List.of(store.getId()), first.getId(), 1)
+            .stream().map(Item::getId).toList());
+    assertTrue(dataService.getStoresByIds(List.of()).isEmpty());
+  }
+
+  @Test
+  public void updatePricesTest() {
+    Store store = dataService.addStore(new Store(0, "Store1"));
+    Store other = dataService.addStore(new Store(0, "Store2"));
+    Item first = dataService.addItem(new Item(0, "Item1", 1.0, store.getId(), "cat"));
+    Item second = dataService.addItem(new Item(0, "Item2", 2.0, other.getId(), "cat"));
+    final Item kept = dataService.addItem(new Item(0, "Item3", 3.0, store.getId(), "cat"));
+    Map<Integer, Double> prices = new LinkedHashMap<>();
+    prices.put(first.getId(), 1.5);
+    prices.put(second.getId(), 0.0);
+    prices.put(-1, 9.0);
+
+    PriceUpdateReport report = dataService.updatePrices(prices);
+
+    assertEquals(2, report.getItemsUpdated());
+    assertEquals(1, report.getBatches());
+    assertEquals(List.of(store.getId(), other.getId()), report.getStoresAffected());
+    assertEquals(1.5, dataService.getItem(first.getId()).getPrice());
+    assertEquals(0.0, dataService.getItem(second.getId()).getPrice());
+    assertEquals(3.0, dataService.getItem(kept.getId()).getPrice());
+  }
+
+  @Test
+  public void scaleCategoryPricesInBatchesTest() {
+    Store store = dataService.addStore(new Store(0, "Garden Store"));
+    List<Item> items = new ArrayList<>();
+    for (int i = 0; i < 2500; i++) {
+      items.add(new Item(0, "Plant" + i, 9.99, store.getId(), i % 2 == 0 ? "Plants" : "tools"));
+    }
+    final List<Item> added = dataService.addItems(items);
+
+    PriceUpdateReport report = dataService.scaleCategoryPrices(store.getId(), "plants", -10);
+
+    assertEquals(1250, report.getItemsUpdated());
+    assertEquals(2, report.getBatches());
+    assertEquals(List.of(store.getId()), report.getStoresAffected());
+    assertEquals(8.99, dataService.getItem(added.get(0).getId()).getPrice());
+    assertEquals(9.99, dataService.getItem(added.get(1).getId()).getPrice());
+    assertEquals(0, dataService.scaleCategoryPrices(store.getId(), "none", 5)
+        .getItemsUpdated());
+  }
 }
@@ -0,0 +1,52 @@
+package org.nullpointers.couponsystem.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.nullpointers.couponsystem.model.Item;
+
+/**
+ * Unit tests for the ItemFields class.
+ */
+public class ItemFieldsTest {
+  @Test
+  public void parseKeepsSerializationOrderTest() {
+    ItemFields fields = ItemFields.parse(" price , id,,name,id");
+
+    assertEquals(List.of("id", "name", "price"), fields.getNames());
+  }
+
+  @Test
+  public void parseRejectsUnknownAndEmptyFieldsTest() {
+    IllegalArgumentException unknown = assertThrows(IllegalArgumentException.class,
+        () -> ItemFields.parse("id,Name"));
+    assertEquals("Unknown field: Name. Allowed fields: id, name, price, storeId, category.",
+        unknown.getMessage());
+    assertThrows(IllegalArgumentException.class, () -> ItemFields.parse(","));
+  }
+
+  @Test
+  public void projectItemTest() throws JsonProcessingException {
+    Item item = new Item(7, "Pen", 1.5, 3, "office");
+
+    ItemRow row = ItemFields.parse("category,price").project(item);
+
+    assertEquals(1.5, row.get("price"));
+    assertEquals("office", row.get("category"));
+    assertNull(row.get("id"));
+    assertEquals("{\"price\":1.5,\"category\":\"office\"}",
+        new ObjectMapper().writeValueAsString(row));
+  }
+
+  @Test
+  public void columnsWithTest() {
+    ItemFields fields = ItemFields.parse("name,id");
+
+    assertEquals(List.of("id", "name", "price"), fields.columnsWith("id", "price"));
+  }
+}
@@ -0,0 +1,55 @@
+package org.nullpointers.couponsystem.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the PageCursor and KeysetPage classes.
+ */
+public class PageCursorTest {
+
+  @Test
+  public void encodeDecodeRoundTripTest() {
+    PageCursor cursor = PageCursor.decode(PageCursor.after(19.99, 1234).encode());
+
+    assertEquals(19.99, cursor.getPrice());
+    assertEquals(1234, cursor.getId());
+    assertFalse(cursor.isStart());
+    assertEquals(1234, PageCursor.decode(PageCursor.afterId(1234).encode()).getId());
+  }
+
+  @Test
+  public void missingCursorIsStartTest() {
+    assertSame(PageCursor.START, PageCursor.decode(null));
+    assertSame(PageCursor.START, PageCursor.decode(" "));
+    assertTrue(PageCursor.START.isStart());
+  }
+
+  @Test
+  public void invalidCursorTest() {
+    assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("%%%"));
+    assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("AAAA"));
+  }
+
+  @Test
+  public void pageOfExtraRowHasNextTest() {
+    KeysetPage<Integer> page = KeysetPage.of(List.of(1, 2, 3), 2, PageCursor::afterId);
+
+    assertEquals(List.of(1, 2), page.getItems());
+    assertEquals(2, PageCursor.decode(page.getNext()).getId());
+  }
+
+  @Test
+  public void lastPageHasNoNextTest() {
+    KeysetPage<Integer> page = KeysetPage.of(List.of(1, 2), 2, PageCursor::afterId);
+
+    assertEquals(List.of(1, 2), page.getItems());
+    assertFalse(page.hasNext());
+  }
+}
@@ -0,0 +1,165 @@
+package org.nullpointers.couponsystem.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.nullpointers.couponsystem.model.Coupon;
+import org.nullpointers.couponsystem.model.Item;
+import org.nullpointers.couponsystem.model.TotalPriceCoupon;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Unit tests for the SplitBasketOptimizer class.
+ */
+@SpringBootTest
+@ActiveProfiles("test1")
+public class SplitBasketOptimizerTest {
+  private static final long BUDGET = TimeUnit.MILLISECONDS.toNanos(50);
+
+  private DataService mockDataService;
+  private Map<Integer, List<Coupon>> coupons;
+
+  /**
+   * Sets up a two-entry list over three stores before each test.
+   * Store 1 is cheapest for apples, store 2 for bread, and store 3 carries both at
+   * higher prices but has a $20 off $50 coupon.
+   */
+  @BeforeEach
+  public void setUp() {
+    mockDataService = mock(DataService.class);
+    ArrayList<Item> apples = new ArrayList<>();
+    apples.add(new Item(1, "Apple", 20.0, 1, "fruit"));
+    apples.add(new Item(2, "Apple", 30.0, 3, "fruit"));
+    ArrayList<Item> bread = new ArrayList<>();
+    bread.add(new Item(3, "Bread", 22.0, 2, "bakery"));
+    bread.add(new Item(4, "Bread", 25.0, 3, "bakery"));
+    when(mockDataService.searchItemsByKeyword("Apple")).thenReturn(apples);
+    when(mockDataService.searchItemsByKeyword("Bread")).thenReturn(bread);
+
+    coupons = new HashMap<>();
+    coupons.put(3, List.of(new TotalPriceCoupon(10, 3, 20.0, false, 50.0)));
+  }
+
+  private SplitBasketOptimizer optimizerFor(List<String> keywords) {
+    return new SplitBasketOptimizer(
+        ShoppingListIndex.build(mockDataService, keywords, null), coupons);
+  }
+
+  @Test
+  public void optimizeCrossesCouponThresholdTest() {
+    // Splitting costs 20 + 22 = 42, but store 3 crosses $50 and costs 55 - 20 = 35
+    SplitBasketOptimizer.Result result =
+        optimizerFor(List.of("Apple", "Bread")).optimize(2, BUDGET, 1L);
+
+    assertNotNull(result);
+    assertEquals(35.0, result.getTotalPrice(), 0.001);
+    assertEquals(1, result.getStoreCarts().size());
+    assertTrue(result.getStoreCarts().containsKey(3));
+  }
+
+  @Test
+  public void optimizeSplitsWhenNoCouponHelpsTest() {
+    coupons.clear();
+
+    SplitBasketOptimizer.Result result =
+        optimizerFor(List.of("Apple", "Bread")).optimize(2, BUDGET, 1L);
+
+    assertEquals(42.0, result.getTotalPrice(), 0.001);
+    assertEquals(2, result.getStoreCarts().size());
+  }
+
+  @Test
+  public void optimizeRespectsStoreLimitTest() {
+    coupons.clear();
+
+    SplitBasketOptimizer.Result result =
+        optimizerFor(List.of("Apple", "Bread")).optimize(1, BUDGET, 1L);
+
+    assertEquals(55.0, result.getTotalPrice(), 0.001);
+    assertEquals(1, result.getStoreCarts().size());
+  }
+
+  @Test
+  public void optimizeImprovementsNeverGetWorseTest() {
+    SplitBasketOptimizer.Result result =
+        optimizerFor(List.of("Apple", "Bread")).optimize(2, BUDGET, 1L);
+
+    List<SplitBasketOptimizer.Improvement> improvements = result.getImprovements();
+    assertTrue(improvements.size() >= 1);
+    for (int i = 1; i < improvements.size(); i++) {
+      assertTrue(improvements.get(i).getTotalPrice()
+          < improvements.get(i - 1).getTotalPrice());
+    }
+    assertEquals(result.getTotalPrice(),
+        improvements.get(improvements.size() - 1).getTotalPrice(), 0.001);
+  }
+
+  @Test
+  public void optimizeStopsOnceConvergedTest() {
+    SplitBasketOptimizer.Result result = optimizerFor(List.of("Apple", "Bread"))
+        .optimize(2, TimeUnit.SECONDS.toNanos(30), 1L);
+
+    assertEquals(35.0, result.getTotalPrice(), 0.001);
+    assertTrue(result.getIterations() <= SplitBasketOptimizer.MAX_STALE_ROUNDS + 1);
+    assertTrue(result.getElapsedMicros() < TimeUnit.SECONDS.toMicros(5));
+  }
+
+  @Test
+  public void optimizeFindsCoverTheGreedyOneMissesTest() {
+    // Store 1 carries the most entries, but only stores 2 and 3 together carry them all
+    String[][] carriedBy = {{"A", "1", "2"}, {"B", "1", "2"}, {"C", "1", "3"},
+        {"D", "1", "3"}, {"E", "2"}, {"F", "3"}};
+    int id = 100;
+    for (String[] entry : carriedBy) {
+      ArrayList<Item> matches = new ArrayList<>();
+      for (int i = 1; i < entry.length; i++) {
+        matches.add(new Item(id++, entry[0], 1.0, Integer.parseInt(entry[i]), "misc"));
+      }
+      when(mockDataService.searchItemsByKeyword(entry[0])).thenReturn(matches);
+    }
+    coupons.clear();
+
+    SplitBasketOptimizer.Result result =
+        optimizerFor(List.of("A", "B", "C", "D", "E", "F")).optimize(2, BUDGET, 1L);
+
+    assertNotNull(result);
+    assertEquals(Set.of(2, 3), result.getStoreCarts().keySet());
+    assertEquals(6.0, result.getTotalPrice(), 0.001);
+  }
+
+  @Test
+  public void optimizeWithUncoverableEntryTest() {
+    when(mockDataService.searchItemsByKeyword("Caviar")).thenReturn(new ArrayList<>());
+
+    assertNull(optimizerFor(List.of("Apple", "Caviar")).optimize(3, BUDGET, 1L));
+  }
+
+  @Test
+  public void optimizeWithZeroStoresTest() {
+    assertNull(optimizerFor(List.of("Apple")).optimize(0, BUDGET, 1L));
+  }
+
+  @Test
+  public void optimizerRejectsOversizedListTest() {
+    ArrayList<String> keywords = new ArrayList<>();
+    for (int i = 0; i <= SplitBasketOptimizer.MAX_ENTRIES; i++) {
+      keywords.add("Apple");
+    }
+
+    assertThrows(IllegalArgumentException.class, () -> optimizerFor(keywords));
+  }
+}
@@ -0,0 +1,223 @@
+package org.nullpointers.couponsystem.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.nullpointers.couponsystem.catalog.CatalogChangeEvent;
+import org.nullpointers.couponsystem.catalog.CatalogReplica;
+import org.nullpointers.couponsystem.model.Item;
+import org.nullpointers.couponsystem.model.Store;
+import org.nullpointers.couponsystem.model.TotalPriceCoupon;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Tests for the StoreStreamService class, with emitters that record what is sent to them
+ * instead of writing to a connection.
+ */
+@SpringBootTest
+@ActiveProfiles("test1")
+public class StoreStreamServiceTest {
+  @Autowired
+  private StoreStreamService storeStreamService;
+
+  @Autowired
+  private DataService dataService;
+
+  @Autowired
+  private CatalogReplica catalogReplica;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  private Store store;
+  private Store other;
+
+  /**
+   * Creates two stores.
+   */
+  @BeforeEach
+  public void setUp() {
+    store = dataService.addStore(new Store(0, "Streamed Store"));
+    other = dataService.addStore(new Store(0, "Other Store"));
+  }
+
+  /**
+   * Removes the test stores.
+   */
+  @AfterEach
+  public void tearDown() {
+    dataService.deleteStoreWithContents(store.getId());
+    dataService.deleteStoreWithContents(other.getId());
+  }
+
+  @Test
+  public void pushesChangesToTheStoresSubscribersTest() throws Exception {
+    RecordingEmitter emitter = new RecordingEmitter(null);
+    assertTrue(storeStreamService.register(store.getId(), emitter));
+
+    final Item item = dataService.addItem(new Item(0, "Tulip", 2.0, store.getId(), "flowers"));
+    dataService.addItem(new Item(0, "Elsewhere", 5.0, other.getId(), "misc"));
+    dataService.addCoupon(new TotalPriceCoupon(0, store.getId(), 10.0, true, 20.0));
+    dataService.deleteItem(item.getId());
+    emitter.await("event:item-deleted");
+
+    String sent = emitter.text();
+    assertTrue(sent.indexOf("event:item\ndata:") < sent.indexOf("event:coupon\ndata:"));
+    assertTrue(sent.contains("Tulip"));
+    assertTrue(sent.contains("data:{\"id\":" + item.getId() + "}"));
+    assertFalse(sent.contains("Elsewhere"));
+
+    // Deleting the store ends its stream
+    dataService.deleteStoreWithContents(store.getId());
+    emitter.await("event:store-deleted");
+    assertTrue(emitter.completed.await(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void slowSubscribersGetOnlyTheLatestUpdateTest() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    RecordingEmitter emitter = new RecordingEmitter(release);
+    storeStreamService.register(store.getId(), emitter);
+
+    final Item item = dataService.addItem(new Item(0, "Lily", 1.25, store.getId(), "flowers"));
+    // The client stops reading while the first update is written
+    emitter.await("1.25");
+    dataService.updatePrices(Map.of(item.getId(), 7.75));
+    dataService.updatePrices(Map.of(item.getId(), 9.5));
+    release.countDown();
+    emitter.await("9.5");
+
+    String sent = emitter.text();
+    assertTrue(sent.contains("1.25"));
+    assertFalse(sent.contains("7.75"));
+    assertEquals(2, sent.split("event:item\n", -1).length - 1);
+  }
+
+  @Test
+  public void subscribersTooFarBehindAreDroppedTest() throws Exception {
+    StoreStreamService service = new StoreStreamService(catalogReplica, objectMapper, 1,
+        Duration.ofMinutes(1), Duration.ofMinutes(1), 2, 3);
+    try {
+      CountDownLatch release = new CountDownLatch(1);
+      RecordingEmitter slow = new RecordingEmitter(release);
+      assertTrue(service.register(7, slow));
+      service.onCatalogChange(CatalogChangeEvent.saved(new Item(1, "Item1", 1.0, 7, "misc")));
+      slow.await("Item1");
+      for (int id = 2; id <= 4; id++) {
+        service.onCatalogChange(CatalogChangeEvent.saved(
+            new Item(id, "Item" + id, 1.0, 7, "misc")));
+      }
+
+      // The backlog holds two updates, so falling three behind drops the subscriber
+      assertEquals(1, service.getDroppedCount());
+      assertEquals(0, service.getSubscriberCount());
+      release.countDown();
+      assertTrue(slow.completed.await(5, TimeUnit.SECONDS));
+      assertFalse(slow.text().contains("Item2"));
+
+      assertTrue(service.register(7, new RecordingEmitter(null)));
+      assertTrue(service.register(8, new RecordingEmitter(null)));
+      assertTrue(service.register(8, new RecordingEmitter(null)));
+      assertFalse(service.register(9, new RecordingEmitter(null)));
+    } finally {
+      service.shutdown();
+    }
+  }
+
+  @Test
+  public void stalledWritesAreAbortedTest() throws Exception {
+    StoreStreamService service = new StoreStreamService(catalogReplica, objectMapper, 1,
+        Duration.ofMinutes(1), Duration.ofMillis(100), 16, 10);
+    try {
+      // A client that never reads blocks the only sender thread
+      RecordingEmitter stalled = new RecordingEmitter(new CountDownLatch(1));
+      RecordingEmitter reader = new RecordingEmitter(null);
+      service.register(7, stalled);
+      service.register(8, reader);
+      service.onCatalogChange(CatalogChangeEvent.saved(new Item(1, "Item1", 1.0, 7, "misc")));
+      stalled.await("Item1");
+      service.onCatalogChange(CatalogChangeEvent.saved(new Item(2, "Item2", 1.0, 8, "misc")));
+      Thread.sleep(200);
+      assertFalse(reader.text().contains("Item2"));
+
+      service.abortStalledSends();
+      assertTrue(stalled.failed.await(5, TimeUnit.SECONDS));
+      reader.await("Item2");
+      assertEquals(1, service.getDroppedCount());
+      assertEquals(1, service.getSubscriberCount());
+
+      // The freed thread keeps serving, without the interrupt carried over
+      service.onCatalogChange(CatalogChangeEvent.saved(new Item(3, "Item3", 1.0, 8, "misc")));
+      reader.await("Item3");
+      service.abortStalledSends();
+      assertEquals(1, service.getDroppedCount());
+    } finally {
+      service.shutdown();
+    }
+  }
+
+  /**
+   * Emitter that keeps the text sent to it, optionally holding the first send until
+   * released, like a client that stopped reading. An interrupted send fails as a write to
+   * a closed connection would.
+   */
+  private static class RecordingEmitter extends SseEmitter {
+    private final StringBuffer sent = new StringBuffer();
+    private final CountDownLatch release;
+    private final CountDownLatch completed = new CountDownLatch(1);
+    private final CountDownLatch failed = new CountDownLatch(1);
+
+    RecordingEmitter(CountDownLatch release) {
+      this.release = release;
+    }
+
+    @Override
+    public void send(Set<DataWithMediaType> items) throws IOException {
+      items.forEach(item -> sent.append(item.getData()));
+      if (release != null) {
+        try {
+          release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IOException("Write interrupted", e);
+        }
+      }
+    }
+
+    @Override
+    public void complete() {
+      completed.countDown();
+    }
+
+    @Override
+    public void completeWithError(Throwable ex) {
+      failed.countDown();
+    }
+
+    String text() {
+      return sent.toString();
+    }
+
+    void await(String text) throws InterruptedException {
+      final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+      while (!text().contains(text) && System.nanoTime() < deadline) {
+        Thread.sleep(10);
+      }
+      assertTrue(text().contains(text), () -> "Not sent: " + text + " in " + text());
+    }
+  }
+}